@@ -0,0 +1,278 @@
+package bench;
+
+import java.io.IOException;
+import java.io.PrintStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Compares the JSON results of a JMH run against a stored baseline run.
+ * <p>
+ * A result is keyed by its benchmark and its parameters, and a result that is missing from either run is
+ * reported but never counted as a regression. The score of a throughput result regresses when it falls, any
+ * other mode when it rises, by more than the threshold fraction of the baseline score.
+ * </p>
+ */
+public class Baseline {
+    private Baseline() {
+    }
+
+    /**
+     * The primary metric of one benchmark with one set of parameters.
+     */
+    public static class Result {
+        public final String key;
+        public final String mode;
+        public final double score;
+        public final double error;
+        public final String unit;
+
+        Result(String key, String mode, double score, double error, String unit) {
+            this.key = key;
+            this.mode = mode;
+            this.score = score;
+            this.error = error;
+            this.unit = unit;
+        }
+
+        /**
+         * @return the relative change from baseline to this result, positive when this result is better.
+         */
+        double changeFrom(Result baseline) {
+            double change = (score - baseline.score) / baseline.score;
+            return mode.equals("thrpt") ? change : -change;
+        }
+    }
+
+    /**
+     * Reads the results of a JMH run written with {@code -rf json}.
+     *
+     * @return the results by key, in the order of the file.
+     * @throws IOException if the file cannot be read or is not JMH JSON.
+     */
+    @SuppressWarnings("unchecked")
+    public static Map<String, Result> read(Path path) throws IOException {
+        Object json;
+        try {
+            json = new JsonReader(Files.readString(path, StandardCharsets.UTF_8)).read();
+        } catch (IllegalStateException e) {
+            throw new IOException(path + ": " + e.getMessage(), e);
+        }
+        if (!(json instanceof List)) throw new IOException(path + ": not a JMH result array");
+
+        Map<String, Result> results = new LinkedHashMap<>();
+        for (Object o : (List<Object>) json) {
+            Map<String, Object> run = (Map<String, Object>) o;
+            Map<String, Object> metric = (Map<String, Object>) run.get("primaryMetric");
+            Object params = run.get("params");
+            String key = key((String) run.get("benchmark"),
+                    params == null ? Map.of() : (Map<String, Object>) params);
+            results.put(key, new Result(key, (String) run.get("mode"), (Double) metric.get("score"),
+                    metric.get("scoreError") instanceof Double e ? e : Double.NaN, (String) metric.get("scoreUnit")));
+        }
+        return results;
+    }
+
+    /**
+     * Prints a table of every result against its baseline.
+     *
+     * @param threshold the fraction of the baseline score a result may worsen by before it is a regression.
+     * @return the keys of the regressed results.
+     */
+    public static List<String> compare(Map<String, Result> baseline, Map<String, Result> current, double threshold,
+                                       PrintStream out) {
+        List<String> regressions = new ArrayList<>();
+        out.printf("%-72s %14s %14s %-10s %8s%n", "benchmark", "baseline", "current", "unit", "change");
+        for (Result r : current.values()) {
+            Result base = baseline.get(r.key);
+            if (base == null) {
+                out.printf("%-72s %14s %14.3f %-10s %8s%n", r.key, "-", r.score, r.unit, "new");
+                continue;
+            }
+            double change = r.changeFrom(base);
+            boolean regressed = base.mode.equals(r.mode) && change < -threshold;
+            if (regressed) regressions.add(r.key);
+            out.printf("%-72s %14.3f %14.3f %-10s %+7.1f%%%s%n",
+                    r.key, base.score, r.score, r.unit, 100 * change, regressed ? "  REGRESSION" : "");
+        }
+        for (Result base : baseline.values())
+            if (!current.containsKey(base.key))
+                out.printf("%-72s %14.3f %14s %-10s %8s%n", base.key, base.score, "-", base.unit, "missing");
+        return regressions;
+    }
+
+    private static String key(String benchmark, Map<String, Object> params) {
+        if (params.isEmpty()) return benchmark;
+        StringBuilder sb = new StringBuilder(benchmark).append(':');
+        new TreeMap<>(params).forEach((name, value) -> sb.append(name).append('=').append(value).append(','));
+        sb.setLength(sb.length() - 1);
+        return sb.toString();
+    }
+
+    /**
+     * A recursive descent reader for the subset of JSON that JMH writes.
+     * Objects are read as {@link Map}s, arrays as {@link List}s, numbers as {@link Double}s and
+     * "NaN" or "Infinity" as the matching doubles, as JMH writes them in quotes.
+     */
+    static class JsonReader {
+        private final String s;
+        private int pos;
+
+        JsonReader(String s) {
+            this.s = s;
+            this.pos = 0;
+        }
+
+        Object read() {
+            Object value = value();
+            skipWhiteSpace();
+            if (pos != s.length()) throw error("trailing characters");
+            return value;
+        }
+
+        private Object value() {
+            skipWhiteSpace();
+            if (pos == s.length()) throw error("unexpected end of input");
+            char c = s.charAt(pos);
+            switch (c) {
+                case '{':
+                    return object();
+                case '[':
+                    return array();
+                case '"':
+                    String str = string();
+                    return switch (str) {
+                        case "NaN" -> Double.NaN;
+                        case "Infinity" -> Double.POSITIVE_INFINITY;
+                        case "-Infinity" -> Double.NEGATIVE_INFINITY;
+                        default -> str;
+                    };
+                case 't':
+                    return literal("true", Boolean.TRUE);
+                case 'f':
+                    return literal("false", Boolean.FALSE);
+                case 'n':
+                    return literal("null", null);
+                default:
+                    return number();
+            }
+        }
+
+        private Map<String, Object> object() {
+            Map<String, Object> map = new LinkedHashMap<>();
+            pos++;
+            skipWhiteSpace();
+            if (peek() == '}') {
+                pos++;
+                return map;
+            }
+            while (true) {
+                skipWhiteSpace();
+                if (peek() != '"') throw error("expected a name");
+                String name = string();
+                skipWhiteSpace();
+                expect(':');
+                map.put(name, value());
+                skipWhiteSpace();
+                if (peek() == ',') {
+                    pos++;
+                    continue;
+                }
+                expect('}');
+                return map;
+            }
+        }
+
+        private List<Object> array() {
+            List<Object> list = new ArrayList<>();
+            pos++;
+            skipWhiteSpace();
+            if (peek() == ']') {
+                pos++;
+                return list;
+            }
+            while (true) {
+                list.add(value());
+                skipWhiteSpace();
+                if (peek() == ',') {
+                    pos++;
+                    continue;
+                }
+                expect(']');
+                return list;
+            }
+        }
+
+        private String string() {
+            StringBuilder sb = new StringBuilder();
+            pos++;
+            while (true) {
+                if (pos == s.length()) throw error("unterminated string");
+                char c = s.charAt(pos++);
+                if (c == '"') return sb.toString();
+                if (c != '\\') {
+                    sb.append(c);
+                    continue;
+                }
+                if (pos == s.length()) throw error("unterminated string");
+                char e = s.charAt(pos++);
+                switch (e) {
+                    case 'b' -> sb.append('\b');
+                    case 'f' -> sb.append('\f');
+                    case 'n' -> sb.append('\n');
+                    case 'r' -> sb.append('\r');
+                    case 't' -> sb.append('\t');
+                    case 'u' -> {
+                        if (pos + 4 > s.length()) throw error("bad unicode escape");
+                        sb.append((char) Integer.parseInt(s.substring(pos, pos + 4), 16));
+                        pos += 4;
+                    }
+                    default -> sb.append(e);
+                }
+            }
+        }
+
+        private Double number() {
+            int start = pos;
+            while (pos < s.length() && "+-0123456789.eE".indexOf(s.charAt(pos)) >= 0)
+                pos++;
+            if (start == pos) throw error("unexpected character '" + s.charAt(pos) + "'");
+            try {
+                return Double.parseDouble(s.substring(start, pos));
+            } catch (NumberFormatException e) {
+                throw error("bad number " + s.substring(start, pos));
+            }
+        }
+
+        private Object literal(String word, Object value) {
+            if (!s.startsWith(word, pos)) throw error("unexpected character '" + s.charAt(pos) + "'");
+            pos += word.length();
+            return value;
+        }
+
+        private char peek() {
+            if (pos == s.length()) throw error("unexpected end of input");
+            return s.charAt(pos);
+        }
+
+        private void expect(char c) {
+            if (peek() != c) throw error("expected '" + c + "'");
+            pos++;
+        }
+
+        private void skipWhiteSpace() {
+            while (pos < s.length() && Character.isWhitespace(s.charAt(pos)))
+                pos++;
+        }
+
+        private IllegalStateException error(String message) {
+            return new IllegalStateException(message + " at offset " + pos);
+        }
+    }
+}
@@ -0,0 +1,98 @@
+package bench;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class BaselineTest {
+    @TempDir
+    Path dir;
+
+    private static String run(String benchmark, String mode, String params, double score) {
+        return """
+                {
+                    "jmhVersion" : "1.37",
+                    "benchmark" : "%s",
+                    "mode" : "%s",
+                    "threads" : 1,
+                    "jvmArgs" : [ "-Xmx1g" ],
+                    %s
+                    "primaryMetric" : {
+                        "score" : %s,
+                        "scoreError" : "NaN",
+                        "scoreConfidence" : [ "NaN", "NaN" ],
+                        "scoreUnit" : "ops/s",
+                        "rawData" : [ [ 1.0E7, 2.5e-3 ] ]
+                    },
+                    "secondaryMetrics" : { }
+                }""".formatted(benchmark, mode, params.isEmpty() ? "" : "\"params\" : {" + params + "},", score);
+    }
+
+    private Map<String, Baseline.Result> write(String name, String... runs) throws IOException {
+        Path path = dir.resolve(name);
+        Files.writeString(path, "[\n" + String.join(",\n", runs) + "\n]\n");
+        return Baseline.read(path);
+    }
+
+    @Test
+    void testRead() throws IOException {
+        Map<String, Baseline.Result> results = write("a.json",
+                run("lexer.LexerBench.scan", "thrpt", "", 1.5e7),
+                run("symbols.EnvBench.get", "avgt", "\"depth\" : \"4\", \"cacheResolved\" : \"true\"", 12.25));
+        assertEquals(List.of("lexer.LexerBench.scan", "symbols.EnvBench.get:cacheResolved=true,depth=4"),
+                List.copyOf(results.keySet()));
+        Baseline.Result env = results.get("symbols.EnvBench.get:cacheResolved=true,depth=4");
+        assertEquals("avgt", env.mode);
+        assertEquals(12.25, env.score);
+        assertTrue(Double.isNaN(env.error));
+        assertEquals("ops/s", env.unit);
+    }
+
+    @Test
+    void testCompare() throws IOException {
+        Map<String, Baseline.Result> baseline = write("baseline.json",
+                run("a.Bench.thrptWorse", "thrpt", "", 100),
+                run("a.Bench.thrptNoise", "thrpt", "", 100),
+                run("a.Bench.avgtWorse", "avgt", "", 100),
+                run("a.Bench.avgtBetter", "avgt", "", 100),
+                run("a.Bench.removed", "thrpt", "", 100));
+        Map<String, Baseline.Result> current = write("current.json",
+                run("a.Bench.thrptWorse", "thrpt", "", 80),
+                run("a.Bench.thrptNoise", "thrpt", "", 95),
+                run("a.Bench.avgtWorse", "avgt", "", 120),
+                run("a.Bench.avgtBetter", "avgt", "", 50),
+                run("a.Bench.added", "thrpt", "", 100));
+
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        List<String> regressions = Baseline.compare(baseline, current, 0.10, new PrintStream(out));
+        assertEquals(List.of("a.Bench.thrptWorse", "a.Bench.avgtWorse"), regressions);
+        String table = out.toString();
+        assertTrue(table.contains("a.Bench.added"));
+        assertTrue(table.contains("missing"));
+        assertTrue(table.contains("+50.0%"));
+    }
+
+    @Test
+    void testMalformed() throws IOException {
+        Path path = dir.resolve("bad.json");
+        Files.writeString(path, "[ { \"benchmark\" : ");
+        assertThrows(IOException.class, () -> Baseline.read(path));
+        Files.writeString(path, "{}");
+        assertThrows(IOException.class, () -> Baseline.read(path));
+    }
+
+    @Test
+    void testJsonReader() {
+        Object json = new Baseline.JsonReader("{\"a\": [1, -2.5e1, true, null, \"x\\n\\u0041\"], \"b\": {}}").read();
+        assertEquals(Map.of("a", java.util.Arrays.asList(1.0, -25.0, true, null, "x\nA"), "b", Map.of()), json);
+    }
+}
@@ -0,0 +1,136 @@
+package bench;
+
+import org.openjdk.jmh.results.format.ResultFormatType;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.ChainedOptionsBuilder;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.openjdk.jmh.runner.options.TimeValue;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Runs the JMH benchmarks, writes their results as JSON and compares them against a stored baseline.
+ * <p>
+ * The benchmarks sit in the packages of the code they measure, named after it with a {@code Bench} suffix:
+ * </p>
+ * <ul>
+ * <li>{@code lexer.LexerBench} {@link lexer.Lexer#scan()} tokens/s.</li>
+ * <li>{@code parser.ParserBench} parser expressions/s.</li>
+ * <li>{@code lexer.Utf8LexerBench} {@link lexer.Lexer#scan()} ns/token by input charset, on ASCII and mixed
+ * script programs.</li>
+ * <li>{@code lexer.LexemeBench} {@link lexer.Lexer#scan()} tokens/s on identifier-dense code, from a stream and
+ * in place.</li>
+ * <li>{@code lexer.TokenStreamBench} reading tokens back from their binary encoding against scanning the
+ * source again, µs per file.</li>
+ * <li>{@code lexer.LineIndexBench} {@link lexer.LineIndex} build, in invocations per second.</li>
+ * <li>{@code parser.PipelineBench} lexer and parser statements/s and latency, serial and pipelined.</li>
+ * <li>{@code cache.CompilationCacheBench} µs per file compiled through an empty and a filled cache, against
+ * hashing the file.</li>
+ * <li>{@code driver.CompilationDriverBench} files/s of a tree of 10 000 files by number of threads.</li>
+ * <li>{@code symbols.EnvBench} {@link symbols.Env#get} ns/op by chain depth, against a walk over plain Hashtables.</li>
+ * <li>{@code utils.trie.PrefixTrieBench} {@link utils.trie.PrefixTrie} insert and lookup ns/op.</li>
+ * <li>{@code utils.AhoCorasickBench} and {@code utils.KMPBench} bytes/s.</li>
+ * <li>{@code utils.AhoCorasickWorstCaseBench} and {@code utils.AhoCorasickParallelBench} bytes/s on adversarial
+ * and dense inputs, and by the parallelism of the pool.</li>
+ * <li>{@code utils.CompiledPatternBench} ns per short input filtered.</li>
+ * <li>{@code utils.ByteBufferSearchBench} bytes/s searched in a direct buffer.</li>
+ * <li>{@code utils.search.SearcherBench} bytes/s of the {@link utils.search.Searcher}s by input.</li>
+ * <li>{@code utils.trie.DoubleArrayTrieBench} and {@code utils.trie.ArrStrategyBench} build and lookup ns/op,
+ * and the retained bytes per key of the former.</li>
+ * <li>{@code utils.trie.TrieSnapshotBench} ms from nothing to the first queries of a trie.</li>
+ * </ul>
+ * <p>
+ * All inputs come from {@link Corpus}, so runs on the same machine are comparable.
+ * </p>
+ * <p>
+ * What JMH cannot measure, a whole JVM or several processes, is left to harnesses with a main in the same
+ * packages, named with a {@code Harness} suffix and also fed by {@link Corpus}:
+ * </p>
+ * <ul>
+ * <li>{@code lexer.TokenStoreHarness} GC pauses and resident set size of a {@link lexer.TokenStore} against
+ * tokens on the heap.</li>
+ * <li>{@code driver.CompileServerHarness} latency of a compile through a warm {@link driver.CompileServer}
+ * against a new JVM per compile.</li>
+ * </ul>
+ * <p>Usage, from the project root with the bench module and JMH on the class path:
+ * </p>
+ * <blockquote><pre>
+ * java bench.Bench [options] [regexp...]
+ *
+ * regexp              benchmarks to run, all of them by default
+ * -results path       where the JSON results are written, bench/results/latest.json by default
+ * -baseline path      the baseline to compare against, bench/baseline.json by default
+ * -threshold percent  how much worse than the baseline a score may be, 10 by default
+ * -save               store the results as the new baseline instead of comparing
+ * -quick              1 warmup and 1 measurement iteration of 1 s, for a smoke test
+ * </pre></blockquote>
+ * <p>
+ * Exits with status 1 if any score regressed. Baselines are only meaningful on the machine they were saved on,
+ * so none is checked in.
+ * </p>
+ */
+public class Bench {
+    private Bench() {
+    }
+
+    public static void main(String[] args) throws IOException, RunnerException {
+        List<String> includes = new ArrayList<>();
+        Path results = Path.of("bench", "results", "latest.json");
+        Path baseline = Path.of("bench", "baseline.json");
+        double threshold = 0.10;
+        boolean save = false, quick = false;
+        for (int i = 0; i < args.length; i++) {
+            switch (args[i]) {
+                case "-results" -> results = Path.of(argument(args, ++i));
+                case "-baseline" -> baseline = Path.of(argument(args, ++i));
+                case "-threshold" -> threshold = Double.parseDouble(argument(args, ++i)) / 100;
+                case "-save" -> save = true;
+                case "-quick" -> quick = true;
+                default -> includes.add(args[i]);
+            }
+        }
+        if (includes.isEmpty()) includes.add(".*Bench\\..*");
+
+        ChainedOptionsBuilder options = new OptionsBuilder()
+                .forks(1)
+                .warmupIterations(quick ? 1 : 3)
+                .warmupTime(TimeValue.seconds(1))
+                .measurementIterations(quick ? 1 : 5)
+                .measurementTime(TimeValue.seconds(1))
+                .resultFormat(ResultFormatType.JSON)
+                .result(results.toString());
+        for (String include : includes)
+            options.include(include);
+
+        Files.createDirectories(results.toAbsolutePath().getParent());
+        new Runner(options.build()).run();
+
+        if (save) {
+            Files.copy(results, baseline, StandardCopyOption.REPLACE_EXISTING);
+            System.out.println("saved baseline " + baseline);
+            return;
+        }
+        if (!Files.exists(baseline)) {
+            System.out.println("no baseline at " + baseline + ", run with -save to store one");
+            return;
+        }
+        Map<String, Baseline.Result> base = Baseline.read(baseline);
+        List<String> regressions = Baseline.compare(base, Baseline.read(results), threshold, System.out);
+        if (!regressions.isEmpty()) {
+            System.out.printf("%d of the results regressed by more than %.0f%%%n", regressions.size(), 100 * threshold);
+            System.exit(1);
+        }
+    }
+
+    private static String argument(String[] args, int i) {
+        if (i >= args.length) throw new IllegalArgumentException(args[i - 1] + " needs an argument");
+        return args[i];
+    }
+}
@@ -0,0 +1,290 @@
+package bench;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Random;
+
+/**
+ * Generates the inputs of the benchmarks from a seed, so that every run and every machine measures exactly the
+ * same work.
+ * <ul>
+ * <li>{@link #program} source text for {@link lexer.Lexer} with an exact number of tokens, and
+ * {@link #mixedProgram} the same in UTF-8 with identifiers in several scripts. Their identifiers are mostly
+ * distinct random words, {@link #code} reads more like real code, with a small vocabulary.</li>
+ * <li>{@link #expressions} infix digit expressions for {@code parser.Parser}.</li>
+ * <li>{@link #statements} expression statements for {@link parser.TokenParser}.</li>
+ * <li>{@link #words} and {@link #text} word lists and text for the tries and the string searches,
+ * {@link #mixedWords} words in several scripts, {@link #lines} short lines to filter and {@link #sequence} text
+ * over a small alphabet.</li>
+ * </ul>
+ */
+public class Corpus {
+    public static final long SEED = 0x5EED;
+
+    private static final String[] OPERATORS = {
+            "+", "-", "*", "/", "=", "==", "!=", "<", "<=", ">", ">=", ";", "(", ")", "{", "}"};
+    private static final String[] RESERVED = {"true", "false"};
+    // first letter and number of letters of the alphabets the identifiers of mixedProgram are drawn from.
+    private static final int[][] SCRIPTS = {
+            {0x00e0, 0x17},   // accented Latin, à to ö
+            {0x03b1, 0x19},   // Greek, α to ω
+            {0x0430, 0x20},   // Cyrillic, а to я
+            {0x4e00, 0x800}}; // CJK unified ideographs
+
+    private static final int VOCABULARY = 512;
+    private static final String[] COMPARISONS = {"<", "<=", ">", ">=", "==", "!="};
+
+    private Corpus() {
+    }
+
+    /**
+     * Generates source text of exactly tokens tokens, before the EOF token: identifiers, reserved words,
+     * integers, reals and operators, separated by blanks and newlines, with a comment every few lines.
+     * Tokens are always separated by white space, so that no two of them merge into one.
+     */
+    public static byte[] program(int tokens, long seed) {
+        return program(tokens, seed, false).getBytes(StandardCharsets.US_ASCII);
+    }
+
+    /**
+     * Generates source text like {@link #program}, with about half of the identifiers in accented Latin, Greek,
+     * Cyrillic or CJK letters, encoded in UTF-8.
+     */
+    public static byte[] mixedProgram(int tokens, long seed) {
+        return program(tokens, seed, true).getBytes(StandardCharsets.UTF_8);
+    }
+
+    private static String program(int tokens, long seed, boolean mixed) {
+        Random random = new Random(seed);
+        StringBuilder sb = new StringBuilder(tokens * 6);
+        for (int i = 0; i < tokens; i++) {
+            int kind = random.nextInt(20);
+            if (kind < 8) sb.append(mixed && random.nextBoolean() ? nonAsciiIdentifier(random) : identifier(random));
+            else if (kind < 9) sb.append(RESERVED[random.nextInt(RESERVED.length)]);
+            else if (kind < 12) sb.append(random.nextInt(100_000));
+            else if (kind < 13) sb.append(random.nextInt(1000)).append('.').append(random.nextInt(1000));
+            else sb.append(OPERATORS[random.nextInt(OPERATORS.length)]);
+
+            if (random.nextInt(12) != 0) {
+                sb.append(' ');
+            } else if (random.nextInt(8) == 0) {
+                sb.append(random.nextBoolean() ? "\n// a line comment\n" : "\n/* a block\n comment */\n");
+            } else {
+                sb.append('\n');
+            }
+        }
+        return sb.toString();
+    }
+
+    /**
+     * Generates source text of at least tokens tokens that reads like code: assignments and blocks indented by
+     * depth, with identifiers drawn from a vocabulary of {@link #VOCABULARY} words with a skewed frequency, and
+     * mostly small numbers.
+     */
+    public static byte[] code(int tokens, long seed) {
+        Random random = new Random(seed);
+        String[] vocabulary = new String[VOCABULARY];
+        for (int i = 0; i < VOCABULARY; i++)
+            vocabulary[i] = identifier(random) + identifier(random);
+        StringBuilder sb = new StringBuilder(tokens * 6);
+        int count = 0;
+        int depth = 0;
+        while (count < tokens) {
+            sb.append("    ".repeat(depth));
+            int kind = random.nextInt(10);
+            if (kind == 0 && depth < 4) {
+                // name ( a < b ) {
+                sb.append(name(vocabulary, random)).append(" (").append(name(vocabulary, random)).append(' ')
+                        .append(COMPARISONS[random.nextInt(COMPARISONS.length)]).append(' ');
+                term(vocabulary, random, sb);
+                sb.append(") {\n");
+                count += 7;
+                depth++;
+            } else if (kind == 1 && depth > 0) {
+                sb.setLength(sb.length() - 4);
+                sb.append("}\n");
+                count++;
+                depth--;
+            } else {
+                sb.append(name(vocabulary, random)).append(" = ");
+                count += 2;
+                for (int terms = 1 + random.nextInt(4); terms > 0; terms--) {
+                    term(vocabulary, random, sb);
+                    count++;
+                    if (terms > 1) {
+                        sb.append(' ').append("+-*/".charAt(random.nextInt(4))).append(' ');
+                        count++;
+                    }
+                }
+                sb.append(";\n");
+                count++;
+            }
+        }
+        for (; depth > 0; depth--)
+            sb.append("    ".repeat(depth - 1)).append("}\n");
+        return sb.toString().getBytes(StandardCharsets.US_ASCII);
+    }
+
+    private static String name(String[] vocabulary, Random random) {
+        double r = random.nextDouble();
+        return vocabulary[(int) (vocabulary.length * r * r * r)];
+    }
+
+    private static void term(String[] vocabulary, Random random, StringBuilder sb) {
+        int kind = random.nextInt(10);
+        if (kind < 6) sb.append(name(vocabulary, random));
+        else if (kind < 9) sb.append(random.nextInt(kind == 8 ? 10_000 : 100));
+        else sb.append(random.nextInt(10)).append('.').append(random.nextInt(100));
+    }
+
+    /**
+     * Generates expressions infix expressions of 1 to 16 digits joined by + and -, each followed by ';'.
+     */
+    public static byte[] expressions(int expressions, long seed) {
+        Random random = new Random(seed);
+        StringBuilder sb = new StringBuilder(expressions * 18);
+        for (int i = 0; i < expressions; i++) {
+            sb.append((char) ('0' + random.nextInt(10)));
+            for (int terms = random.nextInt(16); terms > 0; terms--)
+                sb.append(random.nextBoolean() ? '+' : '-').append((char) ('0' + random.nextInt(10)));
+            sb.append(';');
+        }
+        return sb.toString().getBytes(StandardCharsets.US_ASCII);
+    }
+
+    /**
+     * Generates statements expression statements of identifiers, integers and reals joined by + - * / with
+     * parenthesized subexpressions, one statement per line.
+     */
+    public static byte[] statements(int statements, long seed) {
+        Random random = new Random(seed);
+        StringBuilder sb = new StringBuilder(statements * 40);
+        for (int i = 0; i < statements; i++) {
+            statement(random, sb, 0);
+            sb.append(";\n");
+        }
+        return sb.toString().getBytes(StandardCharsets.US_ASCII);
+    }
+
+    private static void statement(Random random, StringBuilder sb, int depth) {
+        for (int terms = 1 + random.nextInt(4); terms > 0; terms--) {
+            int kind = random.nextInt(8);
+            if (kind == 0 && depth < 3) {
+                sb.append('(');
+                statement(random, sb, depth + 1);
+                sb.append(')');
+            } else if (kind < 5) {
+                sb.append(identifier(random));
+            } else if (kind < 7) {
+                sb.append(random.nextInt(10_000));
+            } else {
+                sb.append(random.nextInt(100)).append('.').append(random.nextInt(100));
+            }
+            if (terms > 1) sb.append(' ').append("+-*/".charAt(random.nextInt(4))).append(' ');
+        }
+    }
+
+    /**
+     * Generates n lower case words of 3 to 12 letters, drawn from a skewed letter distribution so that prefixes
+     * are shared the way they are in natural language.
+     */
+    public static String[] words(int n, long seed) {
+        Random random = new Random(seed);
+        String[] words = new String[n];
+        for (int i = 0; i < n; i++)
+            words[i] = word(random, 3 + random.nextInt(10));
+        return words;
+    }
+
+    /**
+     * Generates length chars of lower case words, with one of keywords inserted in place of a word about once
+     * every 50 words. The words are not separated, so the text stays within the a-z alphabet of the default
+     * {@link utils.trie.PrefixTrie}.
+     */
+    public static String text(int length, String[] keywords, long seed) {
+        Random random = new Random(seed);
+        StringBuilder sb = new StringBuilder(length + 16);
+        while (sb.length() < length) {
+            if (keywords.length > 0 && random.nextInt(50) == 0)
+                sb.append(keywords[random.nextInt(keywords.length)]);
+            else
+                sb.append(word(random, 2 + random.nextInt(9)));
+        }
+        sb.setLength(length);
+        return sb.toString();
+    }
+
+    /**
+     * Generates n words of 2 to 10 letters, half of them lower case and half in one of the alphabets of
+     * {@link #mixedProgram}, so that a char takes 1 to 3 bytes in UTF-8.
+     */
+    public static String[] mixedWords(int n, long seed) {
+        Random random = new Random(seed);
+        String[] words = new String[n];
+        for (int i = 0; i < n; i++)
+            words[i] = random.nextBoolean() ? word(random, 2 + random.nextInt(9)) : nonAsciiIdentifier(random);
+        return words;
+    }
+
+    /**
+     * Generates n lines of 40 to 120 chars of lower case words separated by blanks, with one of keywords in
+     * place of a word about once every 40 words, like log lines filtered for a few keywords.
+     */
+    public static String[] lines(int n, String[] keywords, long seed) {
+        Random random = new Random(seed);
+        String[] lines = new String[n];
+        StringBuilder sb = new StringBuilder(128);
+        for (int i = 0; i < n; i++) {
+            sb.setLength(0);
+            int length = 40 + random.nextInt(81);
+            while (sb.length() < length) {
+                if (keywords.length > 0 && random.nextInt(40) == 0)
+                    sb.append(keywords[random.nextInt(keywords.length)]);
+                else
+                    sb.append(word(random, 2 + random.nextInt(8)));
+                sb.append(' ');
+            }
+            lines[i] = sb.toString();
+        }
+        return lines;
+    }
+
+    /**
+     * Generates length chars drawn uniformly from alphabet, with no separators, like DNA over {@code "acgt"}.
+     */
+    public static String sequence(int length, String alphabet, long seed) {
+        Random random = new Random(seed);
+        char[] chars = new char[length];
+        for (int i = 0; i < length; i++)
+            chars[i] = alphabet.charAt(random.nextInt(alphabet.length()));
+        return new String(chars);
+    }
+
+    private static String identifier(Random random) {
+        String id;
+        do {
+            id = word(random, 1 + random.nextInt(10));
+        } while (id.equals("true") || id.equals("false"));
+        return id;
+    }
+
+    private static String nonAsciiIdentifier(Random random) {
+        int[] script = SCRIPTS[random.nextInt(SCRIPTS.length)];
+        // ideographs carry more per char than letters, so CJK identifiers are shorter.
+        int length = script[1] > 0x100 ? 1 + random.nextInt(3) : 1 + random.nextInt(10);
+        StringBuilder sb = new StringBuilder(length);
+        for (int i = 0; i < length; i++) {
+            double r = random.nextDouble();
+            sb.appendCodePoint(script[0] + (int) (script[1] * r * r));
+        }
+        return sb.toString();
+    }
+
+    private static String word(Random random, int length) {
+        char[] chars = new char[length];
+        for (int i = 0; i < length; i++) {
+            double r = random.nextDouble();
+            chars[i] = (char) ('a' + (int) (26 * r * r));
+        }
+        return new String(chars);
+    }
+}
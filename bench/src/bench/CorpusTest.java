@@ -0,0 +1,106 @@
+package bench;
+
+import lexer.Lexer;
+import lexer.LexerCursor;
+import lexer.Tag;
+import org.junit.jupiter.api.Test;
+import parser.TokenParser;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class CorpusTest {
+
+    @Test
+    void testProgramHasExactTokenCount() throws IOException {
+        for (int tokens : new int[]{0, 1, 1000, 50_000}) {
+            Lexer lexer = new Lexer(new ByteArrayInputStream(Corpus.program(tokens, Corpus.SEED)));
+            int n = 0;
+            while (lexer.scan().tag != Tag.EOF)
+                n++;
+            assertEquals(tokens, n);
+        }
+    }
+
+    @Test
+    void testMixedProgramHasExactTokenCount() throws IOException {
+        byte[] program = Corpus.mixedProgram(50_000, Corpus.SEED);
+        assertTrue(new String(program, StandardCharsets.UTF_8).chars().anyMatch(c -> c >= 0x4e00));
+        Lexer lexer = new Lexer(program, StandardCharsets.UTF_8);
+        int n = 0;
+        while (lexer.scan().tag != Tag.EOF)
+            n++;
+        assertEquals(50_000, n);
+    }
+
+    @Test
+    void testCodeTokenCount() throws IOException {
+        Lexer lexer = new Lexer(Corpus.code(50_000, Corpus.SEED));
+        int n = 0;
+        while (lexer.scan().tag != Tag.EOF)
+            n++;
+        assertTrue(n >= 50_000 && n < 50_020, Integer.toString(n));
+    }
+
+    @Test
+    void testDeterministic() {
+        assertArrayEquals(Corpus.program(1000, 7), Corpus.program(1000, 7));
+        assertArrayEquals(Corpus.code(1000, 7), Corpus.code(1000, 7));
+        assertArrayEquals(Corpus.expressions(1000, 7), Corpus.expressions(1000, 7));
+        assertArrayEquals(Corpus.words(1000, 7), Corpus.words(1000, 7));
+        String[] keywords = Corpus.words(10, 7);
+        assertEquals(Corpus.text(10_000, keywords, 7), Corpus.text(10_000, keywords, 7));
+        assertNotEquals(Corpus.text(10_000, keywords, 7), Corpus.text(10_000, keywords, 8));
+        assertArrayEquals(Corpus.mixedWords(1000, 7), Corpus.mixedWords(1000, 7));
+        assertArrayEquals(Corpus.lines(1000, keywords, 7), Corpus.lines(1000, keywords, 7));
+        assertEquals(Corpus.sequence(10_000, "acgt", 7), Corpus.sequence(10_000, "acgt", 7));
+    }
+
+    @Test
+    void testExpressions() {
+        String expressions = new String(Corpus.expressions(1000, Corpus.SEED));
+        assertTrue(expressions.endsWith(";"));
+        String[] split = expressions.split(";");
+        assertEquals(1000, split.length);
+        for (String expression : split)
+            assertTrue(expression.matches("[0-9]([+-][0-9]){0,15}"), expression);
+    }
+
+    @Test
+    void testStatementsParse() throws IOException {
+        byte[] statements = Corpus.statements(5000, Corpus.SEED);
+        TokenParser parser = new TokenParser(
+                new LexerCursor(new Lexer(new ByteArrayInputStream(statements))), new StringBuilder());
+        assertEquals(5000, parser.program());
+    }
+
+    @Test
+    void testTextContainsKeywords() {
+        String[] keywords = {"needle"};
+        String text = Corpus.text(100_000, keywords, Corpus.SEED);
+        assertEquals(100_000, text.length());
+        assertTrue(text.contains("needle"));
+    }
+
+    @Test
+    void testLinesContainKeywords() {
+        String[] lines = Corpus.lines(10_000, new String[]{"error"}, Corpus.SEED);
+        int matching = 0;
+        for (String line : lines) {
+            assertTrue(line.length() >= 40 && line.length() < 140, line);
+            if (line.contains("error")) matching++;
+        }
+        assertTrue(matching > 1000 && matching < 5000, Integer.toString(matching));
+    }
+
+    @Test
+    void testMixedWordsSpanScripts() {
+        String[] words = Corpus.mixedWords(1000, Corpus.SEED);
+        assertTrue(Arrays.stream(words).anyMatch(w -> w.chars().allMatch(c -> c >= 'a' && c <= 'z')));
+        assertTrue(Arrays.stream(words).anyMatch(w -> w.chars().anyMatch(c -> c >= 0x4e00)));
+    }
+}
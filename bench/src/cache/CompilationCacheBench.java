@@ -0,0 +1,104 @@
+package cache;
+
+import bench.Corpus;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+/**
+ * Compares compiling a tree of {@link #FILES} unchanged files through a {@link CachedCompiler}, in microseconds
+ * per file, each file {@link #STATEMENTS} statements of {@link Corpus#statements}:
+ * <ul>
+ * <li>{@code hash} reading every file and computing its key, the floor of a warm rebuild.</li>
+ * <li>{@code cold} compiling every file into an empty cache.</li>
+ * <li>{@code warm} compiling every file again through a new cache on a filled directory, as the next run of a
+ * build would.</li>
+ * </ul>
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@State(Scope.Benchmark)
+public class CompilationCacheBench {
+    static final int FILES = 2000;
+    static final int STATEMENTS = 200;
+    private static final long MAX_BYTES = 1L << 30;
+
+    private Path root;
+    private List<Path> files;
+    private Path warmDirectory;
+
+    /**
+     * An empty cache directory for each invocation of {@code cold}, which takes far longer than a millisecond.
+     */
+    @State(Scope.Thread)
+    public static class EmptyCache {
+        Path directory;
+
+        @Setup(Level.Invocation)
+        public void setup(CompilationCacheBench bench) throws IOException {
+            directory = bench.root.resolve("cold");
+            if (Files.exists(directory)) delete(directory);
+        }
+    }
+
+    @Setup
+    public void setup() throws IOException {
+        root = Files.createTempDirectory("cache-bench");
+        Path sources = Files.createDirectory(root.resolve("src"));
+        files = new ArrayList<>(FILES);
+        for (int i = 0; i < FILES; i++)
+            files.add(Files.write(sources.resolve("f" + i + ".src"), Corpus.statements(STATEMENTS, Corpus.SEED + i)));
+        warmDirectory = root.resolve("warm");
+        CachedCompiler compiler = new CachedCompiler(new CompilationCache(warmDirectory, MAX_BYTES));
+        for (Path file : files)
+            compiler.compile(file);
+    }
+
+    @TearDown
+    public void tearDown() throws IOException {
+        delete(root);
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(FILES)
+    public long hash() throws IOException {
+        long keys = 0;
+        for (Path file : files)
+            keys ^= CompilationCache.key(Files.readAllBytes(file), CachedCompiler.VERSION);
+        return keys;
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(FILES)
+    public int cold(EmptyCache empty) throws IOException {
+        CachedCompiler compiler = new CachedCompiler(new CompilationCache(empty.directory, MAX_BYTES));
+        int hits = 0;
+        for (Path file : files)
+            if (compiler.compile(file).cached()) hits++;
+        return hits;
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(FILES)
+    public int warm() throws IOException {
+        CachedCompiler compiler = new CachedCompiler(new CompilationCache(warmDirectory, MAX_BYTES));
+        int hits = 0;
+        for (Path file : files)
+            if (compiler.compile(file).cached()) hits++;
+        return hits;
+    }
+
+    private static void delete(Path directory) throws IOException {
+        try (Stream<Path> paths = Files.walk(directory)) {
+            for (Path path : (Iterable<Path>) paths.sorted(Comparator.reverseOrder())::iterator)
+                Files.delete(path);
+        }
+    }
+}
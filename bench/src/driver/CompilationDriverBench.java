@@ -0,0 +1,65 @@
+package driver;
+
+import bench.Corpus;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+/**
+ * Measures how {@link CompilationDriver} scales with its number of threads, in files per second, compiling a
+ * tree of {@link #FILES} files of {@link #STATEMENTS} statements of {@link Corpus#statements} (about 4 KB each)
+ * in nested directories of {@link #FILES_PER_DIRECTORY}.
+ * <p>
+ * Speedup is bounded by the number of processors, so more threads than that only show the cost of sharing the
+ * work. The time of each phase is in the {@link CompilationDriver.Report} of a compile from the command line.
+ * </p>
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@State(Scope.Benchmark)
+public class CompilationDriverBench {
+    static final int FILES = 10_000;
+    static final int STATEMENTS = 100;
+    private static final int FILES_PER_DIRECTORY = 100;
+
+    @Param({"1", "2", "4", "8"})
+    public int threads;
+
+    private Path root;
+    private CompilationDriver driver;
+
+    @Setup
+    public void setup() throws IOException {
+        root = Files.createTempDirectory("driver-bench");
+        for (int i = 0; i < FILES; i++) {
+            Path directory = root.resolve("d" + i / FILES_PER_DIRECTORY / 10).resolve("d" + i / FILES_PER_DIRECTORY);
+            Files.createDirectories(directory);
+            Files.write(directory.resolve("f" + i + CompilationDriver.EXTENSION),
+                    Corpus.statements(STATEMENTS, Corpus.SEED + i));
+        }
+        driver = new CompilationDriver(threads, 64 << 20, null);
+    }
+
+    @TearDown
+    public void tearDown() throws IOException {
+        driver.close();
+        try (Stream<Path> paths = Files.walk(root)) {
+            for (Path path : (Iterable<Path>) paths.sorted(Comparator.reverseOrder())::iterator)
+                Files.delete(path);
+        }
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(FILES)
+    public CompilationDriver.Report compile() throws IOException {
+        CompilationDriver.Report report = driver.compile(List.of(root), null, null);
+        if (!report.errors().isEmpty()) throw new IllegalStateException(report.errors().get(0));
+        return report;
+    }
+}
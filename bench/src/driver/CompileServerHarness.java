@@ -0,0 +1,138 @@
+package driver;
+
+import bench.Corpus;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.stream.Stream;
+
+/**
+ * Compares the latency of compiling with a new {@link CompilationDriver} JVM every time against asking a warm
+ * {@link CompileServer}, for a small file and for a tree of files of {@link Corpus#statements}.
+ * <p>
+ * It times whole processes, JVM start included, which JMH does not, so this is a harness with a main rather
+ * than a JMH benchmark.
+ * </p>
+ * <p>
+ * Reports the median and the fastest of:
+ * </p>
+ * <ul>
+ * <li>cli: a JVM running {@link CompilationDriver#main} for each compile.</li>
+ * <li>client: a JVM running {@link CompileClient#main} for each compile, against the warm server.</li>
+ * <li>request: a request from this JVM to the warm server, what a client that starts in no time, a native one
+ * or a shell with a socket tool, would see.</li>
+ * </ul>
+ * <p>
+ * and the first request to the server for the file or tree, before the JIT has warmed up.
+ * </p>
+ * <p>
+ * Run with {@code java driver.CompileServerHarness [runs]}, 10 process runs by default.
+ * </p>
+ */
+public class CompileServerHarness {
+    private static final int REQUESTS = 500;
+    private static final int TREE_FILES = 500;
+
+    public static void main(String[] args) throws Exception {
+        int runs = args.length > 0 ? Integer.parseInt(args[0]) : 10;
+        Path dir = Files.createTempDirectory("server-benchmark");
+        try {
+            Path file = Files.write(dir.resolve("small.src"), Corpus.statements(20, Corpus.SEED));
+            Path tree = Files.createDirectory(dir.resolve("tree"));
+            for (int i = 0; i < TREE_FILES; i++)
+                Files.write(tree.resolve("f" + i + CompilationDriver.EXTENSION),
+                        Corpus.statements(200, Corpus.SEED + i));
+            Path socket = dir.resolve("compiler.sock");
+            String java = Path.of(System.getProperty("java.home"), "bin", "java").toString();
+            String classPath = System.getProperty("java.class.path");
+            System.out.printf("%d processors%n", Runtime.getRuntime().availableProcessors());
+
+            Process server = new ProcessBuilder(java, "-cp", classPath, CompileServer.class.getName(),
+                    "-socket", socket.toString(), "-j", "1")
+                    .redirectOutput(ProcessBuilder.Redirect.DISCARD)
+                    .redirectError(ProcessBuilder.Redirect.DISCARD).start();
+            try {
+                while (!Files.exists(socket))
+                    Thread.sleep(10);
+                for (Path target : List.of(file, tree)) {
+                    boolean small = target == file;
+                    System.out.println();
+                    System.out.printf("%s, %d bytes%n", small ? "1 small file" : TREE_FILES + " files",
+                            small ? Files.size(file) : size(tree));
+                    System.out.printf("%-14s %10s %10s%n", "", "median ms", "min ms");
+                    List<String> request = List.of("-print", target.toString());
+                    report("first request", new long[]{request(socket, request)});
+                    int n = small ? REQUESTS : runs;
+                    for (int i = 0; i < n * 4; i++)
+                        request(socket, request);
+                    long[] requests = new long[n];
+                    for (int i = 0; i < n; i++)
+                        requests[i] = request(socket, request);
+
+                    long[] cli = new long[runs];
+                    for (int i = 0; i < runs; i++)
+                        cli[i] = process(List.of(java, "-cp", classPath, CompilationDriver.class.getName(), "-j", "1",
+                                "-print", target.toString()));
+                    long[] client = new long[runs];
+                    for (int i = 0; i < runs; i++)
+                        client[i] = process(List.of(java, "-cp", classPath, CompileClient.class.getName(),
+                                "-socket", socket.toString(), "-print", target.toString()));
+                    report("cli", cli);
+                    report("client", client);
+                    report("request", requests);
+                }
+            } finally {
+                CompileClient.run(socket, List.of("-stop"), new ByteArrayOutputStream(), new ByteArrayOutputStream());
+                server.waitFor();
+            }
+        } finally {
+            try (Stream<Path> paths = Files.walk(dir)) {
+                for (Path path : (Iterable<Path>) paths.sorted(Comparator.reverseOrder())::iterator)
+                    Files.deleteIfExists(path);
+            }
+        }
+    }
+
+    private static long size(Path directory) throws IOException {
+        long size = 0;
+        try (Stream<Path> paths = Files.list(directory)) {
+            for (Path path : (Iterable<Path>) paths::iterator)
+                size += Files.size(path);
+        }
+        return size;
+    }
+
+    /**
+     * @return the wall time of running command, in nanoseconds.
+     */
+    private static long process(List<String> command) throws IOException, InterruptedException {
+        long start = System.nanoTime();
+        int status = new ProcessBuilder(new ArrayList<>(command))
+                .redirectOutput(ProcessBuilder.Redirect.DISCARD)
+                .redirectError(ProcessBuilder.Redirect.DISCARD).start().waitFor();
+        long nanos = System.nanoTime() - start;
+        if (status != 0) throw new IllegalStateException(command + " exited with " + status);
+        return nanos;
+    }
+
+    private static long request(Path socket, List<String> args) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream(), err = new ByteArrayOutputStream();
+        long start = System.nanoTime();
+        int status = CompileClient.run(socket, args, out, err);
+        long nanos = System.nanoTime() - start;
+        if (status != 0) throw new IllegalStateException(err.toString());
+        return nanos;
+    }
+
+    private static void report(String name, long[] nanos) {
+        long[] sorted = nanos.clone();
+        Arrays.sort(sorted);
+        System.out.printf("%-14s %10.2f %10.2f%n", name, sorted[sorted.length / 2] / 1e6, sorted[0] / 1e6);
+    }
+}
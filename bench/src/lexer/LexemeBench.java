@@ -0,0 +1,44 @@
+package lexer;
+
+import bench.Corpus;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures {@link Lexer#scan()} in tokens per second on identifier-dense code ({@link Corpus#code}, names drawn
+ * from a small vocabulary with a skewed frequency), for a Lexer reading an {@link java.io.InputStream} and one
+ * scanning the source in place.
+ * <p>
+ * A repeated identifier is found in the table of words without building a String, so run with {@code -prof gc}:
+ * the bytes allocated per token should stay well below the size of a String.
+ * </p>
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@State(Scope.Benchmark)
+public class LexemeBench {
+    static final int TOKENS = 200_000;
+
+    @Param({"STREAM", "IN_PLACE"})
+    public String source;
+
+    private byte[] code;
+
+    @Setup
+    public void setup() {
+        code = Corpus.code(TOKENS, Corpus.SEED);
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(TOKENS)
+    public int scan() throws IOException {
+        Lexer lexer = source.equals("STREAM") ? new Lexer(new ByteArrayInputStream(code)) : new Lexer(code);
+        int tokens = 0;
+        while (lexer.scan().tag != Tag.EOF)
+            tokens++;
+        return tokens;
+    }
+}
@@ -0,0 +1,36 @@
+package lexer;
+
+import bench.Corpus;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures {@link Lexer#scan()} in tokens per second over a generated program of {@link #TOKENS} tokens, a new
+ * Lexer per program as the compiler does per file.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@State(Scope.Benchmark)
+public class LexerBench {
+    static final int TOKENS = 200_000;
+
+    private byte[] program;
+
+    @Setup
+    public void setup() {
+        program = Corpus.program(TOKENS, Corpus.SEED);
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(TOKENS)
+    public int scan() throws IOException {
+        Lexer lexer = new Lexer(new ByteArrayInputStream(program));
+        int tokens = 0;
+        while (lexer.scan().tag != Tag.EOF)
+            tokens++;
+        return tokens;
+    }
+}
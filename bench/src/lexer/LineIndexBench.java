@@ -0,0 +1,37 @@
+package lexer;
+
+import bench.Corpus;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures building a {@link LineIndex} in bytes per second over a generated program of {@link #TOKENS} tokens,
+ * against a loop testing one byte at a time.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@State(Scope.Benchmark)
+public class LineIndexBench {
+    static final int TOKENS = 1 << 22;
+
+    private byte[] program;
+
+    @Setup
+    public void setup() {
+        program = Corpus.program(TOKENS, Corpus.SEED);
+    }
+
+    @Benchmark
+    public LineIndex swar() {
+        return LineIndex.of(program);
+    }
+
+    @Benchmark
+    public int scalar() {
+        int lines = 1;
+        for (byte b : program)
+            if (b == '\n') lines++;
+        return lines;
+    }
+}
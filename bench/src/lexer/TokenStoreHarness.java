@@ -0,0 +1,176 @@
+package lexer;
+
+import bench.Corpus;
+import com.sun.management.GarbageCollectionNotificationInfo;
+
+import javax.management.NotificationEmitter;
+import javax.management.openmbean.CompositeData;
+import java.io.File;
+import java.io.IOException;
+import java.lang.management.GarbageCollectorMXBean;
+import java.lang.management.ManagementFactory;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Compares keeping every token of a large {@link Corpus#program} in a {@link TokenStore} against a list of token
+ * objects on the heap, while later passes over the tokens allocate short lived objects.
+ * <p>
+ * GC pauses and the resident set size are properties of a whole JVM, which JMH does not report, so this is a
+ * harness with a main rather than a JMH benchmark. Each side runs in a JVM of its own and reports:
+ * </p>
+ * <ul>
+ * <li>the time to scan and store the tokens.</li>
+ * <li>the heap retained once stored (after a GC), and the bytes held off the heap.</li>
+ * <li>the resident set size of the process.</li>
+ * <li>the number of GCs, their total and longest pause, over the scan and {@link #PASSES} passes over the
+ * tokens, leaving out the GCs forced to measure the heap.</li>
+ * </ul>
+ * Run with {@code java -Xmx3g lexer.TokenStoreHarness [million tokens]}, 16 million tokens (about 100 MB of
+ * source) by default, or with {@code heap} or {@code store} before the size to run a single side in the current
+ * JVM.
+ */
+public class TokenStoreHarness {
+    private static final int PASSES = 3;
+
+    private static long gcCount;
+    private static long gcMillis;
+    private static long maxPauseMillis;
+
+    /**
+     * A token on the heap with the position a store record keeps.
+     */
+    private record Stored(Token token, int line, long offset, int length) {
+    }
+
+    public static void main(String[] args) throws Exception {
+        if (args.length > 0 && (args[0].equals("heap") || args[0].equals("store"))) {
+            int millions = args.length > 1 ? Integer.parseInt(args[1]) : 16;
+            run(args[0], millions);
+            return;
+        }
+        String millions = args.length > 0 ? args[0] : "16";
+        System.out.printf("%-6s %12s %10s %12s %12s %10s %6s %10s %12s%n", "side", "tokens", "store ms",
+                "heap MB", "off-heap MB", "RSS MB", "GCs", "GC ms", "max pause ms");
+        String java = Path.of(System.getProperty("java.home"), "bin", "java").toString();
+        for (String side : new String[]{"heap", "store"}) {
+            ArrayList<String> command = new ArrayList<>();
+            command.add(java);
+            command.addAll(ManagementFactory.getRuntimeMXBean().getInputArguments());
+            command.addAll(List.of("-cp", System.getProperty("java.class.path"),
+                    TokenStoreHarness.class.getName(), side, millions));
+            new ProcessBuilder(command).inheritIO().start().waitFor();
+        }
+    }
+
+    private static void run(String side, int millions) throws IOException {
+        byte[] source = Corpus.program(millions * 1_000_000, Corpus.SEED);
+        listenToGcs();
+        long used = usedHeap();
+        long gcs = gcCount, gcTime = gcMillis;
+        maxPauseMillis = 0;
+
+        long start = System.nanoTime();
+        long tokens, checksum = 0;
+        if (side.equals("heap")) {
+            ArrayList<Stored> list = new ArrayList<>();
+            Lexer lexer = new Lexer(source);
+            Token t;
+            do {
+                t = lexer.scan();
+                list.add(new Stored(t, lexer.line, lexer.offset(), lexer.length()));
+            } while (t.tag != Tag.EOF);
+            long storeNanos = System.nanoTime() - start;
+            long heap = usedHeap() - used;
+            for (int pass = 0; pass < PASSES; pass++) {
+                ArrayList<Long> lineOffsets = new ArrayList<>();
+                int line = 0;
+                for (Stored s : list) {
+                    if (s.line != line) {
+                        line = s.line;
+                        checksum += lineOffsets.size();
+                        lineOffsets = new ArrayList<>();
+                    }
+                    lineOffsets.add(s.offset + s.length);
+                }
+            }
+            tokens = list.size();
+            report(side, tokens, storeNanos, heap, 0, gcs, gcTime);
+        } else {
+            try (TokenStore store = TokenStore.of(new Lexer(source))) {
+                long storeNanos = System.nanoTime() - start;
+                long heap = usedHeap() - used;
+                for (int pass = 0; pass < PASSES; pass++) {
+                    ArrayList<Long> lineOffsets = new ArrayList<>();
+                    int line = 0;
+                    TokenStore.Cursor cursor = store.cursor();
+                    do {
+                        cursor.advance();
+                        if (cursor.line() != line) {
+                            line = cursor.line();
+                            checksum += lineOffsets.size();
+                            lineOffsets = new ArrayList<>();
+                        }
+                        lineOffsets.add(cursor.offset() + cursor.length());
+                    } while (cursor.tag() != Tag.EOF);
+                }
+                tokens = store.size();
+                report(side, tokens, storeNanos, heap, store.memoryBytes(), gcs, gcTime);
+            }
+        }
+        if (checksum < 0) System.out.println();
+    }
+
+    private static void report(String side, long tokens, long storeNanos, long heap, long offHeap, long gcs,
+                               long gcTime) throws IOException {
+        // GC notifications are delivered asynchronously.
+        try {
+            Thread.sleep(200);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        System.out.printf("%-6s %12d %10d %12d %12d %10d %6d %10d %12d%n", side, tokens, storeNanos / 1_000_000,
+                heap >> 20, offHeap >> 20, rss() >> 20, gcCount - gcs, gcMillis - gcTime, maxPauseMillis);
+    }
+
+    private static void listenToGcs() {
+        for (GarbageCollectorMXBean gc : ManagementFactory.getGarbageCollectorMXBeans()) {
+            ((NotificationEmitter) gc).addNotificationListener((notification, handback) -> {
+                if (!notification.getType().equals(GarbageCollectionNotificationInfo.GARBAGE_COLLECTION_NOTIFICATION))
+                    return;
+                GarbageCollectionNotificationInfo info =
+                        GarbageCollectionNotificationInfo.from((CompositeData) notification.getUserData());
+                // the GCs forced to measure the heap are not counted.
+                if (info.getGcCause().equals("System.gc()")) return;
+                long duration = info.getGcInfo().getDuration();
+                synchronized (TokenStoreHarness.class) {
+                    gcCount++;
+                    gcMillis += duration;
+                    maxPauseMillis = Math.max(maxPauseMillis, duration);
+                }
+            }, null, null);
+        }
+    }
+
+    /**
+     * @return the resident set size of this process, 0 where /proc is not available.
+     */
+    private static long rss() throws IOException {
+        Path status = Path.of(File.separator + "proc", "self", "status");
+        if (!Files.exists(status)) return 0;
+        for (String line : Files.readAllLines(status)) {
+            if (line.startsWith("VmRSS:"))
+                return Long.parseLong(line.replaceAll("[^0-9]", "")) << 10;
+        }
+        return 0;
+    }
+
+    private static long usedHeap() {
+        Runtime runtime = Runtime.getRuntime();
+        for (int i = 0; i < 3; i++)
+            System.gc();
+        return runtime.totalMemory() - runtime.freeMemory();
+    }
+}
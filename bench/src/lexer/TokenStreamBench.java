@@ -0,0 +1,64 @@
+package lexer;
+
+import bench.Corpus;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares reading the tokens of a source back from its {@link TokenStreamWriter} encoding against scanning the
+ * source again, in microseconds per file of {@link LexerBench#TOKENS} tokens.
+ * <p>
+ * {@code code} is {@link Corpus#code}, with a small vocabulary as in real code. {@code program} is
+ * {@link Corpus#program}, whose identifiers are mostly distinct, so most of them are written out in the string
+ * pool: the worst case for the encoding.
+ * </p>
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@State(Scope.Benchmark)
+public class TokenStreamBench {
+    @Param({"code", "program"})
+    public String corpus;
+
+    private byte[] source;
+    private byte[] encoded;
+
+    @Setup
+    public void setup() throws IOException {
+        source = corpus.equals("code") ? Corpus.code(LexerBench.TOKENS, Corpus.SEED)
+                : Corpus.program(LexerBench.TOKENS, Corpus.SEED);
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        TokenStreamWriter.write(new LexerCursor(new Lexer(source)), out);
+        encoded = out.toByteArray();
+    }
+
+    @Benchmark
+    public int lex() throws IOException {
+        return drain(new LexerCursor(new Lexer(new ByteArrayInputStream(source))));
+    }
+
+    @Benchmark
+    public int decode() throws IOException {
+        return drain(new TokenStreamReader(new ByteArrayInputStream(encoded)));
+    }
+
+    @Benchmark
+    public int encode() throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream(encoded.length);
+        TokenStreamWriter.write(new LexerCursor(new Lexer(new ByteArrayInputStream(source))), out);
+        return out.size();
+    }
+
+    private static int drain(TokenCursor tokens) throws IOException {
+        int sum = 0;
+        do {
+            tokens.advance();
+            sum += tokens.tag();
+        } while (tokens.tag() != Tag.EOF);
+        return sum;
+    }
+}
@@ -0,0 +1,50 @@
+package lexer;
+
+import bench.Corpus;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.charset.Charset;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures {@link Lexer#scan()} in nanoseconds per token by input charset, over an ASCII only program and a
+ * program with identifiers in several scripts ({@link Corpus#mixedProgram}), both of {@link LexerBench#TOKENS}
+ * tokens.
+ * <p>
+ * On ASCII input the two charsets should cost the same, the UTF-8 decoder is only reached by non-ASCII bytes.
+ * ISO-8859-1 on the mixed program is what the lexer did before it could decode UTF-8: it splits the multibyte
+ * identifiers into symbols and mojibake, so it is a reference for speed, not a correct result.
+ * </p>
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@State(Scope.Benchmark)
+public class Utf8LexerBench {
+    @Param({"UTF-8", "ISO-8859-1"})
+    public String charset;
+
+    @Param({"ascii", "mixed"})
+    public String script;
+
+    private byte[] program;
+    private Charset cs;
+
+    @Setup
+    public void setup() {
+        program = script.equals("ascii") ? Corpus.program(LexerBench.TOKENS, Corpus.SEED)
+                : Corpus.mixedProgram(LexerBench.TOKENS, Corpus.SEED);
+        cs = Charset.forName(charset);
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(LexerBench.TOKENS)
+    public int scan() throws IOException {
+        Lexer lexer = new Lexer(new ByteArrayInputStream(program), cs);
+        int tokens = 0;
+        while (lexer.scan().tag != Tag.EOF)
+            tokens++;
+        return tokens;
+    }
+}
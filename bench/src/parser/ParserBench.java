@@ -0,0 +1,56 @@
+package parser;
+
+import bench.Corpus;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures {@link Parser} in translated expressions per second over {@link #EXPRESSIONS} generated expressions
+ * separated by ';'.
+ * <p>
+ * The parser reads {@link System#in} and writes the postfix output to {@link System#out}, so both are replaced
+ * for the trial: the input by the corpus, the output by a stream that discards it.
+ * </p>
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@State(Scope.Benchmark)
+public class ParserBench {
+    static final int EXPRESSIONS = 100_000;
+
+    private byte[] expressions;
+    private InputStream in;
+    private PrintStream out;
+
+    @Setup
+    public void setup() {
+        expressions = Corpus.expressions(EXPRESSIONS, Corpus.SEED);
+        in = System.in;
+        out = System.out;
+        System.setOut(new PrintStream(OutputStream.nullOutputStream()));
+    }
+
+    @TearDown
+    public void tearDown() {
+        System.setIn(in);
+        System.setOut(out);
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(EXPRESSIONS)
+    public int parse() throws IOException {
+        System.setIn(new ByteArrayInputStream(expressions));
+        Parser parser = new Parser();
+        for (int i = 0; i < EXPRESSIONS; i++) {
+            parser.expr();
+            parser.match(';');
+        }
+        return Parser.lookahead;
+    }
+}
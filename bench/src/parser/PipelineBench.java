@@ -0,0 +1,71 @@
+package parser;
+
+import bench.Corpus;
+import lexer.Lexer;
+import lexer.LexerCursor;
+import lexer.PipelinedLexer;
+import lexer.TokenCursor;
+import lexer.WaitStrategy;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.Writer;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures {@link TokenParser} end to end from bytes to postfix, with the lexer in lockstep ({@code SERIAL}) or
+ * pipelined on its own thread with each {@link WaitStrategy}.
+ * <ul>
+ * <li>{@link #throughput} statements per second over {@link #LARGE} statements, about 13 MB.</li>
+ * <li>{@link #latency} the distribution of the time to translate a file of {@link #SMALL} statements, about
+ * 13 KB, thread start included for the pipelined modes.</li>
+ * </ul>
+ * The pipelined modes need a core each for the lexer and the parser to overlap.
+ */
+@State(Scope.Benchmark)
+public class PipelineBench {
+    static final int LARGE = 1 << 19;
+    static final int SMALL = 1 << 9;
+
+    @Param({"SERIAL", "SPIN", "YIELD", "PARK"})
+    public String mode;
+
+    private byte[] large;
+    private byte[] small;
+
+    @Setup
+    public void setup() {
+        large = Corpus.statements(LARGE, Corpus.SEED);
+        small = Corpus.statements(SMALL, Corpus.SEED + 1);
+    }
+
+    private int translate(byte[] program) throws IOException {
+        Lexer lexer = new Lexer(new ByteArrayInputStream(program));
+        if (mode.equals("SERIAL"))
+            return translate(new LexerCursor(lexer));
+        try (PipelinedLexer tokens = new PipelinedLexer(lexer, PipelinedLexer.DEFAULT_CAPACITY,
+                WaitStrategy.valueOf(mode))) {
+            return translate(tokens);
+        }
+    }
+
+    private static int translate(TokenCursor tokens) throws IOException {
+        return new TokenParser(tokens, Writer.nullWriter()).program();
+    }
+
+    @Benchmark
+    @BenchmarkMode(Mode.Throughput)
+    @OutputTimeUnit(TimeUnit.SECONDS)
+    @OperationsPerInvocation(LARGE)
+    public int throughput() throws IOException {
+        return translate(large);
+    }
+
+    @Benchmark
+    @BenchmarkMode(Mode.SampleTime)
+    @OutputTimeUnit(TimeUnit.MICROSECONDS)
+    public int latency() throws IOException {
+        return translate(small);
+    }
+}
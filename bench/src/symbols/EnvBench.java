@@ -0,0 +1,98 @@
+package symbols;
+
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.ArrayList;
+import java.util.Hashtable;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+
+/**
+ * Measures {@link Env#get} in ns per lookup by chain depth, from the innermost scope of a chain where every
+ * scope declares {@link #NAMES_PER_SCOPE} names and the outermost scope {@link #GLOBALS} names.
+ * <p>
+ * Half of the lookups resolve in the outermost scope and half are not declared anywhere, so every inner scope is
+ * a miss. {@code impl} is one of:
+ * </p>
+ * <ul>
+ * <li>CHAIN: a plain walk over a list of {@link Hashtable}s with the same names, which is how {@link Env#get} used
+ * to resolve, as the baseline.</li>
+ * <li>FILTERED: {@link Env#get} with the per scope Bloom filter.</li>
+ * <li>CACHED: {@link Env#get} from an innermost scope that also caches resolved names.</li>
+ * </ul>
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@State(Scope.Benchmark)
+public class EnvBench {
+    static final int LOOKUPS = 1 << 12;
+    private static final int NAMES_PER_SCOPE = 8;
+    private static final int GLOBALS = 1000;
+
+    @Param({"1", "4", "16", "64"})
+    public int depth;
+
+    @Param({"CHAIN", "FILTERED", "CACHED"})
+    public String impl;
+
+    private Function<String, Symbol> get;
+    private String[] queries;
+
+    @Setup
+    public void setup() {
+        if (impl.equals("CHAIN")) {
+            List<Hashtable<String, Symbol>> chain = chain();
+            get = name -> {
+                for (Hashtable<String, Symbol> scope : chain) {
+                    Symbol symbol = scope.get(name);
+                    if (symbol != null) return symbol;
+                }
+                return null;
+            };
+        } else {
+            get = env(impl.equals("CACHED"))::get;
+        }
+        queries = new String[LOOKUPS];
+        for (int i = 0; i < LOOKUPS; i++)
+            queries[i] = (i & 1) == 0 ? "global" + (i % GLOBALS) : "missing" + i;
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(LOOKUPS)
+    public void get(Blackhole blackhole) {
+        for (String q : queries)
+            blackhole.consume(get.apply(q));
+    }
+
+    private Env env(boolean cacheResolved) {
+        Env env = new Env(null);
+        for (int i = 0; i < GLOBALS; i++)
+            env.put("global" + i, new Symbol());
+        for (int d = depth - 1; d >= 0; d--) {
+            env = new Env(env, d == 0 && cacheResolved);
+            for (int i = 0; i < NAMES_PER_SCOPE; i++)
+                env.put("local" + d + "_" + i, new Symbol());
+        }
+        return env;
+    }
+
+    /**
+     * @return the scopes of the same chain as {@link #env}, innermost first.
+     */
+    private List<Hashtable<String, Symbol>> chain() {
+        List<Hashtable<String, Symbol>> chain = new ArrayList<>();
+        for (int d = 0; d < depth; d++) {
+            Hashtable<String, Symbol> scope = new Hashtable<>();
+            for (int i = 0; i < NAMES_PER_SCOPE; i++)
+                scope.put("local" + d + "_" + i, new Symbol());
+            chain.add(scope);
+        }
+        Hashtable<String, Symbol> globals = new Hashtable<>();
+        for (int i = 0; i < GLOBALS; i++)
+            globals.put("global" + i, new Symbol());
+        chain.add(globals);
+        return chain;
+    }
+}
@@ -0,0 +1,49 @@
+package utils;
+
+import bench.Corpus;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures Aho-Corasick matching in input chars per second, so the score in ops/s is the throughput in bytes/s
+ * of the ASCII text, over a generated text of {@link #TEXT_CHARS} chars with keywords from the same vocabulary.
+ * Every match is counted, overlapping ones included.
+ * <ul>
+ * <li>{@code PREFIX_TRIE} and {@code RADIX_TRIE} follow the suffix links of an {@link AhoCorasick}.</li>
+ * <li>{@code AUTOMATON} runs the transition table of {@link AhoCorasick#compile()}.</li>
+ * </ul>
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@State(Scope.Benchmark)
+public class AhoCorasickBench {
+    static final int TEXT_CHARS = 1 << 22;
+
+    @Param({"PREFIX_TRIE", "RADIX_TRIE", "AUTOMATON"})
+    public String matcher;
+
+    @Param({"16", "256"})
+    public int keywords;
+
+    private String text;
+    private AhoCorasick ac;
+    private AhoCorasickAutomaton automaton;
+
+    @Setup
+    public void setup() {
+        String[] words = Corpus.words(keywords, Corpus.SEED);
+        text = Corpus.text(TEXT_CHARS, words, Corpus.SEED);
+        boolean compiled = matcher.equals("AUTOMATON");
+        ac = new AhoCorasick(compiled ? AhoCorasick.Backing.PREFIX_TRIE : AhoCorasick.Backing.valueOf(matcher));
+        ac.constructTrie(words);
+        ac.constructSuffixLink();
+        automaton = compiled ? ac.compile() : null;
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(TEXT_CHARS)
+    public int countKeywords() {
+        return automaton != null ? automaton.countKeywords(text) : ac.countKeywords(text);
+    }
+}
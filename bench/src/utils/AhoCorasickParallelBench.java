@@ -0,0 +1,54 @@
+package utils;
+
+import bench.Corpus;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures {@link AhoCorasickAutomaton#findKeywords(CharSequence, ForkJoinPool, MatchListener)} in input chars
+ * per second by the parallelism of the pool, 2 000 keywords over a generated text of {@link #TEXT_CHARS} chars
+ * with every match counted. {@code threads} 0 is the sequential search of the same text.
+ * <p>
+ * Speedup is bounded by the number of cores, so pools larger than it only show the cost of splitting and of
+ * collecting the matches per segment.
+ * </p>
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@State(Scope.Benchmark)
+public class AhoCorasickParallelBench {
+    static final int TEXT_CHARS = 1 << 24;
+
+    @Param({"0", "1", "2", "4", "8"})
+    public int threads;
+
+    private String text;
+    private AhoCorasickAutomaton automaton;
+    private ForkJoinPool pool;
+
+    @Setup
+    public void setup() {
+        String[] keywords = Corpus.words(2000, Corpus.SEED);
+        text = Corpus.text(TEXT_CHARS, keywords, Corpus.SEED);
+        AhoCorasick ac = new AhoCorasick();
+        ac.constructTrie(keywords);
+        automaton = ac.compile();
+        pool = threads == 0 ? null : new ForkJoinPool(threads);
+    }
+
+    @TearDown
+    public void tearDown() {
+        if (pool != null) pool.shutdown();
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(TEXT_CHARS)
+    public int findKeywords() {
+        int[] count = new int[1];
+        if (pool == null) automaton.findKeywords(text, (id, start, end) -> count[0]++);
+        else automaton.findKeywords(text, pool, (id, start, end) -> count[0]++);
+        return count[0];
+    }
+}
@@ -0,0 +1,63 @@
+package utils;
+
+import bench.Corpus;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures Aho-Corasick matching in input chars per second on the inputs that make it work hardest, with the
+ * matchers of {@link AhoCorasickBench}:
+ * <ul>
+ * <li>{@code ADVERSARIAL} the keywords a^k b for k = 1..32 over runs of a broken by c, so that every c falls
+ * back through a long chain of suffix links.</li>
+ * <li>{@code DENSE} 200 keywords of 1 to 3 letters, which match at almost every char of a generated text.</li>
+ * </ul>
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@State(Scope.Benchmark)
+public class AhoCorasickWorstCaseBench {
+    static final int TEXT_CHARS = 1 << 22;
+
+    @Param({"PREFIX_TRIE", "RADIX_TRIE", "AUTOMATON"})
+    public String matcher;
+
+    @Param({"ADVERSARIAL", "DENSE"})
+    public String input;
+
+    private String text;
+    private AhoCorasick ac;
+    private AhoCorasickAutomaton automaton;
+
+    @Setup
+    public void setup() {
+        String[] keywords;
+        if (input.equals("ADVERSARIAL")) {
+            keywords = new String[32];
+            for (int k = 1; k <= keywords.length; k++)
+                keywords[k - 1] = "a".repeat(k) + "b";
+            StringBuilder sb = new StringBuilder(TEXT_CHARS + 41);
+            while (sb.length() < TEXT_CHARS)
+                sb.append("a".repeat(40)).append('c');
+            sb.setLength(TEXT_CHARS);
+            text = sb.toString();
+        } else {
+            keywords = Corpus.words(200, Corpus.SEED);
+            for (int i = 0; i < keywords.length; i++)
+                keywords[i] = keywords[i].substring(0, 1 + i % 3);
+            text = Corpus.text(TEXT_CHARS, new String[0], Corpus.SEED);
+        }
+        boolean compiled = matcher.equals("AUTOMATON");
+        ac = new AhoCorasick(compiled ? AhoCorasick.Backing.PREFIX_TRIE : AhoCorasick.Backing.valueOf(matcher));
+        ac.constructTrie(keywords);
+        ac.constructSuffixLink();
+        automaton = compiled ? ac.compile() : null;
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(TEXT_CHARS)
+    public int countKeywords() {
+        return automaton != null ? automaton.countKeywords(text) : ac.countKeywords(text);
+    }
+}
@@ -0,0 +1,57 @@
+package utils;
+
+import bench.Corpus;
+import org.openjdk.jmh.annotations.*;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures searching a direct {@link ByteBuffer} of {@link #BUFFER_BYTES} bytes of generated text in place, in
+ * bytes per second: {@link CompiledPattern#findAll(ByteBuffer, int[])} for one keyword, and
+ * {@link AhoCorasickAutomaton} and {@link Utf8AhoCorasick} for 2 000 keywords.
+ * <p>
+ * None of the searches should allocate per byte; run with {@code -prof gc} to see the heap allocated and the
+ * collections run per search.
+ * </p>
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@State(Scope.Benchmark)
+public class ByteBufferSearchBench {
+    static final int BUFFER_BYTES = 1 << 25;
+
+    @Param({"COMPILED_PATTERN", "AUTOMATON", "UTF8"})
+    public String search;
+
+    private ByteBuffer buffer;
+    private CompiledPattern pattern;
+    private AhoCorasickAutomaton automaton;
+    private Utf8AhoCorasick utf8;
+    private final int[] offsets = new int[16];
+
+    @Setup
+    public void setup() {
+        String[] keywords = Corpus.words(2000, Corpus.SEED);
+        buffer = ByteBuffer.allocateDirect(BUFFER_BYTES);
+        buffer.put(Corpus.text(BUFFER_BYTES, keywords, Corpus.SEED).getBytes(StandardCharsets.US_ASCII)).flip();
+        pattern = new CompiledPattern("abcd");
+        AhoCorasick ac = new AhoCorasick();
+        ac.constructTrie(keywords);
+        automaton = ac.compile();
+        utf8 = new Utf8AhoCorasick(keywords);
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(BUFFER_BYTES)
+    public int findKeywords() {
+        int[] count = new int[1];
+        switch (search) {
+            case "COMPILED_PATTERN" -> count[0] = pattern.findAll(buffer, offsets);
+            case "AUTOMATON" -> automaton.findKeywords(buffer, (id, start, end) -> count[0]++);
+            default -> utf8.findKeywords(buffer, (id, byteStart, byteEnd, charStart, charEnd) -> count[0]++);
+        }
+        return count[0];
+    }
+}
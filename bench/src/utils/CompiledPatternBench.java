@@ -0,0 +1,105 @@
+package utils;
+
+import bench.Corpus;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures filtering many short strings with the same few keywords, in ns per input and keyword: {@link #INPUTS}
+ * generated lines of 40 to 120 chars, a few percent of which contain each keyword, and every searcher counts
+ * the lines containing it. {@link String#indexOf(String)} and the static {@link KMP} methods are the baselines
+ * of {@link CompiledPattern}, one line at a time and in batches.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@State(Scope.Benchmark)
+public class CompiledPatternBench {
+    static final int INPUTS = 1 << 16;
+    private static final String[] KEYWORDS = {"error", "timeout", "connection reset"};
+    // INPUTS times the number of KEYWORDS.
+    private static final int OPERATIONS = INPUTS * 3;
+
+    private String[] inputs;
+    private CompiledPattern[] patterns;
+    private int[] firstOffsets;
+
+    @Setup
+    public void setup() {
+        inputs = Corpus.lines(INPUTS, KEYWORDS, Corpus.SEED);
+        patterns = new CompiledPattern[KEYWORDS.length];
+        for (int k = 0; k < KEYWORDS.length; k++)
+            patterns[k] = new CompiledPattern(KEYWORDS[k]);
+        firstOffsets = new int[INPUTS];
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(OPERATIONS)
+    public int stringIndexOf() {
+        int count = 0;
+        for (String keyword : KEYWORDS)
+            for (String s : inputs)
+                if (s.indexOf(keyword) >= 0) count++;
+        return count;
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(OPERATIONS)
+    public int kmp1based() {
+        int count = 0;
+        for (String keyword : KEYWORDS)
+            for (String s : inputs)
+                if (KMP.KMP1based(s, keyword)) count++;
+        return count;
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(OPERATIONS)
+    public int kmp0based() {
+        int count = 0;
+        for (String keyword : KEYWORDS)
+            for (String s : inputs)
+                if (KMP.KMP0based(s, keyword)) count++;
+        return count;
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(OPERATIONS)
+    public int indexIn() {
+        int count = 0;
+        for (CompiledPattern pattern : patterns)
+            for (String s : inputs)
+                if (pattern.indexIn(s) >= 0) count++;
+        return count;
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(OPERATIONS)
+    public int batch() {
+        int count = 0;
+        for (CompiledPattern pattern : patterns) {
+            pattern.indexIn(inputs, firstOffsets);
+            count += count(firstOffsets);
+        }
+        return count;
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(OPERATIONS)
+    public int batchCommonPool() {
+        int count = 0;
+        for (CompiledPattern pattern : patterns) {
+            pattern.indexIn(inputs, firstOffsets, ForkJoinPool.commonPool());
+            count += count(firstOffsets);
+        }
+        return count;
+    }
+
+    private static int count(int[] firstOffsets) {
+        int count = 0;
+        for (int offset : firstOffsets)
+            if (offset >= 0) count++;
+        return count;
+    }
+}
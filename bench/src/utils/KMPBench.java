@@ -0,0 +1,64 @@
+package utils;
+
+import bench.Corpus;
+import org.openjdk.jmh.annotations.*;
+import utils.search.Searcher;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures single keyword search in input chars per second, so the score in ops/s is the throughput in bytes/s
+ * of the ASCII text, over a generated text of {@link #TEXT_CHARS} chars.
+ * <p>
+ * The keyword is a piece of the text with a last char that never occurs in it: every search scans the whole
+ * text and keeps running into partial matches, the work {@link KMP} is built for.
+ * {@link String#indexOf(String)} is the baseline.
+ * </p>
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@State(Scope.Benchmark)
+public class KMPBench {
+    static final int TEXT_CHARS = 1 << 22;
+
+    @Param({"4", "16", "64"})
+    public int length;
+
+    private String text;
+    private String keyword;
+    private CompiledPattern pattern;
+    private Searcher searcher;
+
+    @Setup
+    public void setup() {
+        text = Corpus.text(TEXT_CHARS, Corpus.words(64, Corpus.SEED), Corpus.SEED);
+        int from = TEXT_CHARS / 2;
+        keyword = text.substring(from, from + length - 1) + '!';
+        pattern = new CompiledPattern(keyword);
+        searcher = Searcher.compile(keyword);
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(TEXT_CHARS)
+    public boolean kmp0based() {
+        return KMP.KMP0based(text, keyword);
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(TEXT_CHARS)
+    public int compiledPattern() {
+        return pattern.indexIn(text);
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(TEXT_CHARS)
+    public int searcher() {
+        return searcher.indexIn(text);
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(TEXT_CHARS)
+    public int stringIndexOf() {
+        return text.indexOf(keyword);
+    }
+}
@@ -0,0 +1,74 @@
+package utils.search;
+
+import bench.Corpus;
+import org.openjdk.jmh.annotations.*;
+import utils.CompiledPattern;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures the {@link Searcher}s in input chars per second, counting every match of one keyword in a text of
+ * {@link #TEXT_CHARS} chars, against {@link String#indexOf(String, int)}. The inputs are chosen to show where
+ * each searcher wins:
+ * <ul>
+ * <li>{@code SHORT} a 5 char keyword in generated words.</li>
+ * <li>{@code LONG} a 24 char keyword in generated words.</li>
+ * <li>{@code DNA} a 32 char keyword over a 4 letter alphabet.</li>
+ * <li>{@code ADVERSARIAL} a^15 b a^16 in a run of a, which makes Horspool and the first/last filter compare
+ * half the keyword at every offset.</li>
+ * </ul>
+ * {@code COMPILE} is the searcher {@link Searcher#compile} picks for the keyword.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@State(Scope.Benchmark)
+public class SearcherBench {
+    static final int TEXT_CHARS = 1 << 22;
+
+    @Param({"INDEX_OF", "COMPILED_PATTERN", "HORSPOOL", "TWO_WAY", "FIRST_LAST", "COMPILE"})
+    public String searcher;
+
+    @Param({"SHORT", "LONG", "DNA", "ADVERSARIAL"})
+    public String input;
+
+    private String text;
+    private String keyword;
+    private Searcher compiled;
+    private final int[] offsets = new int[16];
+
+    @Setup
+    public void setup() {
+        switch (input) {
+            case "SHORT", "LONG" -> {
+                keyword = input.equals("SHORT") ? "error" : "connection reset by peer";
+                text = Corpus.text(TEXT_CHARS, new String[]{keyword}, Corpus.SEED);
+            }
+            case "DNA" -> {
+                keyword = "acgtacgtaacgtacggtacgtacgtatacgt";
+                text = Corpus.sequence(TEXT_CHARS, "acgt", Corpus.SEED);
+            }
+            default -> {
+                keyword = "a".repeat(15) + "b" + "a".repeat(16);
+                text = "a".repeat(TEXT_CHARS);
+            }
+        }
+        compiled = switch (searcher) {
+            case "INDEX_OF" -> null;
+            case "COMPILED_PATTERN" -> new CompiledPattern(keyword);
+            case "HORSPOOL" -> new HorspoolSearcher(keyword);
+            case "TWO_WAY" -> new TwoWaySearcher(keyword);
+            case "FIRST_LAST" -> new FirstLastSearcher(keyword);
+            default -> Searcher.compile(keyword);
+        };
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(TEXT_CHARS)
+    public int findAll() {
+        if (compiled != null) return compiled.findAll(text, offsets);
+        int count = 0;
+        for (int i = text.indexOf(keyword); i >= 0; i = text.indexOf(keyword, i + 1))
+            count++;
+        return count;
+    }
+}
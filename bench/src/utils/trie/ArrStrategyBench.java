@@ -0,0 +1,72 @@
+package utils.trie;
+
+import bench.Corpus;
+import org.openjdk.jmh.annotations.*;
+import utils.trie.arrStrategy.ArrStrategy;
+import utils.trie.arrStrategy.BitmapArrStrategy;
+import utils.trie.arrStrategy.ByteArrStrategy;
+import utils.trie.arrStrategy.SortedArrStrategy;
+
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+/**
+ * Compares the {@link ArrStrategy} child storages of {@link PrefixTrie} in ns per operation, like
+ * {@link PrefixTrieBench}: insert of {@link #WORDS} words into an empty trie, and {@code hasWord} over as many
+ * queries of which half are misses, on lower case words and on words in several scripts.
+ * {@link utils.trie.arrStrategy.LowAlphaArrStrategy}, the default, only stores lower case words and is measured
+ * by {@link PrefixTrieBench}. Run with {@code -prof gc} to compare the bytes allocated per insert.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@State(Scope.Benchmark)
+public class ArrStrategyBench {
+    static final int WORDS = 1 << 16;
+
+    @Param({"BYTE", "BITMAP", "SORTED", "ADAPTIVE"})
+    public String strategy;
+
+    @Param({"LOWER_CASE", "MIXED_SCRIPT"})
+    public String script;
+
+    private Supplier<ArrStrategy> strategies;
+    private String[] words;
+    private String[] queries;
+    private PrefixTrie trie;
+
+    @Setup
+    public void setup() {
+        strategies = switch (strategy) {
+            case "BYTE" -> ByteArrStrategy::new;
+            case "BITMAP" -> BitmapArrStrategy::new;
+            case "SORTED" -> SortedArrStrategy::new;
+            default -> SortedArrStrategy::adaptive;
+        };
+        boolean lowerCase = script.equals("LOWER_CASE");
+        words = lowerCase ? Corpus.words(WORDS, Corpus.SEED) : Corpus.mixedWords(WORDS, Corpus.SEED);
+        String[] misses = lowerCase ? Corpus.words(WORDS / 2, Corpus.SEED + 1)
+                : Corpus.mixedWords(WORDS / 2, Corpus.SEED + 1);
+        queries = new String[WORDS];
+        for (int i = 0; i < WORDS; i++)
+            queries[i] = (i & 1) == 0 ? words[i] : misses[i >>> 1];
+        trie = insert();
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(WORDS)
+    public PrefixTrie insert() {
+        PrefixTrie trie = new PrefixTrie(strategies);
+        for (String w : words)
+            trie.insert(w);
+        return trie;
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(WORDS)
+    public int hasWord() {
+        int found = 0;
+        for (String q : queries)
+            if (trie.hasWord(q)) found++;
+        return found;
+    }
+}
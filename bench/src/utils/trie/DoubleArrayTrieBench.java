@@ -0,0 +1,93 @@
+package utils.trie;
+
+import bench.Corpus;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Predicate;
+
+/**
+ * Compares {@link DoubleArrayTrie}, before and after {@link DoubleArrayTrie#freeze()}, against the pointer
+ * based {@link PrefixTrie} and a {@link HashSet} on {@link #WORDS} generated words, in ns per operation: building
+ * the trie, and {@code hasWord} over as many queries of which half are misses.
+ * <p>
+ * Setup prints the heap the trie it builds retains per distinct key, once per fork:
+ * {@link DoubleArrayTrie#memoryBytes()} for the double array, and the used heap after a GC before and after
+ * building for the others, not counting the words themselves. {@code -prof gc} only counts the bytes allocated.
+ * </p>
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@State(Scope.Benchmark)
+public class DoubleArrayTrieBench {
+    static final int WORDS = 1 << 18;
+
+    @Param({"HASH_SET", "PREFIX_TRIE", "DOUBLE_ARRAY", "FROZEN"})
+    public String trie;
+
+    private String[] words;
+    private String[] queries;
+    private Predicate<String> hasWord;
+
+    @Setup
+    public void setup() {
+        words = Corpus.words(WORDS, Corpus.SEED);
+        String[] misses = Corpus.words(WORDS / 2, Corpus.SEED + 1);
+        queries = new String[WORDS];
+        for (int i = 0; i < WORDS; i++)
+            queries[i] = (i & 1) == 0 ? words[i] : misses[i >>> 1];
+        long keys = Arrays.stream(words).distinct().count();
+        long used = usedHeap();
+        Object built = build();
+        long retained = usedHeap() - used;
+        if (built instanceof DoubleArrayTrie array) {
+            hasWord = array::hasWord;
+            retained = array.memoryBytes();
+        } else if (built instanceof PrefixTrie pointer) {
+            hasWord = pointer::hasWord;
+        } else {
+            hasWord = ((HashSet<?>) built)::contains;
+        }
+        System.out.printf("%s retains %.1f bytes/key%n", trie, (double) retained / keys);
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(WORDS)
+    public Object build() {
+        if (trie.equals("HASH_SET")) {
+            HashSet<String> set = new HashSet<>();
+            for (String w : words)
+                set.add(w);
+            return set;
+        }
+        if (trie.equals("PREFIX_TRIE")) {
+            PrefixTrie pointer = new PrefixTrie();
+            for (String w : words)
+                pointer.insert(w);
+            return pointer;
+        }
+        DoubleArrayTrie array = new DoubleArrayTrie();
+        for (String w : words)
+            array.insert(w);
+        if (trie.equals("FROZEN")) array.freeze();
+        return array;
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(WORDS)
+    public int hasWord() {
+        int found = 0;
+        for (String q : queries)
+            if (hasWord.test(q)) found++;
+        return found;
+    }
+
+    private static long usedHeap() {
+        Runtime runtime = Runtime.getRuntime();
+        for (int i = 0; i < 3; i++)
+            System.gc();
+        return runtime.totalMemory() - runtime.freeMemory();
+    }
+}
@@ -0,0 +1,51 @@
+package utils.trie;
+
+import bench.Corpus;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures {@link PrefixTrie} in ns per operation: {@link PrefixTrie#insert} of {@link #WORDS} generated words
+ * into an empty trie, and {@link PrefixTrie#hasWord} over as many queries of which half are misses.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@State(Scope.Benchmark)
+public class PrefixTrieBench {
+    static final int WORDS = 1 << 16;
+
+    private String[] words;
+    private String[] queries;
+    private PrefixTrie trie;
+
+    @Setup
+    public void setup() {
+        words = Corpus.words(WORDS, Corpus.SEED);
+        String[] misses = Corpus.words(WORDS / 2, Corpus.SEED + 1);
+        queries = new String[WORDS];
+        for (int i = 0; i < WORDS; i++)
+            queries[i] = (i & 1) == 0 ? words[i] : misses[i >>> 1];
+        trie = new PrefixTrie();
+        for (String w : words)
+            trie.insert(w);
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(WORDS)
+    public PrefixTrie insert() {
+        PrefixTrie trie = new PrefixTrie();
+        for (String w : words)
+            trie.insert(w);
+        return trie;
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(WORDS)
+    public int hasWord() {
+        int found = 0;
+        for (String q : queries)
+            if (trie.hasWord(q)) found++;
+        return found;
+    }
+}
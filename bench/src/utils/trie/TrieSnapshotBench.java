@@ -0,0 +1,77 @@
+package utils.trie;
+
+import bench.Corpus;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures the time from nothing to answering the first {@link #QUERIES} queries of a trie of {@link #WORDS}
+ * generated words, in ms: rebuilding it with {@code insert} calls, and opening a {@link TrieSnapshot} written
+ * before the run.
+ * <p>
+ * Each iteration is a single shot. Cold start is only seen in a fresh JVM, so run it through JMH with
+ * {@code -f 10 -wi 0 -i 1}; under {@link bench.Bench} the later iterations run warm.
+ * </p>
+ */
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@State(Scope.Benchmark)
+public class TrieSnapshotBench {
+    static final int WORDS = 1 << 18;
+    static final int QUERIES = 1000;
+
+    private String[] words;
+    private Path snapshot;
+
+    @Setup
+    public void setup() throws IOException {
+        words = Corpus.words(WORDS, Corpus.SEED);
+        DoubleArrayTrie array = new DoubleArrayTrie();
+        for (String w : words)
+            array.insert(w);
+        array.freeze();
+        snapshot = Files.createTempFile("trie", ".snapshot");
+        array.writeSnapshot(snapshot);
+    }
+
+    @TearDown
+    public void tearDown() throws IOException {
+        Files.deleteIfExists(snapshot);
+    }
+
+    @Benchmark
+    public int rebuildPrefixTrie() {
+        PrefixTrie trie = new PrefixTrie();
+        for (String w : words)
+            trie.insert(w);
+        int found = 0;
+        for (int i = 0; i < QUERIES; i++)
+            if (trie.hasWord(words[i])) found++;
+        return found;
+    }
+
+    @Benchmark
+    public int rebuildDoubleArrayTrie() {
+        DoubleArrayTrie trie = new DoubleArrayTrie();
+        for (String w : words)
+            trie.insert(w);
+        trie.freeze();
+        int found = 0;
+        for (int i = 0; i < QUERIES; i++)
+            if (trie.hasWord(words[i])) found++;
+        return found;
+    }
+
+    @Benchmark
+    public int openSnapshot() throws IOException {
+        TrieSnapshot trie = TrieSnapshot.open(snapshot);
+        int found = 0;
+        for (int i = 0; i < QUERIES; i++)
+            if (trie.hasWord(words[i])) found++;
+        return found;
+    }
+}
@@ -0,0 +1,137 @@
+package cache;
+
+import lexer.Lexer;
+import lexer.LexerCursor;
+import lexer.TokenStreamReader;
+import lexer.TokenStreamWriter;
+import parser.TokenParser;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+
+/**
+ * Compiles programs through a {@link CompilationCache}, so a program compiled before, by the same
+ * {@link #VERSION} of the compiler, costs a hash of its source and a read of its artifact.
+ * <p>
+ * The artifact of a program is its tokens, written by {@link TokenStreamWriter}, and its postfix translation by
+ * {@link TokenParser}, parsed from those tokens. The translation is parsed from the written tokens rather than
+ * alongside the lexer, so a program whose tokens do not read back is caught when it is compiled, not when its
+ * artifact is used.
+ * </p>
+ * <p>Artifact format:
+ * </p>
+ * <blockquote><pre>
+ * int  length          of the token stream
+ * byte tokens[length]
+ * byte translation[]   UTF-8, up to the end of the artifact
+ * </pre></blockquote>
+ * <p>Example Usage:
+ * </p>
+ * <pre>{@code
+ * CachedCompiler compiler = new CachedCompiler(new CompilationCache(Path.of(".cache"), 64 << 20));
+ * CachedCompiler.Result result = compiler.compile(Path.of("a.src"));
+ * System.out.print(result.translation());
+ * }</pre>
+ */
+public class CachedCompiler {
+    /**
+     * The version of the compiler, part of every key. To be changed along with anything that changes the
+     * artifact of a program, the lexer, the parser or the formats, so artifacts of earlier versions are missed.
+     */
+    public static final String VERSION = "1";
+
+    private final CompilationCache cache;
+
+    /**
+     * @param tokens      the tokens of the program, as written by {@link TokenStreamWriter}.
+     * @param translation the postfix translation of the program.
+     * @param cached      whether the artifact was found in the cache, rather than compiled.
+     */
+    public record Result(byte[] tokens, String translation, boolean cached) {
+    }
+
+    public CachedCompiler(CompilationCache cache) {
+        this.cache = cache;
+    }
+
+    /**
+     * @throws IOException if reading the file or the cache failed.
+     * @throws Error       lexical or syntax error when the file is not a program.
+     */
+    public Result compile(Path file) throws IOException, Error {
+        return compile(Files.readAllBytes(file));
+    }
+
+    /**
+     * @return the artifact of source from the cache, or compiled and put in the cache.
+     * @throws IOException if reading or writing the cache failed.
+     * @throws Error       lexical or syntax error when source is not a program.
+     */
+    public Result compile(byte[] source) throws IOException, Error {
+        long key = CompilationCache.key(source, VERSION);
+        Result cached = get(key);
+        if (cached != null) return cached;
+        byte[] tokens = lex(source);
+        String translation = parse(tokens);
+        put(key, tokens, translation);
+        return new Result(tokens, translation, false);
+    }
+
+    /**
+     * @param key the key of a source, as given by {@link CompilationCache#key} for {@link #VERSION}.
+     * @return the artifact of the source from the cache, null if it is not there.
+     * @throws IOException if reading the cache failed.
+     */
+    public Result get(long key) throws IOException {
+        byte[] artifact = cache.get(key);
+        if (artifact == null) return null;
+        int length = ByteBuffer.wrap(artifact).getInt();
+        byte[] tokens = Arrays.copyOfRange(artifact, 4, 4 + length);
+        String translation = new String(artifact, 4 + length, artifact.length - 4 - length, StandardCharsets.UTF_8);
+        return new Result(tokens, translation, true);
+    }
+
+    /**
+     * Puts the artifact of the source of key in the cache.
+     *
+     * @throws IOException if writing the cache failed.
+     */
+    public void put(long key, byte[] tokens, String translation) throws IOException {
+        byte[] text = translation.getBytes(StandardCharsets.UTF_8);
+        cache.put(key, ByteBuffer.allocate(4 + tokens.length + text.length)
+                .putInt(tokens.length).put(tokens).put(text).array());
+    }
+
+    /**
+     * @return the tokens of source, as written by {@link TokenStreamWriter}.
+     * @throws IOException never, the tokens are written to memory.
+     * @throws Error       lexical error when source could not be scanned.
+     */
+    public static byte[] lex(byte[] source) throws IOException, Error {
+        ByteArrayOutputStream out = new ByteArrayOutputStream(source.length / 2 + 64);
+        TokenStreamWriter.write(new LexerCursor(new Lexer(source)), out);
+        return out.toByteArray();
+    }
+
+    /**
+     * @param tokens tokens written by {@link TokenStreamWriter}.
+     * @return the postfix translation of the program of tokens.
+     * @throws IOException if tokens are not a token stream.
+     * @throws Error       syntax error when tokens are not a program.
+     */
+    public static String parse(byte[] tokens) throws IOException, Error {
+        StringBuilder translation = new StringBuilder();
+        new TokenParser(new TokenStreamReader(new ByteArrayInputStream(tokens)), translation).program();
+        return translation.toString();
+    }
+
+    public CompilationCache cache() {
+        return cache;
+    }
+}
@@ -0,0 +1,274 @@
+package cache;
+
+import utils.XXHash64;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.nio.file.attribute.FileTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.Hashtable;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * A directory of compiled artifacts, keyed by a hash of the source they were compiled from and of the version of
+ * the compiler ({@link #key}), so that a file that has not changed since it was last compiled is not compiled
+ * again.
+ * <p>Implementation:
+ * </p>
+ * <ul>
+ * <li>Every artifact is a file of its own, named after its key in hex, written to a temporary file and moved
+ * into place atomically, so a reader, even in another process, never sees a partly written artifact.</li>
+ * <li>The total size of the artifacts is bounded. When a put goes over the bound, the least recently used
+ * artifacts are deleted. The order of use is kept in memory, and in the last modified time of the files, which
+ * a hit updates, so that it carries over to the next run.</li>
+ * <li>Each file holds its key, its length and an {@link XXHash64} checksum of the artifact. A file that does not
+ * match, truncated or corrupted on disk, is deleted and reported as a miss.</li>
+ * <li>Files are read and written outside the lock of the cache, so threads compiling different files do not
+ * wait on each other's I/O.</li>
+ * </ul>
+ * <p>File format, little endian:
+ * </p>
+ * <blockquote><pre>
+ * int  magic     "CACH"
+ * int  version
+ * long key
+ * int  length
+ * byte artifact[length]
+ * long checksum  XXH64 of the artifact
+ * </pre></blockquote>
+ */
+public class CompilationCache {
+    private static final int MAGIC = 0x43414348;
+    private static final int VERSION = 1;
+    private static final int HEADER_BYTES = 20;
+    private static final int TRAILER_BYTES = 8;
+    private static final String SUFFIX = ".artifact";
+
+    private final Path directory;
+    private final long maxBytes;
+    // the size of the file of each key, least recently used first.
+    private final LinkedHashMap<Long, Long> entries;
+    private long totalBytes;
+    private long hits, misses, corrupt, evictions;
+
+    /**
+     * Opens the cache in directory, creating it if needed. Artifacts left by earlier runs are kept, temporary
+     * files of writes that never completed are deleted, and the least recently used artifacts are evicted if
+     * they go over maxBytes.
+     *
+     * @param maxBytes the bound on the total size of the files of the artifacts.
+     * @throws IOException if the directory cannot be created or listed.
+     */
+    public CompilationCache(Path directory, long maxBytes) throws IOException {
+        if (maxBytes < 0) throw new IllegalArgumentException("maxBytes must not be negative");
+        this.directory = Files.createDirectories(directory);
+        this.maxBytes = maxBytes;
+        this.entries = new LinkedHashMap<>(16, 0.75f, true);
+
+        // the artifacts of earlier runs, least recently used first.
+        ArrayList<Path> files = new ArrayList<>();
+        Hashtable<Path, BasicFileAttributes> attributes = new Hashtable<>();
+        try (DirectoryStream<Path> stream = Files.newDirectoryStream(directory)) {
+            for (Path file : stream) {
+                String name = file.getFileName().toString();
+                if (name.endsWith(".tmp")) {
+                    Files.deleteIfExists(file);
+                } else if (keyOf(name) != null) {
+                    files.add(file);
+                    attributes.put(file, Files.readAttributes(file, BasicFileAttributes.class));
+                }
+            }
+        }
+        files.sort(Comparator.comparing(file -> attributes.get(file).lastModifiedTime()));
+        for (Path file : files) {
+            long size = attributes.get(file).size();
+            entries.put(keyOf(file.getFileName().toString()), size);
+            totalBytes += size;
+        }
+        delete(evict());
+    }
+
+    /**
+     * @return the key of source as compiled by compilerVersion.
+     */
+    public static long key(byte[] source, String compilerVersion) {
+        return XXHash64.hash(source, 0, source.length, XXHash64.hash(compilerVersion.getBytes(StandardCharsets.UTF_8)));
+    }
+
+    /**
+     * @return the artifact put under key, or null if there is none or its file was corrupt.
+     * @throws IOException if the file of the artifact could not be read.
+     */
+    public byte[] get(long key) throws IOException {
+        synchronized (this) {
+            if (entries.get(key) == null) {
+                misses++;
+                return null;
+            }
+        }
+        Path file = fileOf(key);
+        byte[] bytes;
+        try {
+            bytes = Files.readAllBytes(file);
+        } catch (NoSuchFileException e) {
+            // evicted, or deleted by another process.
+            synchronized (this) {
+                remove(key);
+                misses++;
+            }
+            return null;
+        }
+
+        byte[] artifact = verify(key, bytes);
+        if (artifact == null) {
+            Files.deleteIfExists(file);
+            synchronized (this) {
+                remove(key);
+                corrupt++;
+                misses++;
+            }
+            return null;
+        }
+        try {
+            Files.setLastModifiedTime(file, FileTime.fromMillis(System.currentTimeMillis()));
+        } catch (IOException e) {
+            // the order of use then only holds for this run.
+        }
+        synchronized (this) {
+            entries.get(key);
+            hits++;
+        }
+        return artifact;
+    }
+
+    /**
+     * Puts artifact under key, replacing the artifact already there, then evicts the least recently used
+     * artifacts until the cache is within its bound again.
+     *
+     * @throws IOException if the file of the artifact could not be written.
+     */
+    public void put(long key, byte[] artifact) throws IOException {
+        ByteBuffer buffer = ByteBuffer.allocate(HEADER_BYTES + artifact.length + TRAILER_BYTES)
+                .order(ByteOrder.LITTLE_ENDIAN);
+        buffer.putInt(MAGIC).putInt(VERSION).putLong(key).putInt(artifact.length).put(artifact)
+                .putLong(XXHash64.hash(artifact));
+
+        Path file = fileOf(key);
+        Path tmp = Files.createTempFile(directory, file.getFileName().toString(), ".tmp");
+        try {
+            Files.write(tmp, buffer.array());
+            Files.move(tmp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } finally {
+            Files.deleteIfExists(tmp);
+        }
+
+        ArrayList<Long> evicted;
+        synchronized (this) {
+            remove(key);
+            entries.put(key, (long) buffer.capacity());
+            totalBytes += buffer.capacity();
+            evicted = evict();
+        }
+        delete(evicted);
+    }
+
+    /**
+     * @return the artifact in the bytes of the file of key, or null if they are not a valid file for key.
+     */
+    private static byte[] verify(long key, byte[] bytes) {
+        if (bytes.length < HEADER_BYTES + TRAILER_BYTES) return null;
+        ByteBuffer buffer = ByteBuffer.wrap(bytes).order(ByteOrder.LITTLE_ENDIAN);
+        if (buffer.getInt() != MAGIC || buffer.getInt() != VERSION || buffer.getLong() != key) return null;
+        int length = buffer.getInt();
+        if (length != bytes.length - HEADER_BYTES - TRAILER_BYTES) return null;
+        if (XXHash64.hash(bytes, HEADER_BYTES, length, 0) != buffer.getLong(HEADER_BYTES + length)) return null;
+        byte[] artifact = new byte[length];
+        System.arraycopy(bytes, HEADER_BYTES, artifact, 0, length);
+        return artifact;
+    }
+
+    private void remove(long key) {
+        Long size = entries.remove(key);
+        if (size != null) totalBytes -= size;
+    }
+
+    /**
+     * Removes the least recently used entries until the cache is within its bound.
+     *
+     * @return the keys removed, whose files are still to be deleted.
+     */
+    private ArrayList<Long> evict() {
+        ArrayList<Long> evicted = new ArrayList<>();
+        Iterator<Map.Entry<Long, Long>> iterator = entries.entrySet().iterator();
+        while (totalBytes > maxBytes && iterator.hasNext()) {
+            Map.Entry<Long, Long> eldest = iterator.next();
+            totalBytes -= eldest.getValue();
+            evicted.add(eldest.getKey());
+            iterator.remove();
+            evictions++;
+        }
+        return evicted;
+    }
+
+    private void delete(ArrayList<Long> keys) throws IOException {
+        for (long key : keys)
+            Files.deleteIfExists(fileOf(key));
+    }
+
+    private Path fileOf(long key) {
+        return directory.resolve(String.format("%016x", key) + SUFFIX);
+    }
+
+    private static Long keyOf(String name) {
+        if (name.length() != 16 + SUFFIX.length() || !name.endsWith(SUFFIX)) return null;
+        try {
+            return Long.parseUnsignedLong(name.substring(0, 16), 16);
+        } catch (NumberFormatException e) {
+            return null;
+        }
+    }
+
+    /**
+     * @return the number of artifacts in the cache.
+     */
+    public synchronized int size() {
+        return entries.size();
+    }
+
+    /**
+     * @return the total size of the files of the artifacts.
+     */
+    public synchronized long totalBytes() {
+        return totalBytes;
+    }
+
+    public synchronized long hits() {
+        return hits;
+    }
+
+    public synchronized long misses() {
+        return misses;
+    }
+
+    /**
+     * @return the number of artifacts found corrupt, and deleted, by {@link #get}.
+     */
+    public synchronized long corrupt() {
+        return corrupt;
+    }
+
+    public synchronized long evictions() {
+        return evictions;
+    }
+}
@@ -0,0 +1,164 @@
+package cache;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.util.Arrays;
+import java.util.stream.Stream;
+
+class CompilationCacheTest {
+    @TempDir
+    Path dir;
+
+    private static byte[] artifact(int n) {
+        byte[] bytes = new byte[n];
+        for (int i = 0; i < n; i++)
+            bytes[i] = (byte) (i * 31);
+        return bytes;
+    }
+
+    private Path onlyFile() throws IOException {
+        try (Stream<Path> files = Files.list(dir)) {
+            return files.reduce((a, b) -> {
+                throw new AssertionError("more than one file");
+            }).orElseThrow();
+        }
+    }
+
+    @Test
+    void testRoundTrip() throws IOException {
+        CompilationCache cache = new CompilationCache(dir, 1 << 20);
+        Assertions.assertNull(cache.get(1));
+        cache.put(1, artifact(100));
+        cache.put(2, new byte[0]);
+        Assertions.assertArrayEquals(artifact(100), cache.get(1));
+        Assertions.assertArrayEquals(new byte[0], cache.get(2));
+        Assertions.assertEquals(2, cache.hits());
+        Assertions.assertEquals(1, cache.misses());
+
+        cache.put(1, artifact(10));
+        Assertions.assertArrayEquals(artifact(10), cache.get(1));
+        Assertions.assertEquals(2, cache.size());
+
+        // a new cache on the same directory finds the artifacts of the last.
+        CompilationCache reopened = new CompilationCache(dir, 1 << 20);
+        Assertions.assertEquals(2, reopened.size());
+        Assertions.assertEquals(cache.totalBytes(), reopened.totalBytes());
+        Assertions.assertArrayEquals(artifact(10), reopened.get(1));
+    }
+
+    @Test
+    void testKey() {
+        byte[] source = "a = b + 1;".getBytes();
+        Assertions.assertEquals(CompilationCache.key(source, "1"), CompilationCache.key(source.clone(), "1"));
+        Assertions.assertNotEquals(CompilationCache.key(source, "1"), CompilationCache.key(source, "2"));
+        Assertions.assertNotEquals(CompilationCache.key(source, "1"), CompilationCache.key("a = b + 2;".getBytes(), "1"));
+    }
+
+    @Test
+    void testCorruption() throws IOException {
+        CompilationCache cache = new CompilationCache(dir, 1 << 20);
+        cache.put(7, artifact(100));
+        Path file = onlyFile();
+        byte[] bytes = Files.readAllBytes(file);
+
+        // a flipped bit in the artifact.
+        bytes[50] ^= 4;
+        Files.write(file, bytes);
+        Assertions.assertNull(cache.get(7));
+        Assertions.assertEquals(1, cache.corrupt());
+        Assertions.assertFalse(Files.exists(file));
+        Assertions.assertEquals(0, cache.size());
+        Assertions.assertEquals(0, cache.totalBytes());
+
+        // a truncated file.
+        cache.put(7, artifact(100));
+        bytes = Files.readAllBytes(file);
+        Files.write(file, Arrays.copyOf(bytes, bytes.length - 1));
+        Assertions.assertNull(cache.get(7));
+        Assertions.assertEquals(2, cache.corrupt());
+
+        // the file of another key.
+        cache.put(7, artifact(100));
+        Files.move(file, dir.resolve(String.format("%016x", 8) + ".artifact"));
+        CompilationCache reopened = new CompilationCache(dir, 1 << 20);
+        Assertions.assertNull(reopened.get(8));
+        Assertions.assertEquals(1, reopened.corrupt());
+    }
+
+    @Test
+    void testEviction() throws IOException {
+        // room for three artifacts of 100 bytes and their headers.
+        CompilationCache cache = new CompilationCache(dir, 3 * 128);
+        cache.put(1, artifact(100));
+        cache.put(2, artifact(100));
+        cache.put(3, artifact(100));
+        Assertions.assertNotNull(cache.get(1));
+        cache.put(4, artifact(100));
+        Assertions.assertEquals(1, cache.evictions());
+        Assertions.assertEquals(3, cache.size());
+        Assertions.assertNull(cache.get(2));
+        Assertions.assertNotNull(cache.get(1));
+        Assertions.assertNotNull(cache.get(3));
+        Assertions.assertNotNull(cache.get(4));
+        try (Stream<Path> files = Files.list(dir)) {
+            Assertions.assertEquals(3, files.count());
+        }
+        Assertions.assertTrue(cache.totalBytes() <= 3 * 128);
+
+        // an artifact larger than the cache is evicted at once.
+        cache.put(5, artifact(1000));
+        Assertions.assertNull(cache.get(5));
+    }
+
+    @Test
+    void testEvictionOrderCarriesOver() throws IOException {
+        CompilationCache cache = new CompilationCache(dir, 1 << 20);
+        cache.put(1, artifact(100));
+        cache.put(2, artifact(100));
+        cache.put(3, artifact(100));
+        // modification times may be too coarse to tell the puts apart.
+        for (long key = 1; key <= 3; key++)
+            Files.setLastModifiedTime(dir.resolve(String.format("%016x", key) + ".artifact"),
+                    FileTime.fromMillis(1_000_000 * key));
+
+        CompilationCache reopened = new CompilationCache(dir, 2 * 128);
+        Assertions.assertEquals(2, reopened.size());
+        Assertions.assertNull(reopened.get(1));
+        Assertions.assertNotNull(reopened.get(2));
+        Assertions.assertNotNull(reopened.get(3));
+    }
+
+    @Test
+    void testUnfinishedWritesDeleted() throws IOException {
+        Files.write(dir.resolve("0000000000000001.artifact1234.tmp"), artifact(10));
+        Files.write(dir.resolve("notes.txt"), artifact(10));
+        CompilationCache cache = new CompilationCache(dir, 1 << 20);
+        Assertions.assertEquals(0, cache.size());
+        Assertions.assertFalse(Files.exists(dir.resolve("0000000000000001.artifact1234.tmp")));
+        Assertions.assertTrue(Files.exists(dir.resolve("notes.txt")));
+    }
+
+    @Test
+    void testCachedCompiler() throws IOException {
+        CachedCompiler compiler = new CachedCompiler(new CompilationCache(dir, 1 << 20));
+        byte[] source = "a = b + 1;\n(a + b) / (c - d) * 1.5;\n".getBytes();
+        CachedCompiler.Result cold = compiler.compile(source);
+        Assertions.assertFalse(cold.cached());
+        Assertions.assertEquals("a b 1 + =\na b + c d - / 1.5 *\n", cold.translation());
+
+        CachedCompiler.Result warm = compiler.compile(source.clone());
+        Assertions.assertTrue(warm.cached());
+        Assertions.assertEquals(cold.translation(), warm.translation());
+        Assertions.assertArrayEquals(cold.tokens(), warm.tokens());
+
+        Assertions.assertFalse(compiler.compile("a = b + 2;".getBytes()).cached());
+        Assertions.assertThrows(Error.class, () -> compiler.compile("a = ;".getBytes()));
+        Assertions.assertEquals(2, compiler.cache().size());
+    }
+}
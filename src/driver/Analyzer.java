@@ -0,0 +1,57 @@
+package driver;
+
+import lexer.Tag;
+import lexer.TokenCursor;
+import lexer.Word;
+import symbols.Env;
+import symbols.Symbol;
+
+import java.io.IOException;
+
+/**
+ * Checks that every name a program reads has been assigned by an earlier statement, over the tokens of a program
+ * already parsed.
+ * <p>
+ * The names assigned are put in an {@link Env} at the end of their statement, so {@code x = x + 1;} reads x
+ * before it is assigned. The target of an assignment is told from a read by the token after it, the only
+ * lookahead needed.
+ * </p>
+ */
+class Analyzer {
+    private static final Symbol ASSIGNED = new Symbol();
+
+    private Analyzer() {
+    }
+
+    /**
+     * @param tokens the tokens of a program, before their first token.
+     * @return the number of names read before they are assigned.
+     * @throws IOException if reading the tokens failed.
+     */
+    static int unassigned(TokenCursor tokens) throws IOException, Error {
+        Env env = new Env(null);
+        int unassigned = 0;
+        boolean statementStart = true;
+        // the name starting the statement, until the next token tells whether it is assigned or read.
+        Word first = null;
+        Word target = null;
+        do {
+            tokens.advance();
+            int tag = tokens.tag();
+            if (first != null) {
+                if (tag == '=') target = first;
+                else if (env.get(first.lexeme()) == null) unassigned++;
+                first = null;
+            }
+            if (tag == Tag.ID) {
+                if (statementStart) first = tokens.word();
+                else if (env.get(tokens.word().lexeme()) == null) unassigned++;
+            } else if (tag == ';' && target != null) {
+                env.put(target.lexeme(), ASSIGNED);
+                target = null;
+            }
+            statementStart = tag == ';';
+        } while (tokens.tag() != Tag.EOF);
+        return unassigned;
+    }
+}
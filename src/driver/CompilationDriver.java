@@ -0,0 +1,374 @@
+package driver;
+
+import cache.CachedCompiler;
+import cache.CompilationCache;
+import lexer.TokenStreamReader;
+
+import java.io.ByteArrayInputStream;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.stream.Stream;
+
+/**
+ * Compiles many files at once: each file is read, lexed, parsed and analyzed by a task of its own, on a
+ * work-stealing {@link ForkJoinPool}.
+ * <p>Implementation:
+ * </p>
+ * <ul>
+ * <li>The files are split in halves down to single files, so an idle worker steals the largest half left of
+ * another worker's share rather than taking files one at a time from a shared queue.</li>
+ * <li>The bytes of the files being compiled are bounded. A task takes permits for the size of its file before
+ * reading it and gives them back when done, so a few large files, or more threads, do not hold more than the
+ * bound in memory at once. The permits are shared by every compile running on the driver, such as the
+ * requests of a {@link CompileServer}. A file larger than the bound waits until it has the bound to itself.
+ * A task waits for its permits through {@link ForkJoinPool#managedBlock}, so the pool may start a spare worker
+ * to keep its parallelism meanwhile.</li>
+ * <li>With a {@link CompilationCache}, a file compiled before is not lexed or parsed again, only analyzed from
+ * its cached tokens.</li>
+ * <li>The time of each {@link Phase} is summed over all files and threads.</li>
+ * </ul>
+ * <p>Example Usage:
+ * </p>
+ * <pre>{@code
+ * try (CompilationDriver driver = new CompilationDriver(4, 64 << 20, null)) {
+ *     CompilationDriver.Report report = driver.compile(List.of(Path.of("src")), null, null);
+ *     report.print(System.err);
+ * }
+ * }</pre>
+ */
+public class CompilationDriver implements Closeable {
+    /**
+     * The extension of the files compiled in a directory given to {@link #compile}.
+     */
+    public static final String EXTENSION = ".src";
+    private static final String USAGE = "usage: java driver.CompilationDriver [-j threads] [-m memory MB] "
+            + "[-cache dir] [-cache-size MB] [-o output dir] [-print] file|dir...";
+
+    public enum Phase {
+        READ, CACHE, LEX, PARSE, ANALYZE, WRITE
+    }
+
+    private final ForkJoinPool pool;
+    private final int memoryKB;
+    private final Semaphore memory;
+    private final CachedCompiler compiler;
+
+    /**
+     * A file to compile, and its path relative to the directory it was found in, which names its output.
+     */
+    private record Source(Path file, Path name, long size) {
+    }
+
+    /**
+     * The results of a {@link #compile}.
+     *
+     * @param files        the number of files compiled, with or without errors.
+     * @param bytes        their total size.
+     * @param cached       the number of files found in the cache.
+     * @param unassigned   the number of names read before they were assigned, over all files.
+     * @param errors       one message for each file that could not be compiled.
+     * @param nanos        the wall time of the compile.
+     * @param phaseNanos   the time of each {@link Phase}, summed over the threads.
+     * @param maxBytesHeld the largest number of bytes of files held at once.
+     */
+    public record Report(int files, long bytes, int cached, long unassigned, List<String> errors, long nanos,
+                         long[] phaseNanos, long maxBytesHeld) {
+        public void print(PrintStream out) {
+            for (String error : errors)
+                out.println(error);
+            for (Phase phase : Phase.values())
+                out.printf("%-8s %10.1f ms%n", phase.name().toLowerCase(), phaseNanos[phase.ordinal()] / 1e6);
+            out.printf("%d files, %.1f MB, %d cached, %d errors, %d unassigned names, at most %d KB held%n",
+                    files, bytes / 1e6, cached, errors.size(), unassigned, maxBytesHeld >> 10);
+            out.printf("%.1f ms, %.0f files/s, %.1f MB/s%n", nanos / 1e6, files * 1e9 / nanos, bytes * 1e3 / nanos);
+        }
+    }
+
+    /**
+     * @param parallelism     the number of worker threads.
+     * @param memoryBytes     the bound on the bytes of files held at once.
+     * @param cache       the cache of compiled files, null for none.
+     */
+    public CompilationDriver(int parallelism, long memoryBytes, CompilationCache cache) {
+        if (memoryBytes < 1024) throw new IllegalArgumentException("memoryBytes must be at least 1 KB");
+        this.pool = new ForkJoinPool(parallelism);
+        this.memoryKB = (int) Math.min(memoryBytes >> 10, Integer.MAX_VALUE);
+        this.memory = new Semaphore(memoryKB);
+        this.compiler = cache == null ? null : new CachedCompiler(cache);
+    }
+
+    /**
+     * Compiles the files of paths: each file given, and each file ending in {@link #EXTENSION} under each
+     * directory given.
+     *
+     * @param outputDirectory where the translation of each file is written, null to write none.
+     * @param print           where the translation of each file is printed, in the order the files are done,
+     *                        null to print none.
+     * @throws IOException if a path given could not be listed. Files that cannot be read or compiled are
+     *                     reported in {@link Report#errors}, and so is a file whose output would overwrite that of
+     *                     a file before it in paths, such as two files of the same name given directly, which is
+     *                     not compiled.
+     */
+    public Report compile(List<Path> paths, Path outputDirectory, PrintStream print) throws IOException {
+        long start = System.nanoTime();
+        ArrayList<Source> sources = new ArrayList<>();
+        for (Path path : paths) {
+            if (Files.isDirectory(path)) {
+                try (Stream<Path> files = Files.find(path, Integer.MAX_VALUE, (file, attributes) ->
+                        attributes.isRegularFile() && file.getFileName().toString().endsWith(EXTENSION))) {
+                    for (Path file : (Iterable<Path>) files::iterator)
+                        sources.add(new Source(file, path.relativize(file), Files.size(file)));
+                }
+            } else {
+                BasicFileAttributes attributes = Files.readAttributes(path, BasicFileAttributes.class);
+                sources.add(new Source(path, path.getFileName(), attributes.size()));
+            }
+        }
+
+        ArrayList<String> duplicates = new ArrayList<>();
+        if (outputDirectory != null) {
+            HashMap<Path, Path> outputs = new HashMap<>();
+            sources.removeIf(source -> {
+                Path first = outputs.putIfAbsent(source.name.normalize(), source.file);
+                if (first != null) duplicates.add(source.file + ": same output as " + first);
+                return first != null;
+            });
+        }
+
+        Run run = new Run(sources, outputDirectory, print);
+        run.errors.addAll(duplicates);
+        if (!sources.isEmpty()) pool.invoke(run.new Compile(0, sources.size()));
+        Collections.sort(run.errors);
+        long bytes = 0;
+        for (Source source : sources)
+            bytes += source.size;
+        long[] phaseNanos = new long[Phase.values().length];
+        for (int i = 0; i < phaseNanos.length; i++)
+            phaseNanos[i] = run.phaseNanos[i].sum();
+        return new Report(sources.size(), bytes, run.cached.intValue(), run.unassigned.sum(),
+                Collections.unmodifiableList(run.errors), System.nanoTime() - start, phaseNanos, run.maxHeld.get());
+    }
+
+    /**
+     * The state of one {@link #compile}, shared by its tasks.
+     */
+    private class Run {
+        final List<Source> sources;
+        final Path outputDirectory;
+        final PrintStream print;
+        final LongAdder[] phaseNanos;
+        final LongAdder cached;
+        final LongAdder unassigned;
+        final ArrayList<String> errors;
+        final AtomicLong held;
+        final AtomicLong maxHeld;
+
+        Run(List<Source> sources, Path outputDirectory, PrintStream print) {
+            this.sources = sources;
+            this.outputDirectory = outputDirectory;
+            this.print = print;
+            this.phaseNanos = new LongAdder[Phase.values().length];
+            for (int i = 0; i < phaseNanos.length; i++)
+                phaseNanos[i] = new LongAdder();
+            this.cached = new LongAdder();
+            this.unassigned = new LongAdder();
+            this.errors = new ArrayList<>();
+            this.held = new AtomicLong();
+            this.maxHeld = new AtomicLong();
+        }
+
+        class Compile extends RecursiveAction {
+            private static final long serialVersionUID = 1L;
+
+            private final int from, to;
+
+            Compile(int from, int to) {
+                this.from = from;
+                this.to = to;
+            }
+
+            @Override
+            protected void compute() {
+                if (to - from > 1) {
+                    int middle = (from + to) >>> 1;
+                    invokeAll(new Compile(from, middle), new Compile(middle, to));
+                    return;
+                }
+                Source source = sources.get(from);
+                int permits = (int) Math.min((source.size >> 10) + 1, memoryKB);
+                acquire(permits);
+                try {
+                    long h = held.addAndGet(source.size);
+                    maxHeld.accumulateAndGet(h, Math::max);
+                    compile(source);
+                } catch (IOException | Error e) {
+                    synchronized (errors) {
+                        errors.add(source.file + ": " + e.getMessage());
+                    }
+                } finally {
+                    held.addAndGet(-source.size);
+                    memory.release(permits);
+                }
+            }
+        }
+
+        private void compile(Source source) throws IOException, Error {
+            long time = System.nanoTime();
+            byte[] bytes = Files.readAllBytes(source.file);
+            time = phase(Phase.READ, time);
+
+            CachedCompiler.Result result = null;
+            long key = 0;
+            if (compiler != null) {
+                key = CompilationCache.key(bytes, CachedCompiler.VERSION);
+                result = compiler.get(key);
+                time = phase(Phase.CACHE, time);
+            }
+            byte[] tokens;
+            String translation;
+            if (result != null) {
+                cached.increment();
+                tokens = result.tokens();
+                translation = result.translation();
+            } else {
+                tokens = CachedCompiler.lex(bytes);
+                time = phase(Phase.LEX, time);
+                translation = CachedCompiler.parse(tokens);
+                time = phase(Phase.PARSE, time);
+            }
+            unassigned.add(Analyzer.unassigned(new TokenStreamReader(new ByteArrayInputStream(tokens))));
+            time = phase(Phase.ANALYZE, time);
+
+            if (compiler != null && result == null) {
+                compiler.put(key, tokens, translation);
+                time = phase(Phase.CACHE, time);
+            }
+            if (outputDirectory != null) {
+                Path output = outputDirectory.resolve(source.name + ".pf");
+                Files.createDirectories(output.getParent());
+                Files.writeString(output, translation);
+            }
+            if (print != null) {
+                synchronized (print) {
+                    if (sources.size() > 1) print.println("# " + source.file);
+                    print.print(translation);
+                }
+            }
+            phase(Phase.WRITE, time);
+        }
+
+        /**
+         * Adds the time since start to phase.
+         *
+         * @return the time now, the start of the next phase.
+         */
+        private long phase(Phase phase, long start) {
+            long now = System.nanoTime();
+            phaseNanos[phase.ordinal()].add(now - start);
+            return now;
+        }
+    }
+
+    /**
+     * Takes permits of {@link #memory}, telling the pool when the worker blocks. Interrupts are deferred until the
+     * permits are taken.
+     */
+    private void acquire(int permits) {
+        MemoryPermits blocker = new MemoryPermits(permits);
+        boolean interrupted = false;
+        while (!blocker.acquired) {
+            try {
+                ForkJoinPool.managedBlock(blocker);
+            } catch (InterruptedException e) {
+                interrupted = true;
+            }
+        }
+        if (interrupted) Thread.currentThread().interrupt();
+    }
+
+    /**
+     * Permits of {@link #memory} to take, without blocking when they are free.
+     */
+    private class MemoryPermits implements ForkJoinPool.ManagedBlocker {
+        private final int permits;
+        private boolean acquired;
+
+        MemoryPermits(int permits) {
+            this.permits = permits;
+        }
+
+        @Override
+        public boolean block() throws InterruptedException {
+            if (!acquired) {
+                memory.acquire(permits);
+                acquired = true;
+            }
+            return true;
+        }
+
+        @Override
+        public boolean isReleasable() {
+            return acquired || (acquired = memory.tryAcquire(permits));
+        }
+    }
+
+    /**
+     * Stops the worker threads.
+     */
+    @Override
+    public void close() {
+        pool.shutdown();
+    }
+
+    public static void main(String[] args) throws IOException {
+        int parallelism = Runtime.getRuntime().availableProcessors();
+        long memoryMB = 64;
+        Path cacheDirectory = null;
+        long cacheMB = 256;
+        Path outputDirectory = null;
+        boolean print = false;
+        ArrayList<Path> paths = new ArrayList<>();
+        try {
+            for (int i = 0; i < args.length; i++) {
+                switch (args[i]) {
+                    case "-j" -> parallelism = Integer.parseInt(args[++i]);
+                    case "-m" -> memoryMB = Long.parseLong(args[++i]);
+                    case "-cache" -> cacheDirectory = Path.of(args[++i]);
+                    case "-cache-size" -> cacheMB = Long.parseLong(args[++i]);
+                    case "-o" -> outputDirectory = Path.of(args[++i]);
+                    case "-print" -> print = true;
+                    default -> {
+                        if (args[i].startsWith("-")) throw new IllegalArgumentException("unknown option " + args[i]);
+                        paths.add(Path.of(args[i]));
+                    }
+                }
+            }
+            if (paths.isEmpty()) throw new IllegalArgumentException("no files given");
+        } catch (IllegalArgumentException | IndexOutOfBoundsException e) {
+            System.err.println(USAGE);
+            System.exit(2);
+        }
+
+        CompilationCache cache = cacheDirectory == null ? null : new CompilationCache(cacheDirectory, cacheMB << 20);
+        Report report;
+        try (CompilationDriver driver = new CompilationDriver(parallelism, memoryMB << 20, cache)) {
+            report = driver.compile(paths, outputDirectory, print ? System.out : null);
+        }
+        System.out.flush();
+        report.print(System.err);
+        if (!report.errors().isEmpty()) System.exit(1);
+    }
+}
@@ -0,0 +1,121 @@
+package driver;
+
+import cache.CompilationCache;
+import lexer.Lexer;
+import lexer.LexerCursor;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+
+class CompilationDriverTest {
+    @TempDir
+    Path dir;
+
+    private static int unassigned(String program) throws IOException {
+        return Analyzer.unassigned(new LexerCursor(new Lexer(program.getBytes())));
+    }
+
+    private Path tree() throws IOException {
+        Path src = Files.createDirectories(dir.resolve("src/a/b"));
+        Files.writeString(dir.resolve("src/one.src"), "x = 1;\ny = x + 2;\n");
+        Files.writeString(dir.resolve("src/a/two.src"), "(a + b) * 2;\n");
+        Files.writeString(src.resolve("three.src"), "z = z + 1;\n");
+        Files.writeString(src.resolve("bad.src"), "x = ;\n");
+        Files.writeString(src.resolve("notes.txt"), "not a program");
+        return dir.resolve("src");
+    }
+
+    @Test
+    void testAnalyzer() throws IOException {
+        Assertions.assertEquals(0, unassigned("x = 1; y = x + 2; y;"));
+        Assertions.assertEquals(2, unassigned("a + b;"));
+        Assertions.assertEquals(1, unassigned("x = x + 1; x;"));
+        Assertions.assertEquals(1, unassigned("y; y = 1; y;"));
+        Assertions.assertEquals(0, unassigned(""));
+    }
+
+    @Test
+    void testCompileTree() throws IOException {
+        Path src = tree();
+        Path out = dir.resolve("out");
+        try (CompilationDriver driver = new CompilationDriver(3, 1 << 20, null)) {
+            CompilationDriver.Report report = driver.compile(List.of(src), out, null);
+            Assertions.assertEquals(4, report.files());
+            Assertions.assertEquals(1, report.errors().size());
+            Assertions.assertTrue(report.errors().get(0).contains("bad.src"));
+            Assertions.assertEquals(3, report.unassigned());
+            Assertions.assertEquals(0, report.cached());
+            Assertions.assertTrue(report.phaseNanos()[CompilationDriver.Phase.LEX.ordinal()] > 0);
+        }
+        Assertions.assertEquals("x 1 =\ny x 2 + =\n", Files.readString(out.resolve("one.src.pf")));
+        Assertions.assertEquals("a b + 2 *\n", Files.readString(out.resolve("a/two.src.pf")));
+        Assertions.assertEquals("z z 1 + =\n", Files.readString(out.resolve("a/b/three.src.pf")));
+        Assertions.assertFalse(Files.exists(out.resolve("a/b/bad.src.pf")));
+    }
+
+    @Test
+    void testSameOutputName() throws IOException {
+        Path src = tree();
+        Path other = Files.createDirectories(dir.resolve("other"));
+        Files.writeString(other.resolve("one.src"), "y = 2;\n");
+        Path out = dir.resolve("out");
+        try (CompilationDriver driver = new CompilationDriver(2, 1 << 20, null)) {
+            CompilationDriver.Report report = driver.compile(
+                    List.of(src.resolve("one.src"), other.resolve("one.src"), src), out, null);
+            Assertions.assertEquals(4, report.files());
+            Assertions.assertEquals(3, report.errors().size());
+            Assertions.assertEquals(2, report.errors().stream().filter(e -> e.contains("same output")).count());
+        }
+        Assertions.assertEquals("x 1 =\ny x 2 + =\n", Files.readString(out.resolve("one.src.pf")));
+        Assertions.assertEquals("a b + 2 *\n", Files.readString(out.resolve("a/two.src.pf")));
+    }
+
+    @Test
+    void testPrint() throws IOException {
+        Path src = tree();
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (CompilationDriver driver = new CompilationDriver(1, 1 << 20, null)) {
+            driver.compile(List.of(src.resolve("one.src")), null, new PrintStream(bytes, true));
+        }
+        Assertions.assertEquals("x 1 =\ny x 2 + =\n", bytes.toString());
+    }
+
+    @Test
+    void testCache() throws IOException {
+        Path src = tree();
+        CompilationCache cache = new CompilationCache(dir.resolve("cache"), 1 << 20);
+        try (CompilationDriver driver = new CompilationDriver(2, 1 << 20, cache)) {
+            Assertions.assertEquals(0, driver.compile(List.of(src), null, null).cached());
+            CompilationDriver.Report warm = driver.compile(List.of(src), null, null);
+            Assertions.assertEquals(3, warm.cached());
+            Assertions.assertEquals(1, warm.errors().size());
+            Assertions.assertEquals(3, warm.unassigned());
+        }
+    }
+
+    @Test
+    void testMemoryBound() throws IOException {
+        Path src = Files.createDirectories(dir.resolve("src"));
+        String program = "x = 1;\n".repeat(1000);
+        for (int i = 0; i < 40; i++)
+            Files.writeString(src.resolve(i + ".src"), program);
+        // room for two of the 7 KB files at a time.
+        try (CompilationDriver driver = new CompilationDriver(8, 16 << 10, null)) {
+            CompilationDriver.Report report = driver.compile(List.of(src), null, null);
+            Assertions.assertEquals(40, report.files());
+            Assertions.assertTrue(report.errors().isEmpty());
+            Assertions.assertTrue(report.maxBytesHeld() <= 2 * program.length(), "" + report.maxBytesHeld());
+        }
+        // a file larger than the bound is still compiled.
+        try (CompilationDriver driver = new CompilationDriver(2, 1 << 10, null)) {
+            Assertions.assertTrue(driver.compile(List.of(src), null, null).errors().isEmpty());
+        }
+    }
+}
@@ -0,0 +1,84 @@
+package driver;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.UnixDomainSocketAddress;
+import java.nio.channels.Channels;
+import java.nio.channels.SocketChannel;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Forwards its arguments to a {@link CompileServer} and streams the output of the compile back, so it only
+ * loads the classes it takes to talk to the socket.
+ * <p>
+ * Run with {@code java driver.CompileClient [-socket path] [-o output dir] [-print] file|dir...}, or
+ * {@code -stop} to stop the server. Exits with the exit status of the compile, or 2 if there is no server.
+ * </p>
+ */
+public class CompileClient {
+    private CompileClient() {
+    }
+
+    /**
+     * Sends args to the server on socket, on behalf of the current working directory.
+     *
+     * @param out where the standard output of the compile is written.
+     * @param err where the standard error of the compile is written.
+     * @return the exit status of the compile.
+     * @throws IOException if there is no server on socket, or the connection failed.
+     */
+    public static int run(Path socket, List<String> args, OutputStream out, OutputStream err) throws IOException {
+        try (SocketChannel channel = SocketChannel.open(UnixDomainSocketAddress.of(socket))) {
+            DataOutputStream request = new DataOutputStream(new BufferedOutputStream(Channels.newOutputStream(channel)));
+            request.writeUTF(Path.of("").toAbsolutePath().toString());
+            request.writeInt(args.size());
+            for (String arg : args)
+                request.writeUTF(arg);
+            request.flush();
+
+            DataInputStream response = new DataInputStream(new BufferedInputStream(Channels.newInputStream(channel)));
+            byte[] buffer = new byte[1 << 13];
+            while (true) {
+                byte kind = response.readByte();
+                int length = response.readInt();
+                if (kind == CompileServer.EXIT) {
+                    out.flush();
+                    err.flush();
+                    return length;
+                }
+                if (kind != CompileServer.OUT && kind != CompileServer.ERR || length < 0)
+                    throw new IOException("bad response from the compile server");
+                OutputStream target = kind == CompileServer.OUT ? out : err;
+                while (length > 0) {
+                    int n = Math.min(length, buffer.length);
+                    response.readFully(buffer, 0, n);
+                    target.write(buffer, 0, n);
+                    length -= n;
+                }
+            }
+        }
+    }
+
+    public static void main(String[] args) {
+        Path socket = CompileServer.defaultSocket();
+        List<String> forwarded = Arrays.asList(args);
+        if (args.length >= 2 && args[0].equals("-socket")) {
+            socket = Path.of(args[1]);
+            forwarded = forwarded.subList(2, args.length);
+        }
+        int status;
+        try {
+            status = run(socket, forwarded, System.out, System.err);
+        } catch (IOException e) {
+            System.err.println("no compile server on " + socket + ": " + e.getMessage());
+            status = 2;
+        }
+        System.exit(status);
+    }
+}
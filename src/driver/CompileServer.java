@@ -0,0 +1,325 @@
+package driver;
+
+import cache.CompilationCache;
+import jdk.net.ExtendedSocketOptions;
+import jdk.net.UnixDomainPrincipal;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.net.StandardProtocolFamily;
+import java.net.UnixDomainSocketAddress;
+import java.nio.channels.AsynchronousCloseException;
+import java.nio.channels.Channels;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.channels.SocketChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.LinkOption;
+import java.nio.file.Path;
+import java.nio.file.attribute.PosixFileAttributes;
+import java.nio.file.attribute.PosixFilePermission;
+import java.nio.file.attribute.PosixFilePermissions;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * A long running compiler, taking requests from {@link CompileClient}s on a Unix domain socket, so a compile
+ * does not pay for starting a JVM, loading classes and warming up the JIT every time.
+ * <p>
+ * Between requests the server keeps its {@link CompilationDriver}, with its worker threads and the JIT compiled
+ * lexer and parser, and its {@link CompilationCache}, whose index stays in memory rather than being read back
+ * from the cache directory by every compile.
+ * </p>
+ * <p>Protocol, in the order of {@link DataOutputStream}:
+ * </p>
+ * <blockquote><pre>
+ * request:  UTF   the working directory of the client, against which relative paths are resolved
+ *           int   the number of arguments
+ *           UTF*  the arguments, as taken by {@link #run}
+ * response: frame* until an exit frame:
+ *   byte  kind    {@link #OUT} or {@link #ERR}, followed by int length, byte[length] of the stream
+ *                 {@link #EXIT}, followed by int the exit status
+ * </pre></blockquote>
+ * <p>
+ * Each request is served on a thread of its own, and the requests share the workers of the driver.
+ * </p>
+ * <p>
+ * The socket must be in a directory of the current user that no one else may enter, so only that user can
+ * connect to it, send requests and stop the server. The server creates the directory if it does not exist.
+ * </p>
+ * <p>
+ * Run with {@code java driver.CompileServer [-socket path] [-j threads] [-m memory MB] [-cache dir]
+ * [-cache-size MB]}, listening on {@link #defaultSocket()} by default.
+ * </p>
+ */
+public class CompileServer implements Closeable {
+    static final byte OUT = 1, ERR = 2, EXIT = 3;
+    private static final String USAGE = "usage: java driver.CompileServer [-socket path] [-j threads] "
+            + "[-m memory MB] [-cache dir] [-cache-size MB]";
+    private static final String REQUEST_USAGE = "usage: [-o output dir] [-print] file|dir... | -stop";
+    private static final Set<PosixFilePermission> OWNER_ONLY = PosixFilePermissions.fromString("rwx------");
+
+    private final Path socket;
+    private final CompilationDriver driver;
+    private final ServerSocketChannel server;
+    private volatile boolean stopped;
+
+    /**
+     * Binds the server to socket. A socket file left by a server that is gone is replaced.
+     *
+     * @throws IOException if the directory of socket is not a directory of the current user with permissions
+     *                     rwx------, a server is already listening on socket, or binding failed.
+     */
+    public CompileServer(Path socket, CompilationDriver driver) throws IOException {
+        this.socket = socket;
+        this.driver = driver;
+        checkPrivate(socket.toAbsolutePath().getParent());
+        UnixDomainSocketAddress address = UnixDomainSocketAddress.of(socket);
+        if (Files.exists(socket)) {
+            boolean listening;
+            try {
+                SocketChannel.open(address).close();
+                listening = true;
+            } catch (IOException e) {
+                listening = false;
+            }
+            if (listening) throw new IOException("a server is already listening on " + socket);
+            Files.deleteIfExists(socket);
+        }
+        this.server = ServerSocketChannel.open(StandardProtocolFamily.UNIX);
+        server.bind(address);
+    }
+
+    /**
+     * Creates directory with permissions rwx------ if it does not exist, and checks that it is a directory of the
+     * current user that no one else may enter. A directory of the same name made by another user in a shared
+     * directory such as the temporary directory is rejected, rather than binding a socket they can reach.
+     *
+     * @throws IOException if directory is a link, is owned by another user, or is open to others.
+     */
+    private static void checkPrivate(Path directory) throws IOException {
+        Files.createDirectories(directory, PosixFilePermissions.asFileAttribute(OWNER_ONLY));
+        PosixFileAttributes attributes = Files.readAttributes(directory, PosixFileAttributes.class,
+                LinkOption.NOFOLLOW_LINKS);
+        String user = System.getProperty("user.name");
+        if (!attributes.isDirectory() || !attributes.owner().getName().equals(user)
+                || !attributes.permissions().equals(OWNER_ONLY))
+            throw new IOException(directory + " is not a directory of " + user + " with permissions rwx------");
+    }
+
+    /**
+     * @return the socket of the server of the current user, in a directory of its own in the temporary directory.
+     */
+    public static Path defaultSocket() {
+        return Path.of(System.getProperty("java.io.tmpdir"), "compiler-" + System.getProperty("user.name"),
+                "server.sock");
+    }
+
+    /**
+     * Serves requests until the server is closed, or a client asks it to stop.
+     *
+     * @throws IOException if accepting a connection failed.
+     */
+    public void serve() throws IOException {
+        while (!stopped) {
+            SocketChannel channel;
+            try {
+                channel = server.accept();
+            } catch (AsynchronousCloseException e) {
+                break;
+            }
+            // not a daemon, so the JVM finishes the requests accepted before the server was stopped, and answers -stop.
+            new Thread(() -> handle(channel), "compile-request").start();
+        }
+    }
+
+    private void handle(SocketChannel channel) {
+        try (channel) {
+            DataInputStream in = new DataInputStream(new BufferedInputStream(Channels.newInputStream(channel)));
+            DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Channels.newOutputStream(channel)));
+            String workingDirectory = in.readUTF();
+            int n = in.readInt();
+            if (n < 0 || n > 1 << 16) throw new IOException("bad request, " + n + " arguments");
+            ArrayList<String> args = new ArrayList<>(n);
+            for (int i = 0; i < n; i++)
+                args.add(in.readUTF());
+
+            PrintStream stdout = new PrintStream(new BufferedOutputStream(new FrameOutputStream(out, OUT)), false,
+                    StandardCharsets.UTF_8);
+            PrintStream stderr = new PrintStream(new BufferedOutputStream(new FrameOutputStream(out, ERR)), false,
+                    StandardCharsets.UTF_8);
+            boolean stop = args.equals(List.of("-stop"));
+            int status;
+            if (stop && !fromUser(channel)) {
+                stderr.println("only " + System.getProperty("user.name") + " may stop the server");
+                stop = false;
+                status = 2;
+            } else {
+                try {
+                    status = run(Path.of(workingDirectory), args, stdout, stderr);
+                } catch (IOException e) {
+                    stderr.println(e.getMessage());
+                    status = 1;
+                } catch (RuntimeException e) {
+                    // a path that is not valid here, or a directory that failed while it was listed.
+                    stderr.println(e);
+                    status = 1;
+                }
+            }
+            stdout.flush();
+            stderr.flush();
+            // closed before the exit status is sent, so the client sees the socket gone once it has its answer.
+            if (stop) close();
+            synchronized (out) {
+                out.writeByte(EXIT);
+                out.writeInt(status);
+                out.flush();
+            }
+        } catch (IOException e) {
+            // the client went away, there is no one to tell.
+        }
+    }
+
+    /**
+     * Checks the client on channel against the user of the server, beyond the directory of the socket, which
+     * does not keep out the superuser.
+     *
+     * @return whether the client runs as the user of the server, true where the platform does not tell.
+     */
+    private static boolean fromUser(SocketChannel channel) throws IOException {
+        if (!channel.supportedOptions().contains(ExtendedSocketOptions.SO_PEERCRED)) return true;
+        UnixDomainPrincipal peer = channel.getOption(ExtendedSocketOptions.SO_PEERCRED);
+        return peer.user().getName().equals(System.getProperty("user.name"));
+    }
+
+    /**
+     * Runs a request, like {@link CompilationDriver#main} with the driver of the server.
+     *
+     * @param args [-o output dir] [-print] file|dir..., or -stop to stop the server.
+     * @return the exit status: 0 if every file compiled, 1 if some did not, 2 if args are not a request.
+     * @throws IOException if a path given could not be listed.
+     */
+    int run(Path workingDirectory, List<String> args, PrintStream out, PrintStream err) throws IOException {
+        if (args.equals(List.of("-stop"))) return 0;
+        Path outputDirectory = null;
+        boolean print = false;
+        ArrayList<Path> paths = new ArrayList<>();
+        for (int i = 0; i < args.size(); i++) {
+            String arg = args.get(i);
+            if (arg.equals("-o") && i + 1 < args.size()) {
+                outputDirectory = workingDirectory.resolve(args.get(++i));
+            } else if (arg.equals("-print")) {
+                print = true;
+            } else if (arg.startsWith("-")) {
+                err.println(REQUEST_USAGE);
+                return 2;
+            } else {
+                paths.add(workingDirectory.resolve(arg));
+            }
+        }
+        if (paths.isEmpty()) {
+            err.println(REQUEST_USAGE);
+            return 2;
+        }
+        CompilationDriver.Report report = driver.compile(paths, outputDirectory, print ? out : null);
+        out.flush();
+        report.print(err);
+        return report.errors().isEmpty() ? 0 : 1;
+    }
+
+    /**
+     * Writes each write to out as one frame of kind.
+     */
+    private static class FrameOutputStream extends OutputStream {
+        private final DataOutputStream out;
+        private final byte kind;
+
+        FrameOutputStream(DataOutputStream out, byte kind) {
+            this.out = out;
+            this.kind = kind;
+        }
+
+        @Override
+        public void write(int b) throws IOException {
+            write(new byte[]{(byte) b}, 0, 1);
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) throws IOException {
+            if (len == 0) return;
+            synchronized (out) {
+                out.writeByte(kind);
+                out.writeInt(len);
+                out.write(b, off, len);
+            }
+        }
+
+        @Override
+        public void flush() throws IOException {
+            synchronized (out) {
+                out.flush();
+            }
+        }
+    }
+
+    /**
+     * Stops accepting requests, and deletes the socket file. Requests already accepted are finished. Closing a
+     * closed server does nothing.
+     */
+    @Override
+    public synchronized void close() throws IOException {
+        if (stopped) return;
+        stopped = true;
+        server.close();
+        Files.deleteIfExists(socket);
+    }
+
+    public static void main(String[] args) throws IOException {
+        Path socket = defaultSocket();
+        int parallelism = Runtime.getRuntime().availableProcessors();
+        long memoryMB = 64;
+        Path cacheDirectory = null;
+        long cacheMB = 256;
+        try {
+            for (int i = 0; i < args.length; i++) {
+                switch (args[i]) {
+                    case "-socket" -> socket = Path.of(args[++i]);
+                    case "-j" -> parallelism = Integer.parseInt(args[++i]);
+                    case "-m" -> memoryMB = Long.parseLong(args[++i]);
+                    case "-cache" -> cacheDirectory = Path.of(args[++i]);
+                    case "-cache-size" -> cacheMB = Long.parseLong(args[++i]);
+                    default -> throw new IllegalArgumentException("unknown option " + args[i]);
+                }
+            }
+        } catch (IllegalArgumentException | IndexOutOfBoundsException e) {
+            System.err.println(USAGE);
+            System.exit(2);
+        }
+
+        CompilationCache cache = cacheDirectory == null ? null : new CompilationCache(cacheDirectory, cacheMB << 20);
+        try (CompilationDriver driver = new CompilationDriver(parallelism, memoryMB << 20, cache)) {
+            CompileServer server = new CompileServer(socket, driver);
+            // deletes the socket file when the server is killed rather than stopped by a request.
+            Runtime.getRuntime().addShutdownHook(new Thread(() -> {
+                try {
+                    server.close();
+                } catch (IOException e) {
+                    // exiting anyway.
+                }
+            }));
+            System.err.println("listening on " + socket);
+            try {
+                server.serve();
+            } finally {
+                server.close();
+            }
+        }
+    }
+}
@@ -0,0 +1,102 @@
+package driver;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.PosixFilePermissions;
+import java.util.List;
+
+class CompileServerTest {
+    @TempDir
+    Path dir;
+
+    @Test
+    void testRequests() throws Exception {
+        Path good = Files.writeString(dir.resolve("good.src"), "x = 1;\ny = x + 2;\n");
+        Path bad = Files.writeString(dir.resolve("bad.src"), "x = ;\n");
+        Path socket = dir.resolve("s.sock");
+        try (CompilationDriver driver = new CompilationDriver(2, 1 << 20, null);
+             CompileServer server = new CompileServer(socket, driver)) {
+            Thread serving = new Thread(() -> {
+                try {
+                    server.serve();
+                } catch (IOException e) {
+                    throw new RuntimeException(e);
+                }
+            });
+            serving.start();
+
+            ByteArrayOutputStream out = new ByteArrayOutputStream(), err = new ByteArrayOutputStream();
+            Assertions.assertEquals(0, CompileClient.run(socket, List.of("-print", good.toString()), out, err));
+            Assertions.assertEquals("x 1 =\ny x 2 + =\n", out.toString());
+            Assertions.assertTrue(err.toString().contains("1 files"), err.toString());
+
+            out.reset();
+            err.reset();
+            Assertions.assertEquals(1, CompileClient.run(socket, List.of(bad.toString()), out, err));
+            Assertions.assertTrue(err.toString().contains("bad.src: syntax error"), err.toString());
+
+            Assertions.assertEquals(2, CompileClient.run(socket, List.of("-x"), out, err));
+
+            // a path that cannot be resolved fails the request, not the server.
+            err.reset();
+            Assertions.assertEquals(1, CompileClient.run(socket, List.of("bad\0name.src"), out, err));
+            Assertions.assertTrue(err.toString().contains("InvalidPathException"), err.toString());
+
+            Path output = dir.resolve("out");
+            Assertions.assertEquals(0, CompileClient.run(socket, List.of("-o", output.toString(), good.toString()),
+                    out, err));
+            Assertions.assertEquals("x 1 =\ny x 2 + =\n", Files.readString(output.resolve("good.src.pf")));
+
+            // a second server cannot take the socket of a running one.
+            Assertions.assertThrows(IOException.class, () -> new CompileServer(socket, driver));
+
+            Assertions.assertEquals(0, CompileClient.run(socket, List.of("-stop"), out, err));
+            serving.join(10_000);
+            Assertions.assertFalse(serving.isAlive());
+            Assertions.assertFalse(Files.exists(socket));
+            Assertions.assertThrows(IOException.class, () -> CompileClient.run(socket, List.of(good.toString()),
+                    new ByteArrayOutputStream(), new ByteArrayOutputStream()));
+        }
+    }
+
+    @Test
+    void testStaleSocketReplaced() throws IOException {
+        Path socket = dir.resolve("s.sock");
+        Files.writeString(socket, "");
+        try (CompilationDriver driver = new CompilationDriver(1, 1 << 20, null)) {
+            CompileServer server = new CompileServer(socket, driver);
+            Assertions.assertTrue(Files.exists(socket));
+            server.close();
+            Assertions.assertFalse(Files.exists(socket));
+            // closing twice, as a shutdown hook after a stop request does, is harmless.
+            server.close();
+        }
+    }
+
+    @Test
+    void testSocketDirectoryIsPrivate() throws IOException {
+        try (CompilationDriver driver = new CompilationDriver(1, 1 << 20, null)) {
+            // created for the user alone when missing.
+            Path missing = dir.resolve("missing/s.sock");
+            new CompileServer(missing, driver).close();
+            Assertions.assertEquals("rwx------",
+                    PosixFilePermissions.toString(Files.getPosixFilePermissions(missing.getParent())));
+
+            Path shared = Files.createDirectory(dir.resolve("shared"));
+            Files.setPosixFilePermissions(shared, PosixFilePermissions.fromString("rwxrwxrwx"));
+            Assertions.assertThrows(IOException.class, () -> new CompileServer(shared.resolve("s.sock"), driver));
+            Assertions.assertFalse(Files.exists(shared.resolve("s.sock")));
+
+            Path link = Files.createSymbolicLink(dir.resolve("link"), missing.getParent());
+            Assertions.assertThrows(IOException.class, () -> new CompileServer(link.resolve("s.sock"), driver));
+        }
+        Assertions.assertEquals("compiler-" + System.getProperty("user.name"),
+                CompileServer.defaultSocket().getParent().getFileName().toString());
+    }
+}
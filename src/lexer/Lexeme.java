@@ -0,0 +1,124 @@
+package lexer;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+/**
+ * The chars of a lexeme as a view into a byte array, encoded the way {@link Lexer} reads its input:
+ * one byte per char (ISO-8859-1), or UTF-8 for a lexeme with non-ASCII chars scanned in UTF-8 mode.
+ * <p>
+ * A Lexeme is made without copying from the buffer the lexeme was scanned from, and its hash is computed
+ * over its bytes while scanning, so a lexeme can be looked up and compared without ever becoming a
+ * {@link String}. The hash of a one byte per char Lexeme is the one {@link String#hashCode()} gives for the
+ * same chars.
+ * </p>
+ * <p>
+ * A UTF-8 Lexeme is decoded into a String the first time its chars are read one by one.
+ * </p>
+ * <p>
+ * Lexemes only equal other Lexemes, so a {@link String} is never equal to a Lexeme even with the same chars,
+ * compare with {@link #contentEquals(CharSequence)} instead.
+ * </p>
+ */
+public final class Lexeme implements CharSequence {
+    private byte[] bytes;
+    private int offset;
+    private int length;
+    private int hash;
+    private boolean utf8;
+    // the chars of a UTF-8 Lexeme, decoded on first use.
+    private String decoded;
+
+    /**
+     * @param hash the hash of the bytes, as computed by {@link #hash}.
+     */
+    Lexeme(byte[] bytes, int offset, int length, int hash) {
+        set(bytes, offset, length, hash, false);
+    }
+
+    /**
+     * @param utf8 whether the bytes are UTF-8 rather than one byte per char.
+     */
+    Lexeme(byte[] bytes, int offset, int length, int hash, boolean utf8) {
+        set(bytes, offset, length, hash, utf8);
+    }
+
+    /**
+     * @return a Lexeme of the chars of s, which must all be in [0, 255].
+     */
+    public static Lexeme of(String s) {
+        byte[] bytes = s.getBytes(StandardCharsets.ISO_8859_1);
+        return new Lexeme(bytes, 0, bytes.length, hash(bytes, 0, bytes.length));
+    }
+
+    static int hash(byte[] bytes, int offset, int length) {
+        int h = 0;
+        for (int i = offset; i < offset + length; i++)
+            h = 31 * h + (bytes[i] & 0xff);
+        return h;
+    }
+
+    /**
+     * Points this Lexeme at other chars, for a Lexeme used only to probe a table.
+     */
+    void set(byte[] bytes, int offset, int length, int hash, boolean utf8) {
+        this.bytes = bytes;
+        this.offset = offset;
+        this.length = length;
+        this.hash = hash;
+        this.utf8 = utf8;
+        this.decoded = null;
+    }
+
+    private String decoded() {
+        String s = decoded;
+        if (s == null) decoded = s = new String(bytes, offset, length, StandardCharsets.UTF_8);
+        return s;
+    }
+
+    @Override
+    public int length() {
+        return utf8 ? decoded().length() : length;
+    }
+
+    @Override
+    public char charAt(int index) {
+        if (utf8) return decoded().charAt(index);
+        if (index < 0 || index >= length) throw new IndexOutOfBoundsException(index);
+        return (char) (bytes[offset + index] & 0xff);
+    }
+
+    @Override
+    public CharSequence subSequence(int start, int end) {
+        if (utf8) return decoded().subSequence(start, end);
+        if (start < 0 || end > length || start > end) throw new IndexOutOfBoundsException();
+        return new Lexeme(bytes, offset + start, end - start, hash(bytes, offset + start, end - start));
+    }
+
+    public boolean contentEquals(CharSequence cs) {
+        if (utf8) return decoded().contentEquals(cs);
+        if (cs.length() != length) return false;
+        for (int i = 0; i < length; i++)
+            if (cs.charAt(i) != (bytes[offset + i] & 0xff)) return false;
+        return true;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (!(o instanceof Lexeme other)) return false;
+        return hash == other.hash && utf8 == other.utf8 && Arrays.equals(bytes, offset, offset + length,
+                other.bytes, other.offset, other.offset + other.length);
+    }
+
+    @Override
+    public int hashCode() {
+        return hash;
+    }
+
+    @Override
+    public String toString() {
+        if (utf8) return decoded();
+        return new String(bytes, offset, length, StandardCharsets.ISO_8859_1);
+    }
+}
@@ -0,0 +1,53 @@
+package lexer;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.nio.charset.StandardCharsets;
+
+public class LexemeTest {
+
+    @Test
+    void testCharSequence() {
+        byte[] bytes = "xxhelloxx".getBytes(StandardCharsets.ISO_8859_1);
+        Lexeme l = new Lexeme(bytes, 2, 5, Lexeme.hash(bytes, 2, 5));
+        Assertions.assertEquals(5, l.length());
+        Assertions.assertEquals('h', l.charAt(0));
+        Assertions.assertEquals('o', l.charAt(4));
+        Assertions.assertThrows(IndexOutOfBoundsException.class, () -> l.charAt(5));
+        Assertions.assertEquals("hello", l.toString());
+        Assertions.assertEquals("ell", l.subSequence(1, 4).toString());
+        Assertions.assertEquals(Lexeme.of("ell"), l.subSequence(1, 4));
+    }
+
+    @Test
+    void testHashMatchesString() {
+        for (String s : new String[]{"", "a", "identifier", "naïve", "ÿÿÿ"})
+            Assertions.assertEquals(s.hashCode(), Lexeme.of(s).hashCode(), s);
+    }
+
+    @Test
+    void testEquals() {
+        byte[] bytes = "abcabd".getBytes(StandardCharsets.ISO_8859_1);
+        Lexeme abc = new Lexeme(bytes, 0, 3, Lexeme.hash(bytes, 0, 3));
+        Assertions.assertEquals(Lexeme.of("abc"), abc);
+        Assertions.assertNotEquals(Lexeme.of("abd"), abc);
+        Assertions.assertNotEquals(Lexeme.of("ab"), abc);
+        Assertions.assertNotEquals("abc", abc);
+        Assertions.assertTrue(abc.contentEquals("abc"));
+        Assertions.assertFalse(abc.contentEquals("abd"));
+    }
+
+    @Test
+    void testUtf8() {
+        byte[] bytes = "naïve".getBytes(StandardCharsets.UTF_8);
+        Lexeme utf8 = new Lexeme(bytes, 0, bytes.length, Lexeme.hash(bytes, 0, bytes.length), true);
+        Assertions.assertEquals(5, utf8.length());
+        Assertions.assertEquals('ï', utf8.charAt(2));
+        Assertions.assertEquals("ïv", utf8.subSequence(2, 4).toString());
+        Assertions.assertEquals("naïve", utf8.toString());
+        Assertions.assertTrue(utf8.contentEquals("naïve"));
+        // the same bytes read one byte per char are other chars.
+        Assertions.assertNotEquals(new Lexeme(bytes, 0, bytes.length, utf8.hashCode()), utf8);
+    }
+}
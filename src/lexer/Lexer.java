@@ -2,9 +2,11 @@ package lexer;
 
 import org.jetbrains.annotations.NotNull;
 
-import java.io.BufferedInputStream;
 import java.io.IOException;
 import java.io.InputStream;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
 import java.util.Hashtable;
 
 /**
@@ -13,15 +15,19 @@ import java.util.Hashtable;
  * The task of a lexical analyzer is to read a stream of characters making
  * up a program and output a token stream.
  * <p>Conceptually, given the following sequence of characters:
+ * </p>
  * <pre>{@code
  * "position = initial + rate * 60"
  * }</pre>
  * <p>
  * lexemes grouped as the following, with <<i>token-name</i>, <i>attribute-value</i>> denoting the Tokens:
+ * </p>
  * <blockquote><pre>
  * <id,1> <'='> <id,2> <'+'> <id,3> <'*'> <60>
  * </pre></blockquote>
+ * <p>
  * With the new additions to the Symbol table as:
+ * </p>
  * <blockquote><pre>
  * 1 | position | .. |
  * 2 | initial  | .. |
@@ -29,28 +35,36 @@ import java.util.Hashtable;
  * . | .        | .. |
  * . | .        | .. |
  * </pre></blockquote>
- * </p>
  * <p>Implementation:
+ * </p>
  * <ul>
  * <li>peek is implemented as an int(ascii decimal representation), -1 denotes the EOF.</li>
  * <li>Identifiers(with tag as {@link Tag#ID}) and reserved words(with tag as {@link Tag#FALSE} etc) are implemented
  * as a {@link Word Word(int tag, String lexeme)}
  * class which extends this Token class. </li>
- * <li>The String table as a Hashtable in {@link Lexer} maps the String lexeme itself onto their corresponding Tokens,
+ * <li>The String table as a Hashtable in {@link Lexer} maps the lexeme itself onto their corresponding Tokens,
  * which are then used as reference when another instance of the lexeme is encountered.
- * <li>Numbers are implemented as a {@link Num Num(int value)}</li>
+ * The lexemes are {@link Lexeme}s, views into the input buffer, so a lexeme that is already in the table is looked
+ * up without copying its chars, and a new one is copied once, or not at all when the whole input is in memory
+ * ({@link #Lexer(byte[])}).</li>
+ * <li>The input is read as ISO-8859-1, one byte per char, or as UTF-8 ({@link #Lexer(InputStream, Charset)}).
+ * Every byte is classified by a 256 entry table, so ASCII (and ISO-8859-1) input never goes through a decoder.
+ * In UTF-8 mode a byte of 0x80 or more starts a multibyte sequence, which is decoded and validated, and
+ * identifiers are made of {@link Character#isUnicodeIdentifierStart(int)} and
+ * {@link Character#isUnicodeIdentifierPart(int)} code points, their lexemes being kept as UTF-8 bytes.</li>
+ * <li>Numbers are implemented as a {@link Num Num(int value)}
  * class which extends this Token class with the {@link Tag#NUM}.</li>
  * <li>Operators are implemented as a {@link Token Token(int tag)} with the tag as the
  * character itself. The character is stored as a ascii value in the range [0,255],
  * which is also why the int values set to {@link Tag}s for the reserved words are always bigger than 255. </li>
  * </ul>
- * </p>
  * <p>
  * This lexical analyzer is tasked to insulate the parser from the lexeme representation of tokens.
  *
  * <p>Example <b>parser</b> syntax-directed translation scheme without using a lexer, this translation
  * translates in-fix notation into postfix notation. This translation also hasn't undergone
  * left-recursion elimination.
+ * </p>
  * <blockquote><pre>
  * expr -> expr + term {print('+')}
  *      |  expr - term {print('-')}
@@ -65,12 +79,12 @@ import java.util.Hashtable;
  * digit -> 0 {print{'0'}} | 1 {print('1')} ...
  * char -> 'a' {print{''}}
  * </pre></blockquote>
- * </p>
  * <p>The <b>parser</b> translation scheme using a lexer, the digits are now abstracted. <br>
  * Instead of handling a single digit multiple digits forming a number is now implemented. <br>
  * Instead of handling a single char a String can now be implemented easily. <br>
  * Essentially, the responsibility of grouping the chars into strings etc are now handled by the Lexer, and
  * the parser now only handles structure translation.
+ * </p>
  * <blockquote><pre>
  * expr -> expr + term {print('+')}
  *      |  expr - term {print('-')}
@@ -83,13 +97,46 @@ import java.util.Hashtable;
  * factor -> num {print('num.value')}
  *        |  id  {print('id.lexeme')}
  * </pre></blockquote>
- * </p>
  */
 public class Lexer {
+    private static final int BUFFER_SIZE = 1 << 13;
+    // classes of the input bytes.
+    private static final byte OTHER = 0, LETTER = 1, DIGIT = 2, MULTIBYTE = 3;
+    private static final byte[] LATIN_1_CLASSES = new byte[256];
+    private static final byte[] UTF_8_CLASSES = new byte[256];
+
+    static {
+        for (int b = 0; b < 256; b++) {
+            byte c = Character.isLetter(b) ? LETTER : b >= '0' && b <= '9' ? DIGIT : OTHER;
+            LATIN_1_CLASSES[b] = c;
+            UTF_8_CLASSES[b] = b < 0x80 ? c : MULTIBYTE;
+        }
+    }
+
     public int line;
     private int peek;
-    private Hashtable<String, Token> words;
-    private BufferedInputStream bufferedInputStream;
+    private Hashtable<Lexeme, Word> words;
+    // probe for looking up a lexeme in words while it is still in the buffer.
+    private final Lexeme probe;
+    private InputStream inputStream;
+    // the input is read into buffer, bytes before position are consumed, bytes from limit on are not read yet.
+    private byte[] buffer;
+    private int position;
+    private int limit;
+    // start of the lexeme being scanned, kept in the buffer when it is refilled, -1 between lexemes.
+    private int lexemeStart;
+    // whether buffer holds the whole input and is never refilled, so lexemes may point into it.
+    private boolean wholeInput;
+    // offset in the input of buffer[0], and of the first byte of the last token scanned.
+    private long base;
+    private long offset;
+    // whether the last token scanned consumed its last byte, leaving a blank in peek instead of the byte after it.
+    private boolean consumed;
+    private LineIndex lineIndex;
+    private final boolean utf8;
+    private final byte[] classes;
+    // the number of bytes of the sequence last decoded by decode().
+    private int width;
 
     /**
      * Creates a Lexical Analyzer that reads from an {@link InputStream} like
@@ -98,10 +145,56 @@ public class Lexer {
      * @param inputStream the input stream to be read.
      */
     public Lexer(InputStream inputStream) {
+        this(inputStream, StandardCharsets.ISO_8859_1);
+    }
+
+    /**
+     * Creates a Lexical Analyzer that reads from an {@link InputStream} encoded in charset.
+     *
+     * @param inputStream the input stream to be read.
+     * @param charset     {@link StandardCharsets#UTF_8} or {@link StandardCharsets#ISO_8859_1}.
+     * @throws IllegalArgumentException if charset is neither.
+     */
+    public Lexer(InputStream inputStream, Charset charset) {
+        this(charset);
+        setInputStream(inputStream);
+    }
+
+    /**
+     * Creates a Lexical Analyzer that scans source in place.
+     * The lexemes of the identifiers are views into source, which must not be modified afterwards.
+     *
+     * @param source the whole input.
+     */
+    public Lexer(byte[] source) {
+        this(source, StandardCharsets.ISO_8859_1);
+    }
+
+    /**
+     * Creates a Lexical Analyzer that scans source, encoded in charset, in place.
+     *
+     * @param source  the whole input.
+     * @param charset {@link StandardCharsets#UTF_8} or {@link StandardCharsets#ISO_8859_1}.
+     * @throws IllegalArgumentException if charset is neither.
+     */
+    public Lexer(byte[] source, Charset charset) {
+        this(charset);
+        this.buffer = source;
+        this.position = 0;
+        this.limit = source.length;
+        this.wholeInput = true;
+    }
+
+    private Lexer(Charset charset) {
+        if (StandardCharsets.UTF_8.equals(charset)) this.utf8 = true;
+        else if (StandardCharsets.ISO_8859_1.equals(charset)) this.utf8 = false;
+        else throw new IllegalArgumentException("unsupported charset " + charset);
+        this.classes = utf8 ? UTF_8_CLASSES : LATIN_1_CLASSES;
         this.line = 1;
         this.peek = ' ';
         this.words = new Hashtable<>();
-        setInputStream(inputStream);
+        this.probe = new Lexeme(null, 0, 0, 0);
+        this.lexemeStart = -1;
         reserve(new Word(Tag.TRUE, "true"));
         reserve(new Word(Tag.FALSE, "false"));
     }
@@ -114,11 +207,17 @@ public class Lexer {
      * @param inputStream the input stream to be scanned by the lexical analyzer.
      */
     public void setInputStream(InputStream inputStream) {
-        this.bufferedInputStream = new BufferedInputStream(inputStream);
+        this.inputStream = inputStream;
+        this.buffer = new byte[BUFFER_SIZE];
+        this.position = 0;
+        this.limit = 0;
+        this.wholeInput = false;
+        this.base = 0;
+        this.lineIndex = null;
     }
 
     /**
-     * Reads the next byte from the {@link BufferedInputStream}.
+     * Reads the next byte from the input buffer, refilling it from the {@link InputStream} when it is consumed.
      * <p>
      * Note: this method should be used instead of {@link System#in}'s {@code read} method.
      * </p>
@@ -126,7 +225,96 @@ public class Lexer {
      * @throws IOException if this input stream has been closed by invoking its close() method, or an I/ O error occurs.
      */
     private void readCh() throws IOException {
-        peek = bufferedInputStream.read();
+        if (position == limit && !fill()) {
+            peek = -1;
+            return;
+        }
+        peek = buffer[position++] & 0xff;
+    }
+
+    /**
+     * @return the byte after peek without consuming it, -1 at the end of the input.
+     * @throws IOException if an I/ O error occurs.
+     */
+    private int next() throws IOException {
+        if (position == limit && !fill()) return -1;
+        return buffer[position] & 0xff;
+    }
+
+    /**
+     * @return the class of b, {@link #OTHER} at the end of the input.
+     */
+    private int classOf(int b) {
+        return b < 0 ? OTHER : classes[b];
+    }
+
+    /**
+     * Decodes the UTF-8 sequence starting with peek without consuming it, and sets {@link #width} to its length.
+     *
+     * @return the code point.
+     * @throws IOException if an I/ O error occurs.
+     * @throws Error       if the sequence is not well-formed UTF-8: a stray continuation byte, a truncated or
+     *                     overlong sequence, a surrogate or a code point above U+10FFFF.
+     */
+    private int decode() throws IOException {
+        int n, min, cp;
+        if (peek >= 0xc2 && peek <= 0xdf) {
+            n = 2;
+            min = 0x80;
+            cp = peek & 0x1f;
+        } else if (peek >= 0xe0 && peek <= 0xef) {
+            n = 3;
+            min = 0x800;
+            cp = peek & 0x0f;
+        } else if (peek >= 0xf0 && peek <= 0xf4) {
+            n = 4;
+            min = 0x10000;
+            cp = peek & 0x07;
+        } else {
+            throw malformed();
+        }
+        while (limit - position < n - 1)
+            if (!fill()) throw malformed();
+        for (int i = 0; i < n - 1; i++) {
+            int b = buffer[position + i] & 0xff;
+            if ((b & 0xc0) != 0x80) throw malformed();
+            cp = cp << 6 | b & 0x3f;
+        }
+        if (cp < min || cp > Character.MAX_CODE_POINT || cp >= Character.MIN_SURROGATE && cp <= Character.MAX_SURROGATE)
+            throw malformed();
+        width = n;
+        return cp;
+    }
+
+    private Error malformed() {
+        return new Error("malformed UTF-8 at line " + line);
+    }
+
+    /**
+     * Reads more of the input into the buffer, after moving the lexeme being scanned, if any, to its front.
+     * The buffer is doubled when the lexeme already fills it.
+     *
+     * @return false at the end of the input.
+     * @throws IOException if an I/ O error occurs.
+     */
+    private boolean fill() throws IOException {
+        if (wholeInput) return false;
+        int keep = lexemeStart >= 0 ? lexemeStart : position;
+        if (keep > 0) {
+            System.arraycopy(buffer, keep, buffer, 0, limit - keep);
+            base += keep;
+            limit -= keep;
+            position -= keep;
+            if (lexemeStart >= 0) lexemeStart = 0;
+        }
+        if (limit == buffer.length) buffer = Arrays.copyOf(buffer, 2 * buffer.length);
+        int n;
+        do {
+            n = inputStream.read(buffer, limit, buffer.length - limit);
+        } while (n == 0);
+        if (n < 0) return false;
+        limit += n;
+        return true;
     }
 
     /**
@@ -155,6 +343,7 @@ public class Lexer {
         readCh();
         if (peek != c) return false;
         peek = ' ';
+        consumed = true;
         return true;
     }
 
@@ -164,17 +353,19 @@ public class Lexer {
      * @param t the {@link Word} token to store as the reserve word.
      */
     void reserve(Word t) {
-        words.put(t.lexeme, t);
+        words.put(Lexeme.of(t.lexeme()), t);
     }
 
     /**
      * Scans and returns the next token.
      *
      * <p>Things to note:
+     * </p>
      * <ul>
      * <li>Leading or Trailing Whitespace is ignored.</li>
      * <li>Returns a special {@link Token} with tag as {@link Tag#EOF} no tokens left to read.</li>
-     * </ul></p>
+     * </ul>
+     * <p>
      * Invariant: all token detection will leave with peek as the next char to be processed,
      * or until eof is detected.
      *
@@ -186,15 +377,26 @@ public class Lexer {
     public Token scan() throws IOException, Error {
         skipWhiteSpace();
         ignoreComments();
+        // peek is the byte before position, unless the input has ended.
+        offset = base + (peek == -1 ? position : position - 1);
+        consumed = false;
 
-        if (Character.isLetter(peek)) {
+        int c = classOf(peek);
+        if (c == LETTER) {
             return scanWord();
         }
 
-        if (Character.isDigit(peek) || peek == '.') {
+        if (c == DIGIT || peek == '.') {
             return scanNum();
         }
 
+        if (c == MULTIBYTE) {
+            // keeps the lead byte in the buffer while decode() refills it.
+            lexemeStart = position - 1;
+            int cp = decode();
+            return Character.isUnicodeIdentifierStart(cp) ? scanWord() : scanCodePoint(cp);
+        }
+
         return switch (peek) {
             case ('/') -> {
                 readCh();
@@ -206,19 +408,51 @@ public class Lexer {
             case ('!') -> readCh('=') ? Word.ne : new Token('!');
             case (-1) -> {
                 peek = ' ';
+                consumed = true;
                 yield new Token(Tag.EOF);
             }
             default -> scanChar();
         };
     }
 
+    /**
+     * @return the byte offset in the input of the first byte of the last token scanned, or of the end of the input
+     * for {@link Tag#EOF}.
+     */
+    public long offset() {
+        return offset;
+    }
+
+    /**
+     * @return the length in bytes of the last token scanned, 0 for {@link Tag#EOF}.
+     */
+    public int length() {
+        // peek is the byte after the token, unless the token consumed its last byte or the input has ended.
+        long end = base + (consumed || peek == -1 ? position : position - 1);
+        return (int) (end - offset);
+    }
+
+    /**
+     * Returns the {@link LineIndex} of the input, built on the first call, to turn {@link #offset()}s into lines
+     * and columns.
+     *
+     * @throws IllegalStateException if the input is a stream, which the lexer does not keep. Index the source
+     *                               with {@link LineIndex#of(java.nio.file.Path)} instead.
+     */
+    public LineIndex lineIndex() {
+        if (!wholeInput)
+            throw new IllegalStateException("the input was streamed, index the source with LineIndex.of");
+        if (lineIndex == null) lineIndex = LineIndex.of(buffer);
+        return lineIndex;
+    }
+
     /**
      * Ignores all consecutive inline or multiline comments.
      * <p>
-     * Restores the bufferedInputStream and peak if
-     * there are no comments detected anymore (leaves at the state when peek is '/').
+     * Looks at the char after peek without consuming it, and leaves peek as '/' if
+     * there are no comments detected anymore.
      * </p>
-     * <p> Implementation of marking and reset and restoring state is chosen over returning a division Token
+     * <p> Looking ahead instead of returning a division Token
      * on default is for separation of concerns, better modularity and such that the ignoreComments function
      * follows the SRP principle.
      * </p>
@@ -228,20 +462,18 @@ public class Lexer {
     private void ignoreComments() throws IOException {
         outerLoop:
         while (peek == '/') {
-            bufferedInputStream.mark(1);
-            readCh();
-            switch (peek) {
+            switch (next()) {
                 case ('/'):
+                    readCh();
                     skipUntilNewLine();
                     skipWhiteSpace();
                     break;
                 case ('*'):
+                    readCh();
                     skipUntilEndMultiComment();
                     skipWhiteSpace();
                     break;
                 default:
-                    bufferedInputStream.reset();
-                    peek = '/';
                     break outerLoop;
             }
         }
@@ -309,9 +541,9 @@ public class Lexer {
 
         if (peek != '.') {
             do {
-                n = n * 10 + Character.digit(peek, 10);
+                n = n * 10 + (peek - '0');
                 readCh();
-            } while (Character.isDigit(peek));
+            } while (classOf(peek) == DIGIT);
             if (peek != '.') return new Num(n);
         }
 
@@ -319,8 +551,8 @@ public class Lexer {
         float f = n;
         int d = 10;
         // initial test is crucial for left only floating point (12.)
-        while (Character.isDigit(peek)) {
-            f = f + ((float) Character.digit(peek, 10) / d);
+        while (classOf(peek) == DIGIT) {
+            f = f + ((float) (peek - '0') / d);
             d *= 10;
             readCh();
         }
@@ -328,37 +560,61 @@ public class Lexer {
     }
 
     /**
-     * Continuously reads letters from the standard input stream to form a word.
+     * Continuously reads letters from the input buffer to form a word.
      * Stops at the first encounter of a non-alphabet.
+     * <p>
+     * The letters stay in the buffer, peek being the byte before position, and their hash is computed on the
+     * way, so the word is looked up without copying it.
+     * A multibyte sequence, already decoded by the caller, is consumed and hashed as its bytes.
+     * </p>
      *
      * @return the Word representing the lexeme.
      * @throws IOException if this input stream has been closed by invoking its close() method, or an I/ O error occurs.
      */
     private @NotNull Word scanWord() throws IOException {
-        StringBuilder b = new StringBuilder();
+        lexemeStart = position - 1;
+        int h = 0;
+        boolean ascii = true;
+        int c;
         do {
-            b.append((char) peek);
+            h = 31 * h + peek;
+            if (peek >= 0x80 && utf8) {
+                ascii = false;
+                for (int end = position + width - 1; position < end; position++)
+                    h = 31 * h + (buffer[position] & 0xff);
+            }
             readCh();
-        } while (Character.isLetter(peek));
-        String s = b.toString();
+            c = classOf(peek);
+        } while (c == LETTER || c == MULTIBYTE && Character.isUnicodeIdentifierPart(decode()));
+        // a letter ends the word unless the input ended, then position was not moved past it.
+        int end = peek == -1 ? position : position - 1;
+        int start = lexemeStart;
+        lexemeStart = -1;
 
-        return getReservedWordOrIdentifier(s);
+        return getReservedWordOrIdentifier(start, end - start, h, !ascii);
     }
 
     /**
      * Retrieves the Word from the String table.
-     * A new entry is added to the String table if the String Table does not contain it.
+     * A new entry is added to the String table if the String Table does not contain it, its lexeme pointing into
+     * the input if the whole input is in memory, or a copy of the lexeme otherwise.
      *
-     * @param s the lexeme to retrieve.
+     * @param offset the offset of the lexeme in the buffer.
+     * @param length the length of the lexeme.
+     * @param hash   the hash of the lexeme.
+     * @param multibyte whether the lexeme has multibyte UTF-8 sequences.
      * @return the Word representing the lexeme.
      */
-    private @NotNull Word getReservedWordOrIdentifier(String s) {
-        Word w = (Word) words.get(s);
+    private @NotNull Word getReservedWordOrIdentifier(int offset, int length, int hash, boolean multibyte) {
+        probe.set(buffer, offset, length, hash, multibyte);
+        Word w = words.get(probe);
         if (w != null)
             return w;
 
-        w = new Word(Tag.ID, s);
-        words.put(s, w);
+        Lexeme lexeme = wholeInput ? new Lexeme(buffer, offset, length, hash, multibyte)
+                : new Lexeme(Arrays.copyOfRange(buffer, offset, offset + length), 0, length, hash, multibyte);
+        w = new Word(Tag.ID, lexeme);
+        words.put(lexeme, w);
         return w;
     }
 
@@ -375,6 +631,24 @@ public class Lexer {
     private @NotNull Token scanChar() {
         Token t = new Token(peek);
         peek = ' ';
+        consumed = true;
         return t;
     }
+
+    /**
+     * Consumes the UTF-8 sequence of a code point that is not part of a predefined token, like {@link #scanChar()}.
+     *
+     * @param cp the code point, as decoded by {@link #decode()}.
+     * @return the Token representing the code point.
+     * @throws Error if cp is above U+00FF, and so cannot be a tag.
+     */
+    private @NotNull Token scanCodePoint(int cp) {
+        if (cp > 0xff)
+            throw new Error(String.format("unexpected character U+%04X at line %d", cp, line));
+        lexemeStart = -1;
+        position += width - 1;
+        peek = ' ';
+        consumed = true;
+        return new Token(cp);
+    }
 }
@@ -0,0 +1,56 @@
+package lexer;
+
+import java.io.IOException;
+
+/**
+ * A {@link TokenCursor} scanning each token with {@link Lexer#scan()} as the cursor advances, in lockstep with
+ * the caller.
+ */
+public class LexerCursor implements TokenCursor {
+    private final Lexer lexer;
+    private Token token;
+    private int line;
+    private long offset;
+
+    public LexerCursor(Lexer lexer) {
+        this.lexer = lexer;
+    }
+
+    @Override
+    public void advance() throws IOException, Error {
+        if (token != null && token.tag == Tag.EOF) return;
+        token = lexer.scan();
+        line = lexer.line;
+        offset = lexer.offset();
+    }
+
+    @Override
+    public int tag() {
+        return token.tag;
+    }
+
+    @Override
+    public int intValue() {
+        return token instanceof Num n ? n.value : 0;
+    }
+
+    @Override
+    public float realValue() {
+        return token instanceof Real r ? r.value : 0;
+    }
+
+    @Override
+    public Word word() {
+        return token instanceof Word w ? w : null;
+    }
+
+    @Override
+    public int line() {
+        return line;
+    }
+
+    @Override
+    public long offset() {
+        return offset;
+    }
+}
@@ -3,6 +3,8 @@ package lexer;
 import org.junit.jupiter.api.*;
 
 import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
 
 public class LexerTest {
     private Lexer lexer;
@@ -66,17 +68,17 @@ public class LexerTest {
         Token t = lexer.scan();
         Assertions.assertInstanceOf(Word.class, t);
         Assertions.assertEquals(t.tag, Tag.ID);
-        Assertions.assertEquals("var", ((Word) t).lexeme);
+        Assertions.assertEquals("var", ((Word) t).lexeme());
 
         t = lexer.scan();
         Assertions.assertInstanceOf(Word.class, t);
         Assertions.assertEquals(t.tag, Tag.ID);
-        Assertions.assertEquals("bob", ((Word) t).lexeme);
+        Assertions.assertEquals("bob", ((Word) t).lexeme());
 
         t = lexer.scan();
         Assertions.assertInstanceOf(Word.class, t);
         Assertions.assertEquals(t.tag, Tag.ID);
-        Assertions.assertEquals("car", ((Word) t).lexeme);
+        Assertions.assertEquals("car", ((Word) t).lexeme());
     }
 
     @Test
@@ -97,12 +99,12 @@ public class LexerTest {
         Token t = lexer.scan();
         Assertions.assertInstanceOf(Word.class, t);
         Assertions.assertEquals(Tag.TRUE, t.tag);
-        Assertions.assertEquals("true", ((Word) t).lexeme);
+        Assertions.assertEquals("true", ((Word) t).lexeme());
 
         t = lexer.scan();
         Assertions.assertInstanceOf(Word.class, t);
         Assertions.assertEquals(t.tag, Tag.FALSE);
-        Assertions.assertEquals(((Word) t).lexeme, "false");
+        Assertions.assertEquals(((Word) t).lexeme(), "false");
     }
 
     @Test
@@ -115,12 +117,12 @@ public class LexerTest {
         Token reserved = lexer.scan();
 
         Assertions.assertEquals(id.tag, Tag.ID);
-        Assertions.assertEquals("var", ((Word) id).lexeme);
+        Assertions.assertEquals("var", ((Word) id).lexeme());
 
         Assertions.assertEquals(12, ((Num) num).value);
 
         Assertions.assertEquals(Tag.TRUE, reserved.tag);
-        Assertions.assertEquals("true", ((Word) reserved).lexeme);
+        Assertions.assertEquals("true", ((Word) reserved).lexeme());
     }
 
     @Test
@@ -206,7 +208,7 @@ public class LexerTest {
 
         Token t = lexer.scan();
         Assertions.assertEquals(Tag.ID, t.tag);
-        Assertions.assertEquals("bob", ((Word) t).lexeme);
+        Assertions.assertEquals("bob", ((Word) t).lexeme());
     }
 
     @Test
@@ -230,7 +232,7 @@ public class LexerTest {
 
         t = lexer.scan();
         Assertions.assertEquals(Tag.LE, t.tag);
-        Assertions.assertEquals("<=", ((Word) t).lexeme);
+        Assertions.assertEquals("<=", ((Word) t).lexeme());
 
         t = lexer.scan();
         Assertions.assertEquals(Tag.EOF, t.tag);
@@ -246,7 +248,7 @@ public class LexerTest {
 
         t = lexer.scan();
         Assertions.assertEquals(Tag.GE, t.tag);
-        Assertions.assertEquals(">=", ((Word) t).lexeme);
+        Assertions.assertEquals(">=", ((Word) t).lexeme());
 
         t = lexer.scan();
         Assertions.assertEquals(Tag.EOF, t.tag);
@@ -262,7 +264,7 @@ public class LexerTest {
 
         t = lexer.scan();
         Assertions.assertEquals(Tag.EQ, t.tag);
-        Assertions.assertEquals("==", ((Word) t).lexeme);
+        Assertions.assertEquals("==", ((Word) t).lexeme());
 
         t = lexer.scan();
         Assertions.assertEquals(Tag.EOF, t.tag);
@@ -278,7 +280,7 @@ public class LexerTest {
 
         t = lexer.scan();
         Assertions.assertEquals(Tag.NE, t.tag);
-        Assertions.assertEquals("!=", ((Word) t).lexeme);
+        Assertions.assertEquals("!=", ((Word) t).lexeme());
 
         t = lexer.scan();
         Assertions.assertEquals(Tag.EOF, t.tag);
@@ -296,7 +298,7 @@ public class LexerTest {
 
         t = lexer.scan();
         Assertions.assertEquals(Tag.NE, t.tag);
-        Assertions.assertEquals("!=", ((Word) t).lexeme);
+        Assertions.assertEquals("!=", ((Word) t).lexeme());
 
         t = lexer.scan();
         Assertions.assertEquals(Tag.NUM, t.tag);
@@ -403,4 +405,180 @@ public class LexerTest {
         Assertions.assertEquals(7, lexer.line);
     }
 
+    @Test
+    void testSameWordPerLexeme() throws IOException {
+        setInput("alpha beta alpha true");
+
+        Word alpha = (Word) lexer.scan();
+        Word beta = (Word) lexer.scan();
+        Assertions.assertSame(alpha, lexer.scan());
+        Assertions.assertNotSame(alpha, beta);
+        Assertions.assertEquals(Tag.TRUE, lexer.scan().tag);
+        Assertions.assertInstanceOf(Lexeme.class, alpha.chars());
+        Assertions.assertSame(alpha.lexeme(), alpha.lexeme());
+    }
+
+    /**
+     * Reads one byte per call, so that every lexeme and comment is split over refills of the buffer.
+     */
+    private static InputStream trickle(byte[] bytes) {
+        return new InputStream() {
+            private int i = 0;
+
+            @Override
+            public int read() {
+                return i < bytes.length ? bytes[i++] & 0xff : -1;
+            }
+
+            @Override
+            public int read(byte[] b, int off, int len) {
+                if (i == bytes.length) return -1;
+                if (len == 0) return 0;
+                b[off] = bytes[i++];
+                return 1;
+            }
+        };
+    }
+
+    @Test
+    void testSourcesAgree() throws IOException {
+        String longWord = "w".repeat(20_000);
+        String input = "count = x1 / y // comment\n /* block */ 12.5 >= " + longWord + " / / z != true\nend";
+        byte[] bytes = input.getBytes();
+        Lexer[] lexers = {new Lexer(bytes), new Lexer(new ByteArrayInputStream(bytes)), new Lexer(trickle(bytes))};
+        while (true) {
+            Token[] tokens = new Token[lexers.length];
+            for (int i = 0; i < lexers.length; i++)
+                tokens[i] = lexers[i].scan();
+            for (int i = 1; i < lexers.length; i++) {
+                Assertions.assertEquals(tokens[0].tag, tokens[i].tag);
+                if (tokens[0] instanceof Word w)
+                    Assertions.assertEquals(w.lexeme(), ((Word) tokens[i]).lexeme());
+                Assertions.assertEquals(lexers[0].line, lexers[i].line);
+            }
+            if (tokens[0].tag == Tag.EOF) break;
+        }
+    }
+
+    @Test
+    void testLongWordAcrossBuffer() throws IOException {
+        String word = "abc".repeat(10_000);
+        setInput("x " + word + " y");
+        Assertions.assertEquals("x", ((Word) lexer.scan()).lexeme());
+        Assertions.assertEquals(word, ((Word) lexer.scan()).lexeme());
+        Assertions.assertEquals("y", ((Word) lexer.scan()).lexeme());
+        Assertions.assertEquals(Tag.EOF, lexer.scan().tag);
+    }
+
+    @Test
+    void testInPlaceWordsViewSource() throws IOException {
+        byte[] source = "abc abc".getBytes();
+        Lexer inPlace = new Lexer(source);
+        Word w = (Word) inPlace.scan();
+        Assertions.assertSame(w, inPlace.scan());
+        // the lexeme is a view, not a copy.
+        source[0] = 'x';
+        Assertions.assertEquals("xbc", w.chars().toString());
+    }
+
+    private static Token[] scanAll(Lexer lexer) throws IOException {
+        ArrayList<Token> tokens = new ArrayList<>();
+        Token t;
+        do {
+            t = lexer.scan();
+            tokens.add(t);
+        } while (t.tag != Tag.EOF);
+        return tokens.toArray(new Token[0]);
+    }
+
+    @Test
+    void testUtf8Identifiers() throws IOException {
+        byte[] bytes = "naïve = αβγ + 变量 * naïve;\nπ2 true".getBytes(StandardCharsets.UTF_8);
+        Lexer[] lexers = {new Lexer(bytes, StandardCharsets.UTF_8), new Lexer(trickle(bytes), StandardCharsets.UTF_8)};
+        for (Lexer utf8 : lexers) {
+            Token[] tokens = scanAll(utf8);
+            Assertions.assertEquals(12, tokens.length);
+            Assertions.assertEquals("naïve", ((Word) tokens[0]).lexeme());
+            Assertions.assertEquals('=', tokens[1].tag);
+            Assertions.assertEquals("αβγ", ((Word) tokens[2]).lexeme());
+            Assertions.assertEquals("变量", ((Word) tokens[4]).chars().toString());
+            Assertions.assertSame(tokens[0], tokens[6]);
+            Assertions.assertEquals(';', tokens[7].tag);
+            // digits are not part of identifiers.
+            Assertions.assertEquals("π", ((Word) tokens[8]).lexeme());
+            Assertions.assertEquals(2, ((Num) tokens[9]).value);
+            Assertions.assertEquals(Tag.TRUE, tokens[10].tag);
+            Assertions.assertEquals(2, utf8.line);
+        }
+    }
+
+    @Test
+    void testUtf8OffsetsAreBytes() throws IOException {
+        byte[] bytes = "αβ γ".getBytes(StandardCharsets.UTF_8);
+        Lexer utf8 = new Lexer(bytes, StandardCharsets.UTF_8);
+        Word w = (Word) utf8.scan();
+        Assertions.assertEquals(0, utf8.offset());
+        Assertions.assertEquals(2, w.chars().length());
+        Assertions.assertEquals('β', w.chars().charAt(1));
+        Assertions.assertTrue(((Lexeme) w.chars()).contentEquals("αβ"));
+        utf8.scan();
+        Assertions.assertEquals(5, utf8.offset());
+    }
+
+    @Test
+    void testUtf8Symbols() throws IOException {
+        Lexer utf8 = new Lexer("a × b".getBytes(StandardCharsets.UTF_8), StandardCharsets.UTF_8);
+        utf8.scan();
+        Assertions.assertEquals(0xd7, utf8.scan().tag);
+        Assertions.assertEquals("b", ((Word) utf8.scan()).lexeme());
+
+        Lexer arrow = new Lexer("a → b".getBytes(StandardCharsets.UTF_8), StandardCharsets.UTF_8);
+        arrow.scan();
+        Assertions.assertThrows(Error.class, arrow::scan);
+    }
+
+    @Test
+    void testMalformedUtf8() {
+        byte[][] inputs = {
+                {'a', ' ', (byte) 0x80},                    // stray continuation byte
+                {(byte) 0xc3},                              // truncated
+                {(byte) 0xc3, 'a'},                         // missing continuation byte
+                {(byte) 0xc0, (byte) 0xaf},                 // overlong '/'
+                {(byte) 0xe0, (byte) 0x80, (byte) 0xaf},    // overlong '/'
+                {(byte) 0xed, (byte) 0xa0, (byte) 0x80},    // surrogate
+                {(byte) 0xf4, (byte) 0x90, (byte) 0x80, (byte) 0x80}, // above U+10FFFF
+                {'x', (byte) 0xce, (byte) 0xb1, (byte) 0xce},  // truncated within a word
+        };
+        for (byte[] input : inputs) {
+            Lexer utf8 = new Lexer(input, StandardCharsets.UTF_8);
+            Assertions.assertThrows(Error.class, () -> scanAll(utf8));
+        }
+    }
+
+    @Test
+    void testLatin1ModeIsUnchanged() throws IOException {
+        // the UTF-8 bytes of "é" are the letter Ã and the symbol ©, one byte per char.
+        Lexer latin1 = new Lexer("é".getBytes(StandardCharsets.UTF_8));
+        Assertions.assertEquals("Ã", ((Word) latin1.scan()).lexeme());
+        Assertions.assertEquals(0xa9, latin1.scan().tag);
+        Assertions.assertThrows(IllegalArgumentException.class,
+                () -> new Lexer(new byte[0], StandardCharsets.UTF_16));
+    }
+
+    @Test
+    void testTokenLengths() throws IOException {
+        String input = "count>=12.5 /x;/* c */ != ! αβ × end";
+        byte[] bytes = input.getBytes(StandardCharsets.UTF_8);
+        for (Lexer utf8 : new Lexer[]{new Lexer(bytes, StandardCharsets.UTF_8),
+                new Lexer(trickle(bytes), StandardCharsets.UTF_8)}) {
+            StringBuilder lexemes = new StringBuilder();
+            Token t;
+            do {
+                t = utf8.scan();
+                int offset = (int) utf8.offset();
+                lexemes.append(new String(bytes, offset, utf8.length(), StandardCharsets.UTF_8)).append('|');
+            } while (t.tag != Tag.EOF);
+            Assertions.assertEquals("count|>=|12.5|/|x|;|!=|!|αβ|×|end||", lexemes.toString());
+        }
+    }
 }
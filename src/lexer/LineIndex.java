@@ -0,0 +1,146 @@
+package lexer;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.nio.ByteOrder;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+
+/**
+ * The offsets at which the lines of a source start, mapping a byte offset, as given by {@link Lexer#offset()},
+ * onto a line and column.
+ * <p>
+ * Tokens only carry their offset, so the lexer never pays for positions nobody asks for. A LineIndex is built
+ * when a position has to be reported, in one pass over the source, and answers each lookup with a binary
+ * search. Offsets are longs, so sources of more than 2 GB can be indexed from a {@link Path} or a stream.
+ * </p>
+ * <p>Implementation:
+ * </p>
+ * <ul>
+ * <li>Lines are counted as by {@link Lexer#line}: line 1 starts at offset 0, and every {@code '\n'} starts a
+ * new line. Lines and columns are 1-based, columns count bytes.</li>
+ * <li>Newlines are found 8 bytes at a time: each byte of a long read from the source is XORed with
+ * {@code '\n'} and the bytes that became zero are flagged with a carry-free
+ * <a href="https://graphics.stanford.edu/~seander/bithacks.html#ZeroInWord">zero byte test</a>.</li>
+ * </ul>
+ */
+public class LineIndex {
+    private static final VarHandle LONGS = MethodHandles.byteArrayViewVarHandle(long[].class, ByteOrder.LITTLE_ENDIAN);
+    private static final long NEWLINES = 0x0A0A0A0A0A0A0A0AL;
+    private static final long LOW_7_BITS = 0x7F7F7F7F7F7F7F7FL;
+    private static final int CHUNK_SIZE = 1 << 16;
+
+    // starts[0, lines) are the offsets of the lines, in ascending order.
+    private long[] starts;
+    private int lines;
+    private long length;
+
+    private LineIndex() {
+        this.starts = new long[16];
+        this.lines = 1;
+    }
+
+    public static LineIndex of(byte[] source) {
+        LineIndex index = new LineIndex();
+        index.add(source, 0, source.length);
+        return index;
+    }
+
+    /**
+     * Indexes the rest of in, offset 0 being the next byte of in.
+     */
+    public static LineIndex of(InputStream in) throws IOException {
+        LineIndex index = new LineIndex();
+        byte[] chunk = new byte[CHUNK_SIZE];
+        for (int n; (n = in.read(chunk)) >= 0; )
+            index.add(chunk, 0, n);
+        return index;
+    }
+
+    public static LineIndex of(Path file) throws IOException {
+        try (InputStream in = Files.newInputStream(file)) {
+            return of(in);
+        }
+    }
+
+    /**
+     * Appends len bytes of the source, read from chunk at off.
+     */
+    private void add(byte[] chunk, int off, int len) {
+        int i = off, end = off + len;
+        for (; i + Long.BYTES <= end; i += Long.BYTES) {
+            long x = (long) LONGS.get(chunk, i) ^ NEWLINES;
+            // the high bit of every byte of x that is zero, and of no other byte.
+            long zeros = ~(((x & LOW_7_BITS) + LOW_7_BITS) | x | LOW_7_BITS);
+            while (zeros != 0) {
+                addStart(length + (i - off) + (Long.numberOfTrailingZeros(zeros) >>> 3) + 1);
+                zeros &= zeros - 1;
+            }
+        }
+        for (; i < end; i++)
+            if (chunk[i] == '\n') addStart(length + (i - off) + 1);
+        length += len;
+    }
+
+    private void addStart(long offset) {
+        if (lines == starts.length) starts = Arrays.copyOf(starts, 2 * lines);
+        starts[lines++] = offset;
+    }
+
+    /**
+     * @return the number of lines, one more than the number of newlines.
+     */
+    public int lineCount() {
+        return lines;
+    }
+
+    /**
+     * @return the length of the indexed source in bytes.
+     */
+    public long length() {
+        return length;
+    }
+
+    /**
+     * @return the offset of the first byte of line.
+     * @throws IndexOutOfBoundsException if line is not in [1, {@link #lineCount()}].
+     */
+    public long lineStart(int line) {
+        if (line < 1 || line > lines) throw new IndexOutOfBoundsException("line " + line);
+        return starts[line - 1];
+    }
+
+    /**
+     * @return the line of the byte at offset, offsets from {@link #length()} on being on the last line.
+     * @throws IndexOutOfBoundsException if offset is negative.
+     */
+    public int line(long offset) {
+        if (offset < 0) throw new IndexOutOfBoundsException("offset " + offset);
+        // the last line starting at or before offset.
+        int lo = 0, hi = lines - 1;
+        while (lo < hi) {
+            int mid = (lo + hi + 1) >>> 1;
+            if (starts[mid] <= offset) lo = mid;
+            else hi = mid - 1;
+        }
+        return lo + 1;
+    }
+
+    /**
+     * @return the column of the byte at offset within its line.
+     */
+    public int column(long offset) {
+        return (int) (offset - starts[line(offset) - 1]) + 1;
+    }
+
+    /**
+     * @return "line:column" of the byte at offset, as reported in diagnostics.
+     */
+    public String position(long offset) {
+        int line = line(offset);
+        return line + ":" + ((offset - starts[line - 1]) + 1);
+    }
+}
@@ -0,0 +1,129 @@
+package lexer;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Random;
+
+public class LineIndexTest {
+    @TempDir
+    Path dir;
+
+    @Test
+    void testLines() {
+        LineIndex index = LineIndex.of("ab\ncd\n\nefg".getBytes());
+        Assertions.assertEquals(4, index.lineCount());
+        Assertions.assertEquals(10, index.length());
+        Assertions.assertEquals(0, index.lineStart(1));
+        Assertions.assertEquals(3, index.lineStart(2));
+        Assertions.assertEquals(6, index.lineStart(3));
+        Assertions.assertEquals(7, index.lineStart(4));
+
+        Assertions.assertEquals(1, index.line(0));
+        Assertions.assertEquals(1, index.line(2));
+        Assertions.assertEquals(2, index.line(3));
+        Assertions.assertEquals(3, index.line(6));
+        Assertions.assertEquals(4, index.line(9));
+        Assertions.assertEquals(4, index.line(10));
+        Assertions.assertEquals(2, index.column(4));
+        Assertions.assertEquals("4:3", index.position(9));
+        Assertions.assertThrows(IndexOutOfBoundsException.class, () -> index.line(-1));
+        Assertions.assertThrows(IndexOutOfBoundsException.class, () -> index.lineStart(5));
+    }
+
+    @Test
+    void testEmpty() {
+        LineIndex index = LineIndex.of(new byte[0]);
+        Assertions.assertEquals(1, index.lineCount());
+        Assertions.assertEquals(1, index.line(0));
+        Assertions.assertEquals(1, index.column(0));
+    }
+
+    @Test
+    void testAgainstScalarScan() throws IOException {
+        Random random = new Random(5);
+        for (int round = 0; round < 50; round++) {
+            byte[] bytes = new byte[random.nextInt(300)];
+            for (int i = 0; i < bytes.length; i++) {
+                // newlines next to every other byte value, including those one bit away from '\n'.
+                int r = random.nextInt(6);
+                bytes[i] = (byte) (r == 0 ? '\n' : r == 1 ? '\n' ^ (1 << random.nextInt(8)) : random.nextInt(256));
+            }
+            LineIndex index = LineIndex.of(bytes);
+            InputStream trickle = new ByteArrayInputStream(bytes) {
+                @Override
+                public synchronized int read(byte[] b, int off, int len) {
+                    return super.read(b, off, Math.min(len, 3));
+                }
+            };
+            LineIndex streamed = LineIndex.of(trickle);
+
+            int line = 1;
+            long start = 0;
+            for (int i = 0; i < bytes.length; i++) {
+                Assertions.assertEquals(line, index.line(i));
+                Assertions.assertEquals(line, streamed.line(i));
+                Assertions.assertEquals(i - start + 1, index.column(i));
+                if (bytes[i] == '\n') {
+                    line++;
+                    start = i + 1;
+                }
+            }
+            Assertions.assertEquals(line, index.lineCount());
+            Assertions.assertEquals(line, streamed.lineCount());
+        }
+    }
+
+    @Test
+    void testFile() throws IOException {
+        Path file = dir.resolve("source.txt");
+        StringBuilder sb = new StringBuilder();
+        for (int i = 0; i < 100_000; i++)
+            sb.append("line ").append(i).append('\n');
+        Files.writeString(file, sb);
+        LineIndex index = LineIndex.of(file);
+        Assertions.assertEquals(100_001, index.lineCount());
+        long offset = sb.indexOf("line 54321");
+        Assertions.assertEquals(54322, index.line(offset));
+        Assertions.assertEquals(1, index.column(offset));
+    }
+
+    @Test
+    void testLexerOffsets() throws IOException {
+        String source = "a = 12;\n  // comment\n  bc /* x */ <= 3.5\n/";
+        Lexer lexer = new Lexer(source.getBytes());
+        LineIndex index = lexer.lineIndex();
+        String[] expected = {"1:1", "1:3", "1:5", "1:7", "3:3", "3:14", "3:17", "4:1", "4:2"};
+        for (String position : expected) {
+            Token t = lexer.scan();
+            Assertions.assertEquals(position, index.position(lexer.offset()));
+            Assertions.assertEquals(lexer.line, index.line(lexer.offset()));
+            if (t.tag == Tag.EOF) break;
+        }
+        Assertions.assertThrows(IllegalStateException.class,
+                () -> new Lexer(new ByteArrayInputStream(new byte[0])).lineIndex());
+    }
+
+    @Test
+    void testStreamOffsetsAcrossRefills() throws IOException {
+        StringBuilder sb = new StringBuilder();
+        for (int i = 0; i < 20_000; i++)
+            sb.append("word").append(i % 7 == 0 ? '\n' : ' ').append(i).append(' ');
+        byte[] bytes = sb.toString().getBytes();
+        Lexer inPlace = new Lexer(bytes), streamed = new Lexer(new ByteArrayInputStream(bytes));
+        Token t;
+        do {
+            t = inPlace.scan();
+            streamed.scan();
+            Assertions.assertEquals(inPlace.offset(), streamed.offset());
+            if (t.tag == Tag.ID) Assertions.assertEquals('w', bytes[(int) inPlace.offset()]);
+        } while (t.tag != Tag.EOF);
+        Assertions.assertEquals(bytes.length, inPlace.offset());
+    }
+}
@@ -0,0 +1,224 @@
+package lexer;
+
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.Objects;
+
+/**
+ * A buffer of the next k tokens of a {@link TokenCursor}, for parsers that need more than one token of lookahead
+ * to decide on a production.
+ * <p>
+ * {@link #peek(int) peek(i)} is the tag of the i-th token ahead, {@link #peek(int) peek(0)} being the current
+ * lookahead, and {@link #consume()} moves past it. Tokens are read from the cursor only when peeked at.
+ * </p>
+ * <p>
+ * For a speculative parse, {@link #mark()} pins the current position, and the tokens read after it stay
+ * buffered until the mark is given back:
+ * </p>
+ * <ul>
+ * <li>{@link #rewind(long)} when the speculation failed, moving back to the mark.</li>
+ * <li>{@link #release(long)} when it succeeded, staying where the parse got to.</li>
+ * </ul>
+ * <p>
+ * Marks nest, and are given back in the reverse order they were taken.
+ * </p>
+ * <p>Implementation:
+ * </p>
+ * <ul>
+ * <li>Tokens are stored by sequence number in a ring of primitive slots, like a {@link TokenRing}, and the
+ * slots are reused as the position moves on, so peeking and consuming allocate nothing.</li>
+ * <li>The ring holds every token from the oldest mark, or from the position when nothing is marked, up to the
+ * last token read. It only grows when a speculation reads further ahead than it can hold.</li>
+ * </ul>
+ * <p>Example Usage:
+ * </p>
+ * <pre>{@code
+ * Lookahead tokens = new Lookahead(new LexerCursor(lexer), 2);
+ * if (tokens.peek(0) == Tag.ID && tokens.peek(1) == '=') {
+ *     // an assignment
+ * }
+ * }</pre>
+ */
+public class Lookahead {
+    private static final int MIN_CAPACITY = 8;
+
+    private final TokenCursor source;
+    private final int k;
+    private int mask;
+    private int[] tags;
+    private int[] values;
+    private Word[] words;
+    private int[] lines;
+    private long[] offsets;
+    // sequence number of the current lookahead, and one past the last token read from source.
+    private long position;
+    private long filled;
+    private long[] marks;
+    private int markCount;
+
+    /**
+     * @param source the tokens, before their first token.
+     * @param k      how many tokens ahead may be peeked at.
+     */
+    public Lookahead(TokenCursor source, int k) {
+        if (k < 1) throw new IllegalArgumentException("k must be at least 1, got " + k);
+        this.source = source;
+        this.k = k;
+        int capacity = Math.max(MIN_CAPACITY, Integer.highestOneBit(k - 1) << 1);
+        this.mask = capacity - 1;
+        this.tags = new int[capacity];
+        this.values = new int[capacity];
+        this.words = new Word[capacity];
+        this.lines = new int[capacity];
+        this.offsets = new long[capacity];
+        this.marks = new long[4];
+    }
+
+    public int k() {
+        return k;
+    }
+
+    /**
+     * @return the tag of the i-th token ahead, {@link Tag#EOF} past the end of the input.
+     * @throws IndexOutOfBoundsException if i is not in [0, k).
+     */
+    public int peek(int i) throws IOException, Error {
+        return tags[slot(i)];
+    }
+
+    /**
+     * @return the value of the i-th token ahead, if it is a {@link Tag#NUM}.
+     */
+    public int intValue(int i) throws IOException, Error {
+        int s = slot(i);
+        return tags[s] == Tag.NUM ? values[s] : 0;
+    }
+
+    /**
+     * @return the value of the i-th token ahead, if it is a {@link Tag#REAL}.
+     */
+    public float realValue(int i) throws IOException, Error {
+        int s = slot(i);
+        return tags[s] == Tag.REAL ? Float.intBitsToFloat(values[s]) : 0;
+    }
+
+    /**
+     * @return the Word of the i-th token ahead, null if it is not a word.
+     */
+    public Word word(int i) throws IOException, Error {
+        return words[slot(i)];
+    }
+
+    public int line(int i) throws IOException, Error {
+        return lines[slot(i)];
+    }
+
+    /**
+     * @return the byte offset of the first byte of the i-th token ahead, see {@link Lexer#offset()}.
+     */
+    public long offset(int i) throws IOException, Error {
+        return offsets[slot(i)];
+    }
+
+    /**
+     * Moves past the current lookahead.
+     */
+    public void consume() throws IOException, Error {
+        fill(position);
+        position++;
+    }
+
+    /**
+     * @return the number of tokens consumed so far.
+     */
+    public long position() {
+        return position;
+    }
+
+    /**
+     * Pins the current position for {@link #rewind} or {@link #release}.
+     *
+     * @return the mark.
+     */
+    public long mark() {
+        if (markCount == marks.length) marks = Arrays.copyOf(marks, 2 * markCount);
+        marks[markCount++] = position;
+        return position;
+    }
+
+    /**
+     * Moves back to mark and gives it back.
+     *
+     * @throws IllegalStateException if mark is not the latest mark.
+     */
+    public void rewind(long mark) {
+        release(mark);
+        position = mark;
+    }
+
+    /**
+     * Gives mark back, staying at the current position.
+     *
+     * @throws IllegalStateException if mark is not the latest mark.
+     */
+    public void release(long mark) {
+        if (markCount == 0 || marks[markCount - 1] != mark)
+            throw new IllegalStateException("mark " + mark + " is not the latest mark");
+        markCount--;
+    }
+
+    int capacity() {
+        return mask + 1;
+    }
+
+    private int slot(int i) throws IOException {
+        Objects.checkIndex(i, k);
+        long seq = position + i;
+        fill(seq);
+        return (int) seq & mask;
+    }
+
+    /**
+     * Reads tokens from source up to and including the token of sequence number seq.
+     */
+    private void fill(long seq) throws IOException {
+        while (filled <= seq) {
+            long oldest = markCount > 0 ? marks[0] : position;
+            if (filled - oldest == tags.length) grow(oldest);
+            source.advance();
+            int s = (int) filled & mask;
+            int tag = source.tag();
+            tags[s] = tag;
+            values[s] = tag == Tag.NUM ? source.intValue()
+                    : tag == Tag.REAL ? Float.floatToRawIntBits(source.realValue()) : 0;
+            words[s] = source.word();
+            lines[s] = source.line();
+            offsets[s] = source.offset();
+            filled++;
+        }
+    }
+
+    /**
+     * Doubles the ring, keeping the tokens from oldest on.
+     */
+    private void grow(long oldest) {
+        int capacity = tags.length * 2;
+        int[] tags = new int[capacity], values = new int[capacity], lines = new int[capacity];
+        Word[] words = new Word[capacity];
+        long[] offsets = new long[capacity];
+        for (long seq = oldest; seq < filled; seq++) {
+            int from = (int) seq & mask, to = (int) seq & (capacity - 1);
+            tags[to] = this.tags[from];
+            values[to] = this.values[from];
+            words[to] = this.words[from];
+            lines[to] = this.lines[from];
+            offsets[to] = this.offsets[from];
+        }
+        this.tags = tags;
+        this.values = values;
+        this.words = words;
+        this.lines = lines;
+        this.offsets = offsets;
+        this.mask = capacity - 1;
+    }
+}
@@ -0,0 +1,117 @@
+package lexer;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+
+public class LookaheadTest {
+
+    private static Lookahead lookahead(String input, int k) {
+        return new Lookahead(new LexerCursor(new Lexer(new ByteArrayInputStream(input.getBytes()))), k);
+    }
+
+    @Test
+    void testPeek() throws IOException {
+        Lookahead tokens = lookahead("a = b == 12 ;\n 1.5", 3);
+        Assertions.assertEquals(Tag.ID, tokens.peek(0));
+        Assertions.assertEquals('=', tokens.peek(1));
+        Assertions.assertEquals(Tag.ID, tokens.peek(2));
+        Assertions.assertEquals("a", tokens.word(0).lexeme());
+        Assertions.assertEquals("b", tokens.word(2).lexeme());
+        Assertions.assertThrows(IndexOutOfBoundsException.class, () -> tokens.peek(3));
+        Assertions.assertThrows(IndexOutOfBoundsException.class, () -> tokens.peek(-1));
+
+        tokens.consume();
+        tokens.consume();
+        Assertions.assertEquals(Tag.ID, tokens.peek(0));
+        Assertions.assertEquals(Tag.EQ, tokens.peek(1));
+        Assertions.assertEquals(Tag.NUM, tokens.peek(2));
+        Assertions.assertEquals(12, tokens.intValue(2));
+        Assertions.assertEquals(0, tokens.intValue(1));
+        Assertions.assertEquals(2, tokens.position());
+
+        tokens.consume();
+        tokens.consume();
+        tokens.consume();
+        Assertions.assertEquals(';', tokens.peek(0));
+        Assertions.assertEquals(Tag.REAL, tokens.peek(1));
+        Assertions.assertEquals(1.5f, tokens.realValue(1));
+        Assertions.assertEquals(2, tokens.line(1));
+        Assertions.assertEquals(Tag.EOF, tokens.peek(2));
+    }
+
+    @Test
+    void testEofRepeats() throws IOException {
+        Lookahead tokens = lookahead("x", 2);
+        tokens.consume();
+        Assertions.assertEquals(Tag.EOF, tokens.peek(0));
+        Assertions.assertEquals(Tag.EOF, tokens.peek(1));
+        tokens.consume();
+        tokens.consume();
+        Assertions.assertEquals(Tag.EOF, tokens.peek(0));
+    }
+
+    @Test
+    void testSlotsReused() throws IOException {
+        StringBuilder sb = new StringBuilder();
+        for (int i = 0; i < 10_000; i++)
+            sb.append(i).append(' ');
+        Lookahead tokens = lookahead(sb.toString(), 4);
+        int capacity = tokens.capacity();
+        for (int i = 0; i < 10_000; i++) {
+            Assertions.assertEquals(i, tokens.intValue(0));
+            if (i + 3 < 10_000) Assertions.assertEquals(i + 3, tokens.intValue(3));
+            tokens.consume();
+        }
+        Assertions.assertEquals(Tag.EOF, tokens.peek(0));
+        Assertions.assertEquals(capacity, tokens.capacity());
+    }
+
+    @Test
+    void testMarkRewind() throws IOException {
+        StringBuilder sb = new StringBuilder();
+        for (int i = 0; i < 100; i++)
+            sb.append(i).append(' ');
+        Lookahead tokens = lookahead(sb.toString(), 1);
+
+        tokens.consume();
+        long outer = tokens.mark();
+        // speculate further ahead than the ring holds.
+        for (int i = 0; i < 50; i++)
+            tokens.consume();
+        Assertions.assertEquals(51, tokens.intValue(0));
+        long inner = tokens.mark();
+        tokens.consume();
+        tokens.consume();
+        tokens.rewind(inner);
+        Assertions.assertEquals(51, tokens.intValue(0));
+        Assertions.assertThrows(IllegalStateException.class, () -> tokens.release(inner));
+
+        tokens.rewind(outer);
+        Assertions.assertEquals(1, tokens.intValue(0));
+        Assertions.assertEquals(1, tokens.position());
+        for (int i = 1; i < 100; i++) {
+            Assertions.assertEquals(i, tokens.intValue(0));
+            tokens.consume();
+        }
+        Assertions.assertEquals(Tag.EOF, tokens.peek(0));
+    }
+
+    @Test
+    void testRelease() throws IOException {
+        Lookahead tokens = lookahead("a b c d", 1);
+        long m = tokens.mark();
+        tokens.consume();
+        tokens.consume();
+        tokens.release(m);
+        Assertions.assertEquals("c", tokens.word(0).lexeme());
+        Assertions.assertThrows(IllegalStateException.class, () -> tokens.rewind(m));
+    }
+
+    @Test
+    void testIllegalK() {
+        Assertions.assertThrows(IllegalArgumentException.class, () -> lookahead("", 0));
+    }
+}
@@ -0,0 +1,135 @@
+package lexer;
+
+import java.io.IOException;
+
+/**
+ * A {@link TokenCursor} whose {@link Lexer} scans on a thread of its own, ahead of the caller, into a
+ * {@link TokenRing}.
+ * <p>
+ * Reading the input and scanning it then overlap with the work of the caller, typically a parser, instead of
+ * adding up. The caller takes every token that is ready in one batch and frees their slots together.
+ * </p>
+ * <p>
+ * An {@link IOException}, {@link Error} or {@link RuntimeException} thrown by the lexer is handed over through the
+ * ring and rethrown by {@link #advance()} once the caller reaches the token that failed, so the caller sees the
+ * same tokens and errors as with a {@link LexerCursor}.
+ * </p>
+ * <p>Example Usage:
+ * </p>
+ * <pre>{@code
+ * try (PipelinedLexer tokens = new PipelinedLexer(new Lexer(in))) {
+ *     new TokenParser(tokens, out).program();
+ * }
+ * }</pre>
+ */
+public class PipelinedLexer implements TokenCursor, AutoCloseable {
+    public static final int DEFAULT_CAPACITY = 1 << 10;
+    // tag of the slot handing over a failure of the lexer thread.
+    private static final int FAILED = Integer.MIN_VALUE;
+
+    private final TokenRing ring;
+    // written by the lexer thread before the FAILED slot is published.
+    private Throwable failure;
+    private long next;
+    private long limit;
+    private boolean started;
+    private int tag;
+    private int value;
+    private Word word;
+    private int line;
+    private long offset;
+
+    public PipelinedLexer(Lexer lexer) {
+        this(lexer, DEFAULT_CAPACITY, WaitStrategy.PARK);
+    }
+
+    /**
+     * Starts scanning lexer on a new daemon thread.
+     *
+     * @param capacity the number of tokens the lexer may run ahead, a power of two.
+     * @param wait     how the lexer thread and the caller wait for each other.
+     */
+    public PipelinedLexer(Lexer lexer, int capacity, WaitStrategy wait) {
+        this.ring = new TokenRing(capacity, wait);
+        Thread lexerThread = new Thread(() -> scan(lexer), "lexer");
+        lexerThread.setDaemon(true);
+        lexerThread.start();
+    }
+
+    private void scan(Lexer lexer) {
+        try {
+            Token t;
+            do {
+                t = lexer.scan();
+                if (!ring.put(t, lexer.line, lexer.offset())) return;
+            } while (t.tag != Tag.EOF);
+        } catch (IOException | RuntimeException | Error e) {
+            failure = e;
+            ring.put(FAILED, 0, null, lexer.line, lexer.offset());
+        }
+    }
+
+    @Override
+    public void advance() throws IOException, Error {
+        if (started && (tag == Tag.EOF || tag == FAILED)) {
+            if (tag == FAILED) rethrow();
+            return;
+        }
+        started = true;
+        if (next == limit) {
+            ring.release(next);
+            limit = ring.available(next);
+        }
+        tag = ring.tag(next);
+        value = ring.value(next);
+        word = ring.word(next);
+        line = ring.line(next);
+        offset = ring.offset(next);
+        next++;
+        if (tag == FAILED) rethrow();
+    }
+
+    private void rethrow() throws IOException {
+        if (failure instanceof IOException e) throw e;
+        if (failure instanceof RuntimeException e) throw e;
+        throw (Error) failure;
+    }
+
+    @Override
+    public int tag() {
+        return tag;
+    }
+
+    @Override
+    public int intValue() {
+        return tag == Tag.NUM ? value : 0;
+    }
+
+    @Override
+    public float realValue() {
+        return tag == Tag.REAL ? Float.intBitsToFloat(value) : 0;
+    }
+
+    @Override
+    public Word word() {
+        return word;
+    }
+
+    @Override
+    public int line() {
+        return line;
+    }
+
+    @Override
+    public long offset() {
+        return offset;
+    }
+
+    /**
+     * Stops the lexer thread once it has filled the ring, for a caller that stops before {@link Tag#EOF}.
+     */
+    @Override
+    public void close() {
+        ring.close();
+    }
+}
@@ -0,0 +1,67 @@
+package lexer;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+
+public class PipelinedLexerTest {
+    @Test
+    void testSameTokensAsLexer() throws IOException {
+        byte[] program = TokenFixtures.program(100_000, 1, StandardCharsets.US_ASCII);
+        for (WaitStrategy wait : WaitStrategy.values()) {
+            for (int capacity : new int[]{2, 16, PipelinedLexer.DEFAULT_CAPACITY}) {
+                try (PipelinedLexer pipelined = new PipelinedLexer(
+                        new Lexer(new ByteArrayInputStream(program)), capacity, wait)) {
+                    TokenFixtures.assertSameTokens(
+                            new LexerCursor(new Lexer(new ByteArrayInputStream(program))), pipelined);
+                }
+            }
+        }
+    }
+
+    @Test
+    void testEmpty() throws IOException {
+        try (PipelinedLexer tokens = new PipelinedLexer(new Lexer(new ByteArrayInputStream(new byte[0])))) {
+            tokens.advance();
+            Assertions.assertEquals(Tag.EOF, tokens.tag());
+            tokens.advance();
+            Assertions.assertEquals(Tag.EOF, tokens.tag());
+        }
+    }
+
+    @Test
+    void testFailureAtItsToken() throws IOException {
+        InputStream failing = new InputStream() {
+            private final byte[] bytes = "a b c".getBytes();
+            private int i = 0;
+
+            @Override
+            public int read() throws IOException {
+                if (i == bytes.length) throw new IOException("disk gone");
+                return bytes[i++];
+            }
+        };
+        try (PipelinedLexer tokens = new PipelinedLexer(new Lexer(failing))) {
+            tokens.advance();
+            Assertions.assertEquals("a", tokens.word().lexeme());
+            tokens.advance();
+            Assertions.assertEquals("b", tokens.word().lexeme());
+            IOException e = Assertions.assertThrows(IOException.class, tokens::advance);
+            Assertions.assertEquals("disk gone", e.getMessage());
+            Assertions.assertThrows(IOException.class, tokens::advance);
+        }
+    }
+
+    @Test
+    void testCloseBeforeEof() throws IOException {
+        // the lexer thread fills the ring and is then stopped by close.
+        byte[] program = TokenFixtures.program(10_000, 2, StandardCharsets.US_ASCII);
+        PipelinedLexer tokens = new PipelinedLexer(new Lexer(new ByteArrayInputStream(program)), 4, WaitStrategy.PARK);
+        tokens.advance();
+        tokens.close();
+    }
+}
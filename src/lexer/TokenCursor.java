@@ -0,0 +1,55 @@
+package lexer;
+
+import java.io.IOException;
+
+/**
+ * A position in a stream of {@link Token}s, read through primitive accessors instead of Token objects.
+ * <p>
+ * A cursor starts before the first token, {@link #advance()} moves it onto the next one. Once on the
+ * {@link Tag#EOF} token it stays there.
+ * </p>
+ * <p>Implementations:
+ * </p>
+ * <ul>
+ * <li>{@link LexerCursor} calls {@link Lexer#scan()} on the calling thread.</li>
+ * <li>{@link PipelinedLexer} scans on a thread of its own, ahead of the caller.</li>
+ * <li>{@link TokenStore.Cursor} reads tokens scanned earlier back from a {@link TokenStore}.</li>
+ * <li>{@link TokenStreamReader} decodes tokens written by a {@link TokenStreamWriter}.</li>
+ * </ul>
+ */
+public interface TokenCursor {
+    /**
+     * Moves onto the next token.
+     *
+     * @throws IOException if reading the input failed.
+     * @throws Error       if the input could not be scanned.
+     */
+    void advance() throws IOException, Error;
+
+    int tag();
+
+    /**
+     * @return the value of a {@link Tag#NUM} token.
+     */
+    int intValue();
+
+    /**
+     * @return the value of a {@link Tag#REAL} token.
+     */
+    float realValue();
+
+    /**
+     * @return the {@link Word} of an identifier, reserved word or composite operator, null for any other token.
+     */
+    Word word();
+
+    /**
+     * @return the line the lexer was on after scanning the token.
+     */
+    int line();
+
+    /**
+     * @return the byte offset of the first byte of the token in the input, see {@link Lexer#offset()}.
+     */
+    long offset();
+}
@@ -0,0 +1,66 @@
+package lexer;
+
+import org.junit.jupiter.api.Assertions;
+
+import java.io.IOException;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.util.Random;
+
+/**
+ * Random programs, and the comparison of two {@link TokenCursor}s token by token, shared by the tests of the
+ * cursors over a {@link Lexer}.
+ */
+final class TokenFixtures {
+    private static final String[] ASCII_TOKENS = {
+            "count", "x", "true", "false", "12", "007", "2147483648", "3.25", "0.5", ".5", "12.", "+", "-", "*",
+            "/", "=", "==", "!=", "<", "<=", ">", ">=", ";", "(", ")", "#", "// comment\n", "/* block\n */"};
+    private static final String[] NON_ASCII_TOKENS = {"αβ", "变量", "×"};
+
+    private TokenFixtures() {
+    }
+
+    /**
+     * Generates a program of tokens random tokens separated by blanks, tabs and newlines: names, reserved words,
+     * numbers that overflow or are cut short, operators, an unknown symbol and comments. Names and a symbol
+     * outside ASCII are drawn too unless charset is US-ASCII.
+     */
+    static byte[] program(int tokens, long seed, Charset charset) {
+        String[] vocabulary = ASCII_TOKENS;
+        if (!charset.equals(StandardCharsets.US_ASCII)) {
+            vocabulary = new String[ASCII_TOKENS.length + NON_ASCII_TOKENS.length];
+            System.arraycopy(ASCII_TOKENS, 0, vocabulary, 0, ASCII_TOKENS.length);
+            System.arraycopy(NON_ASCII_TOKENS, 0, vocabulary, ASCII_TOKENS.length, NON_ASCII_TOKENS.length);
+        }
+        Random random = new Random(seed);
+        StringBuilder sb = new StringBuilder();
+        for (int i = 0; i < tokens; i++) {
+            sb.append(vocabulary[random.nextInt(vocabulary.length)]);
+            sb.append(random.nextInt(8) == 0 ? "\n\t" : random.nextInt(8) == 0 ? "  " : " ");
+        }
+        return sb.toString().getBytes(charset);
+    }
+
+    /**
+     * Advances both cursors to EOF, asserting they see the same tokens at the same positions, and that actual
+     * stays on EOF.
+     */
+    static void assertSameTokens(TokenCursor expected, TokenCursor actual) throws IOException {
+        do {
+            expected.advance();
+            actual.advance();
+            Assertions.assertEquals(expected.tag(), actual.tag());
+            Assertions.assertEquals(expected.intValue(), actual.intValue());
+            Assertions.assertEquals(expected.realValue(), actual.realValue());
+            Assertions.assertEquals(expected.word() == null, actual.word() == null);
+            if (expected.word() != null) {
+                Assertions.assertEquals(expected.word().tag, actual.word().tag);
+                Assertions.assertEquals(expected.word().lexeme(), actual.word().lexeme());
+            }
+            Assertions.assertEquals(expected.line(), actual.line());
+            Assertions.assertEquals(expected.offset(), actual.offset());
+        } while (expected.tag() != Tag.EOF);
+        actual.advance();
+        Assertions.assertEquals(Tag.EOF, actual.tag());
+    }
+}
@@ -0,0 +1,160 @@
+package lexer;
+
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+
+/**
+ * A lock-free, bounded, single producer single consumer queue of tokens.
+ * <p>
+ * Tokens are copied into preallocated slots of primitive fields, so passing a token allocates nothing:
+ * </p>
+ * <blockquote><pre>
+ * tags[i]    the tag
+ * values[i]  the value of a Num, or the bits of the value of a Real
+ * words[i]   the Word, which the Lexer keeps one instance of per lexeme
+ * lines[i]   the line
+ * offsets[i] the offset of the first byte of the token
+ * </pre></blockquote>
+ * <p>
+ * where slot i holds the token of sequence number s for {@code i == s & (capacity - 1)}.
+ * </p>
+ * <p>Implementation:
+ * </p>
+ * <ul>
+ * <li>The producer publishes the sequence number after its last written token (tail) with a release store, and
+ * the consumer the sequence number after its last read token (head). Acquire loads of the other side's
+ * counter make the slots written before the store visible.</li>
+ * <li>Each side also keeps the last value it read of the other side's counter, and reloads it only when that
+ * value says the ring is full or empty.</li>
+ * <li>The consumer takes every published token in one batch with {@link #available} and frees them all with one
+ * {@link #release}.</li>
+ * <li>The counters sit in one array, 128 bytes apart, each in the block of the side writing it, so the two sides
+ * never write to the same cache line, even with adjacent line prefetching.</li>
+ * </ul>
+ */
+public class TokenRing {
+    private static final VarHandle COUNTERS = MethodHandles.arrayElementVarHandle(long[].class);
+    // the consumer's block, then the producer's block, each of 16 longs.
+    private static final int HEAD = 16, CACHED_TAIL = 17;
+    private static final int TAIL = 32, CACHED_HEAD = 33;
+
+    private final long[] counters = new long[48];
+    private final int capacity;
+    private final int mask;
+    private final int[] tags;
+    private final int[] values;
+    private final Word[] words;
+    private final int[] lines;
+    private final long[] offsets;
+    private final WaitStrategy wait;
+    private volatile boolean closed;
+
+    /**
+     * @param capacity the number of slots, a power of two.
+     * @param wait     how either side waits for the other.
+     */
+    public TokenRing(int capacity, WaitStrategy wait) {
+        if (capacity < 2 || Integer.bitCount(capacity) != 1)
+            throw new IllegalArgumentException("capacity must be a power of two, got " + capacity);
+        this.capacity = capacity;
+        this.mask = capacity - 1;
+        this.tags = new int[capacity];
+        this.values = new int[capacity];
+        this.words = new Word[capacity];
+        this.lines = new int[capacity];
+        this.offsets = new long[capacity];
+        this.wait = wait;
+    }
+
+    public int capacity() {
+        return capacity;
+    }
+
+    /**
+     * Appends a token, waiting while the ring is full. Producer only.
+     *
+     * @return false if the ring was closed while waiting, the token is then dropped.
+     */
+    public boolean put(int tag, int value, Word word, int line, long offset) {
+        long tail = counters[TAIL];
+        if (tail - counters[CACHED_HEAD] == capacity) {
+            for (int attempt = 0; ; attempt++) {
+                long head = (long) COUNTERS.getAcquire(counters, HEAD);
+                counters[CACHED_HEAD] = head;
+                if (tail - head < capacity) break;
+                if (closed) return false;
+                wait.idle(attempt);
+            }
+        }
+        int i = (int) tail & mask;
+        tags[i] = tag;
+        values[i] = value;
+        words[i] = word;
+        lines[i] = line;
+        offsets[i] = offset;
+        COUNTERS.setRelease(counters, TAIL, tail + 1);
+        return true;
+    }
+
+    /**
+     * Appends the fields of t, see {@link #put(int, int, Word, int, long)}.
+     */
+    public boolean put(Token t, int line, long offset) {
+        if (t instanceof Num n) return put(t.tag, n.value, null, line, offset);
+        if (t instanceof Real r) return put(t.tag, Float.floatToRawIntBits(r.value), null, line, offset);
+        if (t instanceof Word w) return put(t.tag, 0, w, line, offset);
+        return put(t.tag, 0, null, line, offset);
+    }
+
+    /**
+     * Waits until the token of sequence number seq has been published. Consumer only.
+     *
+     * @return the sequence number after the last published token, every token from seq up to it may be read.
+     */
+    public long available(long seq) {
+        long tail = counters[CACHED_TAIL];
+        if (seq < tail) return tail;
+        for (int attempt = 0; ; attempt++) {
+            tail = (long) COUNTERS.getAcquire(counters, TAIL);
+            if (seq < tail) {
+                counters[CACHED_TAIL] = tail;
+                return tail;
+            }
+            wait.idle(attempt);
+        }
+    }
+
+    /**
+     * Frees the slots of every token before sequence number seq for the producer. Consumer only.
+     */
+    public void release(long seq) {
+        COUNTERS.setRelease(counters, HEAD, seq);
+    }
+
+    public int tag(long seq) {
+        return tags[(int) seq & mask];
+    }
+
+    public int value(long seq) {
+        return values[(int) seq & mask];
+    }
+
+    public Word word(long seq) {
+        return words[(int) seq & mask];
+    }
+
+    public int line(long seq) {
+        return lines[(int) seq & mask];
+    }
+
+    public long offset(long seq) {
+        return offsets[(int) seq & mask];
+    }
+
+    /**
+     * Tells a producer waiting on a full ring that the consumer is gone.
+     */
+    public void close() {
+        closed = true;
+    }
+}
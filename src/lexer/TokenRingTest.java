@@ -0,0 +1,85 @@
+package lexer;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.atomic.AtomicBoolean;
+
+public class TokenRingTest {
+
+    @Test
+    void testCapacity() {
+        Assertions.assertEquals(8, new TokenRing(8, WaitStrategy.SPIN).capacity());
+        Assertions.assertThrows(IllegalArgumentException.class, () -> new TokenRing(6, WaitStrategy.SPIN));
+        Assertions.assertThrows(IllegalArgumentException.class, () -> new TokenRing(1, WaitStrategy.SPIN));
+    }
+
+    @Test
+    void testSingleThread() {
+        TokenRing ring = new TokenRing(4, WaitStrategy.SPIN);
+        Word w = new Word(Tag.ID, "x");
+        Assertions.assertTrue(ring.put(new Num(7), 1, 0));
+        Assertions.assertTrue(ring.put(new Real(1.5f), 2, 3));
+        Assertions.assertTrue(ring.put(w, 3, 8));
+        Assertions.assertTrue(ring.put(new Token('+'), 4, 1L << 40));
+
+        Assertions.assertEquals(4, ring.available(0));
+        Assertions.assertEquals(Tag.NUM, ring.tag(0));
+        Assertions.assertEquals(7, ring.value(0));
+        Assertions.assertEquals(1.5f, Float.intBitsToFloat(ring.value(1)));
+        Assertions.assertSame(w, ring.word(2));
+        Assertions.assertEquals('+', ring.tag(3));
+        Assertions.assertNull(ring.word(3));
+        Assertions.assertEquals(4, ring.line(3));
+        Assertions.assertEquals(1L << 40, ring.offset(3));
+
+        // the slots wrap around once released.
+        ring.release(2);
+        Assertions.assertTrue(ring.put(Tag.EOF, 0, null, 5, 99));
+        Assertions.assertEquals(5, ring.available(4));
+        Assertions.assertEquals(Tag.EOF, ring.tag(4));
+    }
+
+    @Test
+    void testProducerConsumer() throws InterruptedException {
+        for (WaitStrategy wait : WaitStrategy.values()) {
+            int n = 200_000;
+            TokenRing ring = new TokenRing(64, wait);
+            Thread producer = new Thread(() -> {
+                for (int i = 0; i < n; i++)
+                    ring.put(Tag.NUM, i, null, i >>> 4, 2L * i);
+            });
+            producer.start();
+
+            long seq = 0, limit = 0;
+            while (seq < n) {
+                if (seq == limit) {
+                    ring.release(seq);
+                    limit = ring.available(seq);
+                }
+                Assertions.assertEquals((int) seq, ring.value(seq), wait.name());
+                Assertions.assertEquals((int) seq >>> 4, ring.line(seq), wait.name());
+                Assertions.assertEquals(2 * seq, ring.offset(seq), wait.name());
+                seq++;
+            }
+            producer.join();
+        }
+    }
+
+    @Test
+    void testCloseReleasesProducer() throws InterruptedException {
+        TokenRing ring = new TokenRing(2, WaitStrategy.PARK);
+        AtomicBoolean dropped = new AtomicBoolean();
+        Thread producer = new Thread(() -> {
+            ring.put(Tag.NUM, 1, null, 1, 0);
+            ring.put(Tag.NUM, 2, null, 1, 0);
+            dropped.set(!ring.put(Tag.NUM, 3, null, 1, 0));
+        });
+        producer.start();
+        Thread.sleep(20);
+        ring.close();
+        producer.join(5000);
+        Assertions.assertFalse(producer.isAlive());
+        Assertions.assertTrue(dropped.get());
+    }
+}
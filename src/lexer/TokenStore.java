@@ -0,0 +1,311 @@
+package lexer;
+
+import java.io.IOException;
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.Field;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.util.ArrayList;
+import java.util.Hashtable;
+
+/**
+ * An append only list of tokens kept off the heap, for keeping every token of a large input for later passes
+ * without filling the heap with {@link Token} objects.
+ * <p>
+ * Tokens are stored as fixed width records in direct {@link ByteBuffer} chunks of {@link #CHUNK_RECORDS}
+ * records, in the native byte order:
+ * </p>
+ * <blockquote><pre>
+ * int  tag
+ * int  line     the line the lexer was on after scanning the token
+ * long offset   the byte offset of the token in the input
+ * int  length   the length of the token in bytes
+ * int  payload  the value of a Num, the bits of the value of a Real, or 1 + the index of a Word, 0 otherwise
+ * </pre></blockquote>
+ * <p>
+ * The only objects on the heap are the chunk list and the distinct {@link Word}s, one per lexeme.
+ * </p>
+ * <p>
+ * The chunks are freed as soon as the store is closed, rather than whenever the GC gets to them, so a
+ * compilation unit can release its tokens deterministically. A store is confined to the thread that created it,
+ * and every access checks that the store is open, so freed memory is never read.
+ * </p>
+ */
+public class TokenStore implements AutoCloseable {
+    static final int RECORD_BYTES = 24;
+    static final int CHUNK_SHIFT = 16;
+    static final int CHUNK_RECORDS = 1 << CHUNK_SHIFT;
+    private static final int TAG = 0, LINE = 4, OFFSET = 8, LENGTH = 16, PAYLOAD = 20;
+    // frees a direct buffer right away, null if the JDK does not allow it, the GC then frees the chunks.
+    private static final MethodHandle INVOKE_CLEANER = invokeCleaner();
+
+    private final Thread owner;
+    private final ArrayList<ByteBuffer> chunks;
+    private final ArrayList<Word> words;
+    private final Hashtable<Word, Integer> wordIndex;
+    private long size;
+    private boolean closed;
+
+    public TokenStore() {
+        this.owner = Thread.currentThread();
+        this.chunks = new ArrayList<>();
+        this.words = new ArrayList<>();
+        this.wordIndex = new Hashtable<>();
+    }
+
+    /**
+     * Scans every token of lexer into a new store, up to and including the {@link Tag#EOF} token.
+     *
+     * @throws IOException if reading the input failed.
+     * @throws Error       if the input could not be scanned.
+     */
+    public static TokenStore of(Lexer lexer) throws IOException, Error {
+        TokenStore store = new TokenStore();
+        try {
+            Token t;
+            do {
+                t = lexer.scan();
+                store.add(t, lexer.line, lexer.offset(), lexer.length());
+            } while (t.tag != Tag.EOF);
+        } catch (IOException | RuntimeException | Error e) {
+            store.close();
+            throw e;
+        }
+        return store;
+    }
+
+    /**
+     * Appends a token.
+     *
+     * @param line   the line the lexer was on after scanning the token.
+     * @param offset the byte offset of the token in the input.
+     * @param length the length of the token in bytes.
+     */
+    public void add(Token token, int line, long offset, int length) {
+        checkAccess();
+        int payload;
+        if (token instanceof Num n) payload = n.value;
+        else if (token instanceof Real r) payload = Float.floatToRawIntBits(r.value);
+        else if (token instanceof Word w) payload = 1 + indexOf(w);
+        else payload = 0;
+
+        int record = (int) (size & (CHUNK_RECORDS - 1));
+        if (record == 0)
+            chunks.add(ByteBuffer.allocateDirect(CHUNK_RECORDS * RECORD_BYTES).order(ByteOrder.nativeOrder()));
+        ByteBuffer chunk = chunks.get(chunks.size() - 1);
+        int at = record * RECORD_BYTES;
+        chunk.putInt(at + TAG, token.tag);
+        chunk.putInt(at + LINE, line);
+        chunk.putLong(at + OFFSET, offset);
+        chunk.putInt(at + LENGTH, length);
+        chunk.putInt(at + PAYLOAD, payload);
+        size++;
+    }
+
+    private int indexOf(Word w) {
+        Integer index = wordIndex.get(w);
+        if (index == null) {
+            index = words.size();
+            words.add(w);
+            wordIndex.put(w, index);
+        }
+        return index;
+    }
+
+    /**
+     * @return the number of tokens stored.
+     */
+    public long size() {
+        return size;
+    }
+
+    /**
+     * @return the bytes held off the heap.
+     */
+    public long memoryBytes() {
+        return (long) chunks.size() * CHUNK_RECORDS * RECORD_BYTES;
+    }
+
+    public int tag(long i) {
+        return getInt(i, TAG);
+    }
+
+    public int line(long i) {
+        return getInt(i, LINE);
+    }
+
+    public long offset(long i) {
+        return chunk(i).getLong(at(i) + OFFSET);
+    }
+
+    public int length(long i) {
+        return getInt(i, LENGTH);
+    }
+
+    /**
+     * @return the value of a {@link Tag#NUM} token, 0 for any other token.
+     */
+    public int intValue(long i) {
+        return tag(i) == Tag.NUM ? getInt(i, PAYLOAD) : 0;
+    }
+
+    /**
+     * @return the value of a {@link Tag#REAL} token, 0 for any other token.
+     */
+    public float realValue(long i) {
+        return tag(i) == Tag.REAL ? Float.intBitsToFloat(getInt(i, PAYLOAD)) : 0;
+    }
+
+    /**
+     * @return the Word of token i, null for a token that is not a Word.
+     */
+    public Word word(long i) {
+        int tag = tag(i);
+        if (tag == Tag.NUM || tag == Tag.REAL) return null;
+        int payload = getInt(i, PAYLOAD);
+        return payload == 0 ? null : words.get(payload - 1);
+    }
+
+    private int getInt(long i, int field) {
+        return chunk(i).getInt(at(i) + field);
+    }
+
+    private ByteBuffer chunk(long i) {
+        checkAccess();
+        if (i < 0 || i >= size) throw new IndexOutOfBoundsException("token " + i + " of " + size);
+        return chunks.get((int) (i >>> CHUNK_SHIFT));
+    }
+
+    private static int at(long i) {
+        return (int) (i & (CHUNK_RECORDS - 1)) * RECORD_BYTES;
+    }
+
+    private void checkAccess() {
+        if (closed) throw new IllegalStateException("token store is closed");
+        if (Thread.currentThread() != owner)
+            throw new IllegalStateException("token store is confined to thread " + owner.getName());
+    }
+
+    /**
+     * @return a cursor before the first token of this store.
+     */
+    public Cursor cursor() {
+        checkAccess();
+        return new Cursor();
+    }
+
+    /**
+     * Frees the memory of the tokens. The store and its cursors can no longer be used.
+     */
+    @Override
+    public void close() {
+        if (closed) return;
+        checkAccess();
+        closed = true;
+        if (INVOKE_CLEANER != null) {
+            for (ByteBuffer chunk : chunks) {
+                try {
+                    INVOKE_CLEANER.invokeExact(chunk);
+                } catch (Throwable e) {
+                    throw new IllegalStateException("could not free a token chunk", e);
+                }
+            }
+        }
+        chunks.clear();
+        words.clear();
+        wordIndex.clear();
+    }
+
+    private static MethodHandle invokeCleaner() {
+        try {
+            Class<?> unsafeClass = Class.forName("sun.misc.Unsafe");
+            Field theUnsafe = unsafeClass.getDeclaredField("theUnsafe");
+            theUnsafe.setAccessible(true);
+            return MethodHandles.lookup()
+                    .findVirtual(unsafeClass, "invokeCleaner", MethodType.methodType(void.class, ByteBuffer.class))
+                    .bindTo(theUnsafe.get(null));
+        } catch (ReflectiveOperationException | RuntimeException e) {
+            return null;
+        }
+    }
+
+    /**
+     * A {@link TokenCursor} over the tokens of the store, which copies each token out of its record as it advances.
+     * Once on the last token it stays there, and the cursor of an empty store is on a {@link Tag#EOF} token at
+     * index -1.
+     */
+    public class Cursor implements TokenCursor {
+        private long index = -1;
+        private int tag;
+        private int line;
+        private long offset;
+        private int length;
+        private int payload;
+
+        private Cursor() {
+        }
+
+        @Override
+        public void advance() {
+            if (size == 0) {
+                checkAccess();
+                tag = Tag.EOF;
+                return;
+            }
+            if (index + 1 < size) index++;
+            ByteBuffer chunk = chunk(index);
+            int at = at(index);
+            tag = chunk.getInt(at + TAG);
+            line = chunk.getInt(at + LINE);
+            offset = chunk.getLong(at + OFFSET);
+            length = chunk.getInt(at + LENGTH);
+            payload = chunk.getInt(at + PAYLOAD);
+        }
+
+        /**
+         * @return the index in the store of the token the cursor is on.
+         */
+        public long index() {
+            return index;
+        }
+
+        @Override
+        public int tag() {
+            return tag;
+        }
+
+        @Override
+        public int intValue() {
+            return tag == Tag.NUM ? payload : 0;
+        }
+
+        @Override
+        public float realValue() {
+            return tag == Tag.REAL ? Float.intBitsToFloat(payload) : 0;
+        }
+
+        @Override
+        public Word word() {
+            return tag == Tag.NUM || tag == Tag.REAL || payload == 0 ? null : words.get(payload - 1);
+        }
+
+        @Override
+        public int line() {
+            return line;
+        }
+
+        @Override
+        public long offset() {
+            return offset;
+        }
+
+        /**
+         * @return the length in bytes of the token.
+         */
+        public int length() {
+            return length;
+        }
+    }
+}
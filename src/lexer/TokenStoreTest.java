@@ -0,0 +1,108 @@
+package lexer;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.lang.management.BufferPoolMXBean;
+import java.lang.management.ManagementFactory;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.atomic.AtomicReference;
+
+public class TokenStoreTest {
+    @Test
+    void testSameTokensAsLexer() throws IOException {
+        // spans several chunks.
+        byte[] program = TokenFixtures.program(3 * TokenStore.CHUNK_RECORDS, 1, StandardCharsets.UTF_8);
+        try (TokenStore store = TokenStore.of(new Lexer(program, StandardCharsets.UTF_8))) {
+            Assertions.assertTrue(store.size() > 2 * TokenStore.CHUNK_RECORDS);
+            Lexer lexer = new Lexer(new ByteArrayInputStream(program), StandardCharsets.UTF_8);
+            TokenStore.Cursor cursor = store.cursor();
+            Token t;
+            long i = 0;
+            do {
+                t = lexer.scan();
+                cursor.advance();
+                Assertions.assertEquals(i, cursor.index());
+                Assertions.assertEquals(t.tag, cursor.tag());
+                Assertions.assertEquals(t.tag, store.tag(i));
+                Assertions.assertEquals(t instanceof Num n ? n.value : 0, cursor.intValue());
+                Assertions.assertEquals(t instanceof Real r ? r.value : 0, cursor.realValue());
+                Assertions.assertEquals(t instanceof Word w ? w.lexeme() : null,
+                        cursor.word() == null ? null : cursor.word().lexeme());
+                Assertions.assertEquals(lexer.line, cursor.line());
+                Assertions.assertEquals(lexer.offset(), cursor.offset());
+                Assertions.assertEquals(lexer.length(), cursor.length());
+                Assertions.assertEquals(lexer.length(), store.length(i));
+                i++;
+            } while (t.tag != Tag.EOF);
+            Assertions.assertEquals(store.size(), i);
+            // stays on EOF.
+            cursor.advance();
+            Assertions.assertEquals(Tag.EOF, cursor.tag());
+        }
+    }
+
+    @Test
+    void testEmptyStoreIsAtEof() throws IOException {
+        try (TokenStore store = new TokenStore()) {
+            TokenStore.Cursor cursor = store.cursor();
+            cursor.advance();
+            Assertions.assertEquals(Tag.EOF, cursor.tag());
+            Assertions.assertEquals(-1, cursor.index());
+            Assertions.assertNull(cursor.word());
+            cursor.advance();
+            Assertions.assertEquals(Tag.EOF, cursor.tag());
+            Assertions.assertThrows(IndexOutOfBoundsException.class, () -> store.tag(0));
+        }
+    }
+
+    @Test
+    void testWordsAreShared() throws IOException {
+        try (TokenStore store = TokenStore.of(new Lexer("a b a >= true".getBytes()))) {
+            Assertions.assertSame(store.word(0), store.word(2));
+            Assertions.assertNotSame(store.word(0), store.word(1));
+            Assertions.assertSame(Word.ge, store.word(3));
+            Assertions.assertEquals(Tag.TRUE, store.word(4).tag);
+            Assertions.assertNull(store.word(5));
+            Assertions.assertThrows(IndexOutOfBoundsException.class, () -> store.tag(6));
+        }
+    }
+
+    @Test
+    void testCloseFreesMemory() throws IOException {
+        BufferPoolMXBean direct = ManagementFactory.getPlatformMXBeans(BufferPoolMXBean.class).stream()
+                .filter(pool -> pool.getName().equals("direct")).findFirst().orElseThrow();
+        long before = direct.getMemoryUsed();
+        TokenStore store = TokenStore.of(
+                new Lexer(TokenFixtures.program(TokenStore.CHUNK_RECORDS + 1, 2, StandardCharsets.UTF_8)));
+        TokenStore.Cursor cursor = store.cursor();
+        Assertions.assertEquals(2 * (long) TokenStore.CHUNK_RECORDS * TokenStore.RECORD_BYTES, store.memoryBytes());
+        Assertions.assertTrue(direct.getMemoryUsed() - before >= store.memoryBytes());
+
+        store.close();
+        Assertions.assertTrue(direct.getMemoryUsed() - before < store.memoryBytes() + TokenStore.RECORD_BYTES);
+        Assertions.assertThrows(IllegalStateException.class, () -> store.tag(0));
+        Assertions.assertThrows(IllegalStateException.class, cursor::advance);
+        store.close();
+    }
+
+    @Test
+    void testConfinedToOwnerThread() throws Exception {
+        try (TokenStore store = TokenStore.of(new Lexer("a".getBytes()))) {
+            AtomicReference<Throwable> thrown = new AtomicReference<>();
+            Thread other = new Thread(() -> {
+                try {
+                    store.tag(0);
+                } catch (Throwable e) {
+                    thrown.set(e);
+                }
+            });
+            other.start();
+            other.join();
+            Assertions.assertInstanceOf(IllegalStateException.class, thrown.get());
+            Assertions.assertEquals(Tag.ID, store.tag(0));
+        }
+    }
+}
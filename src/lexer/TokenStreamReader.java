@@ -0,0 +1,197 @@
+package lexer;
+
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+
+import static lexer.TokenStreamWriter.*;
+
+/**
+ * A {@link TokenCursor} decoding a token stream written by {@link TokenStreamWriter} as it advances, so a parser
+ * reads cached tokens the same way it reads tokens from a {@link Lexer}.
+ * <p>
+ * The Words of the stream are made once per entry of its string pool, except for the composite operators,
+ * which are the shared {@link Word#le} etc.
+ * </p>
+ */
+public class TokenStreamReader implements TokenCursor {
+    private static final int BUFFER_SIZE = 1 << 13;
+
+    private final InputStream in;
+    private final byte[] buffer;
+    private int position;
+    private int limit;
+    private final ArrayList<Word> pool;
+    private int[] poolLengths;
+    private int tag;
+    private int intValue;
+    private float realValue;
+    private Word word;
+    private int line;
+    private long offset;
+    // the predicted end of the token, and the length of the lexeme of the last Word read.
+    private long end;
+    private int wordLength;
+    private int kind;
+    private boolean started;
+
+    /**
+     * Reads and checks the header of the stream.
+     *
+     * @throws IOException if in is not a token stream of a version this reader can read, or reading failed.
+     */
+    public TokenStreamReader(InputStream in) throws IOException {
+        this.in = in;
+        this.buffer = new byte[BUFFER_SIZE];
+        this.pool = new ArrayList<>();
+        this.poolLengths = new int[64];
+        this.line = 1;
+        int magic = 0;
+        for (int i = 0; i < 4; i++)
+            magic = magic << 8 | readByte();
+        if (magic != MAGIC) throw new IOException("not a token stream");
+        int version = readByte();
+        if (version != VERSION) throw new IOException("unsupported token stream version " + version);
+    }
+
+    /**
+     * @throws IOException if the stream is truncated or corrupt, or reading failed.
+     */
+    @Override
+    public void advance() throws IOException {
+        if (started && tag == Tag.EOF) return;
+        started = true;
+
+        int head = readByte();
+        if ((head & LINE_FLAG) != 0) line += (int) readVarint();
+        int previous = kind;
+        kind = head & KIND_MASK;
+        if (kind >= FIRST_OPERATOR + OPERATORS.length())
+            throw new IOException("corrupt token stream, unknown kind " + kind);
+        long gap;
+        if ((head & GAP_FLAG) != 0) {
+            long zigzag = readVarint();
+            gap = zigzag >>> 1 ^ -(zigzag & 1);
+        } else {
+            gap = defaultGap(previous, kind);
+        }
+        offset = end + gap;
+        word = null;
+        intValue = 0;
+        realValue = 0;
+
+        switch (kind) {
+            case EOF -> tag = Tag.EOF;
+            case NUM -> {
+                tag = Tag.NUM;
+                int zigzag = (int) readVarint();
+                intValue = zigzag >>> 1 ^ -(zigzag & 1);
+            }
+            case REAL -> {
+                tag = Tag.REAL;
+                int bits = 0;
+                for (int i = 0; i < 4; i++)
+                    bits |= readByte() << 8 * i;
+                realValue = Float.intBitsToFloat(bits);
+            }
+            case WORD -> {
+                word = readWord();
+                tag = word.tag;
+            }
+            case LE, GE, EQ, NE -> {
+                word = kind == LE ? Word.le : kind == GE ? Word.ge : kind == EQ ? Word.eq : Word.ne;
+                tag = word.tag;
+            }
+            case CHAR -> tag = readByte();
+            default -> tag = OPERATORS.charAt(kind - FIRST_OPERATOR);
+        }
+        end = offset + (kind == WORD ? wordLength : predictedLength(kind, intValue));
+    }
+
+    private Word readWord() throws IOException {
+        long index = readVarint();
+        if (index < pool.size()) {
+            wordLength = poolLengths[(int) index];
+            return pool.get((int) index);
+        }
+        if (index != pool.size()) throw new IOException("corrupt token stream, word " + index + " is not pooled");
+        int tag = (int) readVarint();
+        long length = readVarint();
+        if (length > Integer.MAX_VALUE - 8) throw new IOException("corrupt token stream, word of " + length + " bytes");
+        // grown as the bytes arrive, so a corrupt length runs into the end of the stream instead of allocating it.
+        byte[] bytes = new byte[(int) Math.min(length, buffer.length)];
+        for (int i = 0; i < length; ) {
+            if (position == limit && !fill()) throw new EOFException("truncated token stream");
+            if (i == bytes.length) bytes = Arrays.copyOf(bytes, (int) Math.min(length, 2L * bytes.length));
+            int n = Math.min(bytes.length - i, limit - position);
+            System.arraycopy(buffer, position, bytes, i, n);
+            position += n;
+            i += n;
+        }
+        Word w = new Word(tag, new String(bytes, StandardCharsets.UTF_8));
+        if (pool.size() == poolLengths.length) poolLengths = Arrays.copyOf(poolLengths, 2 * pool.size());
+        poolLengths[pool.size()] = bytes.length;
+        pool.add(w);
+        wordLength = bytes.length;
+        return w;
+    }
+
+    private int readByte() throws IOException {
+        if (position == limit && !fill()) throw new EOFException("truncated token stream");
+        return buffer[position++] & 0xff;
+    }
+
+    private long readVarint() throws IOException {
+        long v = 0;
+        for (int shift = 0; shift < 64; shift += 7) {
+            int b = readByte();
+            v |= (long) (b & 0x7f) << shift;
+            if (b < 0x80) return v;
+        }
+        throw new IOException("corrupt token stream, varint too long");
+    }
+
+    private boolean fill() throws IOException {
+        int n;
+        do {
+            n = in.read(buffer, 0, buffer.length);
+        } while (n == 0);
+        if (n < 0) return false;
+        position = 0;
+        limit = n;
+        return true;
+    }
+
+    @Override
+    public int tag() {
+        return tag;
+    }
+
+    @Override
+    public int intValue() {
+        return intValue;
+    }
+
+    @Override
+    public float realValue() {
+        return realValue;
+    }
+
+    @Override
+    public Word word() {
+        return word;
+    }
+
+    @Override
+    public int line() {
+        return line;
+    }
+
+    @Override
+    public long offset() {
+        return offset;
+    }
+}
@@ -0,0 +1,107 @@
+package lexer;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+public class TokenStreamTest {
+    private static byte[] encode(byte[] program) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        TokenStreamWriter.write(new LexerCursor(new Lexer(program, StandardCharsets.UTF_8)), out);
+        return out.toByteArray();
+    }
+
+    @Test
+    void testRoundTrip() throws IOException {
+        for (String input : new String[]{"", "a", "  a = b + 1;\n\n  x >= 3.5\n", "x\n"}) {
+            byte[] program = input.getBytes(StandardCharsets.UTF_8);
+            TokenFixtures.assertSameTokens(new LexerCursor(new Lexer(program)),
+                    new TokenStreamReader(new ByteArrayInputStream(encode(program))));
+        }
+        byte[] program = TokenFixtures.program(100_000, 1, StandardCharsets.UTF_8);
+        TokenFixtures.assertSameTokens(new LexerCursor(new Lexer(program, StandardCharsets.UTF_8)),
+                new TokenStreamReader(new ByteArrayInputStream(encode(program))));
+    }
+
+    @Test
+    void testWordsArePooled() throws IOException {
+        TokenStreamReader reader = new TokenStreamReader(
+                new ByteArrayInputStream(encode("abc abc >= abc".getBytes())));
+        reader.advance();
+        Word abc = reader.word();
+        reader.advance();
+        Assertions.assertSame(abc, reader.word());
+        reader.advance();
+        Assertions.assertSame(Word.ge, reader.word());
+        reader.advance();
+        Assertions.assertSame(abc, reader.word());
+        // the header, a new word (head, index, 2 byte tag, length, lexeme), 2 bytes for a pooled word, 1 for >=,
+        // and EOF with a gap of 0.
+        Assertions.assertEquals(5 + (1 + 1 + 2 + 1 + 3) + 2 + 1 + 2 + 2, encode("abc abc >= abc".getBytes()).length);
+    }
+
+    @Test
+    void testSmallerThanSource() throws IOException {
+        // a handful of names used over and over, as in real code.
+        String[] names = {"position", "initial", "rate", "velocity", "count"};
+        StringBuilder sb = new StringBuilder();
+        for (int i = 0; i < 10_000; i++) {
+            sb.append(names[i % names.length]).append(" = ").append(names[i * 3 % names.length]).append(" + ")
+                    .append(names[i * 7 % names.length]).append(" * ").append(i % 100).append(";\n");
+        }
+        byte[] program = sb.toString().getBytes();
+        Assertions.assertTrue(encode(program).length * 2 < program.length);
+    }
+
+    @Test
+    void testCorruptStreams() throws IOException {
+        byte[] encoded = encode(TokenFixtures.program(1000, 3, StandardCharsets.UTF_8));
+        Assertions.assertThrows(IOException.class,
+                () -> new TokenStreamReader(new ByteArrayInputStream("not tokens".getBytes())));
+        byte[] version = encoded.clone();
+        version[4]++;
+        Assertions.assertThrows(IOException.class, () -> new TokenStreamReader(new ByteArrayInputStream(version)));
+
+        TokenStreamReader truncated = new TokenStreamReader(
+                new ByteArrayInputStream(Arrays.copyOf(encoded, encoded.length / 2)));
+        Assertions.assertThrows(IOException.class, () -> {
+            do {
+                truncated.advance();
+            } while (truncated.tag() != Tag.EOF);
+        });
+    }
+
+    @Test
+    void testCorruptWordLength() throws IOException {
+        byte[] encoded = encode("abc".getBytes());
+        int lexeme = indexOf(encoded, "abc".getBytes());
+        Assertions.assertEquals(3, encoded[lexeme - 1]);
+        // the length of the word replaced by a varint of almost 2 GB.
+        byte[] huge = {(byte) 0xf0, (byte) 0xff, (byte) 0xff, (byte) 0xff, 0x07};
+        byte[] corrupt = new byte[encoded.length - 1 + huge.length];
+        System.arraycopy(encoded, 0, corrupt, 0, lexeme - 1);
+        System.arraycopy(huge, 0, corrupt, lexeme - 1, huge.length);
+        System.arraycopy(encoded, lexeme, corrupt, lexeme - 1 + huge.length, encoded.length - lexeme);
+        TokenStreamReader reader = new TokenStreamReader(new ByteArrayInputStream(corrupt));
+        Assertions.assertThrows(IOException.class, reader::advance);
+    }
+
+    private static int indexOf(byte[] bytes, byte[] part) {
+        for (int i = 0; i + part.length <= bytes.length; i++)
+            if (Arrays.equals(bytes, i, i + part.length, part, 0, part.length)) return i;
+        return -1;
+    }
+
+    @Test
+    void testOutOfOrder() throws IOException {
+        TokenStreamWriter writer = new TokenStreamWriter(new ByteArrayOutputStream());
+        writer.write('+', 0, 0, null, 2, 10);
+        Assertions.assertThrows(IllegalArgumentException.class, () -> writer.write('+', 0, 0, null, 1, 12));
+        Assertions.assertThrows(IllegalArgumentException.class, () -> writer.write('+', 0, 0, null, 2, 9));
+    }
+}
@@ -0,0 +1,289 @@
+package lexer;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Hashtable;
+
+/**
+ * Writes tokens in a compact binary format, to be cached or handed to a later stage and read back with
+ * {@link TokenStreamReader} instead of scanning the source again.
+ * <p>Format:
+ * </p>
+ * <blockquote><pre>
+ * int    magic      "TOKS"
+ * byte   version
+ * token* each token, up to and including {@link Tag#EOF}:
+ *   byte   head     L G kkkkkk: L set if a line delta follows, G set if an offset gap follows, k the kind
+ *   varint line     the line minus the line of the previous token, if L
+ *   varint gap      zigzag, the offset minus the predicted end of the previous token, if G. Otherwise the gap
+ *                   is the default gap between the kinds of the two tokens
+ *   ...    payload  by kind
+ * </pre></blockquote>
+ * <p>
+ * Kinds and payloads:
+ * </p>
+ * <blockquote><pre>
+ * EOF              none
+ * NUM              varint, zigzag value
+ * REAL             4 bytes, the bits of the value, little endian
+ * WORD             varint index into the string pool of the file, and if the index is the size of the pool,
+ *                  a new entry: varint tag, varint length, the UTF-8 bytes of the lexeme
+ * LE, GE, EQ, NE   none
+ * CHAR             byte, the char token
+ * an operator      none, one kind for each char of {@link #OPERATORS}
+ * </pre></blockquote>
+ * <p>
+ * Varints are unsigned LEB128, 7 bits per byte starting with the lowest, the high bit set on every byte but the
+ * last. The first line is 1 and the first predicted end is 0.
+ * </p>
+ * <p>
+ * The end of a token is predicted from its kind and payload ({@link #predictedLength}), and the gap to the next
+ * token is predicted as 0 around parentheses and brackets and before ';', ',' and '.', 1 otherwise
+ * ({@link #defaultGap}). So a token laid out the usual way costs no gap byte at all, lines only cost a byte
+ * on the tokens that start a new line, and an identifier a byte or two once it is in the pool.
+ * </p>
+ */
+public class TokenStreamWriter implements Closeable {
+    static final int MAGIC = 0x544f4b53;
+    static final int VERSION = 1;
+    static final int LINE_FLAG = 0x80, GAP_FLAG = 0x40, KIND_MASK = 0x3f;
+    static final int EOF = 0, NUM = 1, REAL = 2, WORD = 3, LE = 4, GE = 5, EQ = 6, NE = 7, CHAR = 8;
+    // the operators with a kind of their own, the first being FIRST_OPERATOR.
+    static final String OPERATORS = "+-*/=<>!;(){}[],.&|%^~?:";
+    static final int FIRST_OPERATOR = 9;
+    private static final int BUFFER_SIZE = 1 << 13;
+    private static final int[] OPERATOR_KINDS = new int[128];
+
+    static {
+        for (int i = 0; i < OPERATORS.length(); i++)
+            OPERATOR_KINDS[OPERATORS.charAt(i)] = FIRST_OPERATOR + i;
+    }
+
+    private final OutputStream out;
+    private final byte[] buffer;
+    private int position;
+    private final Hashtable<Word, Integer> pool;
+    private int[] poolLengths;
+    private int line;
+    private long end;
+    private int lastKind;
+    private long written;
+
+    /**
+     * Writes the header to out.
+     *
+     * @throws IOException if writing to out failed.
+     */
+    public TokenStreamWriter(OutputStream out) throws IOException {
+        this.out = out;
+        this.buffer = new byte[BUFFER_SIZE];
+        this.pool = new Hashtable<>();
+        this.poolLengths = new int[64];
+        this.line = 1;
+        this.end = 0;
+        this.lastKind = EOF;
+        writeInt(MAGIC);
+        ensure(1);
+        buffer[position++] = VERSION;
+    }
+
+    /**
+     * Writes every token of tokens, from the one after the token it is on up to and including {@link Tag#EOF},
+     * and flushes them to out.
+     *
+     * @return the number of tokens written.
+     */
+    public static long write(TokenCursor tokens, OutputStream out) throws IOException, Error {
+        TokenStreamWriter writer = new TokenStreamWriter(out);
+        long n = 0;
+        do {
+            tokens.advance();
+            writer.write(tokens);
+            n++;
+        } while (tokens.tag() != Tag.EOF);
+        writer.flush();
+        return n;
+    }
+
+    /**
+     * Writes the token tokens is on.
+     *
+     * @throws IllegalArgumentException if the token is on an earlier line or offset than the last token written.
+     */
+    public void write(TokenCursor tokens) throws IOException {
+        write(tokens.tag(), tokens.intValue(), tokens.realValue(), tokens.word(), tokens.line(), tokens.offset());
+    }
+
+    /**
+     * Writes a token.
+     *
+     * @param tag       the tag of the token.
+     * @param intValue  the value of a {@link Tag#NUM} token.
+     * @param realValue the value of a {@link Tag#REAL} token.
+     * @param word      the Word of the token, null if it is not a Word.
+     * @param line      the line the lexer was on after scanning the token.
+     * @param offset    the byte offset of the token in the input.
+     * @throws IllegalArgumentException if the token is on an earlier line or offset than the last token written.
+     */
+    public void write(int tag, int intValue, float realValue, Word word, int line, long offset) throws IOException {
+        if (line < this.line || offset < written)
+            throw new IllegalArgumentException("tokens must be written in input order");
+        // head, line and gap varints, and the largest payload of 1 + 5 + 5 + 5 bytes (a new word has its own).
+        ensure(1 + 5 + 10 + 16);
+
+        int kind, length;
+        if (word != null && tag != Tag.LE && tag != Tag.GE && tag != Tag.EQ && tag != Tag.NE) {
+            kind = WORD;
+            length = 0;
+        } else {
+            kind = switch (tag) {
+                case Tag.EOF -> EOF;
+                case Tag.NUM -> NUM;
+                case Tag.REAL -> REAL;
+                case Tag.LE -> LE;
+                case Tag.GE -> GE;
+                case Tag.EQ -> EQ;
+                case Tag.NE -> NE;
+                default -> {
+                    if (tag < 0 || tag > 0xff) throw new IllegalArgumentException("tag " + tag + " is not a Word");
+                    yield tag < 128 && OPERATOR_KINDS[tag] != 0 ? OPERATOR_KINDS[tag] : CHAR;
+                }
+            };
+            length = predictedLength(kind, intValue);
+        }
+
+        long gap = offset - end;
+        boolean defaultGap = gap == defaultGap(lastKind, kind);
+        int head = kind;
+        if (line != this.line) head |= LINE_FLAG;
+        if (!defaultGap) head |= GAP_FLAG;
+        buffer[position++] = (byte) head;
+        if (line != this.line) writeVarint(line - this.line);
+        if (!defaultGap) writeVarint(gap << 1 ^ gap >> 63);
+
+        switch (kind) {
+            case NUM -> writeVarint((long) (intValue << 1 ^ intValue >> 31) & 0xffffffffL);
+            case REAL -> {
+                int bits = Float.floatToRawIntBits(realValue);
+                for (int i = 0; i < 4; i++)
+                    buffer[position++] = (byte) (bits >>> 8 * i);
+            }
+            case WORD -> length = writeWord(word);
+            case CHAR -> buffer[position++] = (byte) tag;
+            default -> {
+            }
+        }
+        this.line = line;
+        this.lastKind = kind;
+        this.written = offset;
+        this.end = offset + length;
+    }
+
+    /**
+     * @return the length in bytes of the lexeme of word.
+     */
+    private int writeWord(Word word) throws IOException {
+        Integer index = pool.get(word);
+        if (index != null) {
+            writeVarint(index);
+            return poolLengths[index];
+        }
+        index = pool.size();
+        pool.put(word, index);
+        byte[] bytes = word.lexeme().getBytes(StandardCharsets.UTF_8);
+        if (index == poolLengths.length) poolLengths = Arrays.copyOf(poolLengths, 2 * index);
+        poolLengths[index] = bytes.length;
+        writeVarint(index);
+        writeVarint(word.tag);
+        writeVarint(bytes.length);
+        ensure(bytes.length);
+        if (bytes.length > buffer.length) {
+            flushBuffer();
+            out.write(bytes);
+        } else {
+            System.arraycopy(bytes, 0, buffer, position, bytes.length);
+            position += bytes.length;
+        }
+        return bytes.length;
+    }
+
+    /**
+     * @return the length in bytes of the source of a token of kind, other than a {@link #WORD}, as the lexer
+     * would scan it. Reals are written in too many ways to be predicted.
+     */
+    static int predictedLength(int kind, int intValue) {
+        return switch (kind) {
+            case EOF, REAL -> 0;
+            case NUM -> digits(intValue);
+            case LE, GE, EQ, NE -> 2;
+            default -> 1;
+        };
+    }
+
+    /**
+     * @return the usual number of blanks between a token of kind previous and a token of kind.
+     */
+    static int defaultGap(int previous, int kind) {
+        if (previous == EOF) return 0;
+        return isOperator(previous, "([") || isOperator(kind, ")];,.") ? 0 : 1;
+    }
+
+    private static boolean isOperator(int kind, String operators) {
+        int i = kind - FIRST_OPERATOR;
+        return i >= 0 && operators.indexOf(OPERATORS.charAt(i)) >= 0;
+    }
+
+    private static int digits(int value) {
+        long v = value;
+        int n = v < 0 ? 2 : 1;
+        for (v = Math.abs(v); v >= 10; v /= 10)
+            n++;
+        return n;
+    }
+
+    private void writeVarint(long v) {
+        while ((v & ~0x7fL) != 0) {
+            buffer[position++] = (byte) (v | 0x80);
+            v >>>= 7;
+        }
+        buffer[position++] = (byte) v;
+    }
+
+    private void writeInt(int v) throws IOException {
+        ensure(4);
+        for (int i = 3; i >= 0; i--)
+            buffer[position++] = (byte) (v >>> 8 * i);
+    }
+
+    /**
+     * Makes room for n bytes in the buffer, flushing it if needed.
+     */
+    private void ensure(int n) throws IOException {
+        if (buffer.length - position < n) flushBuffer();
+    }
+
+    private void flushBuffer() throws IOException {
+        out.write(buffer, 0, position);
+        position = 0;
+    }
+
+    /**
+     * Writes the buffered tokens to out and flushes it.
+     */
+    public void flush() throws IOException {
+        flushBuffer();
+        out.flush();
+    }
+
+    /**
+     * Flushes and closes out.
+     */
+    @Override
+    public void close() throws IOException {
+        flush();
+        out.close();
+    }
+}
@@ -0,0 +1,48 @@
+package lexer;
+
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * How a side of a {@link TokenRing} waits for the other side, when the ring is full or empty.
+ * <ul>
+ * <li>{@link #SPIN} busy-waits. The lowest latency, but it holds a CPU the whole time, so it needs a core per
+ * side.</li>
+ * <li>{@link #YIELD} spins for {@link #SPINS} attempts then yields the CPU to other threads on every attempt.</li>
+ * <li>{@link #PARK} spins, yields, then parks for {@link #PARK_NANOS} at a time. An idle side costs next to
+ * nothing, and notices the other side within a park.</li>
+ * </ul>
+ * On a single CPU the other side cannot make progress while this side spins, so every strategy yields
+ * instead of spinning there, the way {@link java.util.concurrent} does.
+ */
+public enum WaitStrategy {
+    SPIN, YIELD, PARK;
+
+    static final int SPINS = 128;
+    static final int YIELDS = 64;
+    static final long PARK_NANOS = 20_000;
+    private static final boolean MULTIPROCESSOR = Runtime.getRuntime().availableProcessors() > 1;
+    private static final int SPIN_ATTEMPTS = MULTIPROCESSOR ? SPINS : 0;
+
+    /**
+     * Waits once.
+     *
+     * @param attempt the number of times the caller has waited already for the same condition.
+     */
+    void idle(int attempt) {
+        switch (this) {
+            case SPIN -> {
+                if (MULTIPROCESSOR) Thread.onSpinWait();
+                else Thread.yield();
+            }
+            case YIELD -> {
+                if (attempt < SPIN_ATTEMPTS) Thread.onSpinWait();
+                else Thread.yield();
+            }
+            case PARK -> {
+                if (attempt < SPIN_ATTEMPTS) Thread.onSpinWait();
+                else if (attempt < SPIN_ATTEMPTS + YIELDS) Thread.yield();
+                else LockSupport.parkNanos(PARK_NANOS);
+            }
+        }
+    }
+}
@@ -3,23 +3,50 @@ package lexer;
 /**
  * A class representing the Word {@link Token} used for reserved words and
  * identifiers.
+ * <p>
+ * The chars of an identifier scanned by the {@link Lexer} are a {@link Lexeme}, a view into the buffer it was
+ * scanned from, and are only turned into a {@link String} when {@link #lexeme()} is first called.
+ * </p>
  * <p>Example Usage:
+ * </p>
  * <pre>{@code
  * // reserved word for "true"
  * new Word(Tag.TRUE, "true");
  * // identifier for the variable "temp"
  * new Word(Tag.ID, "temp");
  * }</pre>
- * </p>
  */
 public class Word extends Token {
-    public final String lexeme;
+    private final CharSequence chars;
+    private String lexeme;
     public static Word
             ge = new Word(Tag.GE, ">="), le = new Word(Tag.LE, "<="),
             eq = new Word(Tag.EQ, "=="), ne = new Word(Tag.NE, "!=");
 
     public Word(int tag, String lexeme) {
         super(tag);
+        this.chars = lexeme;
         this.lexeme = lexeme;
     }
+
+    public Word(int tag, CharSequence chars) {
+        super(tag);
+        this.chars = chars;
+    }
+
+    /**
+     * @return the chars of the lexeme, without copying them.
+     */
+    public CharSequence chars() {
+        return chars;
+    }
+
+    /**
+     * @return the lexeme as a String, made from {@link #chars()} on the first call.
+     */
+    public String lexeme() {
+        String s = lexeme;
+        if (s == null) lexeme = s = chars.toString();
+        return s;
+    }
 }
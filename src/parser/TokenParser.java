@@ -0,0 +1,161 @@
+package parser;
+
+import lexer.Lookahead;
+import lexer.Tag;
+import lexer.TokenCursor;
+
+import java.io.IOException;
+
+/**
+ * A predictive parser translating infix expressions into postfix, over the {@link lexer.Token}s of a
+ * {@link TokenCursor} instead of the chars read by {@link Parser}.
+ * <p>
+ * This is the translation scheme given in {@link lexer.Lexer}, after left-recursion elimination, for a program of
+ * expression and assignment statements:
+ * </p>
+ * <blockquote><pre>
+ * program -> { stmt { print('\n') } } eof
+ *
+ * stmt    -> id = { print(id.lexeme) } expr ; { print('=') }
+ *         |  expr ;
+ *
+ * expr    -> term { + term { print('+') } | - term { print('-') } }
+ * term    -> factor { * factor { print('*') } | / factor { print('/') } }
+ * factor  -> ( expr )
+ *         |  num  { print(num.value) }
+ *         |  real { print(real.value) }
+ *         |  id   { print(id.lexeme) }
+ * </pre></blockquote>
+ * <p>
+ * Printed operands and operators are separated by blanks, so {@code a + b * 2;} is translated into
+ * {@code a b 2 * +}.
+ * </p>
+ * <p>
+ * Both productions of stmt may start with an id, so stmt is decided on two tokens of lookahead, kept in a
+ * {@link Lookahead}. All other decisions need only the first.
+ * </p>
+ * <p>
+ * The parser only sees the cursor, so it runs the same in lockstep with the lexer over a
+ * {@link lexer.LexerCursor}, or behind a lexer thread over a {@link lexer.PipelinedLexer}.
+ * </p>
+ */
+public class TokenParser {
+    private final Lookahead tokens;
+    private final Appendable out;
+    // whether the next thing printed on the line needs a blank before it.
+    private boolean separate;
+
+    /**
+     * @param tokens the tokens, before their first token.
+     * @param out    where the postfix translation is printed.
+     */
+    public TokenParser(TokenCursor tokens, Appendable out) {
+        this.tokens = new Lookahead(tokens, 2);
+        this.out = out;
+    }
+
+    /**
+     * Translates every statement up to the end of the input.
+     *
+     * @return the number of statements translated.
+     * @throws IOException if reading the input or printing failed.
+     * @throws Error       syntax error when the input is not a program.
+     */
+    public int program() throws IOException, Error {
+        int statements = 0;
+        while (tokens.peek(0) != Tag.EOF) {
+            stmt();
+            out.append('\n');
+            separate = false;
+            statements++;
+        }
+        return statements;
+    }
+
+    void stmt() throws IOException, Error {
+        if (tokens.peek(0) == Tag.ID && tokens.peek(1) == '=') {
+            separate();
+            out.append(tokens.word(0).chars());
+            match(Tag.ID);
+            match('=');
+            expr();
+            match(';');
+            print('=');
+        } else {
+            expr();
+            match(';');
+        }
+    }
+
+    void expr() throws IOException, Error {
+        term();
+        while (true) {
+            int op = tokens.peek(0);
+            if (op != '+' && op != '-') break;
+            match(op);
+            term();
+            print(op);
+        }
+    }
+
+    void term() throws IOException, Error {
+        factor();
+        while (true) {
+            int op = tokens.peek(0);
+            if (op != '*' && op != '/') break;
+            match(op);
+            factor();
+            print(op);
+        }
+    }
+
+    void factor() throws IOException, Error {
+        switch (tokens.peek(0)) {
+            case '(' -> {
+                match('(');
+                expr();
+                match(')');
+            }
+            case Tag.NUM -> {
+                separate();
+                out.append(Integer.toString(tokens.intValue(0)));
+                tokens.consume();
+            }
+            case Tag.REAL -> {
+                separate();
+                out.append(Float.toString(tokens.realValue(0)));
+                tokens.consume();
+            }
+            case Tag.ID -> {
+                separate();
+                out.append(tokens.word(0).chars());
+                tokens.consume();
+            }
+            default -> throw syntaxError();
+        }
+    }
+
+    /**
+     * Matches the lookahead with the tag t and advances.
+     *
+     * @throws Error syntax error when the lookahead doesn't match t.
+     */
+    void match(int t) throws IOException, Error {
+        if (tokens.peek(0) != t) throw syntaxError();
+        tokens.consume();
+    }
+
+    private void print(int op) throws IOException {
+        separate();
+        out.append((char) op);
+    }
+
+    private void separate() throws IOException {
+        if (separate) out.append(' ');
+        separate = true;
+    }
+
+    private Error syntaxError() throws IOException {
+        return new Error("syntax error at line " + tokens.line(0));
+    }
+}
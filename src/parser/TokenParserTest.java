@@ -0,0 +1,86 @@
+package parser;
+
+import lexer.Lexer;
+import lexer.LexerCursor;
+import lexer.PipelinedLexer;
+import lexer.TokenCursor;
+import lexer.TokenStore;
+import lexer.WaitStrategy;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.util.Random;
+
+class TokenParserTest {
+
+    private static String translate(TokenCursor tokens) throws IOException {
+        StringBuilder out = new StringBuilder();
+        new TokenParser(tokens, out).program();
+        return out.toString();
+    }
+
+    private static String translate(String input) throws IOException {
+        return translate(new LexerCursor(new Lexer(new ByteArrayInputStream(input.getBytes()))));
+    }
+
+    @Test
+    void testTranslate() throws IOException {
+        Assertions.assertEquals("a b 2 * +\n", translate("a + b * 2;"));
+        Assertions.assertEquals("9 5 - 2 +\n", translate("9-5+2;"));
+        Assertions.assertEquals("a b + c d - / 1.5 *\n", translate("(a + b) / (c - d) * 1.5;"));
+        Assertions.assertEquals("x\n60\n", translate("x;\n// a comment\n60;"));
+        Assertions.assertEquals("", translate("  "));
+    }
+
+    @Test
+    void testAssignment() throws IOException {
+        Assertions.assertEquals("a b 1 + =\n", translate("a = b + 1;"));
+        Assertions.assertEquals("a b + c -\nx 2 =\n", translate("a + b - c; x = 2;"));
+        // == is a single token, so it never starts an assignment.
+        Assertions.assertThrows(Error.class, () -> translate("a == b;"));
+        Assertions.assertThrows(Error.class, () -> translate("1 = b;"));
+    }
+
+    @Test
+    void testStatementCount() throws IOException {
+        StringBuilder out = new StringBuilder();
+        TokenParser parser = new TokenParser(
+                new LexerCursor(new Lexer(new ByteArrayInputStream("a; b; c + d;".getBytes()))), out);
+        Assertions.assertEquals(3, parser.program());
+    }
+
+    @Test
+    void testSyntaxError() {
+        Error e = Assertions.assertThrows(Error.class, () -> translate("a +;"));
+        Assertions.assertEquals("syntax error at line 1", e.getMessage());
+        Assertions.assertThrows(Error.class, () -> translate("a\n\n(b;"));
+        Assertions.assertThrows(Error.class, () -> translate("a b;"));
+        Assertions.assertThrows(Error.class, () -> translate("a"));
+    }
+
+    @Test
+    void testPipelinedSameAsSerial() throws IOException {
+        Random random = new Random(3);
+        StringBuilder sb = new StringBuilder();
+        for (int i = 0; i < 20_000; i++) {
+            sb.append(random.nextBoolean() ? "x" : Integer.toString(random.nextInt(100)));
+            for (int terms = random.nextInt(6); terms > 0; terms--)
+                sb.append(" +-*/".charAt(1 + random.nextInt(4))).append(random.nextBoolean() ? "(y - 2.5)" : "z");
+            sb.append(";\n");
+        }
+        byte[] program = sb.toString().getBytes();
+        String serial = translate(new LexerCursor(new Lexer(new ByteArrayInputStream(program))));
+        for (WaitStrategy wait : WaitStrategy.values()) {
+            try (PipelinedLexer tokens = new PipelinedLexer(new Lexer(new ByteArrayInputStream(program)), 64, wait)) {
+                Assertions.assertEquals(serial, translate(tokens), wait.name());
+            }
+        }
+        try (TokenStore store = TokenStore.of(new Lexer(program))) {
+            Assertions.assertEquals(serial, translate(store.cursor()));
+            // a store can be parsed again.
+            Assertions.assertEquals(serial, translate(store.cursor()));
+        }
+    }
+}
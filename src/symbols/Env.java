@@ -1,25 +1,131 @@
 package symbols;
 
+import java.util.HashMap;
 import java.util.Hashtable;
 
+/**
+ * A scope in a chain of nested symbol tables, linked to its enclosing scope through {@link #prev}.
+ * <p>
+ * Lookups walk the chain from the innermost scope outwards, and most of them miss at every level
+ * until they reach the scope that declares the name. To make those misses cheap each Env keeps:
+ * </p>
+ * <ul>
+ * <li>a small bit-set <a href="https://en.wikipedia.org/wiki/Bloom_filter">Bloom filter</a> of the names
+ * declared in it. A clear bit proves the name is absent, so the {@link Hashtable} lookup is skipped.
+ * The filter doubles in size (up to {@link #MAX_FILTER_WORDS} words) to keep the false positive rate low
+ * as the scope grows.</li>
+ * <li>optionally, a cache of resolved names onto their Symbol (or a miss).
+ * Every Env created from the same outermost scope shares one modification counter, and any
+ * {@link #put} in the chain invalidates the cached results.</li>
+ * </ul>
+ */
 public class Env {
+    private static final int MIN_FILTER_WORDS = 4;
+    private static final int MAX_FILTER_WORDS = 1024;
+    // names per filter bit before the filter is grown.
+    private static final int BITS_PER_NAME = 8;
+    // cached result for a name that is not declared anywhere in the chain.
+    private static final Symbol UNRESOLVED = new Symbol();
+
     private Hashtable<String, Symbol> symbolTable;
-    public Env prev;
+    private long[] filter;
+    private final int[] modCount;
+    private HashMap<String, Symbol> resolved;
+    private int resolvedModCount;
+    public final Env prev;
 
     public Env(Env prev) {
+        this(prev, false);
+    }
+
+    /**
+     * Creates a scope nested within prev.
+     *
+     * @param prev          the enclosing scope, null for the outermost scope.
+     * @param cacheResolved whether lookups from this scope cache the Symbol each name resolves to.
+     */
+    public Env(Env prev, boolean cacheResolved) {
         this.prev = prev;
         this.symbolTable = new Hashtable<>();
+        this.filter = new long[MIN_FILTER_WORDS];
+        this.modCount = prev == null ? new int[1] : prev.modCount;
+        this.resolved = cacheResolved ? new HashMap<>() : null;
     }
 
     public void put(String name, Symbol symbol) {
         symbolTable.put(name, symbol);
+        if (symbolTable.size() * BITS_PER_NAME > filter.length * Long.SIZE && filter.length < MAX_FILTER_WORDS)
+            growFilter();
+        else
+            addToFilter(filter, name.hashCode());
+        modCount[0]++;
     }
 
     public Symbol get(String name) {
+        if (resolved == null) return lookup(name);
+
+        if (resolvedModCount != modCount[0]) {
+            resolved.clear();
+            resolvedModCount = modCount[0];
+        }
+        Symbol symbol = resolved.get(name);
+        if (symbol == null) {
+            symbol = lookup(name);
+            resolved.put(name, symbol == null ? UNRESOLVED : symbol);
+        }
+        return symbol == UNRESOLVED ? null : symbol;
+    }
+
+    /**
+     * Walks the chain and returns the Symbol of name in the innermost Env that declares it, consulting the
+     * filter of each Env before its symbol table, which is probed once.
+     *
+     * @param name the name to resolve.
+     * @return the Symbol of name, or null if no Env in the chain declares it.
+     */
+    private Symbol lookup(String name) {
+        int h = name.hashCode();
         for (Env env = this; env != null; env = env.prev) {
-            Symbol symbol = env.symbolTable.get(name);
-            if (symbol != null) return symbol;
+            if (env.mightContain(h)) {
+                Symbol symbol = env.symbolTable.get(name);
+                if (symbol != null) return symbol;
+            }
         }
         return null;
     }
+
+    private boolean mightContain(int h) {
+        int mask = filter.length * Long.SIZE - 1;
+        int h1 = mix(h);
+        int h2 = Integer.rotateLeft(h1, 16) | 1;
+        int b1 = h1 & mask, b2 = (h1 + h2) & mask;
+        return (filter[b1 >>> 6] & (1L << b1)) != 0
+                && (filter[b2 >>> 6] & (1L << b2)) != 0;
+    }
+
+    private static void addToFilter(long[] filter, int h) {
+        int mask = filter.length * Long.SIZE - 1;
+        int h1 = mix(h);
+        int h2 = Integer.rotateLeft(h1, 16) | 1;
+        int b1 = h1 & mask, b2 = (h1 + h2) & mask;
+        filter[b1 >>> 6] |= 1L << b1;
+        filter[b2 >>> 6] |= 1L << b2;
+    }
+
+    private void growFilter() {
+        long[] grown = new long[filter.length * 2];
+        for (String name : symbolTable.keySet())
+            addToFilter(grown, name.hashCode());
+        filter = grown;
+    }
+
+    /**
+     * Spreads the bits of a {@link String#hashCode()}, whose low bits are poorly distributed for short names.
+     */
+    private static int mix(int h) {
+        h ^= h >>> 16;
+        h *= 0x85ebca6b;
+        h ^= h >>> 13;
+        return h;
+    }
 }
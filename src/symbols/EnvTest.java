@@ -37,4 +37,49 @@ class EnvTest {
         Assertions.assertNotNull(top.get("b"));
         Assertions.assertNull(top.get("c"));
     }
-}
\ No newline at end of file
+
+    @Test
+    void testInnerSymbolShadowsOuter() {
+        Symbol outer = new Symbol();
+        Symbol inner = new Symbol();
+        top.put("a", outer);
+        Env sub = new Env(top);
+        sub.put("a", inner);
+
+        Assertions.assertSame(inner, sub.get("a"));
+        Assertions.assertSame(outer, top.get("a"));
+    }
+
+    @Test
+    void testManySymbolsGrowFilter() {
+        for (int i = 0; i < 5000; i++)
+            top.put("name" + i, new Symbol());
+        Env sub = new Env(top);
+
+        for (int i = 0; i < 5000; i++)
+            Assertions.assertNotNull(sub.get("name" + i));
+        for (int i = 5000; i < 10000; i++)
+            Assertions.assertNull(sub.get("name" + i));
+    }
+
+    @Test
+    void testCachedResolutionInvalidatedByPut() {
+        Symbol outer = new Symbol();
+        top.put("a", outer);
+        Env middle = new Env(top);
+        Env inner = new Env(middle, true);
+
+        Assertions.assertSame(outer, inner.get("a"));
+        Assertions.assertNull(inner.get("b"));
+
+        // a declaration in an enclosing scope shadows the cached result.
+        Symbol shadow = new Symbol();
+        middle.put("a", shadow);
+        Assertions.assertSame(shadow, inner.get("a"));
+
+        // a cached miss is invalidated once the name is declared.
+        Symbol b = new Symbol();
+        top.put("b", b);
+        Assertions.assertSame(b, inner.get("b"));
+    }
+}
@@ -2,55 +2,224 @@ package utils;
 
 import utils.trie.Node;
 import utils.trie.PrefixTrie;
+import utils.trie.RadixTrie;
+import utils.trie.arrStrategy.ArrStrategy;
 
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
 import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.function.Supplier;
 
 public class AhoCorasick {
+    /**
+     * The trie the keywords are stored in.
+     * <ul>
+     * <li>{@link #PREFIX_TRIE} one {@link Node} per character, with the suffix links stored on the nodes.</li>
+     * <li>{@link #RADIX_TRIE} a path compressed {@link RadixTrie}, with the suffix links stored in a
+     * {@link RadixAutomaton}. Uses far less memory for long keywords sharing few prefixes.</li>
+     * </ul>
+     */
+    public enum Backing {
+        PREFIX_TRIE, RADIX_TRIE
+    }
+
+    private final Backing backing;
+    // the keywords by id, ids are assigned in the order keywords are first inserted.
+    private final List<String> keywords;
+    private final Map<String, Integer> keywordIds;
     private PrefixTrie trie;
+    private RadixTrie radixTrie;
+    private RadixAutomaton radixAutomaton;
 
     public AhoCorasick() {
-        this.trie = new PrefixTrie();
+        this(Backing.PREFIX_TRIE);
+    }
+
+    public AhoCorasick(Backing backing) {
+        this(backing, null);
+    }
+
+    /**
+     * A {@link Backing#PREFIX_TRIE} storing the keywords with the given child storage.
+     * The trie stores the UTF-8 bytes of the keywords, so {@link #compile()} then yields an automaton over bytes,
+     * as used by {@link Utf8AhoCorasick}.
+     */
+    AhoCorasick(Supplier<ArrStrategy> strategies) {
+        this(Backing.PREFIX_TRIE, strategies);
+    }
+
+    private AhoCorasick(Backing backing, Supplier<ArrStrategy> strategies) {
+        this.backing = backing;
+        this.keywords = new ArrayList<>();
+        this.keywordIds = new HashMap<>();
+        if (backing == Backing.RADIX_TRIE)
+            this.radixTrie = new RadixTrie();
+        else
+            this.trie = strategies == null ? new PrefixTrie() : new PrefixTrie(strategies);
     }
 
     public void constructTrie(String[] keywords) {
-        for (String s : keywords)
-            trie.insert(s);
+        for (String s : keywords) {
+            if (!keywordIds.containsKey(s)) {
+                keywordIds.put(s, this.keywords.size());
+                this.keywords.add(s);
+            }
+            if (backing == Backing.RADIX_TRIE)
+                radixTrie.insert(s);
+            else
+                trie.insert(s);
+        }
+    }
+
+    /**
+     * @return the keyword with the given id, as reported to a {@link MatchListener}.
+     */
+    public String keyword(int id) {
+        return keywords.get(id);
+    }
+
+    /**
+     * @return the number of distinct keywords.
+     */
+    public int keywordCount() {
+        return keywords.size();
     }
 
     /**
      * f(s) for children of root have been calculated.
+     * The remaining nodes are visited in breadth first order, so f(s) of every shallower node
+     * is calculated before it is followed.
+     * <p>
+     * The output link of a node, the nearest node on its suffix link chain that ends a keyword, is derived from
+     * f(s) as it is set: f(s) itself if it ends a keyword, the output link of f(s) otherwise.
+     * </p>
      */
     public void constructSuffixLink() {
+        if (backing == Backing.RADIX_TRIE) {
+            radixAutomaton = new RadixAutomaton(radixTrie, keywordIds);
+            return;
+        }
         Node root = trie.root;
+        Queue<Node> queue = new ArrayDeque<>();
         Iterator<Node> rootChildren = root.getIterator();
         while (rootChildren.hasNext()) {
             Node child = rootChildren.next();
             child.suffixLink = root;
+            child.outputLink = null;
+            setKeywordId(child);
+            queue.add(child);
         }
-        constructSuffixLinkAux(root);
+        while (!queue.isEmpty())
+            constructSuffixLinkAux(queue.poll(), queue);
     }
 
-    private void constructSuffixLinkAux(Node curr) {
+    private void constructSuffixLinkAux(Node curr, Queue<Node> queue) {
         Iterator<Node> children = curr.getIterator();
         while (children.hasNext()) {
             Node child = children.next();
             int nextChar = child.c;
-            // calculate f(s) for this children, unless it's a child of root(which is already calculated.)
-            if (!curr.isRoot) {
-                Node t = curr.suffixLink;
-                while (!t.isRoot && !t.hasChild(nextChar))
-                    t = t.suffixLink;
-
-                if (t.hasChild(nextChar)) {
-                    t = t.getChild(nextChar);
-                }
-                child.suffixLink = t;
+            // calculate f(s) for this children.
+            Node t = curr.suffixLink;
+            while (!t.isRoot && !t.hasChild(nextChar))
+                t = t.suffixLink;
+
+            if (t.hasChild(nextChar)) {
+                t = t.getChild(nextChar);
+            }
+            child.suffixLink = t;
+            child.outputLink = !t.isRoot && t.isEnd ? t : t.outputLink;
+            setKeywordId(child);
+            queue.add(child);
+        }
+    }
+
+    private void setKeywordId(Node node) {
+        node.keywordId = node.isEnd ? keywordIds.get(node.lexeme) : -1;
+    }
+
+    /**
+     * Compiles the keywords into a deterministic automaton whose transitions never walk suffix links.
+     * The suffix links are (re)constructed first.
+     *
+     * @return the compiled automaton, independent of this instance.
+     */
+    public AhoCorasickAutomaton compile() {
+        constructSuffixLink();
+        if (backing == Backing.RADIX_TRIE) {
+            RadixAutomaton a = radixAutomaton;
+            int n = a.stateCount();
+            int[] parents = new int[n], links = new int[n];
+            char[] chars = new char[n];
+            int[] ids = new int[n];
+            for (int s = 0; s < n; s++) {
+                parents[s] = a.parent(s);
+                chars[s] = a.charInto(s);
+                links[s] = a.suffixLink(s);
+                ids[s] = a.keywordId(s);
             }
-            constructSuffixLinkAux(child);
+            return new AhoCorasickAutomaton(parents, chars, links, ids, keywordArray(), a.root());
+        }
+
+        // number the nodes breadth first, so the root is 0.
+        List<Node> nodes = new ArrayList<>();
+        Map<Node, Integer> ids = new IdentityHashMap<>();
+        nodes.add(trie.root);
+        ids.put(trie.root, 0);
+        for (int i = 0; i < nodes.size(); i++) {
+            Iterator<Node> children = nodes.get(i).getIterator();
+            while (children.hasNext()) {
+                Node child = children.next();
+                ids.put(child, nodes.size());
+                nodes.add(child);
+            }
+        }
+
+        int n = nodes.size();
+        int[] parents = new int[n], links = new int[n];
+        char[] chars = new char[n];
+        int[] keywordIds = new int[n];
+        parents[0] = -1;
+        for (int s = 0; s < n; s++) {
+            Node node = nodes.get(s);
+            chars[s] = (char) node.c;
+            links[s] = node.isRoot ? 0 : ids.get(node.suffixLink);
+            keywordIds[s] = node.isRoot ? -1 : node.keywordId;
+            Iterator<Node> children = node.getIterator();
+            while (children.hasNext())
+                parents[ids.get(children.next())] = s;
         }
+        return new AhoCorasickAutomaton(parents, chars, links, keywordIds, keywordArray(), 0);
+    }
+
+    private String[] keywordArray() {
+        return keywords.toArray(new String[0]);
+    }
+
+    /**
+     * Prints every occurrence of every keyword in input, as {@code "<keyword> appears in input[<first>, <last>]."}.
+     */
+    public void findKeywords(CharSequence input) {
+        findKeywords(input, (id, start, end) -> {
+            String out = String.format("%s appears in input[%d, %d].", keywords.get(id), start, end - 1);
+            System.out.println(out);
+        });
     }
 
-    public void findKeywords(String input) {
+    /**
+     * Reports every occurrence of every keyword in input to listener, overlapping occurrences included.
+     * After a transition, the keyword ending at the current state is reported first, followed by the keywords
+     * ending at the states on its output link chain, which are its suffixes.
+     */
+    public void findKeywords(CharSequence input, MatchListener listener) {
+        if (backing == Backing.RADIX_TRIE) {
+            findKeywordsRadix(input, listener);
+            return;
+        }
         int n = input.length();
         Node t = trie.root;
 
@@ -63,11 +232,40 @@ public class AhoCorasick {
                 t = t.getChild(nextChar);
             }
 
-            if (t.isEnd) {
-                String lexeme = t.lexeme;
-                String out = String.format("%s appears in input[%d, %d].", lexeme, i - (lexeme.length() - 1), i);
-                System.out.println(out);
+            for (Node u = t.isEnd && !t.isRoot ? t : t.outputLink; u != null; u = u.outputLink)
+                listener.onMatch(u.keywordId, i + 1 - u.lexeme.length(), i + 1);
+        }
+    }
+
+    private void findKeywordsRadix(CharSequence input, MatchListener listener) {
+        RadixAutomaton a = radixAutomaton;
+        int n = input.length();
+        int t = a.root();
+
+        for (int i = 0; i < n; i++) {
+            char nextChar = input.charAt(i);
+            while (t != a.root() && a.next(t, nextChar) < 0)
+                t = a.suffixLink(t);
+
+            int next = a.next(t, nextChar);
+            if (next >= 0) {
+                t = next;
+            }
+
+            for (int u = a.keywordId(t) >= 0 ? t : a.outputLink(t); u >= 0; u = a.outputLink(u)) {
+                int id = a.keywordId(u);
+                listener.onMatch(id, i + 1 - keywords.get(id).length(), i + 1);
             }
         }
     }
+
+    /**
+     * Counts the keywords {@link #findKeywords} reports for input, walking the suffix links the same way.
+     * Used to compare the matching loop against {@link AhoCorasickAutomaton} without printing.
+     */
+    int countKeywords(CharSequence input) {
+        int[] count = new int[1];
+        findKeywords(input, (id, start, end) -> count[0]++);
+        return count[0];
+    }
 }
@@ -0,0 +1,292 @@
+package utils;
+
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+
+/**
+ * An Aho-Corasick automaton compiled into a deterministic transition table, built by {@link AhoCorasick#compile()}.
+ * <p>
+ * The goto function and the suffix links are folded together ahead of time, so a transition never walks
+ * suffix links at match time:
+ * </p>
+ * <blockquote><pre>
+ * delta(s, a) = goto(s, a)         if s has a child on a
+ *             = delta(f(s), a)     otherwise, and 0 (the root) when s is the root
+ * </pre></blockquote>
+ * <p>
+ * Matching costs exactly one lookup in the dense {@code int[states * width]} table per input char.
+ * </p>
+ * <p>Implementation:
+ * </p>
+ * <ul>
+ * <li>The chars of the keywords are reduced to dense classes 1..width-1, every other char is class 0, which
+ * always leads back to the root. This keeps the rows as narrow as the keyword alphabet.</li>
+ * <li>The states are numbered in breadth first order with the root as 0, so the row of f(s) is filled before
+ * the row of s copies it.</li>
+ * <li>Every state records the keyword ending at it, and its output link: the nearest state on its suffix link
+ * chain that ends a keyword. All keywords ending at a position are found by following the output links.</li>
+ * </ul>
+ * <p>
+ * The automaton is immutable once compiled, so it may be shared by any number of threads.
+ * {@link #findKeywords(CharSequence, ForkJoinPool, MatchListener)} uses that to search the segments of one large
+ * input in parallel.
+ * </p>
+ */
+public class AhoCorasickAutomaton {
+    private static final int ROOT = 0;
+    // inputs shorter than this, per thread, are not worth splitting.
+    private static final int MIN_SEGMENT = 1 << 16;
+    // segments per thread of the pool, so that a slow thread does not hold back the others.
+    private static final int SEGMENTS_PER_THREAD = 4;
+
+    // the class of each char below classes.length, other chars are class 0.
+    private final char[] classes;
+    private final int width;
+    private final int[] delta;
+    // keyword id ending at each state, -1 if none.
+    private final int[] keywordIds;
+    // the nearest state on the suffix link chain ending a keyword, -1 if none.
+    private final int[] outputLinks;
+    private final String[] keywords;
+    private final int[] keywordLengths;
+    private final int maxKeywordLength;
+
+    /**
+     * Compiles an automaton from the goto function and suffix links of a keyword trie.
+     * Every state but the root has exactly one parent.
+     *
+     * @param parents  the state each state is reached from, -1 for the root.
+     * @param chars    the char each state is reached on.
+     * @param links    the suffix link of each state.
+     * @param lexemes  the id of the keyword ending at each state, -1 if none.
+     * @param keywords the keywords by id.
+     * @param root     the root state.
+     */
+    AhoCorasickAutomaton(int[] parents, char[] chars, int[] links, int[] lexemes, String[] keywords, int root) {
+        int n = parents.length;
+
+        char maxChar = 0;
+        for (int s = 0; s < n; s++)
+            if (s != root) maxChar = (char) Math.max(maxChar, chars[s]);
+        classes = new char[maxChar + 1];
+        int w = 1;
+        for (int s = 0; s < n; s++)
+            if (s != root && classes[chars[s]] == 0) classes[chars[s]] = (char) w++;
+        width = w;
+
+        // children of each state, in compressed rows.
+        int[] childStart = new int[n + 1];
+        for (int s = 0; s < n; s++)
+            if (s != root) childStart[parents[s] + 1]++;
+        for (int s = 0; s < n; s++)
+            childStart[s + 1] += childStart[s];
+        int[] children = new int[Math.max(n - 1, 0)];
+        int[] fill = Arrays.copyOf(childStart, n);
+        for (int s = 0; s < n; s++)
+            if (s != root) children[fill[parents[s]]++] = s;
+
+        // number the states in breadth first order.
+        int[] order = new int[n];
+        int[] ids = new int[n];
+        int head = 0, tail = 0;
+        order[tail++] = root;
+        while (head < tail) {
+            int s = order[head];
+            ids[s] = head++;
+            for (int i = childStart[s]; i < childStart[s + 1]; i++)
+                order[tail++] = children[i];
+        }
+
+        delta = new int[n * width];
+        keywordIds = new int[n];
+        outputLinks = new int[n];
+        for (int id = 0; id < n; id++) {
+            int s = order[id];
+            int row = id * width;
+            if (s != root)
+                System.arraycopy(delta, ids[links[s]] * width, delta, row, width);
+            for (int i = childStart[s]; i < childStart[s + 1]; i++) {
+                int child = children[i];
+                delta[row + classes[chars[child]]] = ids[child];
+            }
+
+            keywordIds[id] = lexemes[s];
+            if (s == root) {
+                outputLinks[id] = -1;
+            } else {
+                int link = ids[links[s]];
+                outputLinks[id] = keywordIds[link] >= 0 ? link : outputLinks[link];
+            }
+        }
+        this.keywords = keywords;
+        keywordLengths = new int[keywords.length];
+        int max = 0;
+        for (int i = 0; i < keywords.length; i++) {
+            keywordLengths[i] = keywords[i].length();
+            max = Math.max(max, keywordLengths[i]);
+        }
+        maxKeywordLength = max;
+    }
+
+    public int root() {
+        return ROOT;
+    }
+
+    /**
+     * @return the state reached from s on c.
+     */
+    public int next(int s, char c) {
+        int cls = c < classes.length ? classes[c] : 0;
+        return delta[s * width + cls];
+    }
+
+    /**
+     * @return the id of the keyword ending at s, or -1 if no keyword ends at s.
+     */
+    public int keywordId(int s) {
+        return keywordIds[s];
+    }
+
+    /**
+     * @return the nearest state on the suffix link chain of s that ends a keyword, or -1 if there is none.
+     */
+    public int outputLink(int s) {
+        return outputLinks[s];
+    }
+
+    public String keyword(int id) {
+        return keywords[id];
+    }
+
+    public int keywordLength(int id) {
+        return keywordLengths[id];
+    }
+
+    public int maxKeywordLength() {
+        return maxKeywordLength;
+    }
+
+    public int stateCount() {
+        return keywordIds.length;
+    }
+
+    /**
+     * Reports every occurrence of every keyword in input to listener, overlapping occurrences included,
+     * in the same order as {@link AhoCorasick#findKeywords(CharSequence, MatchListener)}.
+     */
+    public void findKeywords(CharSequence input, MatchListener listener) {
+        int s = ROOT;
+        for (int i = 0, n = input.length(); i < n; i++) {
+            s = next(s, input.charAt(i));
+            for (int t = keywordIds[s] >= 0 ? s : outputLinks[s]; t >= 0; t = outputLinks[t]) {
+                int id = keywordIds[t];
+                listener.onMatch(id, i + 1 - keywordLengths[id], i + 1);
+            }
+        }
+    }
+
+    /**
+     * Reports every occurrence of every keyword in the bytes of buffer between its position and limit, read in
+     * place as ISO-8859-1 chars, one char per byte. Offsets are indexes into buffer, whose position is unchanged.
+     * Heap and direct buffers alike are searched without copying.
+     */
+    public void findKeywords(ByteBuffer buffer, MatchListener listener) {
+        int s = ROOT;
+        for (int i = buffer.position(), n = buffer.limit(); i < n; i++) {
+            s = next(s, (char) (buffer.get(i) & 0xff));
+            for (int t = keywordIds[s] >= 0 ? s : outputLinks[s]; t >= 0; t = outputLinks[t]) {
+                int id = keywordIds[t];
+                listener.onMatch(id, i + 1 - keywordLengths[id], i + 1);
+            }
+        }
+    }
+
+    /**
+     * Reports the same matches, in the same order, as {@link #findKeywords(CharSequence, MatchListener)}, but
+     * searches the input on pool.
+     * <p>
+     * The input is split into segments, and every match is owned by the segment holding its last char. A segment
+     * starts its scan {@code maxKeywordLength() - 1} chars before its first char, so that matches straddling the
+     * boundary are found, and drops the matches that end in that overlap since the previous segment owns them.
+     * Each segment collects its matches, and listener is called on the calling thread, segment by segment.
+     * </p>
+     * <p>
+     * input is read concurrently, so it must not be modified during the search.
+     * </p>
+     */
+    public void findKeywords(CharSequence input, ForkJoinPool pool, MatchListener listener) {
+        int n = input.length();
+        int segments = (int) Math.min((long) pool.getParallelism() * SEGMENTS_PER_THREAD, n / MIN_SEGMENT);
+        if (segments <= 1) {
+            findKeywords(input, listener);
+            return;
+        }
+
+        Segment[] tasks = new Segment[segments];
+        for (int i = 0; i < segments; i++)
+            tasks[i] = new Segment(input, (int) ((long) n * i / segments), (int) ((long) n * (i + 1) / segments));
+        for (Segment task : tasks)
+            pool.execute(task);
+        for (Segment task : tasks) {
+            int[] matches = task.join();
+            for (int i = 1; i < matches[0]; i += 3)
+                listener.onMatch(matches[i], matches[i + 1], matches[i + 2]);
+        }
+    }
+
+    /**
+     * Finds the matches whose last char is in [from, to).
+     * The result holds its used length at index 0, followed by a keyword id, start and end per match.
+     */
+    private class Segment extends RecursiveTask<int[]> {
+        private static final long serialVersionUID = 1L;
+
+        private final CharSequence input;
+        private final int from;
+        private final int to;
+
+        Segment(CharSequence input, int from, int to) {
+            this.input = input;
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        protected int[] compute() {
+            int[] matches = new int[1 + 3 * 64];
+            int size = 1;
+            int s = ROOT;
+            int overlap = Math.max(0, maxKeywordLength - 1);
+            for (int i = Math.max(0, from - overlap); i < to; i++) {
+                s = next(s, input.charAt(i));
+                if (i < from) continue;
+                for (int t = keywordIds[s] >= 0 ? s : outputLinks[s]; t >= 0; t = outputLinks[t]) {
+                    if (size + 3 > matches.length)
+                        matches = Arrays.copyOf(matches, matches.length * 2);
+                    int id = keywordIds[t];
+                    matches[size++] = id;
+                    matches[size++] = i + 1 - keywordLengths[id];
+                    matches[size++] = i + 1;
+                }
+            }
+            matches[0] = size;
+            return matches;
+        }
+    }
+
+    /**
+     * Counts every occurrence of every keyword in input, overlapping occurrences included.
+     */
+    public int countKeywords(CharSequence input) {
+        int count = 0;
+        int s = ROOT;
+        for (int i = 0, n = input.length(); i < n; i++) {
+            s = next(s, input.charAt(i));
+            for (int t = keywordIds[s] >= 0 ? s : outputLinks[s]; t >= 0; t = outputLinks[t])
+                count++;
+        }
+        return count;
+    }
+}
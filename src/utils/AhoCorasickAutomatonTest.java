@@ -0,0 +1,146 @@
+package utils;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+import java.util.concurrent.ForkJoinPool;
+
+class AhoCorasickAutomatonTest {
+
+    @Test
+    void testCountsOverlappingKeywords() {
+        for (AhoCorasick.Backing backing : AhoCorasick.Backing.values()) {
+            AhoCorasick alg = new AhoCorasick(backing);
+            alg.constructTrie(new String[]{"he", "she", "his", "hers"});
+            AhoCorasickAutomaton automaton = alg.compile();
+
+            // he, she, he, hers, she, he
+            Assertions.assertEquals(6, automaton.countKeywords("hewashersheys"));
+        }
+    }
+
+    @Test
+    void testCharsOutsideKeywordsReturnToRoot() {
+        AhoCorasick alg = new AhoCorasick(AhoCorasick.Backing.RADIX_TRIE);
+        alg.constructTrie(new String[]{"he"});
+        AhoCorasickAutomaton automaton = alg.compile();
+
+        int s = automaton.next(automaton.root(), 'h');
+        Assertions.assertNotEquals(automaton.root(), s);
+        Assertions.assertEquals(automaton.root(), automaton.next(s, ' '));
+        Assertions.assertEquals(automaton.root(), automaton.next(s, '￿'));
+        Assertions.assertEquals(2, automaton.countKeywords("he, he!"));
+    }
+
+    @Test
+    void testOutputLinks() {
+        AhoCorasick alg = new AhoCorasick();
+        alg.constructTrie(new String[]{"a", "ba", "cba"});
+        AhoCorasickAutomaton automaton = alg.compile();
+
+        int s = automaton.root();
+        for (char c : "cba".toCharArray())
+            s = automaton.next(s, c);
+        Assertions.assertEquals("cba", automaton.keyword(automaton.keywordId(s)));
+        int link = automaton.outputLink(s);
+        Assertions.assertEquals("ba", automaton.keyword(automaton.keywordId(link)));
+        link = automaton.outputLink(link);
+        Assertions.assertEquals("a", automaton.keyword(automaton.keywordId(link)));
+        Assertions.assertEquals(-1, automaton.outputLink(link));
+    }
+
+    @Test
+    void testMatchesNaiveCount() {
+        Random random = new Random(13);
+        Set<String> keywords = new LinkedHashSet<>();
+        while (keywords.size() < 40)
+            keywords.add(randomString(random, 1 + random.nextInt(5)));
+        String input = randomString(random, 5000);
+
+        int expected = 0;
+        for (String keyword : keywords)
+            for (int i = input.indexOf(keyword); i >= 0; i = input.indexOf(keyword, i + 1))
+                expected++;
+
+        for (AhoCorasick.Backing backing : AhoCorasick.Backing.values()) {
+            AhoCorasick alg = new AhoCorasick(backing);
+            alg.constructTrie(keywords.toArray(new String[0]));
+            Assertions.assertEquals(expected, alg.compile().countKeywords(input));
+        }
+    }
+
+    @Test
+    void testParallelMatchesSequential() {
+        Random random = new Random(21);
+        Set<String> keywords = new LinkedHashSet<>();
+        while (keywords.size() < 60)
+            keywords.add(randomString(random, 1 + random.nextInt(12)));
+        keywords.add("a".repeat(40));
+        StringBuilder input = new StringBuilder(randomString(random, 1 << 19));
+        // a long keyword straddling every segment boundary it can.
+        for (int i = 0; i < input.length() - 40; i += 4099)
+            input.replace(i, i + 40, "a".repeat(40));
+
+        AhoCorasick alg = new AhoCorasick(AhoCorasick.Backing.RADIX_TRIE);
+        alg.constructTrie(keywords.toArray(new String[0]));
+        AhoCorasickAutomaton automaton = alg.compile();
+
+        List<Long> expected = new ArrayList<>();
+        automaton.findKeywords(input, (id, start, end) -> expected.add(pack(id, start, end)));
+        for (int threads : new int[]{1, 2, 3, 8}) {
+            ForkJoinPool pool = new ForkJoinPool(threads);
+            try {
+                List<Long> found = new ArrayList<>();
+                automaton.findKeywords(input, pool, (id, start, end) -> found.add(pack(id, start, end)));
+                Assertions.assertEquals(expected, found, threads + " threads");
+            } finally {
+                pool.shutdown();
+            }
+        }
+    }
+
+    @Test
+    void testCharSequenceAndByteBufferInputs() {
+        AhoCorasick alg = new AhoCorasick(AhoCorasick.Backing.RADIX_TRIE);
+        alg.constructTrie(new String[]{"he", "she", "his", "hers"});
+        AhoCorasickAutomaton automaton = alg.compile();
+        String input = "ushers his";
+
+        List<Long> expected = new ArrayList<>();
+        automaton.findKeywords(input, (id, start, end) -> expected.add(pack(id, start, end)));
+        List<Long> found = new ArrayList<>();
+        automaton.findKeywords(new StringBuilder(input), (id, start, end) -> found.add(pack(id, start, end)));
+        automaton.findKeywords(CharBuffer.wrap(input), (id, start, end) -> found.add(pack(id, start, end)));
+        Assertions.assertEquals(expected.size() * 2, found.size());
+
+        byte[] bytes = ("--" + input).getBytes(StandardCharsets.US_ASCII);
+        for (ByteBuffer buffer : new ByteBuffer[]{ByteBuffer.wrap(bytes), ByteBuffer.allocateDirect(bytes.length)}) {
+            if (buffer.isDirect()) buffer.put(bytes).flip();
+            buffer.position(2);
+            List<Long> fromBuffer = new ArrayList<>();
+            // offsets are indexes into the buffer, 2 past those into input.
+            automaton.findKeywords(buffer, (id, start, end) -> fromBuffer.add(pack(id, start - 2, end - 2)));
+            Assertions.assertEquals(expected, fromBuffer);
+            Assertions.assertEquals(2, buffer.position());
+        }
+    }
+
+    private static long pack(int id, int start, int end) {
+        return ((long) id << 48) | ((long) start << 24) | end;
+    }
+
+    private String randomString(Random random, int length) {
+        char[] chars = new char[length];
+        for (int i = 0; i < length; i++)
+            chars[i] = (char) ('a' + random.nextInt(3));
+        return new String(chars);
+    }
+}
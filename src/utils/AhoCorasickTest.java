@@ -1,7 +1,16 @@
 package utils;
 
+import org.junit.jupiter.api.Assertions;
 import org.junit.jupiter.api.Test;
 
+import java.io.ByteArrayOutputStream;
+import java.io.PrintStream;
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+
 class AhoCorasickTest {
     @Test
     void findKeywords() {
@@ -12,4 +21,92 @@ class AhoCorasickTest {
 
         alg.findKeywords("hewashersheys");
     }
-}
\ No newline at end of file
+
+    @Test
+    void findKeywordsRadixTrieBacking() {
+        String[] strings = {"he", "she", "his", "hers", "washer", "ashes"};
+        String input = "hewashersheysashesrshishers";
+
+        Assertions.assertEquals(printedKeywords(AhoCorasick.Backing.PREFIX_TRIE, strings, input),
+                printedKeywords(AhoCorasick.Backing.RADIX_TRIE, strings, input));
+        Assertions.assertTrue(printedKeywords(AhoCorasick.Backing.RADIX_TRIE, strings, input)
+                .contains("washer appears in input[2, 7]."));
+    }
+
+    @Test
+    void findKeywordsReportsSuffixKeywords() {
+        for (AhoCorasick.Backing backing : AhoCorasick.Backing.values()) {
+            AhoCorasick alg = new AhoCorasick(backing);
+            alg.constructTrie(new String[]{"he", "she", "his", "hers"});
+            alg.constructSuffixLink();
+
+            List<String> matches = new ArrayList<>();
+            alg.findKeywords("ushers", (id, start, end) -> matches.add(alg.keyword(id) + "@" + start + ":" + end));
+            Assertions.assertEquals(List.of("she@1:4", "he@2:4", "hers@2:6"), matches);
+            Assertions.assertTrue(printedKeywords(backing, new String[]{"he", "she"}, "she")
+                    .contains("he appears in input[1, 2]."));
+        }
+    }
+
+    @Test
+    void findKeywordsMatchesNaiveSearch() {
+        Random random = new Random(7);
+        Set<String> keywords = new LinkedHashSet<>();
+        while (keywords.size() < 30)
+            keywords.add(randomString(random, 1 + random.nextInt(6)));
+        String input = randomString(random, 3000);
+
+        Set<String> expected = new LinkedHashSet<>();
+        for (String keyword : keywords)
+            for (int i = input.indexOf(keyword); i >= 0; i = input.indexOf(keyword, i + 1))
+                expected.add(keyword + "@" + i + ":" + (i + keyword.length()));
+
+        for (AhoCorasick.Backing backing : AhoCorasick.Backing.values()) {
+            AhoCorasick alg = new AhoCorasick(backing);
+            alg.constructTrie(keywords.toArray(new String[0]));
+            alg.constructSuffixLink();
+
+            List<String> matches = new ArrayList<>();
+            alg.findKeywords(input, (id, start, end) -> matches.add(alg.keyword(id) + "@" + start + ":" + end));
+            Assertions.assertEquals(expected.size(), matches.size());
+            Assertions.assertEquals(expected, Set.copyOf(matches));
+
+            List<String> compiled = new ArrayList<>();
+            alg.compile().findKeywords(input, (id, start, end) -> compiled.add(alg.keyword(id) + "@" + start + ":" + end));
+            Assertions.assertEquals(matches, compiled);
+        }
+    }
+
+    @Test
+    void keywordIdsFollowInsertionOrder() {
+        AhoCorasick alg = new AhoCorasick(AhoCorasick.Backing.RADIX_TRIE);
+        alg.constructTrie(new String[]{"b", "a", "b", "ab"});
+
+        Assertions.assertEquals(3, alg.keywordCount());
+        Assertions.assertEquals("b", alg.keyword(0));
+        Assertions.assertEquals("a", alg.keyword(1));
+        Assertions.assertEquals("ab", alg.keyword(2));
+    }
+
+    private String randomString(Random random, int length) {
+        char[] chars = new char[length];
+        for (int i = 0; i < length; i++)
+            chars[i] = (char) ('a' + random.nextInt(3));
+        return new String(chars);
+    }
+
+    private String printedKeywords(AhoCorasick.Backing backing, String[] keywords, String input) {
+        PrintStream originalOut = System.out;
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        System.setOut(new PrintStream(out));
+        try {
+            AhoCorasick alg = new AhoCorasick(backing);
+            alg.constructTrie(keywords);
+            alg.constructSuffixLink();
+            alg.findKeywords(input);
+        } finally {
+            System.setOut(originalOut);
+        }
+        return out.toString();
+    }
+}
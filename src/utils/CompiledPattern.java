@@ -0,0 +1,237 @@
+package utils;
+
+import utils.search.Searcher;
+
+import java.nio.ByteBuffer;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+/**
+ * A keyword compiled once for {@link KMP} matching, to be run against any number of inputs.
+ * <p>
+ * {@link KMP#KMP0based} rebuilds the prefix table on every call and stops at the first match. A CompiledPattern
+ * keeps the table, from {@link KMP#prefixTable0BasedIndex}, and offers:
+ * </p>
+ * <ul>
+ * <li>{@link #indexIn} the offset of the first match, like {@link String#indexOf(String)}.</li>
+ * <li>{@link #findAll} the offsets of every match, overlapping ones included, into a caller supplied array.</li>
+ * <li>batches of inputs, on the calling thread or on a {@link ForkJoinPool}.</li>
+ * <li>{@link ByteBuffer}s, heap or direct, read in place as ISO-8859-1 chars.</li>
+ * </ul>
+ * <p>
+ * None of them allocate, and a CompiledPattern is immutable, so it may be shared by any number of threads.
+ * It is the KMP {@link Searcher}, though {@link Searcher#compile} never picks it.
+ * </p>
+ * <p>Example Usage:
+ * </p>
+ * <pre>{@code
+ * CompiledPattern p = new CompiledPattern("abab");
+ * int[] offsets = new int[16];
+ * int n = p.findAll("abababab", offsets);    // n = 3, offsets = 0, 2, 4
+ * }</pre>
+ */
+public class CompiledPattern implements Searcher {
+    // inputs per task below which a batch is not split any further.
+    private static final int BATCH_THRESHOLD = 1 << 10;
+
+    private final String keyword;
+    private final char[] chars;
+    // b[0...table[s]] is the longest proper prefix of b[0...s] that is also its suffix, -1 if there is none.
+    private final int[] table;
+
+    public CompiledPattern(String keyword) {
+        this.keyword = keyword;
+        this.chars = keyword.toCharArray();
+        this.table = keyword.isEmpty() ? new int[0] : KMP.prefixTable0BasedIndex(keyword);
+    }
+
+    @Override
+    public String keyword() {
+        return keyword;
+    }
+
+    public int length() {
+        return chars.length;
+    }
+
+    @Override
+    public boolean containedIn(CharSequence input) {
+        return indexIn(input, 0) >= 0;
+    }
+
+    @Override
+    public int indexIn(CharSequence input) {
+        return indexIn(input, 0);
+    }
+
+    /**
+     * @return the offset of the first match starting at or after from, or -1 if there is none.
+     */
+    @Override
+    public int indexIn(CharSequence input, int from) {
+        int n = chars.length;
+        if (n == 0) return Math.min(Math.max(from, 0), input.length());
+
+        char first = chars[0];
+        int s = -1;
+        for (int i = Math.max(from, 0), m = input.length(); i < m; i++) {
+            char c = input.charAt(i);
+            if (s == -1) {
+                // nothing is matched, skip ahead to the next occurrence of the first char.
+                if (c != first) continue;
+                s = 0;
+            } else {
+                while (s > -1 && chars[s + 1] != c)
+                    s = table[s];
+                if (chars[s + 1] == c)
+                    s += 1;
+            }
+            if (s == n - 1) return i - (n - 1);
+        }
+        return -1;
+    }
+
+    /**
+     * Finds every match in input, overlapping matches included, in ascending order.
+     * After a match the scan continues from the longest proper prefix of the keyword that is also its suffix.
+     *
+     * @param offsets receives the offsets of the first offsets.length matches.
+     * @return the number of matches, which may exceed offsets.length.
+     */
+    @Override
+    public int findAll(CharSequence input, int[] offsets) {
+        int n = chars.length;
+        int count = 0;
+        if (n == 0) {
+            for (int i = 0; i <= input.length(); i++)
+                if (count < offsets.length) offsets[count++] = i;
+                else count++;
+            return count;
+        }
+
+        char first = chars[0];
+        int s = -1;
+        for (int i = 0, m = input.length(); i < m; i++) {
+            char c = input.charAt(i);
+            if (s == -1) {
+                if (c != first) continue;
+                s = 0;
+            } else {
+                while (s > -1 && chars[s + 1] != c)
+                    s = table[s];
+                if (chars[s + 1] == c)
+                    s += 1;
+            }
+            if (s == n - 1) {
+                if (count < offsets.length) offsets[count] = i - (n - 1);
+                count++;
+                s = table[s];
+            }
+        }
+        return count;
+    }
+
+    /**
+     * Searches the bytes of buffer between its position and limit, read in place as ISO-8859-1 chars, one char
+     * per byte, so a keyword with chars above {@code ÿ} never matches.
+     *
+     * @return the index into buffer of the first match, or -1 if there is none. The position is unchanged.
+     */
+    public int indexIn(ByteBuffer buffer) {
+        return search(buffer, null);
+    }
+
+    /**
+     * {@link #findAll(CharSequence, int[])} over the bytes of buffer between its position and limit.
+     * Offsets are indexes into buffer, whose position is unchanged.
+     */
+    public int findAll(ByteBuffer buffer, int[] offsets) {
+        return search(buffer, offsets);
+    }
+
+    /**
+     * @param offsets receives the offsets of the matches that fit, or null to stop at the first match.
+     * @return the number of matches, or with null offsets the offset of the first match or -1.
+     */
+    private int search(ByteBuffer buffer, int[] offsets) {
+        int n = chars.length;
+        int from = buffer.position(), m = buffer.limit();
+        int count = 0;
+        if (n == 0) {
+            if (offsets == null) return from;
+            for (int i = from; i <= m; i++, count++)
+                if (count < offsets.length) offsets[count] = i;
+            return count;
+        }
+
+        char first = chars[0];
+        int s = -1;
+        for (int i = from; i < m; i++) {
+            char c = (char) (buffer.get(i) & 0xff);
+            if (s == -1) {
+                if (c != first) continue;
+                s = 0;
+            } else {
+                while (s > -1 && chars[s + 1] != c)
+                    s = table[s];
+                if (chars[s + 1] == c)
+                    s += 1;
+            }
+            if (s == n - 1) {
+                if (offsets == null) return i - (n - 1);
+                if (count < offsets.length) offsets[count] = i - (n - 1);
+                count++;
+                s = table[s];
+            }
+        }
+        return offsets == null ? -1 : count;
+    }
+
+    /**
+     * Sets {@code firstOffsets[i]} to {@link #indexIn} of {@code inputs[i]}, for every input.
+     */
+    public void indexIn(CharSequence[] inputs, int[] firstOffsets) {
+        indexIn(inputs, firstOffsets, 0, inputs.length);
+    }
+
+    /**
+     * {@link #indexIn(CharSequence[], int[])}, with the inputs split into ranges searched on pool.
+     */
+    public void indexIn(CharSequence[] inputs, int[] firstOffsets, ForkJoinPool pool) {
+        pool.invoke(new Batch(inputs, firstOffsets, 0, inputs.length));
+    }
+
+    private void indexIn(CharSequence[] inputs, int[] firstOffsets, int from, int to) {
+        for (int i = from; i < to; i++)
+            firstOffsets[i] = indexIn(inputs[i], 0);
+    }
+
+    /**
+     * Searches inputs[from, to), halving the range until it is below {@link #BATCH_THRESHOLD}.
+     */
+    private class Batch extends RecursiveAction {
+        private static final long serialVersionUID = 1L;
+
+        private final CharSequence[] inputs;
+        private final int[] firstOffsets;
+        private final int from;
+        private final int to;
+
+        Batch(CharSequence[] inputs, int[] firstOffsets, int from, int to) {
+            this.inputs = inputs;
+            this.firstOffsets = firstOffsets;
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        protected void compute() {
+            if (to - from <= BATCH_THRESHOLD) {
+                indexIn(inputs, firstOffsets, from, to);
+                return;
+            }
+            int mid = (from + to) >>> 1;
+            invokeAll(new Batch(inputs, firstOffsets, from, mid), new Batch(inputs, firstOffsets, mid, to));
+        }
+    }
+}
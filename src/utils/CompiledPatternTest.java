@@ -0,0 +1,141 @@
+package utils;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.lang.management.ManagementFactory;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+
+class CompiledPatternTest {
+
+    @Test
+    void testIndexInMatchesIndexOf() {
+        Random random = new Random(17);
+        for (int round = 0; round < 2000; round++) {
+            String keyword = randomString(random, 1 + random.nextInt(5));
+            String input = randomString(random, random.nextInt(40));
+            CompiledPattern pattern = new CompiledPattern(keyword);
+
+            Assertions.assertEquals(input.indexOf(keyword), pattern.indexIn(input), keyword + " in " + input);
+            Assertions.assertEquals(input.contains(keyword), pattern.containedIn(input));
+            int from = random.nextInt(input.length() + 1);
+            Assertions.assertEquals(input.indexOf(keyword, from), pattern.indexIn(input, from));
+        }
+    }
+
+    @Test
+    void testFindAllOverlapping() {
+        CompiledPattern pattern = new CompiledPattern("abab");
+        int[] offsets = new int[8];
+        Assertions.assertEquals(3, pattern.findAll("abababab", offsets));
+        Assertions.assertArrayEquals(new int[]{0, 2, 4}, Arrays.copyOf(offsets, 3));
+
+        pattern = new CompiledPattern("aa");
+        Assertions.assertEquals(5, pattern.findAll("aaaaaa", offsets));
+        Assertions.assertArrayEquals(new int[]{0, 1, 2, 3, 4}, Arrays.copyOf(offsets, 5));
+    }
+
+    @Test
+    void testFindAllCountsBeyondOffsets() {
+        CompiledPattern pattern = new CompiledPattern("ab");
+        int[] offsets = new int[2];
+        Assertions.assertEquals(4, pattern.findAll("abxabxabab", offsets));
+        Assertions.assertArrayEquals(new int[]{0, 3}, offsets);
+        Assertions.assertEquals(0, pattern.findAll("ba", offsets));
+    }
+
+    @Test
+    void testEmptyKeyword() {
+        CompiledPattern pattern = new CompiledPattern("");
+        Assertions.assertEquals(0, pattern.indexIn("abc"));
+        Assertions.assertEquals(3, pattern.indexIn("abc", 5));
+        Assertions.assertEquals(4, pattern.findAll("abc", new int[2]));
+    }
+
+    @Test
+    void testBatchSequentialAndParallel() {
+        Random random = new Random(4);
+        CharSequence[] inputs = new CharSequence[10000];
+        int[] expected = new int[inputs.length];
+        for (int i = 0; i < inputs.length; i++) {
+            String input = randomString(random, random.nextInt(30));
+            inputs[i] = input;
+            expected[i] = input.indexOf("abca");
+        }
+        CompiledPattern pattern = new CompiledPattern("abca");
+
+        int[] sequential = new int[inputs.length];
+        pattern.indexIn(inputs, sequential);
+        Assertions.assertArrayEquals(expected, sequential);
+
+        int[] parallel = new int[inputs.length];
+        ForkJoinPool pool = new ForkJoinPool(4);
+        try {
+            pattern.indexIn(inputs, parallel, pool);
+        } finally {
+            pool.shutdown();
+        }
+        Assertions.assertArrayEquals(expected, parallel);
+    }
+
+    @Test
+    void testCharSequences() {
+        CompiledPattern pattern = new CompiledPattern("aba");
+        Assertions.assertEquals(2, pattern.indexIn(new StringBuilder("ccababa")));
+        Assertions.assertEquals(2, pattern.findAll(CharBuffer.wrap("ccababa"), new int[4]));
+        Assertions.assertTrue(KMP.KMP0based(new StringBuilder("ccababa"), "aba"));
+        Assertions.assertTrue(KMP.KMP1based(CharBuffer.wrap("ccababa"), new StringBuilder("aba")));
+    }
+
+    @Test
+    void testByteBuffers() {
+        byte[] bytes = "xxabcabcabxx".getBytes(StandardCharsets.US_ASCII);
+        CompiledPattern pattern = new CompiledPattern("abcab");
+        for (ByteBuffer buffer : new ByteBuffer[]{ByteBuffer.wrap(bytes), ByteBuffer.allocateDirect(bytes.length)}) {
+            if (buffer.isDirect()) buffer.put(bytes).flip();
+
+            int[] offsets = new int[4];
+            Assertions.assertEquals(2, pattern.findAll(buffer, offsets));
+            Assertions.assertArrayEquals(new int[]{2, 5}, Arrays.copyOf(offsets, 2));
+            Assertions.assertEquals(2, pattern.indexIn(buffer));
+
+            // offsets stay indexes into the buffer, and the position is untouched.
+            buffer.position(3).limit(10);
+            Assertions.assertEquals(5, pattern.indexIn(buffer));
+            Assertions.assertEquals(3, buffer.position());
+            buffer.limit(9);
+            Assertions.assertEquals(-1, pattern.indexIn(buffer));
+        }
+        Assertions.assertEquals(-1, new CompiledPattern("ā").indexIn(ByteBuffer.wrap(new byte[]{1})));
+    }
+
+    @Test
+    void testDirectBufferSearchDoesNotAllocate() {
+        ByteBuffer buffer = ByteBuffer.allocateDirect(1 << 22);
+        for (int i = 0; i < buffer.capacity(); i++)
+            buffer.put(i, (byte) ('a' + i % 7));
+        CompiledPattern pattern = new CompiledPattern("abcdefg");
+        int[] offsets = new int[16];
+        com.sun.management.ThreadMXBean threads = (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+
+        pattern.findAll(buffer, offsets);
+        long before = threads.getCurrentThreadAllocatedBytes();
+        int count = pattern.findAll(buffer, offsets);
+        long allocated = threads.getCurrentThreadAllocatedBytes() - before;
+
+        Assertions.assertEquals((1 << 22) / 7, count);
+        Assertions.assertEquals(0, allocated);
+    }
+
+    private String randomString(Random random, int length) {
+        char[] chars = new char[length];
+        for (int i = 0; i < length; i++)
+            chars[i] = (char) ('a' + random.nextInt(3));
+        return new String(chars);
+    }
+}
@@ -18,7 +18,7 @@ public class KMP {
      * @param keyword
      * @return
      */
-    public static boolean KMP1based(String input, String keyword) {
+    public static boolean KMP1based(CharSequence input, CharSequence keyword) {
         int[] prefixTable = prefixTable1BasedIndex(keyword);
         int n = keyword.length();
         int m = input.length();
@@ -44,14 +44,14 @@ public class KMP {
      * i = 0, a[0...-1] is processed
      * <p>
      * termination condition:
-     * - b[0...n-1] is matched, when s = n.
+     * - b[0...n-1] is matched, when s = n - 1.
      * - a[0...m-1] is processed, when i = m.
      *
      * @param input
      * @param keyword
      * @return
      */
-    public static boolean KMP0based(String input, String keyword) {
+    public static boolean KMP0based(CharSequence input, CharSequence keyword) {
         int[] prefixTable = prefixTable0BasedIndex(keyword);
         int n = keyword.length();
         int m = input.length();
@@ -63,7 +63,7 @@ public class KMP {
 
             if (keyword.charAt(s + 1) == input.charAt(i))
                 s += 1;
-            if (s == n) return true;
+            if (s == n - 1) return true;
         }
         return false;
     }
@@ -89,7 +89,7 @@ public class KMP {
      * @param keyword
      * @return prefix table for the 1-based index keyword
      */
-    public static int[] prefixTable1BasedIndex(String keyword) {
+    public static int[] prefixTable1BasedIndex(CharSequence keyword) {
         int n = keyword.length();
         int[] table = new int[n + 1];
         table[0] = -1;  // the first is not used;
@@ -128,12 +128,11 @@ public class KMP {
      * <p>
      * termination:
      * - when b[0...n-1] is calculated, stop when s = n-1. (s=0 calculates f(1), s=1 calc f(2), ... s=n-2 calc f(n-1) )
-     * <p>
      *
      * @param keyword
      * @return prefix table for the 0-based index keyword
      */
-    public static int[] prefixTable0BasedIndex(String keyword) {
+    public static int[] prefixTable0BasedIndex(CharSequence keyword) {
         int n = keyword.length();
         int[] table = new int[n];
 
@@ -3,7 +3,19 @@ package utils;
 import org.junit.jupiter.api.Assertions;
 import org.junit.jupiter.api.Test;
 
-class KMPTest {
+public class KMPTest {
+    /**
+     * Input, keyword and whether the keyword occurs in the input. Shared with the conformance suite of
+     * {@link utils.search.Searcher}.
+     */
+    public static final String[][] CASES = {
+            {"abababaab", "ababaa", "true"},
+            {"abababbaa", "ababaa", "false"},
+            {"xabx", "ab", "true"},
+            {"abababaab", "abababaab", "true"},
+            {"aaaaab", "aaaaaa", "false"},
+            {"baaaaaa", "aaaaaa", "true"},
+    };
 
     @Test
     void testKMP1Based() {
@@ -19,13 +31,25 @@ class KMPTest {
         String input = "abababaab";
         String keyword = "ababaa";
 
-        boolean result = KMP.KMP1based(input, keyword);
+        boolean result = KMP.KMP0based(input, keyword);
         Assertions.assertTrue(result);
 
 
         input = "abababbaa";
-        result = KMP.KMP1based(input, keyword);
+        result = KMP.KMP0based(input, keyword);
         Assertions.assertFalse(result);
+
+        // the match ends before the last char of the input.
+        Assertions.assertTrue(KMP.KMP0based("xabx", "ab"));
+    }
+
+    @Test
+    void testCases() {
+        for (String[] c : CASES) {
+            boolean expected = Boolean.parseBoolean(c[2]);
+            Assertions.assertEquals(expected, KMP.KMP1based(c[0], c[1]), c[1] + " in " + c[0]);
+            Assertions.assertEquals(expected, KMP.KMP0based(c[0], c[1]), c[1] + " in " + c[0]);
+        }
     }
 
     @Test
@@ -0,0 +1,19 @@
+package utils;
+
+/**
+ * Receives the keyword matches of {@link AhoCorasick} and {@link AhoCorasickAutomaton}.
+ * <p>
+ * Matches are reported as they are found, in order of their end offset. Keywords ending at the same offset are
+ * reported from the longest to the shortest. Nothing is allocated per match, so a listener that only counts or
+ * records offsets keeps the matching loop allocation free.
+ * </p>
+ */
+@FunctionalInterface
+public interface MatchListener {
+    /**
+     * @param keywordId the id of the keyword, see {@link AhoCorasick#keyword(int)}.
+     * @param start     the offset of the first char of the match.
+     * @param end       the offset after the last char of the match.
+     */
+    void onMatch(int keywordId, int start, int end);
+}
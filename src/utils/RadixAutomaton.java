@@ -0,0 +1,190 @@
+package utils;
+
+import utils.trie.RadixNode;
+import utils.trie.RadixTrie;
+
+import java.util.ArrayDeque;
+import java.util.Arrays;
+import java.util.Map;
+import java.util.Queue;
+
+/**
+ * The Aho-Corasick goto and suffix link functions over the keywords of a {@link RadixTrie}.
+ * <p>
+ * A state is a prefix of a keyword, which in a radix trie may end within the label of an edge.
+ * The states on the edge into a node are numbered consecutively from {@link RadixNode#state}, so the last
+ * one is the node itself and a state within an edge can only move on to the next state:
+ * </p>
+ * <blockquote><pre>
+ * root = 0
+ * edge into node = node.state, node.state + 1, ..., node.state + node.length - 1
+ * </pre></blockquote>
+ * <p>
+ * {@code nodes[s]} is the node whose edge holds state s, and {@code suffixLinks[s]} the state of the longest
+ * proper suffix of s that is also a prefix of a keyword. {@code outputLinks[s]} is the nearest state on the
+ * suffix link chain of s that ends a keyword.
+ * </p>
+ */
+class RadixAutomaton {
+    private static final int ROOT = 0;
+
+    private final RadixTrie trie;
+    private RadixNode[] nodes;
+    private int[] suffixLinks;
+    private int[] outputLinks;
+    // the id of the keyword ending at each state, -1 if none.
+    private int[] keywordIds;
+    // the state each state is reached from, and the char it is reached on.
+    private int[] parents;
+    private char[] chars;
+
+    /**
+     * @param trie the keywords.
+     * @param ids  the id of every keyword in trie.
+     */
+    RadixAutomaton(RadixTrie trie, Map<String, Integer> ids) {
+        this.trie = trie;
+        numberStates();
+        keywordIds = new int[nodes.length];
+        for (int s = 0; s < nodes.length; s++) {
+            String keyword = s == ROOT ? null : keyword(s);
+            keywordIds[s] = keyword == null ? -1 : ids.get(keyword);
+        }
+        constructSuffixLinks();
+    }
+
+    int root() {
+        return ROOT;
+    }
+
+    /**
+     * @return the state reached from s on c, or -1 if s has no transition on c.
+     */
+    int next(int s, char c) {
+        RadixNode node = nodes[s];
+        int k = s - node.state + 1;
+        if (k < node.length)
+            return trie.labelChar(node, k) == c ? s + 1 : -1;
+        RadixNode child = node.getChild(c);
+        return child == null ? -1 : child.state;
+    }
+
+    int suffixLink(int s) {
+        return suffixLinks[s];
+    }
+
+    /**
+     * @return the nearest state on the suffix link chain of s that ends a keyword, or -1 if there is none.
+     */
+    int outputLink(int s) {
+        return outputLinks[s];
+    }
+
+    /**
+     * @return the id of the keyword ending at s, or -1 if s is not the end of a keyword.
+     */
+    int keywordId(int s) {
+        return keywordIds[s];
+    }
+
+    int stateCount() {
+        return nodes.length;
+    }
+
+    int parent(int s) {
+        return parents[s];
+    }
+
+    char charInto(int s) {
+        return chars[s];
+    }
+
+    /**
+     * @return the keyword ending at s, or null if s is not the end of a keyword.
+     */
+    String keyword(int s) {
+        RadixNode node = nodes[s];
+        return s == node.state + node.length - 1 && node.isEnd ? node.lexeme : null;
+    }
+
+    private void numberStates() {
+        RadixNode root = trie.root;
+        // the root has an empty label, so its only state is state 0.
+        root.state = ROOT + 1;
+        int count = 1;
+        Queue<RadixNode> queue = new ArrayDeque<>();
+        queue.add(root);
+        while (!queue.isEmpty()) {
+            RadixNode node = queue.poll();
+            for (int i = 0; i < node.childCount(); i++) {
+                RadixNode child = node.childAt(i);
+                child.state = count;
+                count += child.length;
+                queue.add(child);
+            }
+        }
+
+        nodes = new RadixNode[count];
+        parents = new int[count];
+        chars = new char[count];
+        nodes[ROOT] = root;
+        parents[ROOT] = -1;
+        queue.add(root);
+        while (!queue.isEmpty()) {
+            RadixNode node = queue.poll();
+            for (int i = 0; i < node.childCount(); i++) {
+                RadixNode child = node.childAt(i);
+                Arrays.fill(nodes, child.state, child.state + child.length, child);
+                for (int k = 0; k < child.length; k++) {
+                    int s = child.state + k;
+                    parents[s] = k == 0 ? node.state + node.length - 1 : s - 1;
+                    chars[s] = trie.labelChar(child, k);
+                }
+                queue.add(child);
+            }
+        }
+    }
+
+    /**
+     * Computes the suffix and output links in breadth first order, so the links of every shorter state are
+     * known when a state is reached.
+     */
+    private void constructSuffixLinks() {
+        suffixLinks = new int[nodes.length];
+        outputLinks = new int[nodes.length];
+        outputLinks[ROOT] = -1;
+        Queue<Integer> queue = new ArrayDeque<>();
+        queue.add(ROOT);
+        while (!queue.isEmpty()) {
+            int s = queue.poll();
+            if (s != ROOT) {
+                int link = suffixLinks[s];
+                outputLinks[s] = link != ROOT && keywordIds[link] >= 0 ? link : outputLinks[link];
+            }
+            RadixNode node = nodes[s];
+            int k = s - node.state + 1;
+            if (k < node.length) {
+                link(s, trie.labelChar(node, k), s + 1);
+                queue.add(s + 1);
+                continue;
+            }
+            for (int i = 0; i < node.childCount(); i++) {
+                RadixNode child = node.childAt(i);
+                link(s, trie.labelChar(child, 0), child.state);
+                queue.add(child.state);
+            }
+        }
+    }
+
+    private void link(int s, char c, int child) {
+        if (s == ROOT) {
+            suffixLinks[child] = ROOT;
+            return;
+        }
+        int t = suffixLinks[s];
+        while (t != ROOT && next(t, c) < 0)
+            t = suffixLinks[t];
+        int u = next(t, c);
+        suffixLinks[child] = u >= 0 ? u : ROOT;
+    }
+}
@@ -0,0 +1,174 @@
+package utils;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * A resumable scan of an input that arrives in chunks, over a compiled {@link AhoCorasickAutomaton}.
+ * <p>
+ * The matcher keeps only the current automaton state and the number of chars consumed so far, so memory stays
+ * constant however large the input is, and a match spanning the end of one chunk and the start of the next is
+ * reported like any other. Offsets are counted from the first char fed since creation or {@link #reset()},
+ * as longs so that inputs beyond 2 GB are covered.
+ * </p>
+ * <p>
+ * Bytes are matched as ISO-8859-1 chars, one char per byte, so ASCII keywords are found in any ASCII
+ * compatible encoding (UTF-8 log files included) and the offsets are byte offsets. Keywords with chars above
+ * {@code ÿ} never match byte input.
+ * </p>
+ * <p>Usage:
+ * </p>
+ * <pre>{@code
+ * StreamMatcher matcher = new StreamMatcher(automaton, (id, start, end) -> ...);
+ * matcher.scan(Path.of("server.log"));    // memory-mapped
+ * matcher.scan(socketChannel);            // or any channel, stream, or feed(...) calls
+ * }</pre>
+ * A matcher is not thread safe, but any number of matchers may share one automaton.
+ */
+public class StreamMatcher {
+    /**
+     * Receives the matches of a {@link StreamMatcher}, see {@link MatchListener}.
+     */
+    @FunctionalInterface
+    public interface Listener {
+        /**
+         * @param keywordId the id of the keyword.
+         * @param start     the offset of the first char of the match.
+         * @param end       the offset after the last char of the match.
+         */
+        void onMatch(int keywordId, long start, long end);
+    }
+
+    private static final int BUFFER_SIZE = 1 << 16;
+    // the largest region of a file mapped at once.
+    private static final long MAP_SIZE = 1L << 30;
+
+    private final AhoCorasickAutomaton automaton;
+    private final Listener listener;
+    private int state;
+    private long offset;
+
+    public StreamMatcher(AhoCorasickAutomaton automaton, Listener listener) {
+        this.automaton = automaton;
+        this.listener = listener;
+        reset();
+    }
+
+    /**
+     * Forgets the input fed so far, the next char fed is at offset 0.
+     */
+    public void reset() {
+        state = automaton.root();
+        offset = 0;
+    }
+
+    /**
+     * @return the number of chars (or bytes) fed since creation or the last {@link #reset()}.
+     */
+    public long position() {
+        return offset;
+    }
+
+    public void feed(byte[] buf, int off, int len) {
+        int s = state;
+        long base = offset - off;
+        for (int i = off, end = off + len; i < end; i++) {
+            s = automaton.next(s, (char) (buf[i] & 0xff));
+            report(s, base + i);
+        }
+        state = s;
+        offset += len;
+    }
+
+    /**
+     * Feeds the remaining bytes of buffer, leaving its position at its limit.
+     */
+    public void feed(ByteBuffer buffer) {
+        int s = state;
+        int from = buffer.position(), to = buffer.limit();
+        long base = offset - from;
+        for (int i = from; i < to; i++) {
+            s = automaton.next(s, (char) (buffer.get(i) & 0xff));
+            report(s, base + i);
+        }
+        buffer.position(to);
+        state = s;
+        offset += to - from;
+    }
+
+    public void feed(CharSequence chars) {
+        int s = state;
+        for (int i = 0, n = chars.length(); i < n; i++) {
+            s = automaton.next(s, chars.charAt(i));
+            report(s, offset + i);
+        }
+        state = s;
+        offset += chars.length();
+    }
+
+    /**
+     * Feeds everything channel yields until the end of stream, through one reused buffer.
+     *
+     * @return the number of bytes read.
+     */
+    public long scan(ReadableByteChannel channel) throws IOException {
+        ByteBuffer buffer = ByteBuffer.allocateDirect(BUFFER_SIZE);
+        long read = 0;
+        for (int n; (n = channel.read(buffer)) >= 0; ) {
+            read += n;
+            buffer.flip();
+            feed(buffer);
+            buffer.clear();
+        }
+        return read;
+    }
+
+    /**
+     * Feeds everything stream yields until the end of stream, through one reused buffer.
+     *
+     * @return the number of bytes read.
+     */
+    public long scan(InputStream stream) throws IOException {
+        byte[] buffer = new byte[BUFFER_SIZE];
+        long read = 0;
+        for (int n; (n = stream.read(buffer)) >= 0; ) {
+            read += n;
+            feed(buffer, 0, n);
+        }
+        return read;
+    }
+
+    /**
+     * Feeds the file at path by memory-mapping it, one region of up to 1 GB at a time.
+     * The pages are read by the OS as the scan touches them, nothing is copied onto the heap.
+     *
+     * @return the number of bytes read.
+     */
+    public long scan(Path path) throws IOException {
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            long size = channel.size();
+            for (long position = 0; position < size; position += MAP_SIZE) {
+                MappedByteBuffer region = channel.map(FileChannel.MapMode.READ_ONLY, position,
+                        Math.min(MAP_SIZE, size - position));
+                feed(region);
+            }
+            return size;
+        }
+    }
+
+    /**
+     * Reports the keywords ending at state s, whose last char is at offset last.
+     */
+    private void report(int s, long last) {
+        for (int t = automaton.keywordId(s) >= 0 ? s : automaton.outputLink(s); t >= 0; t = automaton.outputLink(t)) {
+            int id = automaton.keywordId(t);
+            listener.onMatch(id, last + 1 - automaton.keywordLength(id), last + 1);
+        }
+    }
+}
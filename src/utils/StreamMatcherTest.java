@@ -0,0 +1,123 @@
+package utils;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+class StreamMatcherTest {
+    private static final String[] KEYWORDS = {"he", "she", "his", "hers", "error", "rror:"};
+
+    @TempDir
+    Path dir;
+
+    @Test
+    void testMatchesSpanningChunks() {
+        String input = "ushers error: his hershe";
+        List<String> expected = matches(input, 1);
+
+        for (int split = 0; split <= input.length(); split++) {
+            List<String> found = new ArrayList<>();
+            StreamMatcher matcher = new StreamMatcher(automaton(), recorder(found));
+            byte[] bytes = input.getBytes(StandardCharsets.US_ASCII);
+            matcher.feed(bytes, 0, split);
+            matcher.feed(bytes, split, bytes.length - split);
+            Assertions.assertEquals(expected, found, "split at " + split);
+        }
+        Assertions.assertTrue(expected.contains("she@1:4"));
+        Assertions.assertTrue(expected.contains("rror:@8:13"));
+    }
+
+    @Test
+    void testChunkSizesAgree() {
+        Random random = new Random(3);
+        StringBuilder input = new StringBuilder();
+        for (int i = 0; i < 5000; i++)
+            input.append("hersio: ".charAt(random.nextInt(8)));
+        List<String> expected = matches(input.toString(), input.length());
+
+        for (int chunk : new int[]{1, 2, 3, 7, 64, 1000})
+            Assertions.assertEquals(expected, matches(input.toString(), chunk));
+    }
+
+    @Test
+    void testFeedCharsAndByteBuffer() {
+        List<String> found = new ArrayList<>();
+        StreamMatcher matcher = new StreamMatcher(automaton(), recorder(found));
+        matcher.feed("ush");
+        ByteBuffer buffer = ByteBuffer.allocateDirect(8);
+        buffer.put("ers".getBytes(StandardCharsets.US_ASCII)).flip();
+        matcher.feed(buffer);
+
+        Assertions.assertEquals(List.of("she@1:4", "he@2:4", "hers@2:6"), found);
+        Assertions.assertEquals(6, matcher.position());
+        Assertions.assertFalse(buffer.hasRemaining());
+
+        matcher.reset();
+        found.clear();
+        matcher.feed("he");
+        Assertions.assertEquals(List.of("he@0:2"), found);
+    }
+
+    @Test
+    void testScanStreamChannelAndFile() throws IOException {
+        StringBuilder input = new StringBuilder();
+        for (int i = 0; i < 20000; i++)
+            input.append("line ").append(i).append(i % 97 == 0 ? " error: his\n" : " ok she\n");
+        byte[] bytes = input.toString().getBytes(StandardCharsets.US_ASCII);
+        List<String> expected = matches(input.toString(), input.length());
+
+        List<String> fromStream = new ArrayList<>();
+        StreamMatcher matcher = new StreamMatcher(automaton(), recorder(fromStream));
+        Assertions.assertEquals(bytes.length, matcher.scan(new ByteArrayInputStream(bytes)));
+        Assertions.assertEquals(expected, fromStream);
+
+        List<String> fromChannel = new ArrayList<>();
+        matcher = new StreamMatcher(automaton(), recorder(fromChannel));
+        Assertions.assertEquals(bytes.length, matcher.scan(Channels.newChannel(new ByteArrayInputStream(bytes))));
+        Assertions.assertEquals(expected, fromChannel);
+
+        Path file = dir.resolve("input.log");
+        Files.write(file, bytes);
+        List<String> fromFile = new ArrayList<>();
+        matcher = new StreamMatcher(automaton(), recorder(fromFile));
+        Assertions.assertEquals(bytes.length, matcher.scan(file));
+        Assertions.assertEquals(expected, fromFile);
+    }
+
+    @Test
+    void testScanEmptyFile() throws IOException {
+        Path file = Files.createFile(dir.resolve("empty.log"));
+        StreamMatcher matcher = new StreamMatcher(automaton(), (id, start, end) -> Assertions.fail());
+        Assertions.assertEquals(0, matcher.scan(file));
+    }
+
+    private List<String> matches(String input, int chunk) {
+        List<String> found = new ArrayList<>();
+        StreamMatcher matcher = new StreamMatcher(automaton(), recorder(found));
+        byte[] bytes = input.getBytes(StandardCharsets.US_ASCII);
+        for (int off = 0; off < bytes.length; off += chunk)
+            matcher.feed(bytes, off, Math.min(chunk, bytes.length - off));
+        return found;
+    }
+
+    private StreamMatcher.Listener recorder(List<String> found) {
+        return (id, start, end) -> found.add(KEYWORDS[id] + "@" + start + ":" + end);
+    }
+
+    private AhoCorasickAutomaton automaton() {
+        AhoCorasick alg = new AhoCorasick(AhoCorasick.Backing.RADIX_TRIE);
+        alg.constructTrie(KEYWORDS);
+        return alg.compile();
+    }
+}
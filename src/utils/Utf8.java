@@ -0,0 +1,47 @@
+package utils;
+
+/**
+ * Encodes code points into UTF-8 bytes one at a time, so that strings can be walked byte by byte
+ * without allocating a byte array.
+ * <p>Example Usage:
+ * </p>
+ * <pre>{@code
+ * for (int i = 0; i < s.length(); i += Character.charCount(cp)) {
+ *     cp = s.codePointAt(i);
+ *     for (int k = 0, n = Utf8.length(cp); k < n; k++)
+ *         visit(Utf8.byteAt(cp, n, k));
+ * }
+ * }</pre>
+ */
+public class Utf8 {
+    private Utf8() {
+    }
+
+    /**
+     * @return the number of bytes in the UTF-8 encoding of cp, 1 to 4.
+     */
+    public static int length(int cp) {
+        if (cp < 0x80) return 1;
+        if (cp < 0x800) return 2;
+        if (cp < 0x10000) return 3;
+        return 4;
+    }
+
+    /**
+     * @param cp the code point to encode.
+     * @param n  the encoded length of cp, from {@link #length(int)}.
+     * @param k  the index of the byte to return, 0 to n - 1.
+     * @return the k-th byte of the UTF-8 encoding of cp, as an unsigned value 0 to 255.
+     */
+    public static int byteAt(int cp, int n, int k) {
+        if (n == 1) return cp;
+        // continuation bytes hold 6 bits each, the lead byte holds the rest.
+        int shift = 6 * (n - 1 - k);
+        if (k > 0) return 0x80 | ((cp >>> shift) & 0x3F);
+        return switch (n) {
+            case 2 -> 0xC0 | (cp >>> shift);
+            case 3 -> 0xE0 | (cp >>> shift);
+            default -> 0xF0 | (cp >>> shift);
+        };
+    }
+}
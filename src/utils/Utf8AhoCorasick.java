@@ -0,0 +1,145 @@
+package utils;
+
+import utils.trie.arrStrategy.SortedArrStrategy;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Aho-Corasick over the UTF-8 bytes of the input, for keywords drawn from any alphabet: digits, punctuation and
+ * any Unicode char.
+ * <p>
+ * The keywords are stored by their UTF-8 bytes in a {@link utils.trie.PrefixTrie} with adaptive child storage,
+ * and compiled into an {@link AhoCorasickAutomaton} whose "chars" are byte values 0 to 255. The compiled table
+ * maps only the byte values that occur in the keywords onto dense equivalence classes, every other byte is
+ * class 0 and leads back to the root. The rows are as wide as the keyword alphabet in bytes, not 256 or 65536.
+ * </p>
+ * <p>
+ * Matches are reported with both byte and char (UTF-16 code unit) offsets. UTF-8 is self-synchronizing, so in
+ * well-formed input a keyword can only match on code point boundaries. The char offset is kept by counting the
+ * bytes that start a code point, with 4 byte sequences counting as the 2 chars of a surrogate pair.
+ * </p>
+ * <p>Example Usage:
+ * </p>
+ * <pre>{@code
+ * Utf8AhoCorasick ac = new Utf8AhoCorasick(new String[]{"naïve", "€", "x2"});
+ * ac.findKeywords(bytes, 0, bytes.length, (id, byteStart, byteEnd, charStart, charEnd) -> ...);
+ * }</pre>
+ */
+public class Utf8AhoCorasick {
+    /**
+     * Receives the matches of a {@link Utf8AhoCorasick}, with the same ordering as {@link MatchListener}.
+     */
+    @FunctionalInterface
+    public interface Listener {
+        /**
+         * @param keywordId the id of the keyword, see {@link #keyword(int)}.
+         * @param byteStart the offset of the first byte of the match.
+         * @param byteEnd   the offset after the last byte of the match.
+         * @param charStart the offset of the first char of the match.
+         * @param charEnd   the offset after the last char of the match.
+         */
+        void onMatch(int keywordId, int byteStart, int byteEnd, int charStart, int charEnd);
+    }
+
+    // the chars each byte adds to the char offset: 0 for continuation bytes, 2 for the lead byte of a
+    // supplementary code point and 1 otherwise.
+    private static final byte[] CHARS_PER_BYTE = new byte[256];
+
+    static {
+        for (int b = 0; b < 256; b++)
+            CHARS_PER_BYTE[b] = (byte) ((b & 0xC0) == 0x80 ? 0 : (b & 0xF8) == 0xF0 ? 2 : 1);
+    }
+
+    private final AhoCorasickAutomaton automaton;
+    private final String[] keywords;
+    private final int[] byteLengths;
+    private final int[] charLengths;
+
+    public Utf8AhoCorasick(String[] keywords) {
+        AhoCorasick alg = new AhoCorasick(SortedArrStrategy::adaptive);
+        alg.constructTrie(keywords);
+        this.automaton = alg.compile();
+
+        int n = alg.keywordCount();
+        this.keywords = new String[n];
+        this.byteLengths = new int[n];
+        this.charLengths = new int[n];
+        for (int id = 0; id < n; id++) {
+            this.keywords[id] = alg.keyword(id);
+            this.byteLengths[id] = this.keywords[id].getBytes(StandardCharsets.UTF_8).length;
+            this.charLengths[id] = this.keywords[id].length();
+        }
+    }
+
+    public String keyword(int id) {
+        return keywords[id];
+    }
+
+    /**
+     * @return the number of states of the compiled automaton.
+     */
+    public int stateCount() {
+        return automaton.stateCount();
+    }
+
+    /**
+     * Reports every occurrence of every keyword in the UTF-8 bytes input[off, off + len).
+     * Offsets are relative to off.
+     */
+    public void findKeywords(byte[] input, int off, int len, Listener listener) {
+        int s = automaton.root();
+        int chars = 0;
+        for (int i = 0; i < len; i++) {
+            int b = input[off + i] & 0xff;
+            chars += CHARS_PER_BYTE[b];
+            s = step(s, b, i, chars, listener);
+        }
+    }
+
+    /**
+     * Reports every occurrence of every keyword in the UTF-8 bytes of buffer between its position and limit,
+     * read in place from heap and direct buffers alike. Byte offsets are indexes into buffer, char offsets are
+     * counted from its position, which is unchanged.
+     */
+    public void findKeywords(ByteBuffer buffer, Listener listener) {
+        int s = automaton.root();
+        int chars = 0;
+        for (int i = buffer.position(), n = buffer.limit(); i < n; i++) {
+            int b = buffer.get(i) & 0xff;
+            chars += CHARS_PER_BYTE[b];
+            s = step(s, b, i, chars, listener);
+        }
+    }
+
+    /**
+     * Reports every occurrence of every keyword in input, matched over its UTF-8 encoding. The bytes are
+     * produced one at a time with {@link Utf8}, without encoding input into an array.
+     */
+    public void findKeywords(CharSequence input, Listener listener) {
+        int s = automaton.root();
+        int bytes = 0;
+        for (int i = 0, n = input.length(); i < n; ) {
+            int cp = Character.codePointAt(input, i);
+            i += Character.charCount(cp);
+            for (int k = 0, length = Utf8.length(cp); k < length; k++)
+                s = step(s, Utf8.byteAt(cp, length, k), bytes++, i, listener);
+        }
+    }
+
+    /**
+     * Moves from state s on byte b, and reports the keywords ending at it.
+     *
+     * @param last  the offset of b.
+     * @param chars the char offset after the code point b belongs to.
+     * @return the state reached.
+     */
+    private int step(int s, int b, int last, int chars, Listener listener) {
+        s = automaton.next(s, (char) b);
+        for (int t = automaton.keywordId(s) >= 0 ? s : automaton.outputLink(s); t >= 0; t = automaton.outputLink(t)) {
+            int id = automaton.keywordId(t);
+            listener.onMatch(id, last + 1 - byteLengths[id], last + 1, chars - charLengths[id], chars);
+        }
+        return s;
+    }
+}
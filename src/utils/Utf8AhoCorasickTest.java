@@ -0,0 +1,96 @@
+package utils;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+
+class Utf8AhoCorasickTest {
+
+    @Test
+    void testDigitsAndPunctuation() {
+        Utf8AhoCorasick ac = new Utf8AhoCorasick(new String[]{"x2", "2.0", "a-b", "(", "A"});
+        List<String> found = matches(ac, "x2.0 (a-b) A");
+        Assertions.assertEquals(List.of("x2@0:2/0:2", "2.0@1:4/1:4", "(@5:6/5:6", "a-b@6:9/6:9", "A@11:12/11:12"),
+                found);
+    }
+
+    @Test
+    void testUnicodeByteAndCharOffsets() {
+        Utf8AhoCorasick ac = new Utf8AhoCorasick(new String[]{"naïve", "€", "😀x", "ïv"});
+        // n a ï(2) v e ' ' €(3) ' ' 😀(4, 2 chars) x
+        List<String> found = matches(ac, "naïve € 😀x");
+        Assertions.assertEquals(List.of("ïv@2:5/2:4", "naïve@0:6/0:5", "€@7:10/6:7", "😀x@11:16/8:11"), found);
+    }
+
+    @Test
+    void testMatchesNaiveSearch() {
+        String alphabet = "ab€é😀";
+        Random random = new Random(5);
+        Set<String> keywords = new LinkedHashSet<>();
+        while (keywords.size() < 40)
+            keywords.add(randomString(random, alphabet, 1 + random.nextInt(4)));
+        String input = randomString(random, alphabet, 4000);
+
+        Set<String> expected = new LinkedHashSet<>();
+        for (String keyword : keywords) {
+            for (int i = input.indexOf(keyword); i >= 0; i = input.indexOf(keyword, i + 1)) {
+                int byteStart = input.substring(0, i).getBytes(StandardCharsets.UTF_8).length;
+                int byteEnd = byteStart + keyword.getBytes(StandardCharsets.UTF_8).length;
+                expected.add(keyword + "@" + byteStart + ":" + byteEnd + "/" + i + ":" + (i + keyword.length()));
+            }
+        }
+
+        Utf8AhoCorasick ac = new Utf8AhoCorasick(keywords.toArray(new String[0]));
+        List<String> found = matches(ac, input);
+        Assertions.assertEquals(expected.size(), found.size());
+        Assertions.assertEquals(expected, Set.copyOf(found));
+    }
+
+    @Test
+    void testOffsetsRelativeToSlice() {
+        Utf8AhoCorasick ac = new Utf8AhoCorasick(new String[]{"é"});
+        byte[] bytes = "xxé-é".getBytes(StandardCharsets.UTF_8);
+        List<String> found = new ArrayList<>();
+        ac.findKeywords(bytes, 2, bytes.length - 2,
+                (id, byteStart, byteEnd, charStart, charEnd) -> found.add(byteStart + ":" + byteEnd + "/" + charStart));
+        Assertions.assertEquals(List.of("0:2/0", "3:5/2"), found);
+    }
+
+    @Test
+    void testByteBufferAndCharSequence() {
+        Utf8AhoCorasick ac = new Utf8AhoCorasick(new String[]{"€", "😀x"});
+        String input = "a€ 😀x";
+        List<String> expected = matches(ac, input);
+        Assertions.assertEquals(List.of("€@1:4/1:2", "😀x@5:10/3:6"), expected);
+        Assertions.assertEquals(expected, matches(ac, new StringBuilder(input)));
+
+        byte[] bytes = ("-" + input).getBytes(StandardCharsets.UTF_8);
+        ByteBuffer buffer = ByteBuffer.allocateDirect(bytes.length).put(bytes).flip().position(1);
+        List<String> found = new ArrayList<>();
+        ac.findKeywords(buffer, (id, byteStart, byteEnd, charStart, charEnd) ->
+                found.add(ac.keyword(id) + "@" + (byteStart - 1) + ":" + (byteEnd - 1) + "/" + charStart + ":" + charEnd));
+        Assertions.assertEquals(expected, found);
+    }
+
+    private List<String> matches(Utf8AhoCorasick ac, CharSequence input) {
+        List<String> found = new ArrayList<>();
+        ac.findKeywords(input, (id, byteStart, byteEnd, charStart, charEnd) ->
+                found.add(ac.keyword(id) + "@" + byteStart + ":" + byteEnd + "/" + charStart + ":" + charEnd));
+        return found;
+    }
+
+    private String randomString(Random random, String alphabet, int codePoints) {
+        int[] cps = alphabet.codePoints().toArray();
+        StringBuilder sb = new StringBuilder();
+        for (int i = 0; i < codePoints; i++)
+            sb.appendCodePoint(cps[random.nextInt(cps.length)]);
+        return sb.toString();
+    }
+}
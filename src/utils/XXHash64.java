@@ -0,0 +1,90 @@
+package utils;
+
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.nio.ByteOrder;
+
+/**
+ * The <a href="https://github.com/Cyan4973/xxHash/blob/dev/doc/xxhash_spec.md">XXH64</a> hash, a fast
+ * non-cryptographic 64 bit hash for checksums and content keys.
+ * <p>
+ * Input is read 8 bytes at a time as little endian longs, through a {@link VarHandle} view of the byte array,
+ * into four independent accumulators, so the hash runs at several GB/s.
+ * </p>
+ * <p>Example Usage:
+ * </p>
+ * <pre>{@code
+ * long h = XXHash64.hash(bytes);          // seed 0
+ * long k = XXHash64.hash(bytes, 0, n, 42);
+ * }</pre>
+ */
+public class XXHash64 {
+    private static final long P1 = 0x9E3779B185EBCA87L;
+    private static final long P2 = 0xC2B2AE3D27D4EB4FL;
+    private static final long P3 = 0x165667B19E3779F9L;
+    private static final long P4 = 0x85EBCA77C2B2AE63L;
+    private static final long P5 = 0x27D4EB2F165667C5L;
+    private static final VarHandle LONGS = MethodHandles.byteArrayViewVarHandle(long[].class, ByteOrder.LITTLE_ENDIAN);
+    private static final VarHandle INTS = MethodHandles.byteArrayViewVarHandle(int[].class, ByteOrder.LITTLE_ENDIAN);
+
+    private XXHash64() {
+    }
+
+    public static long hash(byte[] bytes) {
+        return hash(bytes, 0, bytes.length, 0);
+    }
+
+    /**
+     * @return the hash of the length bytes of bytes from offset.
+     */
+    public static long hash(byte[] bytes, int offset, int length, long seed) {
+        int i = offset, end = offset + length;
+        long h;
+        if (length >= 32) {
+            long v1 = seed + P1 + P2, v2 = seed + P2, v3 = seed, v4 = seed - P1;
+            for (int limit = end - 32; i <= limit; i += 32) {
+                v1 = round(v1, (long) LONGS.get(bytes, i));
+                v2 = round(v2, (long) LONGS.get(bytes, i + 8));
+                v3 = round(v3, (long) LONGS.get(bytes, i + 16));
+                v4 = round(v4, (long) LONGS.get(bytes, i + 24));
+            }
+            h = Long.rotateLeft(v1, 1) + Long.rotateLeft(v2, 7) + Long.rotateLeft(v3, 12) + Long.rotateLeft(v4, 18);
+            h = merge(h, v1);
+            h = merge(h, v2);
+            h = merge(h, v3);
+            h = merge(h, v4);
+        } else {
+            h = seed + P5;
+        }
+        h += length;
+
+        for (; i <= end - 8; i += 8) {
+            h ^= round(0, (long) LONGS.get(bytes, i));
+            h = Long.rotateLeft(h, 27) * P1 + P4;
+        }
+        if (i <= end - 4) {
+            h ^= ((int) INTS.get(bytes, i) & 0xFFFFFFFFL) * P1;
+            h = Long.rotateLeft(h, 23) * P2 + P3;
+            i += 4;
+        }
+        for (; i < end; i++) {
+            h ^= (bytes[i] & 0xFF) * P5;
+            h = Long.rotateLeft(h, 11) * P1;
+        }
+
+        h ^= h >>> 33;
+        h *= P2;
+        h ^= h >>> 29;
+        h *= P3;
+        h ^= h >>> 32;
+        return h;
+    }
+
+    private static long round(long acc, long input) {
+        return Long.rotateLeft(acc + input * P2, 31) * P1;
+    }
+
+    private static long merge(long h, long v) {
+        return (h ^ round(0, v)) * P1 + P4;
+    }
+}
@@ -0,0 +1,42 @@
+package utils;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.Random;
+
+public class XXHash64Test {
+
+    private static long hash(String s) {
+        return XXHash64.hash(s.getBytes(StandardCharsets.UTF_8));
+    }
+
+    @Test
+    void testReferenceValues() {
+        Assertions.assertEquals(0xEF46DB3751D8E999L, hash(""));
+        Assertions.assertEquals(0xD24EC4F1A98C6E5BL, hash("a"));
+        Assertions.assertEquals(0x44BC2CF5AD770999L, hash("abc"));
+        // long enough for the four accumulators.
+        Assertions.assertEquals(0xFBCEA83C8A378BF1L, hash("Nobody inspects the spammish repetition"));
+    }
+
+    @Test
+    void testOffsetAndSeed() {
+        byte[] bytes = new byte[1000];
+        new Random(1).nextBytes(bytes);
+        byte[] slice = Arrays.copyOfRange(bytes, 7, 7 + 500);
+        Assertions.assertEquals(XXHash64.hash(slice, 0, slice.length, 42), XXHash64.hash(bytes, 7, 500, 42));
+        Assertions.assertNotEquals(XXHash64.hash(slice, 0, slice.length, 42), XXHash64.hash(slice, 0, slice.length, 43));
+    }
+
+    @Test
+    void testEveryLengthDiffers() {
+        byte[] bytes = new byte[100];
+        HashSet<Long> hashes = new HashSet<>();
+        for (int length = 0; length <= bytes.length; length++)
+            Assertions.assertTrue(hashes.add(XXHash64.hash(bytes, 0, length, 0)), Integer.toString(length));
+    }
+}
@@ -0,0 +1,52 @@
+package utils.search;
+
+/**
+ * Filters candidate offsets on the first and last char of the keyword, and compares the chars in between only
+ * for the candidates that pass:
+ * <blockquote><pre>
+ * text[j + m - 1] == keyword[m - 1] && text[j] == keyword[0]
+ * </pre></blockquote>
+ * This is the filter of the SIMD substring searches, one offset at a time. The last char is tested first, as
+ * keywords more often share their first char with the text (a word start) than their last.
+ * <p>
+ * A branch free variant, building a bit mask of the candidates 64 offsets at a time, was half as fast on text
+ * where the filter rarely passes, and only faster on small alphabets, which {@link Searcher#compile} sends to
+ * the other searchers.
+ * </p>
+ */
+public class FirstLastSearcher implements Searcher {
+    private final String keyword;
+    private final char[] chars;
+
+    public FirstLastSearcher(String keyword) {
+        this.keyword = keyword;
+        this.chars = keyword.toCharArray();
+    }
+
+    @Override
+    public String keyword() {
+        return keyword;
+    }
+
+    @Override
+    public int indexIn(CharSequence text, int from) {
+        int m = chars.length;
+        if (m == 0) return Searcher.emptyMatch(text, from);
+
+        char first = chars[0], last = chars[m - 1];
+        for (int k = Math.max(from, 0), candidates = text.length() - m + 1; k < candidates; k++) {
+            if (text.charAt(k + m - 1) == last && text.charAt(k) == first && matchesBetween(text, k, m))
+                return k;
+        }
+        return -1;
+    }
+
+    /**
+     * @return whether keyword[1...m-2] matches text at offset k + 1.
+     */
+    private boolean matchesBetween(CharSequence text, int k, int m) {
+        for (int i = 1; i < m - 1; i++)
+            if (text.charAt(k + i) != chars[i]) return false;
+        return true;
+    }
+}
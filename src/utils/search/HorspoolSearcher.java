@@ -0,0 +1,62 @@
+package utils.search;
+
+import java.util.Arrays;
+
+/**
+ * <a href="https://en.wikipedia.org/wiki/Boyer%E2%80%93Moore%E2%80%93Horspool_algorithm">Boyer-Moore-Horspool</a>.
+ * <p>
+ * The keyword is aligned with the text and compared from its last char. On a mismatch or a match, the keyword
+ * is shifted so that the text char under its last position lines up with the rightmost occurrence of that char
+ * in the keyword before the last position, or past it if there is none:
+ * </p>
+ * <blockquote><pre>
+ * shift(c) = m - 1 - (last index of c in keyword[0...m-2]), m if c does not occur there
+ * </pre></blockquote>
+ * <p>
+ * The shift table has 256 entries indexed by the low byte of the char, each holding the smallest shift of the
+ * chars sharing that byte, so that any char fits without a table of 65536 entries.
+ * </p>
+ */
+public class HorspoolSearcher implements Searcher {
+    private final String keyword;
+    private final char[] chars;
+    private final int[] shifts;
+
+    public HorspoolSearcher(String keyword) {
+        this.keyword = keyword;
+        this.chars = keyword.toCharArray();
+        int m = chars.length;
+        this.shifts = new int[256];
+        Arrays.fill(shifts, Math.max(m, 1));
+        for (int i = 0; i < m - 1; i++)
+            shifts[chars[i] & 0xFF] = Math.min(shifts[chars[i] & 0xFF], m - 1 - i);
+    }
+
+    @Override
+    public String keyword() {
+        return keyword;
+    }
+
+    @Override
+    public int indexIn(CharSequence text, int from) {
+        int m = chars.length;
+        if (m == 0) return Searcher.emptyMatch(text, from);
+
+        char last = chars[m - 1];
+        for (int j = Math.max(from, 0), limit = text.length() - m; j <= limit; ) {
+            char c = text.charAt(j + m - 1);
+            if (c == last && matchesBefore(text, j, m - 1)) return j;
+            j += shifts[c & 0xFF];
+        }
+        return -1;
+    }
+
+    /**
+     * @return whether keyword[0...k-1] matches text at offset j.
+     */
+    private boolean matchesBefore(CharSequence text, int j, int k) {
+        for (int i = k - 1; i >= 0; i--)
+            if (text.charAt(j + i) != chars[i]) return false;
+        return true;
+    }
+}
@@ -0,0 +1,87 @@
+package utils.search;
+
+import utils.CompiledPattern;
+
+/**
+ * A single keyword compiled for searching in any number of texts, with the semantics of
+ * {@link String#indexOf(String, int)}.
+ * <p>Implementations:
+ * </p>
+ * <ul>
+ * <li>{@link FirstLastSearcher} filters candidate offsets on the first and last char of the keyword before
+ * comparing the rest. Fastest for short keywords.</li>
+ * <li>{@link HorspoolSearcher} Boyer-Moore-Horspool, skips up to the keyword length per mismatch. Fastest for
+ * longer keywords over a large alphabet, but quadratic in the worst case.</li>
+ * <li>{@link TwoWaySearcher} Crochemore-Perrin Two-Way, linear in the worst case with constant extra space.
+ * Used for small alphabets and periodic keywords, where Horspool shifts are short.</li>
+ * <li>{@link CompiledPattern} KMP, linear in the worst case with a table as long as the keyword.</li>
+ * </ul>
+ * <p>
+ * {@link #compile(String)} picks one of them from the length and alphabet of the keyword.
+ * </p>
+ * <p>
+ * Searchers are immutable and may be shared by any number of threads.
+ * </p>
+ */
+public interface Searcher {
+    // keywords at most this long are searched with FirstLastSearcher.
+    int SHORT_KEYWORD = 8;
+    // keywords with fewer distinct chars than this are searched with TwoWaySearcher.
+    int SMALL_ALPHABET = 4;
+
+    String keyword();
+
+    /**
+     * @return the offset of the first match starting at or after from, or -1 if there is none.
+     */
+    int indexIn(CharSequence text, int from);
+
+    default int indexIn(CharSequence text) {
+        return indexIn(text, 0);
+    }
+
+    default boolean containedIn(CharSequence text) {
+        return indexIn(text, 0) >= 0;
+    }
+
+    /**
+     * Finds every match in text, overlapping matches included, in ascending order.
+     *
+     * @param offsets receives the offsets of the first offsets.length matches.
+     * @return the number of matches, which may exceed offsets.length.
+     */
+    default int findAll(CharSequence text, int[] offsets) {
+        int count = 0;
+        for (int i = indexIn(text, 0); i >= 0; i = i < text.length() ? indexIn(text, i + 1) : -1) {
+            if (count < offsets.length) offsets[count] = i;
+            count++;
+        }
+        return count;
+    }
+
+    /**
+     * Picks the searcher for keyword:
+     * <ul>
+     * <li>{@link FirstLastSearcher} for keywords of at most {@link #SHORT_KEYWORD} chars.</li>
+     * <li>{@link TwoWaySearcher} for longer keywords with fewer than {@link #SMALL_ALPHABET} distinct chars,
+     * or whose smallest period is at most half their length, where Horspool would make short shifts.</li>
+     * <li>{@link HorspoolSearcher} otherwise.</li>
+     * </ul>
+     */
+    static Searcher compile(String keyword) {
+        int m = keyword.length();
+        if (m <= SHORT_KEYWORD) return new FirstLastSearcher(keyword);
+        if (keyword.chars().distinct().limit(SMALL_ALPHABET).count() < SMALL_ALPHABET)
+            return new TwoWaySearcher(keyword);
+        TwoWaySearcher twoWay = new TwoWaySearcher(keyword);
+        if (twoWay.isPeriodic() && twoWay.period() <= m / 2) return twoWay;
+        return new HorspoolSearcher(keyword);
+    }
+
+    /**
+     * @return from clamped to [0, text.length()], the first match of the empty keyword.
+     */
+    static int emptyMatch(CharSequence text, int from) {
+        return Math.min(Math.max(from, 0), text.length());
+    }
+}
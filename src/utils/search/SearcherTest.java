@@ -0,0 +1,116 @@
+package utils.search;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import utils.CompiledPattern;
+import utils.KMPTest;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+import java.util.function.Function;
+
+/**
+ * The conformance suite every {@link Searcher} passes: the {@link KMPTest} cases, then random texts checked
+ * against {@link String#indexOf(String, int)}.
+ */
+class SearcherTest {
+    private static final List<Function<String, Searcher>> SEARCHERS = List.of(
+            CompiledPattern::new, HorspoolSearcher::new, TwoWaySearcher::new, FirstLastSearcher::new,
+            Searcher::compile);
+
+    @Test
+    void testKMPCases() {
+        for (Function<String, Searcher> searchers : SEARCHERS) {
+            for (String[] c : KMPTest.CASES) {
+                Searcher searcher = searchers.apply(c[1]);
+                Assertions.assertEquals(Boolean.parseBoolean(c[2]), searcher.containedIn(c[0]),
+                        searcher.getClass().getSimpleName() + ": " + c[1] + " in " + c[0]);
+                Assertions.assertEquals(c[0].indexOf(c[1]), searcher.indexIn(c[0]));
+            }
+        }
+    }
+
+    @Test
+    void testMatchesIndexOf() {
+        Random random = new Random(11);
+        for (int round = 0; round < 3000; round++) {
+            int alphabet = 1 + random.nextInt(4);
+            String keyword = randomString(random, alphabet, random.nextInt(12));
+            String text = randomString(random, alphabet, random.nextInt(80));
+            int from = random.nextInt(text.length() + 3) - 1;
+            List<Integer> expected = allIndexes(text, keyword);
+
+            for (Function<String, Searcher> searchers : SEARCHERS) {
+                Searcher searcher = searchers.apply(keyword);
+                String name = searcher.getClass().getSimpleName() + ": " + keyword + " in " + text;
+                Assertions.assertEquals(text.indexOf(keyword), searcher.indexIn(text), name);
+                Assertions.assertEquals(text.indexOf(keyword, from), searcher.indexIn(text, from), name + " from " + from);
+
+                int[] offsets = new int[4];
+                int count = searcher.findAll(text, offsets);
+                Assertions.assertEquals(expected.size(), count, name);
+                for (int i = 0; i < Math.min(count, offsets.length); i++)
+                    Assertions.assertEquals(expected.get(i), offsets[i], name);
+            }
+        }
+    }
+
+    @Test
+    void testCharsBeyondLatin1() {
+        // 'ā' and 'ġ' share their low byte with 'A' and 'a'.
+        String text = "xxAaāġāġAa";
+        for (Function<String, Searcher> searchers : SEARCHERS) {
+            Searcher searcher = searchers.apply("āġāġ");
+            Assertions.assertEquals(4, searcher.indexIn(text));
+            Assertions.assertEquals(-1, searchers.apply("āġAā").indexIn(text));
+            Assertions.assertEquals(8, searchers.apply("Aa").indexIn(text, 3));
+        }
+    }
+
+    @Test
+    void testLongTextAcrossBlocks() {
+        char[] chars = new char[1000];
+        Arrays.fill(chars, 'a');
+        chars[500] = 'b';
+        chars[998] = 'b';
+        String text = new String(chars);
+        for (Function<String, Searcher> searchers : SEARCHERS) {
+            Assertions.assertEquals(497, searchers.apply("aaab").indexIn(text));
+            Assertions.assertEquals(500, searchers.apply("baaaaaa").indexIn(text));
+            Assertions.assertEquals(997, searchers.apply("ab").indexIn(text, 600));
+            Assertions.assertEquals(-1, searchers.apply("bb").indexIn(text));
+        }
+    }
+
+    @Test
+    void testCompilePicksByKeyword() {
+        Assertions.assertInstanceOf(FirstLastSearcher.class, Searcher.compile("error"));
+        Assertions.assertInstanceOf(TwoWaySearcher.class, Searcher.compile("abbabaabbaababba"));
+        Assertions.assertInstanceOf(TwoWaySearcher.class, Searcher.compile("the cat the cat the cat"));
+        Assertions.assertInstanceOf(HorspoolSearcher.class, Searcher.compile("connection reset by peer"));
+    }
+
+    @Test
+    void testTwoWayPeriod() {
+        TwoWaySearcher searcher = new TwoWaySearcher("abcabcabcab");
+        Assertions.assertTrue(searcher.isPeriodic());
+        Assertions.assertEquals(3, searcher.period());
+        Assertions.assertFalse(new TwoWaySearcher("abcdefgh").isPeriodic());
+    }
+
+    private static List<Integer> allIndexes(String text, String keyword) {
+        List<Integer> indexes = new ArrayList<>();
+        for (int i = text.indexOf(keyword); i >= 0; i = i < text.length() ? text.indexOf(keyword, i + 1) : -1)
+            indexes.add(i);
+        return indexes;
+    }
+
+    private static String randomString(Random random, int alphabet, int length) {
+        char[] chars = new char[length];
+        for (int i = 0; i < length; i++)
+            chars[i] = (char) ('a' + random.nextInt(alphabet));
+        return new String(chars);
+    }
+}
@@ -0,0 +1,169 @@
+package utils.search;
+
+import java.util.Arrays;
+
+/**
+ * The <a href="https://en.wikipedia.org/wiki/Two-way_string-matching_algorithm">Two-Way</a> algorithm of
+ * Crochemore and Perrin: linear time in the worst case, with constant extra space.
+ * <p>
+ * The keyword x is split at a critical factorization x = u v, found as the longer of its maximal suffixes
+ * under the two orderings of the alphabet. At each alignment v is compared left to right, then u right to left:
+ * </p>
+ * <ul>
+ * <li>a mismatch at v[i] shifts the keyword by i + 1.</li>
+ * <li>a mismatch in u shifts it by the period p of x if x is periodic (u is a suffix of v[0...p-1]), in which
+ * case the chars already known to match are remembered and not compared again, and by max(|u|, |v|) + 1
+ * otherwise.</li>
+ * </ul>
+ * <p>
+ * Both shifts are safe after a full match too, so {@link #findAll} keeps the same linear bound.
+ * </p>
+ * <p>
+ * Before comparing, the text char under the last position of the keyword is looked up in a Horspool shift table
+ * (as in the long keyword variant of glibc), so that on most text the keyword skips ahead without comparing at
+ * all. The table has 256 entries indexed by the low byte of the char, each holding the smallest shift of the chars
+ * sharing that byte.
+ * </p>
+ */
+public class TwoWaySearcher implements Searcher {
+    private final String keyword;
+    private final char[] chars;
+    // keyword = chars[0...suffix-1] chars[suffix...m-1].
+    private final int suffix;
+    // the period of the keyword if periodic, else the shift after a mismatch in the left half.
+    private final int period;
+    private final boolean periodic;
+    // m - 1 - (last index of c in the keyword), for the chars c with a given low byte.
+    private final int[] shifts;
+
+    public TwoWaySearcher(String keyword) {
+        this.keyword = keyword;
+        this.chars = keyword.toCharArray();
+        int m = chars.length;
+
+        long forward = maximalSuffix(chars, false), reverse = maximalSuffix(chars, true);
+        long longer = (int) (reverse >>> 32) < (int) (forward >>> 32) ? forward : reverse;
+        this.suffix = m == 0 ? 0 : (int) (longer >>> 32) + 1;
+        int p = (int) longer;
+        this.periodic = m > 0 && prefixRepeats(chars, p, suffix);
+        this.period = periodic ? p : Math.max(suffix, m - suffix) + 1;
+
+        this.shifts = new int[256];
+        Arrays.fill(shifts, m);
+        for (int i = 0; i < m; i++)
+            shifts[chars[i] & 0xFF] = Math.min(shifts[chars[i] & 0xFF], m - 1 - i);
+    }
+
+    @Override
+    public String keyword() {
+        return keyword;
+    }
+
+    /**
+     * @return whether the keyword is periodic, which is when {@link #period()} is its smallest period.
+     */
+    public boolean isPeriodic() {
+        return periodic;
+    }
+
+    public int period() {
+        return period;
+    }
+
+    @Override
+    public int indexIn(CharSequence text, int from) {
+        if (chars.length == 0) return Searcher.emptyMatch(text, from);
+        return search(text, Math.max(from, 0), null);
+    }
+
+    @Override
+    public int findAll(CharSequence text, int[] offsets) {
+        if (chars.length == 0) return Searcher.super.findAll(text, offsets);
+        return search(text, 0, offsets);
+    }
+
+    /**
+     * Searches text from offset from.
+     *
+     * @param offsets receives the offsets of the matches that fit, or null to stop at the first match.
+     * @return the number of matches, or with null offsets the offset of the first match or -1.
+     */
+    private int search(CharSequence text, int from, int[] offsets) {
+        int m = chars.length;
+        int count = 0;
+        // in the periodic case, text[j...j+memory-1] is known to match the keyword.
+        int memory = 0;
+        for (int j = from, limit = text.length() - m; j <= limit; ) {
+            int shift = shifts[text.charAt(j + m - 1) & 0xFF];
+            if (shift > 0) {
+                // the chars known to match are only kept if the keyword moves by less than its period.
+                if (memory > 0 && shift < period) shift = m - period;
+                memory = 0;
+                j += shift;
+                continue;
+            }
+
+            int i = Math.max(suffix, memory);
+            while (i < m && chars[i] == text.charAt(i + j))
+                i++;
+            if (i < m) {
+                j += i - suffix + 1;
+                memory = 0;
+                continue;
+            }
+
+            i = suffix - 1;
+            while (i >= memory && chars[i] == text.charAt(i + j))
+                i--;
+            if (i < memory) {
+                if (offsets == null) return j;
+                if (count < offsets.length) offsets[count] = j;
+                count++;
+            }
+            j += period;
+            memory = periodic ? m - period : 0;
+        }
+        return offsets == null ? -1 : count;
+    }
+
+    /**
+     * Finds the maximal suffix of x, under the order of chars or its reverse.
+     *
+     * @return the offset before the maximal suffix (-1 for all of x) in the high int, and its period in the low int.
+     */
+    private static long maximalSuffix(char[] x, boolean reversed) {
+        int ms = -1, j = 0, k = 1, p = 1;
+        while (j + k < x.length) {
+            char a = x[j + k], b = x[ms + k];
+            if (reversed ? a > b : a < b) {
+                // the suffix is smaller, its period is all of it so far.
+                j += k;
+                k = 1;
+                p = j - ms;
+            } else if (a == b) {
+                // advance through a repetition of the current period.
+                if (k != p) {
+                    k++;
+                } else {
+                    j += p;
+                    k = 1;
+                }
+            } else {
+                // the suffix is larger, start over from here.
+                ms = j++;
+                k = p = 1;
+            }
+        }
+        return ((long) ms << 32) | (p & 0xFFFFFFFFL);
+    }
+
+    /**
+     * @return whether x[0...suffix-1] equals x[p...p+suffix-1].
+     */
+    private static boolean prefixRepeats(char[] x, int p, int suffix) {
+        if (p + suffix > x.length) return false;
+        for (int i = 0; i < suffix; i++)
+            if (x[i] != x[p + i]) return false;
+        return true;
+    }
+}
@@ -0,0 +1,345 @@
+package utils.trie;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.function.ObjIntConsumer;
+
+/**
+ * A <a href="https://linux.thai.net/~thep/datrie/datrie.html">double-array trie</a> with the same API as
+ * {@link PrefixTrie}.
+ * <p>
+ * Instead of a {@link Node} object with a child array per state, every state is an index into two parallel
+ * int arrays. A transition from state s on a character with code c goes to state t where:
+ * </p>
+ * <blockquote><pre>
+ * t = base[s] + c
+ * check[t] == s
+ * </pre></blockquote>
+ * <p>
+ * A check mismatch means s has no child on c. Terminal states are recorded in a bit-set.
+ * </p>
+ * <p>Implementation:
+ * </p>
+ * <ul>
+ * <li>Characters are mapped onto dense codes (1, 2, ..) in the order they are first inserted,
+ * so any char can be stored while the arrays stay as small as the alphabet in use allows.</li>
+ * <li>State 0 is unused, {@link #ROOT} is the root and {@code check[t] == 0} marks a free slot.</li>
+ * <li>When a new child collides with a slot owned by another state, the children of the inserting state are
+ * relocated to a base where all of them fit.</li>
+ * <li>{@link #freeze()} rebuilds the arrays with every sibling set placed first-fit and trims the unused
+ * tail. A frozen trie no longer accepts inserts.</li>
+ * </ul>
+ */
+public class DoubleArrayTrie {
+    private static final int ROOT = 1;
+    private static final int INITIAL_CAPACITY = 1 << 10;
+    // fraction of used slots in a scanned region above which the free slot search skips the region.
+    private static final double DENSE_RATIO = 0.95;
+
+    private int[] base;
+    private int[] check;
+    private long[] terminal;
+    // code of each char, 0 for chars that were never inserted.
+    private int[] codes;
+    private int alphabetSize;
+    // where the search for a free base starts, every slot before it is used or left as a gap.
+    private int nextCheck;
+    private int size;
+    private boolean frozen;
+
+    public DoubleArrayTrie() {
+        this.base = new int[INITIAL_CAPACITY];
+        this.check = new int[INITIAL_CAPACITY];
+        this.terminal = new long[INITIAL_CAPACITY >>> 6];
+        this.codes = new int[128];
+        this.alphabetSize = 0;
+        this.check[ROOT] = -1;
+        this.nextCheck = ROOT + 1;
+        this.size = 0;
+        this.frozen = false;
+    }
+
+    public void insert(String s) {
+        if (frozen) throw new IllegalStateException("cannot insert into a frozen trie");
+
+        int state = ROOT;
+        for (int i = 0; i < s.length(); i++) {
+            int code = codeOrCreate(s.charAt(i));
+            int t = base[state] + code;
+            if (base[state] == 0 || t >= check.length || check[t] != state)
+                t = createChild(state, code);
+            state = t;
+        }
+        if (!isTerminal(state)) {
+            terminal[state >>> 6] |= 1L << state;
+            size++;
+        }
+    }
+
+    public boolean hasPrefix(String s) {
+        return walk(s) != 0;
+    }
+
+    public boolean hasWord(String s) {
+        int state = walk(s);
+        return state != 0 && isTerminal(state);
+    }
+
+    /**
+     * Compacts the arrays and makes the trie read only.
+     * Every sibling set is placed first-fit into fresh arrays, which are then trimmed to the last used slot.
+     */
+    public void freeze() {
+        if (frozen) return;
+
+        int[] oldBase = base, oldCheck = check;
+        long[] oldTerminal = terminal;
+        base = new int[INITIAL_CAPACITY];
+        check = new int[INITIAL_CAPACITY];
+        terminal = new long[INITIAL_CAPACITY >>> 6];
+        check[ROOT] = -1;
+        nextCheck = ROOT + 1;
+        if (isSet(oldTerminal, ROOT))
+            terminal[0] |= 1L << ROOT;
+        int last = copyChildren(oldBase, oldCheck, oldTerminal, ROOT, ROOT, new int[alphabetSize]);
+
+        base = Arrays.copyOf(base, last + 1);
+        check = Arrays.copyOf(check, last + 1);
+        terminal = Arrays.copyOf(terminal, (last >>> 6) + 1);
+        frozen = true;
+    }
+
+    public boolean isFrozen() {
+        return frozen;
+    }
+
+    /**
+     * Writes this frozen trie to path, to be memory-mapped with {@link TrieSnapshot#open}.
+     *
+     * @throws IllegalStateException if the trie is not frozen.
+     */
+    public void writeSnapshot(Path path) throws IOException {
+        if (!frozen) throw new IllegalStateException("only a frozen trie can be written as a snapshot");
+        TrieSnapshot.write(this, path);
+    }
+
+    int[] base() {
+        return base;
+    }
+
+    int[] check() {
+        return check;
+    }
+
+    long[] terminal() {
+        return terminal;
+    }
+
+    int[] codes() {
+        return codes;
+    }
+
+    /**
+     * Calls consumer with every word and its terminal state, in ascending order of char codes.
+     */
+    void forEachWord(ObjIntConsumer<String> consumer) {
+        char[] chars = new char[alphabetSize + 1];
+        for (int c = 0; c < codes.length; c++)
+            if (codes[c] != 0) chars[codes[c]] = (char) c;
+        forEachWord(ROOT, new StringBuilder(), chars, consumer);
+    }
+
+    private void forEachWord(int state, StringBuilder prefix, char[] chars, ObjIntConsumer<String> consumer) {
+        if (isTerminal(state)) consumer.accept(prefix.toString(), state);
+        if (base[state] == 0) return;
+        for (int c = 1; c <= alphabetSize; c++) {
+            int t = base[state] + c;
+            if (t < check.length && check[t] == state) {
+                prefix.append(chars[c]);
+                forEachWord(t, prefix, chars, consumer);
+                prefix.setLength(prefix.length() - 1);
+            }
+        }
+    }
+
+    /**
+     * @return the number of distinct words inserted.
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * @return the bytes held by the base, check, terminal and char code arrays.
+     */
+    public long memoryBytes() {
+        return 4L * base.length + 4L * check.length + 8L * terminal.length + 4L * codes.length;
+    }
+
+    /**
+     * Follows s from the root.
+     *
+     * @return the state reached, or 0 if s leaves the trie.
+     */
+    private int walk(String s) {
+        int state = ROOT;
+        for (int i = 0; i < s.length(); i++) {
+            char c = s.charAt(i);
+            int code = c < codes.length ? codes[c] : 0;
+            if (code == 0) return 0;
+            int t = base[state] + code;
+            if (t >= check.length || check[t] != state) return 0;
+            state = t;
+        }
+        return state;
+    }
+
+    private int codeOrCreate(char c) {
+        if (c >= codes.length)
+            codes = Arrays.copyOf(codes, Math.max(c + 1, codes.length * 2));
+        if (codes[c] == 0)
+            codes[c] = ++alphabetSize;
+        return codes[c];
+    }
+
+    private boolean isTerminal(int state) {
+        return isSet(terminal, state);
+    }
+
+    private static boolean isSet(long[] bits, int i) {
+        return (bits[i >>> 6] & (1L << i)) != 0;
+    }
+
+    /**
+     * Creates the child of state on code, relocating the existing children of state if the slot is taken.
+     *
+     * @return the new child state.
+     */
+    private int createChild(int state, int code) {
+        if (base[state] == 0) {
+            // findBase may grow the arrays, so base must not be dereferenced before it returns.
+            int b = findBase(new int[]{code}, 1);
+            base[state] = b;
+        } else {
+            int t = base[state] + code;
+            ensureCapacity(t);
+            if (check[t] != 0) relocate(state, code);
+        }
+        int t = base[state] + code;
+        occupy(t, state);
+        return t;
+    }
+
+    /**
+     * Moves the children of state to a base where they and the new child on code all fit.
+     */
+    private void relocate(int state, int code) {
+        int[] children = new int[alphabetSize];
+        int n = 0;
+        int oldBase = base[state];
+        for (int c = 1; c <= alphabetSize; c++) {
+            int t = oldBase + c;
+            if (t < check.length && check[t] == state) children[n++] = c;
+        }
+        int[] placed = Arrays.copyOf(children, n + 1);
+        placed[n] = code;
+        Arrays.sort(placed);
+        int newBase = findBase(placed, placed.length);
+
+        for (int i = 0; i < n; i++) {
+            int from = oldBase + children[i], to = newBase + children[i];
+            occupy(to, state);
+            base[to] = base[from];
+            if (isTerminal(from)) terminal[to >>> 6] |= 1L << to;
+            // the grandchildren now have a new parent.
+            if (base[from] != 0) {
+                for (int c = 1; c <= alphabetSize; c++) {
+                    int g = base[from] + c;
+                    if (g < check.length && check[g] == from) check[g] = to;
+                }
+            }
+            base[from] = 0;
+            check[from] = 0;
+            terminal[from >>> 6] &= ~(1L << from);
+        }
+        base[state] = newBase;
+    }
+
+    /**
+     * Finds a base where every slot base + code is free, searching first-fit from {@link #nextCheck}.
+     * The search start is moved past densely used regions so that they are not rescanned on every call.
+     *
+     * @param codes the sorted codes to place.
+     * @param n     the number of codes to place.
+     */
+    private int findBase(int[] codes, int n) {
+        int first = Math.max(1, nextCheck - codes[0]);
+        int occupied = 0;
+        for (int b = first; ; b++) {
+            ensureCapacity(b + codes[n - 1]);
+            if (check[b + codes[0]] != 0) {
+                occupied++;
+                continue;
+            }
+            boolean fits = true;
+            for (int i = 1; i < n; i++) {
+                if (check[b + codes[i]] != 0) {
+                    fits = false;
+                    break;
+                }
+            }
+            if (fits) {
+                if (occupied >= DENSE_RATIO * (b - first + 1))
+                    nextCheck = b + codes[0];
+                return b;
+            }
+        }
+    }
+
+    private void occupy(int t, int parent) {
+        ensureCapacity(t);
+        check[t] = parent;
+        base[t] = 0;
+        while (nextCheck < check.length && check[nextCheck] != 0)
+            nextCheck++;
+    }
+
+    /**
+     * Copies the subtree below from in the old arrays into the current arrays below to.
+     *
+     * @return the largest index used in the current arrays.
+     */
+    private int copyChildren(int[] oldBase, int[] oldCheck, long[] oldTerminal, int from, int to, int[] scratch) {
+        int last = to;
+        if (oldBase[from] == 0) return last;
+
+        int n = 0;
+        for (int c = 1; c <= alphabetSize; c++) {
+            int t = oldBase[from] + c;
+            if (t < oldCheck.length && oldCheck[t] == from) scratch[n++] = c;
+        }
+        if (n == 0) return last;
+
+        int[] children = Arrays.copyOf(scratch, n);
+        int b = findBase(children, n);
+        base[to] = b;
+        for (int c : children)
+            occupy(b + c, to);
+        for (int c : children) {
+            int child = b + c;
+            if (isSet(oldTerminal, oldBase[from] + c))
+                terminal[child >>> 6] |= 1L << child;
+            last = Math.max(last, copyChildren(oldBase, oldCheck, oldTerminal, oldBase[from] + c, child, scratch));
+        }
+        return last;
+    }
+
+    private void ensureCapacity(int i) {
+        if (i < check.length) return;
+        int capacity = Math.max(i + 1, check.length + (check.length >>> 1));
+        base = Arrays.copyOf(base, capacity);
+        check = Arrays.copyOf(check, capacity);
+        terminal = Arrays.copyOf(terminal, (capacity >>> 6) + 1);
+    }
+}
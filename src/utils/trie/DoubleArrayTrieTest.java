@@ -0,0 +1,94 @@
+package utils.trie;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.util.HashSet;
+import java.util.Random;
+import java.util.Set;
+
+class DoubleArrayTrieTest {
+
+    @Test
+    void testInsert() {
+        DoubleArrayTrie trie = new DoubleArrayTrie();
+        String[] words = {"boba", "bobie", "abc", "bsda"};
+        for (String word : words)
+            trie.insert(word);
+        for (String word : words)
+            Assertions.assertTrue(trie.hasWord(word));
+        Assertions.assertFalse(trie.hasWord("bob"));
+        Assertions.assertEquals(words.length, trie.size());
+    }
+
+    @Test
+    void testHasPrefix() {
+        DoubleArrayTrie trie = new DoubleArrayTrie();
+        trie.insert("boba");
+
+        String[] prefixes = {"boba", "bob", "bo", "b", ""};
+        for (String prefix : prefixes)
+            Assertions.assertTrue(trie.hasPrefix(prefix));
+        Assertions.assertFalse(trie.hasPrefix("bobab"));
+        Assertions.assertFalse(trie.hasPrefix("c"));
+    }
+
+    @Test
+    void testAnyCharacter() {
+        DoubleArrayTrie trie = new DoubleArrayTrie();
+        String[] words = {"x1", ">=", "Größe", "a_b"};
+        for (String word : words)
+            trie.insert(word);
+        for (String word : words)
+            Assertions.assertTrue(trie.hasWord(word));
+        Assertions.assertFalse(trie.hasWord("x"));
+        Assertions.assertFalse(trie.hasWord("￿"));
+    }
+
+    @Test
+    void testRandomWordsBeforeAndAfterFreeze() {
+        Random random = new Random(42);
+        Set<String> inserted = new HashSet<>();
+        DoubleArrayTrie trie = new DoubleArrayTrie();
+        for (int i = 0; i < 20000; i++) {
+            String word = randomWord(random);
+            inserted.add(word);
+            trie.insert(word);
+        }
+        assertSameWords(trie, inserted, new Random(7));
+
+        long before = trie.memoryBytes();
+        trie.freeze();
+        Assertions.assertTrue(trie.isFrozen());
+        Assertions.assertTrue(trie.memoryBytes() <= before);
+        Assertions.assertEquals(inserted.size(), trie.size());
+        assertSameWords(trie, inserted, new Random(7));
+    }
+
+    @Test
+    void testInsertAfterFreeze() {
+        DoubleArrayTrie trie = new DoubleArrayTrie();
+        trie.insert("he");
+        trie.freeze();
+        Assertions.assertTrue(trie.hasWord("he"));
+        Assertions.assertThrows(IllegalStateException.class, () -> trie.insert("she"));
+    }
+
+    private void assertSameWords(DoubleArrayTrie trie, Set<String> inserted, Random random) {
+        for (String word : inserted) {
+            Assertions.assertTrue(trie.hasWord(word));
+            Assertions.assertTrue(trie.hasPrefix(word.substring(0, word.length() / 2)));
+        }
+        for (int i = 0; i < 20000; i++) {
+            String word = randomWord(random);
+            Assertions.assertEquals(inserted.contains(word), trie.hasWord(word));
+        }
+    }
+
+    private String randomWord(Random random) {
+        char[] chars = new char[1 + random.nextInt(6)];
+        for (int i = 0; i < chars.length; i++)
+            chars[i] = (char) ('a' + random.nextInt(8));
+        return new String(chars);
+    }
+}
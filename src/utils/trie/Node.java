@@ -4,54 +4,77 @@ import utils.trie.arrStrategy.ArrStrategy;
 import utils.trie.arrStrategy.LowAlphaArrStrategy;
 
 import java.util.Iterator;
+import java.util.function.Supplier;
 
 public class Node {
     public boolean isRoot;
     public boolean isEnd;
     public String lexeme;
-    private Node[] nodes;
-    private final ArrStrategy STRATEGY;
+    // the weight of the word ending here, and the largest weight of any word in this subtree.
+    public int weight;
+    public int maxWeight;
+    private ArrStrategy children;
+    // creates the child storage of every node in the same trie.
+    private final Supplier<ArrStrategy> strategies;
 
     // the node that is the longest proper prefix that is also a suffix
     public int c;
     public Node suffixLink;
+    // the nearest node on the suffix link chain that ends a word, null if none.
+    public Node outputLink;
+    // the id of the word ending here, assigned by the automaton built over the trie.
+    public int keywordId;
 
     public Node(char c) {
-        this.STRATEGY = new LowAlphaArrStrategy();
-        this.nodes = new Node[STRATEGY.size()];
+        this(c, LowAlphaArrStrategy::new);
+    }
+
+    /**
+     * @param c          the character or UTF-8 byte on the edge into this node.
+     * @param strategies creates the child storage of this node and of every node below it.
+     */
+    public Node(int c, Supplier<ArrStrategy> strategies) {
+        this.strategies = strategies;
+        this.children = strategies.get();
         this.isEnd = false;
         this.isRoot = false;
+        this.maxWeight = Integer.MIN_VALUE;
+        this.keywordId = -1;
         this.c = c;
     }
 
     public int getSize() {
-        return STRATEGY.size();
+        return children.size();
+    }
+
+    /**
+     * @return whether c can be stored as a child key of this node.
+     */
+    public boolean isValid(int c) {
+        return children.isValid(c);
     }
 
     public Node getChild(int c) {
-        assert STRATEGY.isValid(c) : String.format("%s is not valid character", c);
-        int idx = STRATEGY.index(c);
-        return nodes[idx];
+        assert children.isValid(c) : String.format("%s is not valid character", c);
+        return children.get(c);
     }
 
     public boolean hasChild(int c) {
-        assert STRATEGY.isValid(c) : String.format("%s is not valid character", c);
-        int idx = STRATEGY.index(c);
-        return nodes[idx] != null;
+        assert children.isValid(c) : String.format("%s is not valid character", c);
+        return children.get(c) != null;
     }
 
     public Node createChild(int c) {
-        assert STRATEGY.isValid(c) : String.format("%s is not valid character", c);
+        assert children.isValid(c) : String.format("%s is not valid character", c);
         assert !hasChild(c) : "should be called when it doesnt have the child for c";
 
-        int idx = STRATEGY.index(c);
-        Node node = new Node((char) c);
-        nodes[idx] = node;
+        Node node = new Node(c, strategies);
+        children = children.put(c, node);
         return node;
     }
 
     public Iterator<Node> getIterator() {
-        return new NodeIterator(nodes);
+        return children.iterator();
     }
 
 }
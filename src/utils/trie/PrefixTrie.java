@@ -1,46 +1,243 @@
 package utils.trie;
 
+import utils.Utf8;
+import utils.trie.arrStrategy.ArrStrategy;
+import utils.trie.arrStrategy.LowAlphaArrStrategy;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.PriorityQueue;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
+
+/**
+ * A prefix trie of {@link Node}s.
+ * <p>
+ * Words are stored by the UTF-8 bytes of their characters, which for a-z are the characters themselves.
+ * The child storage of the nodes is chosen per trie with an {@link ArrStrategy}, for example:
+ * </p>
+ * <pre>{@code
+ * new PrefixTrie();                               // a-z only, 26 slots per node
+ * new PrefixTrie(SortedArrStrategy::adaptive);    // any UTF-8, node4/16/48/256
+ * }</pre>
+ * <p>Besides membership, the trie answers the queries of a lexer and of autocompletion:
+ * </p>
+ * <ul>
+ * <li>{@link #longestPrefixOf} the longest word at a position of a text (maximal munch).</li>
+ * <li>{@link #wordsWithPrefix} a lazy enumeration of the words under a prefix.</li>
+ * <li>{@link #topK} the heaviest words under a prefix, using the per node maximum weights.</li>
+ * </ul>
+ */
 public class PrefixTrie {
     public Node root;
 
     public PrefixTrie() {
-        this.root = new Node('\0');
+        this(LowAlphaArrStrategy::new);
+    }
+
+    /**
+     * @param strategies creates the child storage of each node.
+     */
+    public PrefixTrie(Supplier<ArrStrategy> strategies) {
+        this.root = new Node('\0', strategies);
         root.isRoot = true;
     }
 
     public void insert(String s) {
-        Node curr = root;
-        for (char c : s.toCharArray()) {
-            if (curr.hasChild(c))
-                curr = curr.getChild(c);
-            else
-                curr = curr.createChild(c);
-        }
+        insert(s, 0);
+    }
+
+    /**
+     * Inserts s with a weight used to rank it in {@link #topK}, replacing the weight if s is already a word.
+     * The largest weight below each node on the path of s is kept up to date.
+     */
+    public void insert(String s, int weight) {
+        Node curr = walk(s, true, node -> node.maxWeight = Math.max(node.maxWeight, weight));
+        boolean lowered = curr.isEnd && weight < curr.weight;
         curr.lexeme = s;
         curr.isEnd = true;
+        curr.weight = weight;
+        if (lowered) {
+            // the old weight may have been the maximum of the path, recompute it from the bottom up.
+            List<Node> path = new ArrayList<>();
+            walk(s, false, path::add);
+            for (int i = path.size() - 1; i >= 0; i--)
+                path.get(i).maxWeight = maxWeightBelow(path.get(i));
+        }
     }
 
     public boolean hasPrefix(String s) {
+        return walk(s, false, null) != null;
+    }
+
+
+    public boolean hasWord(String s) {
+        Node curr = walk(s, false, null);
+        return curr != null && curr.isEnd;
+    }
+
+    /**
+     * Finds the longest word that text starts with from index from, the maximal munch rule of a lexer.
+     * Characters that the child storage cannot hold end the match rather than failing.
+     *
+     * @return the length in chars of the longest word matching text from index from, or -1 if no word does.
+     */
+    public int longestPrefixOf(CharSequence text, int from) {
         Node curr = root;
-        for (char c : s.toCharArray()) {
-            if (curr.hasChild(c))
-                curr = curr.getChild(c);
-            else
-                return false;
+        int longest = root.isEnd ? 0 : -1;
+        for (int i = from; i < text.length(); ) {
+            int cp = Character.codePointAt(text, i);
+            for (int k = 0, n = Utf8.length(cp); k < n; k++) {
+                int b = Utf8.byteAt(cp, n, k);
+                if (!curr.isValid(b) || (curr = curr.getChild(b)) == null) return longest;
+            }
+            i += Character.charCount(cp);
+            if (curr.isEnd) longest = i - from;
+        }
+        return longest;
+    }
 
+    /**
+     * Lazily enumerates the words starting with prefix, in ascending UTF-8 byte order.
+     * The words are produced one at a time by a depth first walk, no list of results is built.
+     */
+    public Iterator<String> wordsWithPrefix(String prefix) {
+        Node start = walk(prefix, false, null);
+        return new Iterator<>() {
+            private final Deque<Iterator<Node>> stack = new ArrayDeque<>();
+            private Node pending = start;
+            private Node next;
+
+            {
+                advance();
+            }
+
+            @Override
+            public boolean hasNext() {
+                return next != null;
+            }
+
+            @Override
+            public String next() {
+                if (next == null) throw new NoSuchElementException();
+                String lexeme = next.lexeme;
+                advance();
+                return lexeme;
+            }
+
+            private void advance() {
+                next = null;
+                while (next == null) {
+                    if (pending != null) {
+                        Node node = pending;
+                        pending = null;
+                        stack.push(node.getIterator());
+                        if (node.isEnd) next = node;
+                    } else if (stack.isEmpty()) {
+                        return;
+                    } else if (stack.peek().hasNext()) {
+                        pending = stack.peek().next();
+                    } else {
+                        stack.pop();
+                    }
+                }
+            }
+        };
+    }
+
+    /**
+     * Returns the k words with the largest weights starting with prefix, largest first.
+     * <p>
+     * A best first search ordered by {@link Node#maxWeight}: a subtree is only expanded once its maximum is the
+     * largest remaining candidate, so the search never descends into subtrees that cannot hold one of the k words.
+     * </p>
+     */
+    public List<String> topK(String prefix, int k) {
+        List<String> result = new ArrayList<>(Math.max(k, 0));
+        Node start = walk(prefix, false, null);
+        if (start == null || k <= 0) return result;
+
+        PriorityQueue<Candidate> queue = new PriorityQueue<>();
+        queue.add(new Candidate(start, false));
+        while (!queue.isEmpty() && result.size() < k) {
+            Candidate best = queue.poll();
+            if (best.isWord) {
+                result.add(best.node.lexeme);
+                continue;
+            }
+            if (best.node.isEnd) queue.add(new Candidate(best.node, true));
+            Iterator<Node> children = best.node.getIterator();
+            while (children.hasNext())
+                queue.add(new Candidate(children.next(), false));
         }
-        return true;
+        return result;
     }
 
+    /**
+     * A word or a subtree in the {@link #topK} search, ranked by its weight or the maximum weight below it.
+     * Words come before subtrees of equal weight.
+     */
+    private static class Candidate implements Comparable<Candidate> {
+        final Node node;
+        final boolean isWord;
+        final int weight;
 
-    public boolean hasWord(String s) {
+        Candidate(Node node, boolean isWord) {
+            this.node = node;
+            this.isWord = isWord;
+            this.weight = isWord ? node.weight : node.maxWeight;
+        }
+
+        @Override
+        public int compareTo(Candidate o) {
+            if (weight != o.weight) return Integer.compare(o.weight, weight);
+            return Boolean.compare(o.isWord, isWord);
+        }
+    }
+
+    private static int maxWeightBelow(Node node) {
+        int max = node.isEnd ? node.weight : Integer.MIN_VALUE;
+        Iterator<Node> children = node.getIterator();
+        while (children.hasNext())
+            max = Math.max(max, children.next().maxWeight);
+        return max;
+    }
+
+    /**
+     * Follows the UTF-8 bytes of s from the root.
+     *
+     * @param create  whether missing nodes are created.
+     * @param visitor if not null, called with the root and each node on the path.
+     * @return the node reached, or null if s leaves the trie and create is false.
+     */
+    private Node walk(CharSequence s, boolean create, Consumer<Node> visitor) {
         Node curr = root;
-        for (char c : s.toCharArray()) {
-            if (curr.hasChild(c))
-                curr = curr.getChild(c);
-            else
-                return false;
+        if (visitor != null) visitor.accept(curr);
+        for (int i = 0; i < s.length() && curr != null; ) {
+            char c = s.charAt(i);
+            if (c < 0x80) {
+                curr = step(curr, c, create, visitor);
+                i++;
+                continue;
+            }
+            int cp = Character.codePointAt(s, i);
+            for (int k = 0, n = Utf8.length(cp); k < n && curr != null; k++)
+                curr = step(curr, Utf8.byteAt(cp, n, k), create, visitor);
+            i += Character.charCount(cp);
         }
-        return curr.isEnd;
+        return curr;
+    }
+
+    private static Node step(Node curr, int c, boolean create, Consumer<Node> visitor) {
+        Node child = curr.getChild(c);
+        if (child == null && create)
+            child = curr.createChild(c);
+        if (child != null && visitor != null)
+            visitor.accept(child);
+        return child;
     }
 }
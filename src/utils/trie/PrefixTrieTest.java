@@ -2,8 +2,19 @@ package utils.trie;
 
 import org.junit.jupiter.api.Assertions;
 import org.junit.jupiter.api.Test;
+import utils.trie.arrStrategy.ArrStrategy;
+import utils.trie.arrStrategy.BitmapArrStrategy;
+import utils.trie.arrStrategy.ByteArrStrategy;
+import utils.trie.arrStrategy.SortedArrStrategy;
 
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
 import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.function.Supplier;
 
 import static org.junit.jupiter.api.Assertions.*;
 
@@ -41,4 +52,112 @@ class PrefixTrieTest {
         for (String prefix : prefixes)
             Assertions.assertTrue(trie.hasPrefix(prefix));
     }
-}
\ No newline at end of file
+
+    @Test
+    void testUtf8WordsForEachStrategy() {
+        List<Supplier<ArrStrategy>> strategies = List.of(ByteArrStrategy::new, BitmapArrStrategy::new,
+                SortedArrStrategy::new, SortedArrStrategy::adaptive);
+        String[] words = {"x1", ">=", "Größe", "größer", "変数", "\uD83D\uDE00ok", "a_b"};
+        for (Supplier<ArrStrategy> strategy : strategies) {
+            PrefixTrie trie = new PrefixTrie(strategy);
+            for (String word : words)
+                trie.insert(word);
+            for (String word : words)
+                Assertions.assertTrue(trie.hasWord(word));
+            Assertions.assertTrue(trie.hasPrefix("Grö"));
+            Assertions.assertTrue(trie.hasPrefix("変"));
+            Assertions.assertFalse(trie.hasWord("Größ"));
+            Assertions.assertFalse(trie.hasPrefix("大"));
+        }
+    }
+
+    @Test
+    void testLongestPrefixOf() {
+        PrefixTrie trie = new PrefixTrie(SortedArrStrategy::adaptive);
+        String[] operators = {"=", "==", "===", "<", "<=", "<<=", "!="};
+        for (String operator : operators)
+            trie.insert(operator);
+
+        Assertions.assertEquals(2, trie.longestPrefixOf("a == b", 2));
+        Assertions.assertEquals(3, trie.longestPrefixOf("a === b", 2));
+        Assertions.assertEquals(1, trie.longestPrefixOf("a =! b", 2));
+        Assertions.assertEquals(1, trie.longestPrefixOf("<<", 0));
+        Assertions.assertEquals(3, trie.longestPrefixOf("x<<=", 1));
+        Assertions.assertEquals(-1, trie.longestPrefixOf("a == b", 0));
+        Assertions.assertEquals(-1, trie.longestPrefixOf("!", 0));
+    }
+
+    @Test
+    void testLongestPrefixOfStopsAtInvalidCharacter() {
+        PrefixTrie trie = new PrefixTrie();
+        trie.insert("if");
+        trie.insert("iff");
+
+        Assertions.assertEquals(2, trie.longestPrefixOf(new StringBuilder("if (x)"), 0));
+        Assertions.assertEquals(3, trie.longestPrefixOf("iffy", 0));
+    }
+
+    @Test
+    void testWordsWithPrefix() {
+        PrefixTrie trie = new PrefixTrie();
+        String[] words = {"car", "cart", "care", "cat", "dog", "ca"};
+        for (String word : words)
+            trie.insert(word);
+
+        List<String> enumerated = new ArrayList<>();
+        trie.wordsWithPrefix("car").forEachRemaining(enumerated::add);
+        Assertions.assertEquals(List.of("car", "care", "cart"), enumerated);
+
+        enumerated.clear();
+        trie.wordsWithPrefix("").forEachRemaining(enumerated::add);
+        Assertions.assertEquals(List.of("ca", "car", "care", "cart", "cat", "dog"), enumerated);
+
+        Assertions.assertFalse(trie.wordsWithPrefix("x").hasNext());
+    }
+
+    @Test
+    void testTopK() {
+        PrefixTrie trie = new PrefixTrie();
+        trie.insert("car", 50);
+        trie.insert("cart", 10);
+        trie.insert("care", 70);
+        trie.insert("cat", 90);
+        trie.insert("carbon", 60);
+        trie.insert("dog", 100);
+
+        Assertions.assertEquals(List.of("dog", "cat", "care"), trie.topK("", 3));
+        Assertions.assertEquals(List.of("care", "carbon", "car", "cart"), trie.topK("car", 10));
+        Assertions.assertEquals(List.of(), trie.topK("x", 3));
+
+        // lowering a weight also lowers the maxima above it.
+        trie.insert("cat", 5);
+        Assertions.assertEquals(List.of("care", "carbon"), trie.topK("ca", 2));
+        Assertions.assertEquals(70, trie.root.getChild('c').maxWeight);
+    }
+
+    @Test
+    void testTopKMatchesSortedWeights() {
+        Random random = new Random(11);
+        PrefixTrie trie = new PrefixTrie();
+        Map<String, Integer> weights = new HashMap<>();
+        for (int i = 0; i < 5000; i++) {
+            char[] chars = new char[1 + random.nextInt(6)];
+            for (int j = 0; j < chars.length; j++)
+                chars[j] = (char) ('a' + random.nextInt(5));
+            String word = new String(chars);
+            int weight = random.nextInt(1_000_000);
+            weights.put(word, weight);
+            trie.insert(word, weight);
+        }
+
+        List<Integer> expected = new ArrayList<>();
+        for (Map.Entry<String, Integer> e : weights.entrySet())
+            if (e.getKey().startsWith("ab")) expected.add(e.getValue());
+        expected.sort(Comparator.reverseOrder());
+
+        List<Integer> actual = new ArrayList<>();
+        for (String word : trie.topK("ab", 20))
+            actual.add(weights.get(word));
+        Assertions.assertEquals(expected.subList(0, 20), actual);
+    }
+}
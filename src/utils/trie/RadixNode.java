@@ -0,0 +1,91 @@
+package utils.trie;
+
+import java.util.Arrays;
+
+/**
+ * A node of a {@link RadixTrie}.
+ * <p>
+ * The edge into the node is labelled with a slice {@code pool[offset, offset + length)} of the character pool
+ * of its trie, rather than with a single character. The children are kept sorted by the first character of
+ * their labels.
+ * </p>
+ */
+public class RadixNode {
+    private static final RadixNode[] NO_CHILDREN = new RadixNode[0];
+    private static final char[] NO_FIRSTS = new char[0];
+
+    public int offset;
+    public int length;
+    public boolean isEnd;
+    public String lexeme;
+    // the first char of the label of each child, ascending.
+    char[] firsts;
+    RadixNode[] children;
+    int count;
+
+    // the first automaton state on the edge into this node, assigned by an Aho-Corasick automaton.
+    public int state;
+
+    public RadixNode(int offset, int length) {
+        this.offset = offset;
+        this.length = length;
+        this.firsts = NO_FIRSTS;
+        this.children = NO_CHILDREN;
+        this.count = 0;
+    }
+
+    public int childCount() {
+        return count;
+    }
+
+    public RadixNode childAt(int i) {
+        return children[i];
+    }
+
+    /**
+     * @return the child whose label starts with c, or null if there is none.
+     */
+    public RadixNode getChild(char c) {
+        int idx = search(c);
+        return idx >= 0 ? children[idx] : null;
+    }
+
+    void putChild(char first, RadixNode child) {
+        int idx = search(first);
+        if (idx >= 0) {
+            children[idx] = child;
+            return;
+        }
+        idx = -idx - 1;
+        if (count == children.length) {
+            int capacity = Math.max(2, count * 2);
+            firsts = Arrays.copyOf(firsts, capacity);
+            children = Arrays.copyOf(children, capacity);
+        }
+        System.arraycopy(firsts, idx, firsts, idx + 1, count - idx);
+        System.arraycopy(children, idx, children, idx + 1, count - idx);
+        firsts[idx] = first;
+        children[idx] = child;
+        count++;
+    }
+
+    void removeChild(char first) {
+        int idx = search(first);
+        if (idx < 0) return;
+        System.arraycopy(firsts, idx + 1, firsts, idx, count - idx - 1);
+        System.arraycopy(children, idx + 1, children, idx, count - idx - 1);
+        count--;
+        children[count] = null;
+    }
+
+    private int search(char c) {
+        int lo = 0, hi = count - 1;
+        while (lo <= hi) {
+            int mid = (lo + hi) >>> 1;
+            if (firsts[mid] < c) lo = mid + 1;
+            else if (firsts[mid] > c) hi = mid - 1;
+            else return mid;
+        }
+        return -lo - 1;
+    }
+}
@@ -0,0 +1,274 @@
+package utils.trie;
+
+import java.util.ArrayDeque;
+import java.util.Arrays;
+import java.util.Deque;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+
+/**
+ * A path compressed (radix) variant of {@link PrefixTrie}.
+ * <p>
+ * Chains of single child nodes are collapsed into one {@link RadixNode} whose edge is labelled with several
+ * characters. The labels are slices of one shared char pool:
+ * </p>
+ * <ul>
+ * <li>inserting appends only the unmatched tail of a word to the pool.</li>
+ * <li>splitting an edge splits its slice in two, no characters are copied.</li>
+ * <li>deleting a word merges a node left with a single child into that child, which reuses the pool when the
+ * two slices are adjacent (as they are after a split), and otherwise copies both to the end of the pool.</li>
+ * </ul>
+ * <p>
+ * Deleting leaves the slices of removed and copied labels unused. Once they are more than half of the pool, the
+ * labels still in use are copied into a new pool, so insert and delete churn keeps the pool within a constant
+ * factor of the live labels.
+ * </p>
+ * <p>
+ * Iteration visits the words in ascending char order.
+ * </p>
+ */
+public class RadixTrie implements Iterable<String> {
+    private static final int INITIAL_POOL = 64;
+
+    public final RadixNode root;
+    private char[] pool;
+    private int poolSize;
+    // characters of the pool no label uses any more.
+    private int garbage;
+    private int size;
+
+    public RadixTrie() {
+        this.root = new RadixNode(0, 0);
+        this.pool = new char[INITIAL_POOL];
+        this.poolSize = 0;
+        this.size = 0;
+    }
+
+    public void insert(String s) {
+        RadixNode curr = root;
+        int i = 0, n = s.length();
+        while (i < n) {
+            RadixNode child = curr.getChild(s.charAt(i));
+            if (child == null) {
+                RadixNode leaf = new RadixNode(append(s, i), n - i);
+                curr.putChild(s.charAt(i), leaf);
+                curr = leaf;
+                break;
+            }
+
+            int m = matchLength(child, s, i);
+            if (m < child.length) {
+                RadixNode mid = new RadixNode(child.offset, m);
+                child.offset += m;
+                child.length -= m;
+                mid.putChild(pool[child.offset], child);
+                curr.putChild(pool[mid.offset], mid);
+                child = mid;
+            }
+            curr = child;
+            i += m;
+        }
+        if (!curr.isEnd) {
+            curr.isEnd = true;
+            size++;
+        }
+        curr.lexeme = s;
+    }
+
+    /**
+     * Removes s from the trie.
+     *
+     * @return true if s was a word of the trie.
+     */
+    public boolean delete(String s) {
+        RadixNode grandparent = null, parent = null, curr = root;
+        int i = 0, n = s.length();
+        while (i < n) {
+            RadixNode child = curr.getChild(s.charAt(i));
+            if (child == null || matchLength(child, s, i) < child.length) return false;
+            grandparent = parent;
+            parent = curr;
+            curr = child;
+            i += child.length;
+        }
+        if (!curr.isEnd) return false;
+
+        curr.isEnd = false;
+        curr.lexeme = null;
+        size--;
+        if (curr == root) return true;
+
+        if (curr.count == 0) {
+            parent.removeChild(pool[curr.offset]);
+            garbage += curr.length;
+            if (parent != root && !parent.isEnd && parent.count == 1)
+                mergeWithChild(grandparent, parent);
+        } else if (curr.count == 1) {
+            mergeWithChild(parent, curr);
+        }
+        if (garbage > poolSize / 2 && poolSize > INITIAL_POOL) compact();
+        return true;
+    }
+
+    public boolean hasPrefix(String s) {
+        return find(s, true) != null;
+    }
+
+    public boolean hasWord(String s) {
+        RadixNode node = find(s, false);
+        return node != null && node.isEnd;
+    }
+
+    /**
+     * @return the number of words in the trie.
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * @return the k-th character on the edge into node.
+     */
+    public char labelChar(RadixNode node, int k) {
+        return pool[node.offset + k];
+    }
+
+    /**
+     * @return an iterator over the words in ascending char order.
+     */
+    @Override
+    public Iterator<String> iterator() {
+        return new Iterator<>() {
+            private final Deque<RadixNode> stack = new ArrayDeque<>();
+            private RadixNode next;
+
+            {
+                stack.push(root);
+                advance();
+            }
+
+            @Override
+            public boolean hasNext() {
+                return next != null;
+            }
+
+            @Override
+            public String next() {
+                if (next == null) throw new NoSuchElementException();
+                String lexeme = next.lexeme;
+                advance();
+                return lexeme;
+            }
+
+            // a word is visited before the words it prefixes, and children in ascending order.
+            private void advance() {
+                next = null;
+                while (next == null && !stack.isEmpty()) {
+                    RadixNode node = stack.pop();
+                    for (int c = node.count - 1; c >= 0; c--)
+                        stack.push(node.children[c]);
+                    if (node.isEnd) next = node;
+                }
+            }
+        };
+    }
+
+    /**
+     * Follows s from the root.
+     *
+     * @param prefix whether s may end within the label of an edge.
+     * @return the node whose edge s ends on, or null if s leaves the trie or ends within an edge when
+     * prefix is false.
+     */
+    private RadixNode find(String s, boolean prefix) {
+        RadixNode curr = root;
+        int i = 0, n = s.length();
+        while (i < n) {
+            RadixNode child = curr.getChild(s.charAt(i));
+            if (child == null) return null;
+            int m = matchLength(child, s, i);
+            if (m < child.length)
+                return prefix && i + m == n ? child : null;
+            curr = child;
+            i += m;
+        }
+        return curr;
+    }
+
+    /**
+     * @return the number of leading characters of the label of node that match s from index i.
+     */
+    private int matchLength(RadixNode node, String s, int i) {
+        int m = 0, max = Math.min(node.length, s.length() - i);
+        while (m < max && pool[node.offset + m] == s.charAt(i + m))
+            m++;
+        return m;
+    }
+
+    /**
+     * Replaces node, which has a single child and is not a word, with that child under parent.
+     */
+    private void mergeWithChild(RadixNode parent, RadixNode node) {
+        RadixNode child = node.children[0];
+        if (node.offset + node.length == child.offset) {
+            child.offset = node.offset;
+        } else {
+            ensurePool(poolSize + node.length + child.length);
+            int offset = poolSize;
+            System.arraycopy(pool, node.offset, pool, poolSize, node.length);
+            System.arraycopy(pool, child.offset, pool, poolSize + node.length, child.length);
+            poolSize += node.length + child.length;
+            garbage += node.length + child.length;
+            child.offset = offset;
+        }
+        child.length += node.length;
+        parent.putChild(pool[child.offset], child);
+    }
+
+    /**
+     * Appends s from index i onwards to the pool.
+     *
+     * @return the offset of the appended characters.
+     */
+    private int append(String s, int i) {
+        int n = s.length() - i;
+        ensurePool(poolSize + n);
+        s.getChars(i, s.length(), pool, poolSize);
+        poolSize += n;
+        return poolSize - n;
+    }
+
+    /**
+     * Copies the labels in use into a new pool, in preorder so a node and its first child stay adjacent.
+     */
+    private void compact() {
+        int live = poolSize - garbage;
+        char[] compacted = new char[Math.max(INITIAL_POOL, live * 2)];
+        int end = 0;
+        Deque<RadixNode> stack = new ArrayDeque<>();
+        stack.push(root);
+        while (!stack.isEmpty()) {
+            RadixNode node = stack.pop();
+            System.arraycopy(pool, node.offset, compacted, end, node.length);
+            node.offset = end;
+            end += node.length;
+            for (int c = node.count - 1; c >= 0; c--)
+                stack.push(node.children[c]);
+        }
+        pool = compacted;
+        poolSize = end;
+        garbage = 0;
+    }
+
+    /**
+     * @return the number of characters of the pool in use, by live labels or garbage.
+     */
+    int poolSize() {
+        return poolSize;
+    }
+
+    private void ensurePool(int capacity) {
+        if (capacity > pool.length)
+            pool = Arrays.copyOf(pool, Math.max(capacity, pool.length * 2));
+    }
+}
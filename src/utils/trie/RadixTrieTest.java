@@ -0,0 +1,135 @@
+package utils.trie;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.TreeSet;
+
+class RadixTrieTest {
+
+    @Test
+    void testInsert() {
+        RadixTrie trie = new RadixTrie();
+        String[] words = {"he", "she", "his", "hers"};
+        for (String word : words)
+            trie.insert(word);
+        for (String word : words)
+            Assertions.assertTrue(trie.hasWord(word));
+        Assertions.assertFalse(trie.hasWord("h"));
+        Assertions.assertFalse(trie.hasWord("her"));
+        Assertions.assertFalse(trie.hasWord("bob"));
+        Assertions.assertEquals(4, trie.size());
+    }
+
+    @Test
+    void testHasPrefix() {
+        RadixTrie trie = new RadixTrie();
+        trie.insert("boba");
+        trie.insert("bobie");
+
+        String[] prefixes = {"boba", "bob", "bo", "b", "bobi", ""};
+        for (String prefix : prefixes)
+            Assertions.assertTrue(trie.hasPrefix(prefix));
+        Assertions.assertFalse(trie.hasPrefix("bobc"));
+        Assertions.assertFalse(trie.hasPrefix("bobiee"));
+    }
+
+    @Test
+    void testPathCompression() {
+        RadixTrie trie = new RadixTrie();
+        trie.insert("keyword");
+        trie.insert("keyboard");
+
+        // a single "key" edge with the "word" and "board" edges below it.
+        Assertions.assertEquals(1, trie.root.childCount());
+        RadixNode key = trie.root.childAt(0);
+        Assertions.assertEquals(3, key.length);
+        Assertions.assertEquals(2, key.childCount());
+    }
+
+    @Test
+    void testDelete() {
+        RadixTrie trie = new RadixTrie();
+        String[] words = {"test", "team", "tea", "toast"};
+        for (String word : words)
+            trie.insert(word);
+
+        Assertions.assertFalse(trie.delete("te"));
+        Assertions.assertTrue(trie.delete("tea"));
+        Assertions.assertFalse(trie.hasWord("tea"));
+        Assertions.assertTrue(trie.hasWord("team"));
+        Assertions.assertTrue(trie.delete("test"));
+        Assertions.assertTrue(trie.hasWord("team"));
+        Assertions.assertTrue(trie.hasWord("toast"));
+        Assertions.assertFalse(trie.delete("test"));
+        Assertions.assertEquals(2, trie.size());
+
+        // "team" is merged back into a single edge below "t".
+        RadixNode t = trie.root.childAt(0);
+        Assertions.assertEquals(2, t.childCount());
+        Assertions.assertEquals(3, t.childAt(0).length);
+    }
+
+    @Test
+    void testOrderedIteration() {
+        RadixTrie trie = new RadixTrie();
+        String[] words = {"b", "abc", "ab", "a", "ba", "c", "abd"};
+        for (String word : words)
+            trie.insert(word);
+
+        List<String> iterated = new ArrayList<>();
+        trie.forEach(iterated::add);
+        Assertions.assertEquals(List.of("a", "ab", "abc", "abd", "b", "ba", "c"), iterated);
+    }
+
+    @Test
+    void testRandomInsertDelete() {
+        Random random = new Random(5);
+        RadixTrie trie = new RadixTrie();
+        TreeSet<String> expected = new TreeSet<>();
+        for (int i = 0; i < 20000; i++) {
+            char[] chars = new char[1 + random.nextInt(5)];
+            for (int j = 0; j < chars.length; j++)
+                chars[j] = (char) ('a' + random.nextInt(4));
+            String word = new String(chars);
+            if (random.nextInt(3) == 0) {
+                Assertions.assertEquals(expected.remove(word), trie.delete(word));
+            } else {
+                expected.add(word);
+                trie.insert(word);
+            }
+        }
+
+        List<String> iterated = new ArrayList<>();
+        trie.forEach(iterated::add);
+        Assertions.assertEquals(new ArrayList<>(expected), iterated);
+        Assertions.assertEquals(expected.size(), trie.size());
+    }
+
+    @Test
+    void testChurnKeepsPoolBounded() {
+        Random random = new Random(7);
+        RadixTrie trie = new RadixTrie();
+        List<String> words = new ArrayList<>();
+        for (int i = 0; i < 100; i++)
+            words.add("w" + random.nextInt(1000) + "x" + random.nextInt(1000));
+        words.forEach(trie::insert);
+        int maxPool = 0;
+        for (int round = 0; round < 1000; round++) {
+            String word = words.get(random.nextInt(words.size()));
+            trie.delete(word);
+            trie.insert(word);
+            maxPool = Math.max(maxPool, trie.poolSize());
+        }
+        int live = 0;
+        for (String word : words)
+            live += word.length();
+        Assertions.assertTrue(maxPool <= 2 * live, "pool of " + maxPool + " for " + live + " chars of words");
+        for (String word : words)
+            Assertions.assertTrue(trie.hasWord(word));
+        Assertions.assertEquals(new TreeSet<>(words).size(), trie.size());
+    }
+}
@@ -0,0 +1,233 @@
+package utils.trie;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.IntBuffer;
+import java.nio.LongBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+
+/**
+ * A read only {@link DoubleArrayTrie} answering queries straight from a memory-mapped file.
+ * <p>
+ * Opening a snapshot maps the file and wraps views around its arrays, nothing is deserialized.
+ * The pages of the file are loaded by the OS as the queries touch them, so a trie of millions of words is
+ * ready in about the time it takes to open the file.
+ * </p>
+ * <p>File format, little endian, every array aligned to its element size:
+ * </p>
+ * <blockquote><pre>
+ * int  magic            "TRIE"
+ * int  version
+ * int  states           length of base, check and lexemes
+ * int  codesLength      length of codes
+ * int  terminalWords    length of terminal
+ * int  size             number of words
+ * int  poolBytes        length of pool
+ * int  padding
+ * int  codes[codesLength]      char to code, 0 for chars not in the trie
+ * int  base[states]            child of s on code c is base[s] + c
+ * int  check[states]           ...if check[base[s] + c] == s
+ * int  lexemes[states]         offset of the word of a terminal state into pool, -1 otherwise
+ * long terminal[terminalWords] bit-set of the terminal states
+ * byte pool[poolBytes]         every word as an int byte length followed by its UTF-8 bytes
+ * </pre></blockquote>
+ */
+public class TrieSnapshot {
+    private static final int MAGIC = 0x54524945;
+    private static final int VERSION = 1;
+    private static final int HEADER_BYTES = 32;
+    private static final int ROOT = 1;
+
+    private final IntBuffer codes;
+    private final IntBuffer base;
+    private final IntBuffer check;
+    private final IntBuffer lexemes;
+    private final LongBuffer terminal;
+    private final ByteBuffer pool;
+    private final int size;
+
+    private TrieSnapshot(ByteBuffer buffer) throws IOException {
+        buffer.order(ByteOrder.LITTLE_ENDIAN);
+        if (buffer.capacity() < HEADER_BYTES || buffer.getInt(0) != MAGIC)
+            throw new IOException("not a trie snapshot");
+        if (buffer.getInt(4) != VERSION)
+            throw new IOException("unsupported trie snapshot version " + buffer.getInt(4));
+
+        int states = buffer.getInt(8);
+        int codesLength = buffer.getInt(12);
+        int terminalWords = buffer.getInt(16);
+        this.size = buffer.getInt(20);
+        int poolBytes = buffer.getInt(24);
+        long[] offsets = layout(states, codesLength, terminalWords, poolBytes);
+        if (states < 0 || codesLength < 0 || terminalWords < 0 || poolBytes < 0 || offsets[6] != buffer.capacity())
+            throw new IOException("truncated or corrupt trie snapshot");
+
+        this.codes = slice(buffer, offsets[0], offsets[1]).asIntBuffer();
+        this.base = slice(buffer, offsets[1], offsets[2]).asIntBuffer();
+        this.check = slice(buffer, offsets[2], offsets[3]).asIntBuffer();
+        this.lexemes = slice(buffer, offsets[3], offsets[4]).asIntBuffer();
+        this.terminal = slice(buffer, offsets[4], offsets[5]).asLongBuffer();
+        this.pool = slice(buffer, offsets[5], offsets[6]);
+    }
+
+    /**
+     * Maps the snapshot at path into memory.
+     *
+     * @throws IOException if the file cannot be read or is not a valid snapshot.
+     */
+    public static TrieSnapshot open(Path path) throws IOException {
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            // the mapping stays valid after the channel is closed.
+            MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+            return new TrieSnapshot(buffer);
+        }
+    }
+
+    public boolean hasPrefix(String s) {
+        return walk(s) != 0;
+    }
+
+    public boolean hasWord(String s) {
+        int state = walk(s);
+        return state != 0 && isTerminal(state);
+    }
+
+    /**
+     * @return the number of words in the snapshot.
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * @return an iterator decoding the words of the snapshot from its string pool.
+     */
+    public Iterator<String> words() {
+        return new Iterator<>() {
+            private int offset = 0;
+
+            @Override
+            public boolean hasNext() {
+                return offset < pool.capacity();
+            }
+
+            @Override
+            public String next() {
+                if (!hasNext()) throw new NoSuchElementException();
+                String word = lexemeAt(offset);
+                offset += Integer.BYTES + pool.getInt(offset);
+                return word;
+            }
+        };
+    }
+
+    /**
+     * @return the word s, decoded from the string pool, or null if s is not a word.
+     */
+    public String lexeme(String s) {
+        int state = walk(s);
+        if (state == 0 || !isTerminal(state)) return null;
+        return lexemeAt(lexemes.get(state));
+    }
+
+    private String lexemeAt(int offset) {
+        byte[] bytes = new byte[pool.getInt(offset)];
+        pool.get(offset + Integer.BYTES, bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    private int walk(String s) {
+        int state = ROOT;
+        int codesLength = codes.capacity(), states = check.capacity();
+        for (int i = 0; i < s.length(); i++) {
+            char c = s.charAt(i);
+            int code = c < codesLength ? codes.get(c) : 0;
+            if (code == 0) return 0;
+            int t = base.get(state) + code;
+            if (t >= states || check.get(t) != state) return 0;
+            state = t;
+        }
+        return state;
+    }
+
+    private boolean isTerminal(int state) {
+        return (terminal.get(state >>> 6) & (1L << state)) != 0;
+    }
+
+    /**
+     * Writes a frozen trie in the snapshot format, through a temporary file that is moved onto path once
+     * complete so that a reader never maps a partly written snapshot.
+     */
+    static void write(DoubleArrayTrie trie, Path path) throws IOException {
+        int[] base = trie.base(), check = trie.check(), codes = trie.codes();
+        long[] terminal = trie.terminal();
+        int[] lexemes = new int[base.length];
+        Arrays.fill(lexemes, -1);
+
+        ByteArrayOutputStream poolBytes = new ByteArrayOutputStream();
+        trie.forEachWord((word, state) -> {
+            byte[] bytes = word.getBytes(StandardCharsets.UTF_8);
+            lexemes[state] = poolBytes.size();
+            poolBytes.write(bytes.length);
+            poolBytes.write(bytes.length >>> 8);
+            poolBytes.write(bytes.length >>> 16);
+            poolBytes.write(bytes.length >>> 24);
+            poolBytes.writeBytes(bytes);
+        });
+        byte[] pool = poolBytes.toByteArray();
+
+        long[] offsets = layout(base.length, codes.length, terminal.length, pool.length);
+        if (offsets[6] > Integer.MAX_VALUE)
+            throw new IOException("trie too large for a single mapped snapshot");
+        ByteBuffer buffer = ByteBuffer.allocate((int) offsets[6]).order(ByteOrder.LITTLE_ENDIAN);
+        buffer.putInt(MAGIC).putInt(VERSION).putInt(base.length).putInt(codes.length)
+                .putInt(terminal.length).putInt(trie.size()).putInt(pool.length).putInt(0);
+        slice(buffer, offsets[0], offsets[1]).asIntBuffer().put(codes);
+        slice(buffer, offsets[1], offsets[2]).asIntBuffer().put(base);
+        slice(buffer, offsets[2], offsets[3]).asIntBuffer().put(check);
+        slice(buffer, offsets[3], offsets[4]).asIntBuffer().put(lexemes);
+        slice(buffer, offsets[4], offsets[5]).asLongBuffer().put(terminal);
+        slice(buffer, offsets[5], offsets[6]).put(pool);
+
+        Path tmp = path.resolveSibling(path.getFileName() + ".tmp");
+        try (FileChannel channel = FileChannel.open(tmp, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                StandardOpenOption.TRUNCATE_EXISTING)) {
+            buffer.clear();
+            while (buffer.hasRemaining())
+                channel.write(buffer);
+        }
+        Files.move(tmp, path, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    /**
+     * @return the start offsets of codes, base, check, lexemes, terminal and pool, followed by the file length.
+     */
+    private static long[] layout(int states, int codesLength, int terminalWords, int poolBytes) {
+        long[] offsets = new long[7];
+        offsets[0] = HEADER_BYTES;
+        offsets[1] = offsets[0] + 4L * codesLength;
+        offsets[2] = offsets[1] + 4L * states;
+        offsets[3] = offsets[2] + 4L * states;
+        offsets[4] = offsets[3] + 4L * states;
+        // the longs of terminal are aligned to 8 bytes.
+        offsets[4] = (offsets[4] + 7) & ~7L;
+        offsets[5] = offsets[4] + 8L * terminalWords;
+        offsets[6] = offsets[5] + poolBytes;
+        return offsets;
+    }
+
+    private static ByteBuffer slice(ByteBuffer buffer, long from, long to) {
+        return buffer.slice((int) from, (int) (to - from)).order(ByteOrder.LITTLE_ENDIAN);
+    }
+}
@@ -0,0 +1,86 @@
+package utils.trie;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.Random;
+import java.util.Set;
+
+class TrieSnapshotTest {
+    @TempDir
+    Path dir;
+
+    @Test
+    void testQueriesMatchTrie() throws IOException {
+        Random random = new Random(9);
+        DoubleArrayTrie trie = new DoubleArrayTrie();
+        Set<String> words = new HashSet<>();
+        for (int i = 0; i < 10000; i++) {
+            char[] chars = new char[1 + random.nextInt(6)];
+            for (int j = 0; j < chars.length; j++)
+                chars[j] = (char) ('a' + random.nextInt(6));
+            words.add(new String(chars));
+        }
+        words.add("Größe");
+        for (String word : words)
+            trie.insert(word);
+        trie.freeze();
+
+        Path path = dir.resolve("words.trie");
+        trie.writeSnapshot(path);
+        TrieSnapshot snapshot = TrieSnapshot.open(path);
+
+        Assertions.assertEquals(trie.size(), snapshot.size());
+        for (String word : words) {
+            Assertions.assertTrue(snapshot.hasWord(word));
+            Assertions.assertEquals(word, snapshot.lexeme(word));
+        }
+        for (int i = 0; i < 10000; i++) {
+            char[] chars = new char[1 + random.nextInt(7)];
+            for (int j = 0; j < chars.length; j++)
+                chars[j] = (char) ('a' + random.nextInt(7));
+            String word = new String(chars);
+            Assertions.assertEquals(trie.hasWord(word), snapshot.hasWord(word));
+            Assertions.assertEquals(trie.hasPrefix(word), snapshot.hasPrefix(word));
+        }
+        Assertions.assertTrue(snapshot.hasPrefix("Grö"));
+        Assertions.assertNull(snapshot.lexeme("Grö"));
+
+        Set<String> decoded = new HashSet<>();
+        Iterator<String> it = snapshot.words();
+        while (it.hasNext())
+            decoded.add(it.next());
+        Assertions.assertEquals(words, decoded);
+    }
+
+    @Test
+    void testUnfrozenTrieCannotBeWritten() {
+        DoubleArrayTrie trie = new DoubleArrayTrie();
+        trie.insert("he");
+        Assertions.assertThrows(IllegalStateException.class, () -> trie.writeSnapshot(dir.resolve("he.trie")));
+    }
+
+    @Test
+    void testCorruptSnapshot() throws IOException {
+        DoubleArrayTrie trie = new DoubleArrayTrie();
+        trie.insert("he");
+        trie.freeze();
+        Path path = dir.resolve("he.trie");
+        trie.writeSnapshot(path);
+
+        byte[] bytes = Files.readAllBytes(path);
+        Files.write(path, Arrays.copyOf(bytes, bytes.length - 1));
+        Assertions.assertThrows(IOException.class, () -> TrieSnapshot.open(path));
+
+        bytes[0] = 'X';
+        Files.write(path, bytes);
+        Assertions.assertThrows(IOException.class, () -> TrieSnapshot.open(path));
+    }
+}
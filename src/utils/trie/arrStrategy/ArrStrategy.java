@@ -1,9 +1,35 @@
 package utils.trie.arrStrategy;
 
+import utils.trie.Node;
+
+import java.util.Iterator;
+
+/**
+ * Storage of the children of a {@link Node}, keyed by the character or UTF-8 byte on the edge to the child.
+ * <p>
+ * {@link #put} returns the strategy that holds the children afterwards, which lets a strategy replace itself
+ * with a larger one as the fan-out grows (see {@link SortedArrStrategy#adaptive()}).
+ * </p>
+ */
 public interface ArrStrategy {
+    /**
+     * @return the number of children that can be stored without growing.
+     */
     public int size();
 
-    public int index(int c);
-
     public boolean isValid(int c);
+
+    public Node get(int c);
+
+    /**
+     * Stores node as the child on c.
+     *
+     * @return the strategy now holding the children, either this or a replacement.
+     */
+    public ArrStrategy put(int c, Node node);
+
+    /**
+     * @return an iterator over the children in ascending order of their keys.
+     */
+    public Iterator<Node> iterator();
 }
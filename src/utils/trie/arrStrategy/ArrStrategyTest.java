@@ -0,0 +1,92 @@
+package utils.trie.arrStrategy;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import utils.trie.Node;
+
+import java.util.Iterator;
+import java.util.List;
+import java.util.Random;
+import java.util.function.Supplier;
+
+class ArrStrategyTest {
+    private static final List<Supplier<ArrStrategy>> BYTE_STRATEGIES = List.of(ByteArrStrategy::new,
+            BitmapArrStrategy::new, SortedArrStrategy::new, SortedArrStrategy::adaptive, IndexedArrStrategy::new);
+
+    @Test
+    void testLowAlpha() {
+        ArrStrategy strategy = new LowAlphaArrStrategy();
+        Assertions.assertEquals(26, strategy.size());
+        Assertions.assertTrue(strategy.isValid('a'));
+        Assertions.assertFalse(strategy.isValid('A'));
+        Node node = new Node('q');
+        Assertions.assertSame(strategy, strategy.put('q', node));
+        Assertions.assertSame(node, strategy.get('q'));
+        Assertions.assertNull(strategy.get('r'));
+    }
+
+    @Test
+    void testPutGetAndOrderForAnyFanOut() {
+        Random random = new Random(3);
+        for (Supplier<ArrStrategy> supplier : BYTE_STRATEGIES) {
+            for (int fanOut : new int[]{1, 4, 5, 16, 17, 48, 49, 256}) {
+                ArrStrategy strategy = supplier.get();
+                Node[] expected = new Node[256];
+                int[] keys = shuffledBytes(random);
+                for (int i = 0; i < fanOut; i++) {
+                    expected[keys[i]] = new Node(keys[i], supplier);
+                    strategy = strategy.put(keys[i], expected[keys[i]]);
+                }
+
+                for (int c = 0; c < 256; c++)
+                    Assertions.assertSame(expected[c], strategy.get(c));
+                Iterator<Node> it = strategy.iterator();
+                for (int c = 0; c < 256; c++) {
+                    if (expected[c] == null) continue;
+                    Assertions.assertTrue(it.hasNext());
+                    Assertions.assertSame(expected[c], it.next());
+                }
+                Assertions.assertFalse(it.hasNext());
+            }
+        }
+    }
+
+    @Test
+    void testAdaptiveGrowsThroughNodeSizes() {
+        ArrStrategy strategy = SortedArrStrategy.adaptive();
+        Supplier<ArrStrategy> supplier = SortedArrStrategy::adaptive;
+        for (int c = 0; c < 256; c++) {
+            strategy = strategy.put(c, new Node(c, supplier));
+            if (c < 16)
+                Assertions.assertInstanceOf(SortedArrStrategy.class, strategy);
+            else if (c < 48)
+                Assertions.assertInstanceOf(IndexedArrStrategy.class, strategy);
+            else
+                Assertions.assertInstanceOf(ByteArrStrategy.class, strategy);
+        }
+    }
+
+    @Test
+    void testReplaceExistingChild() {
+        for (Supplier<ArrStrategy> supplier : BYTE_STRATEGIES) {
+            ArrStrategy strategy = supplier.get();
+            strategy = strategy.put(7, new Node(7, supplier));
+            Node replacement = new Node(7, supplier);
+            strategy = strategy.put(7, replacement);
+            Assertions.assertSame(replacement, strategy.get(7));
+        }
+    }
+
+    private int[] shuffledBytes(Random random) {
+        int[] keys = new int[256];
+        for (int i = 0; i < keys.length; i++)
+            keys[i] = i;
+        for (int i = keys.length - 1; i > 0; i--) {
+            int j = random.nextInt(i + 1);
+            int t = keys[i];
+            keys[i] = keys[j];
+            keys[j] = t;
+        }
+        return keys;
+    }
+}
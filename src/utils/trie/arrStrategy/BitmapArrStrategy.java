@@ -0,0 +1,96 @@
+package utils.trie.arrStrategy;
+
+import utils.trie.Node;
+import utils.trie.NodeIterator;
+
+import java.util.Iterator;
+
+/**
+ * A popcount indexed compact child array, as used by hash array mapped tries.
+ * <p>
+ * A 256-bit bitmap records which bytes have a child, and the children are stored densely in key order.
+ * The slot of the child on byte c is the number of set bits below c:
+ * </p>
+ * <blockquote><pre>
+ * index(c) = bitCount(bitmap & ((1 << c) - 1))
+ * </pre></blockquote>
+ * <p>
+ * The array is copied and grown by one slot on every put, so it never holds empty slots.
+ * </p>
+ */
+public class BitmapArrStrategy implements ArrStrategy {
+    private static final Node[] EMPTY = new Node[0];
+
+    // bits for bytes 0-63, 64-127, 128-191 and 192-255.
+    private long bits0, bits1, bits2, bits3;
+    private Node[] nodes = EMPTY;
+
+    @Override
+    public int size() {
+        return nodes.length;
+    }
+
+    @Override
+    public boolean isValid(int c) {
+        return c >= 0 && c <= 0xFF;
+    }
+
+    @Override
+    public Node get(int c) {
+        long word = word(c >>> 6);
+        long bit = 1L << c;
+        if ((word & bit) == 0) return null;
+        return nodes[index(c)];
+    }
+
+    @Override
+    public ArrStrategy put(int c, Node node) {
+        int idx = index(c);
+        long bit = 1L << c;
+        if ((word(c >>> 6) & bit) != 0) {
+            nodes[idx] = node;
+            return this;
+        }
+
+        Node[] grown = new Node[nodes.length + 1];
+        System.arraycopy(nodes, 0, grown, 0, idx);
+        System.arraycopy(nodes, idx, grown, idx + 1, nodes.length - idx);
+        grown[idx] = node;
+        nodes = grown;
+        switch (c >>> 6) {
+            case 0 -> bits0 |= bit;
+            case 1 -> bits1 |= bit;
+            case 2 -> bits2 |= bit;
+            default -> bits3 |= bit;
+        }
+        return this;
+    }
+
+    @Override
+    public Iterator<Node> iterator() {
+        return new NodeIterator(nodes);
+    }
+
+    /**
+     * @return the number of children on bytes smaller than c.
+     */
+    private int index(int c) {
+        long below = (1L << c) - 1;
+        return switch (c >>> 6) {
+            case 0 -> Long.bitCount(bits0 & below);
+            case 1 -> Long.bitCount(bits0) + Long.bitCount(bits1 & below);
+            case 2 -> Long.bitCount(bits0) + Long.bitCount(bits1) + Long.bitCount(bits2 & below);
+            default -> Long.bitCount(bits0) + Long.bitCount(bits1) + Long.bitCount(bits2)
+                    + Long.bitCount(bits3 & below);
+        };
+    }
+
+    private long word(int i) {
+        return switch (i) {
+            case 0 -> bits0;
+            case 1 -> bits1;
+            case 2 -> bits2;
+            default -> bits3;
+        };
+    }
+}
@@ -0,0 +1,40 @@
+package utils.trie.arrStrategy;
+
+import utils.trie.Node;
+import utils.trie.NodeIterator;
+
+import java.util.Iterator;
+
+/**
+ * A 256-way child array indexed directly by byte, for keys over arbitrary UTF-8 bytes.
+ * This is the node256 of an adaptive radix tree.
+ */
+public class ByteArrStrategy implements ArrStrategy {
+    private final Node[] nodes = new Node[256];
+
+    @Override
+    public int size() {
+        return nodes.length;
+    }
+
+    @Override
+    public boolean isValid(int c) {
+        return c >= 0 && c <= 0xFF;
+    }
+
+    @Override
+    public Node get(int c) {
+        return nodes[c];
+    }
+
+    @Override
+    public ArrStrategy put(int c, Node node) {
+        nodes[c] = node;
+        return this;
+    }
+
+    @Override
+    public Iterator<Node> iterator() {
+        return new NodeIterator(nodes);
+    }
+}
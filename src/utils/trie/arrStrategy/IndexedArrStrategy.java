@@ -0,0 +1,82 @@
+package utils.trie.arrStrategy;
+
+import utils.trie.Node;
+
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+
+/**
+ * Up to 48 children indexed through a 256 entry byte table, the node48 of an adaptive radix tree.
+ * <p>
+ * {@code index[c]} holds the slot of the child on byte c plus one, 0 when there is no child on c.
+ * Once full the strategy is replaced with a {@link ByteArrStrategy}.
+ * </p>
+ */
+public class IndexedArrStrategy implements ArrStrategy {
+    private static final int CAPACITY = 48;
+
+    private final byte[] index = new byte[256];
+    private final Node[] nodes = new Node[CAPACITY];
+    private int count;
+
+    @Override
+    public int size() {
+        return CAPACITY;
+    }
+
+    @Override
+    public boolean isValid(int c) {
+        return c >= 0 && c <= 0xFF;
+    }
+
+    @Override
+    public Node get(int c) {
+        int slot = index[c];
+        return slot == 0 ? null : nodes[slot - 1];
+    }
+
+    @Override
+    public ArrStrategy put(int c, Node node) {
+        int slot = index[c];
+        if (slot != 0) {
+            nodes[slot - 1] = node;
+            return this;
+        }
+
+        if (count == CAPACITY) {
+            ArrStrategy full = new ByteArrStrategy();
+            for (int k = 0; k < index.length; k++)
+                if (index[k] != 0) full.put(k, nodes[index[k] - 1]);
+            return full.put(c, node);
+        }
+        nodes[count] = node;
+        index[c] = (byte) ++count;
+        return this;
+    }
+
+    @Override
+    public Iterator<Node> iterator() {
+        return new Iterator<>() {
+            private int k = skip(0);
+
+            @Override
+            public boolean hasNext() {
+                return k < index.length;
+            }
+
+            @Override
+            public Node next() {
+                if (!hasNext()) throw new NoSuchElementException();
+                Node node = nodes[index[k] - 1];
+                k = skip(k + 1);
+                return node;
+            }
+
+            private int skip(int from) {
+                while (from < index.length && index[from] == 0)
+                    from++;
+                return from;
+            }
+        };
+    }
+}
@@ -1,13 +1,18 @@
 package utils.trie.arrStrategy;
 
+import utils.trie.Node;
+import utils.trie.NodeIterator;
+
+import java.util.Iterator;
 
 public class LowAlphaArrStrategy implements ArrStrategy {
+    private final Node[] nodes = new Node[size()];
+
     @Override
     public int size() {
         return index('z') + 1;
     }
 
-    @Override
     public int index(int c) {
         assert isValid(c) : "This storage only stores lower case alphabets from a-z.";
         return c - (int) 'a';
@@ -17,4 +22,20 @@ public class LowAlphaArrStrategy implements ArrStrategy {
     public boolean isValid(int c) {
         return c >= (int) 'a' && c <= (int) 'z';
     }
+
+    @Override
+    public Node get(int c) {
+        return nodes[index(c)];
+    }
+
+    @Override
+    public ArrStrategy put(int c, Node node) {
+        nodes[index(c)] = node;
+        return this;
+    }
+
+    @Override
+    public Iterator<Node> iterator() {
+        return new NodeIterator(nodes);
+    }
 }
@@ -0,0 +1,124 @@
+package utils.trie.arrStrategy;
+
+import utils.trie.Node;
+import utils.trie.NodeIterator;
+
+import java.util.Arrays;
+import java.util.Iterator;
+
+/**
+ * A small array of children kept sorted by their byte key, for nodes with few children.
+ * <p>
+ * The arrays start with room for 4 children and grow fourfold when full, up to a limit:
+ * </p>
+ * <ul>
+ * <li>{@link #SortedArrStrategy()} grows up to 256 children and never changes strategy.</li>
+ * <li>{@link #adaptive()} grows up to 16 children and is then replaced with an {@link IndexedArrStrategy},
+ * which in turn is replaced with a {@link ByteArrStrategy}. These are the node4, node16, node48 and node256
+ * of an <a href="https://db.in.tum.de/~leis/papers/ART.pdf">adaptive radix tree</a>.</li>
+ * </ul>
+ */
+public class SortedArrStrategy implements ArrStrategy {
+    private static final int INITIAL_CAPACITY = 4;
+    private static final int ADAPTIVE_LIMIT = 16;
+
+    private final int limit;
+    private byte[] keys;
+    private Node[] nodes;
+    private int count;
+
+    public SortedArrStrategy() {
+        this(256);
+    }
+
+    private SortedArrStrategy(int limit) {
+        this.limit = limit;
+        this.keys = new byte[INITIAL_CAPACITY];
+        this.nodes = new Node[INITIAL_CAPACITY];
+        this.count = 0;
+    }
+
+    /**
+     * @return a strategy that changes representation as the number of children grows.
+     */
+    public static SortedArrStrategy adaptive() {
+        return new SortedArrStrategy(ADAPTIVE_LIMIT);
+    }
+
+    @Override
+    public int size() {
+        return nodes.length;
+    }
+
+    @Override
+    public boolean isValid(int c) {
+        return c >= 0 && c <= 0xFF;
+    }
+
+    @Override
+    public Node get(int c) {
+        int idx = search(c);
+        return idx >= 0 ? nodes[idx] : null;
+    }
+
+    @Override
+    public ArrStrategy put(int c, Node node) {
+        int idx = search(c);
+        if (idx >= 0) {
+            nodes[idx] = node;
+            return this;
+        }
+
+        if (count == nodes.length) {
+            if (nodes.length >= limit) return promote().put(c, node);
+            int capacity = Math.min(nodes.length * 4, limit);
+            keys = Arrays.copyOf(keys, capacity);
+            nodes = Arrays.copyOf(nodes, capacity);
+        }
+        idx = -idx - 1;
+        System.arraycopy(keys, idx, keys, idx + 1, count - idx);
+        System.arraycopy(nodes, idx, nodes, idx + 1, count - idx);
+        keys[idx] = (byte) c;
+        nodes[idx] = node;
+        count++;
+        return this;
+    }
+
+    @Override
+    public Iterator<Node> iterator() {
+        return new NodeIterator(nodes);
+    }
+
+    /**
+     * Searches for c in the sorted keys, scanning linearly for the few keys of a small node.
+     *
+     * @return the index of c, or (-(insertion point) - 1) if c is absent.
+     */
+    private int search(int c) {
+        if (count <= INITIAL_CAPACITY) {
+            for (int i = 0; i < count; i++) {
+                int k = keys[i] & 0xFF;
+                if (k == c) return i;
+                if (k > c) return -i - 1;
+            }
+            return -count - 1;
+        }
+
+        int lo = 0, hi = count - 1;
+        while (lo <= hi) {
+            int mid = (lo + hi) >>> 1;
+            int k = keys[mid] & 0xFF;
+            if (k < c) lo = mid + 1;
+            else if (k > c) hi = mid - 1;
+            else return mid;
+        }
+        return -lo - 1;
+    }
+
+    private ArrStrategy promote() {
+        ArrStrategy indexed = new IndexedArrStrategy();
+        for (int i = 0; i < count; i++)
+            indexed = indexed.put(keys[i] & 0xFF, nodes[i]);
+        return indexed;
+    }
+}